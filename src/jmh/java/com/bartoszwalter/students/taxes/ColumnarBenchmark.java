@@ -0,0 +1,137 @@
+package com.bartoszwalter.students.taxes;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-row throughput of the columnar engines against calling
+ * calculateTax in a loop.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"--add-modules", "jdk.incubator.vector"})
+@OperationsPerInvocation(ColumnarBenchmark.ROWS)
+public class ColumnarBenchmark {
+
+    /**
+     * Number of rows per batch.
+     */
+    static final int ROWS = 4096;
+
+    /**
+     * Distribution the incomes are drawn from.
+     */
+    @Param({"TYPICAL"})
+    private IncomeDistribution distribution;
+
+    /**
+     * Gross incomes as BigDecimals.
+     */
+    private BigDecimal[] incomes;
+
+    /**
+     * Gross incomes in grosze.
+     */
+    private long[] grossCents;
+
+    /**
+     * Contract codes.
+     */
+    private byte[] codes;
+
+    /**
+     * Contract types matching the codes.
+     */
+    private ContractType[] types;
+
+    /**
+     * Reused result columns.
+     */
+    private TaxResultColumns results;
+
+    /**
+     * Calculator used by the loop baseline.
+     */
+    private final TaxCalculator calculator = new TaxCalculator();
+
+    /**
+     * Engine calculating one row at a time.
+     */
+    private final ColumnarTaxEngine scalar = ColumnarTaxEngine.scalar();
+
+    /**
+     * Engine using the Vector API.
+     */
+    private final ColumnarTaxEngine vectorized =
+            ColumnarTaxEngine.vectorized();
+
+    /**
+     * Prepares the batch.
+     */
+    @Setup
+    public void setUp() {
+        incomes = distribution.generate(ROWS);
+        grossCents = new long[ROWS];
+        codes = new byte[ROWS];
+        types = new ContractType[ROWS];
+        for (int i = 0; i < ROWS; i++) {
+            grossCents[i] = incomes[i].movePointRight(2).longValueExact();
+            types[i] = ContractType.values()[i & 1];
+            codes[i] = (byte) types[i].getCode();
+        }
+        results = new TaxResultColumns(ROWS);
+    }
+
+    /**
+     * Baseline: calculateTax for every row.
+     *
+     * @return the sum of net incomes
+     */
+    @Benchmark
+    public BigDecimal calculateTaxLoop() {
+        BigDecimal sum = BigDecimal.ZERO;
+        for (int i = 0; i < ROWS; i++) {
+            sum = sum.add(calculator.calculateTax(incomes[i], types[i])
+                    .netIncome());
+        }
+        return sum;
+    }
+
+    /**
+     * Columnar engine without the Vector API.
+     *
+     * @return the result columns
+     */
+    @Benchmark
+    public TaxResultColumns scalarColumns() {
+        scalar.calculate(grossCents, codes, results);
+        return results;
+    }
+
+    /**
+     * Columnar engine with the Vector API.
+     *
+     * @return the result columns
+     */
+    @Benchmark
+    public TaxResultColumns vectorColumns() {
+        vectorized.calculate(grossCents, codes, results);
+        return results;
+    }
+}
@@ -0,0 +1,45 @@
+package com.bartoszwalter.students.taxes;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of the individual calculation components.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ComponentBenchmark {
+
+    /**
+     * Social contributions calculation.
+     *
+     * @param incomes the income supply
+     * @return the contributions
+     */
+    @Benchmark
+    public SocialContributions socialContributions(
+            final IncomeState incomes) {
+        return SocialContributions.calculate(incomes.next());
+    }
+
+    /**
+     * Health insurance calculation.
+     *
+     * @param incomes the income supply
+     * @return the health insurance
+     */
+    @Benchmark
+    public HealthInsurance healthInsurance(final IncomeState incomes) {
+        return HealthInsurance.calculate(incomes.next());
+    }
+}
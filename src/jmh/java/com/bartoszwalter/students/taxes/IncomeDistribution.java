@@ -0,0 +1,79 @@
+package com.bartoszwalter.students.taxes;
+
+import java.math.BigDecimal;
+import java.util.Random;
+
+/**
+ * Income distributions used to feed the benchmarks.
+ * Samples are drawn with a fixed seed so runs are comparable.
+ */
+public enum IncomeDistribution {
+    /**
+     * Incomes clustered around the minimum wage.
+     */
+    MINIMUM_WAGE {
+        @Override
+        double sample(final Random random) {
+            return 4666 + random.nextGaussian() * 150;
+        }
+    },
+
+    /**
+     * Log-normal incomes with a median of 7000 PLN.
+     */
+    TYPICAL {
+        @Override
+        double sample(final Random random) {
+            return 7000 * Math.exp(random.nextGaussian() * 0.45);
+        }
+    },
+
+    /**
+     * Log-normal incomes with a median of 20000 PLN.
+     */
+    HIGH {
+        @Override
+        double sample(final Random random) {
+            return 20000 * Math.exp(random.nextGaussian() * 0.6);
+        }
+    },
+
+    /**
+     * Incomes spread evenly between 0 and 50000 PLN.
+     */
+    UNIFORM {
+        @Override
+        double sample(final Random random) {
+            return random.nextDouble() * 50000;
+        }
+    };
+
+    /**
+     * Seed shared by all distributions.
+     */
+    private static final long SEED = 42L;
+
+    /**
+     * Draws a single income in PLN.
+     *
+     * @param random the source of randomness
+     * @return the income, possibly negative before clamping
+     */
+    abstract double sample(Random random);
+
+    /**
+     * Generates incomes rounded to grosze.
+     *
+     * @param count the number of incomes
+     * @return the incomes
+     */
+    BigDecimal[] generate(final int count) {
+        Random random = new Random(SEED);
+        BigDecimal[] incomes = new BigDecimal[count];
+        for (int i = 0; i < count; i++) {
+            long cents = Math.round(Math.max(0, sample(random)) * 100);
+            incomes[i] = BigDecimal.valueOf(cents, 2);
+        }
+        return incomes;
+    }
+}
@@ -0,0 +1,124 @@
+package com.bartoszwalter.students.taxes;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time to parse {@link #VALUES} income fields held as ASCII bytes, with
+ * {@link TaxInputReader#parseIncome(String)} or
+ * {@link AsciiDecimalParser}. The {@code dirtyPercent} share of fields is
+ * malformed or negative, which the reader reports by throwing.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class IncomeParsingBenchmark {
+
+    /**
+     * Number of parsed fields.
+     */
+    private static final int VALUES = 1_000;
+
+    /**
+     * Invalid fields mixed into the input.
+     */
+    private static final String[] DIRTY = {"12a4.50", "-300", "", "1.2.3"};
+
+    /**
+     * Percentage of invalid fields.
+     */
+    @Param({"0", "10"})
+    private int dirtyPercent;
+
+    /**
+     * The fields, back to back.
+     */
+    private byte[] bytes;
+
+    /**
+     * Start of each field, followed by the end of the last.
+     */
+    private int[] bounds;
+
+    /**
+     * Writes the fields.
+     */
+    @Setup
+    public void setUp() {
+        SplittableRandom random = new SplittableRandom(42);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        bounds = new int[VALUES + 1];
+        for (int i = 0; i < VALUES; i++) {
+            bounds[i] = out.size();
+            String field;
+            if (random.nextInt(100) < dirtyPercent) {
+                field = DIRTY[i % DIRTY.length];
+            } else {
+                field = BigDecimal.valueOf(
+                        random.nextLong(100_000, 2_000_000), 2).toString();
+            }
+            out.writeBytes(field.getBytes(StandardCharsets.US_ASCII));
+        }
+        bounds[VALUES] = out.size();
+        bytes = out.toByteArray();
+    }
+
+    /**
+     * Decodes each field to a string and parses it as the reader does.
+     *
+     * @return the sum of valid incomes in grosze
+     */
+    @Benchmark
+    public long bigDecimal() {
+        long sum = 0;
+        for (int i = 0; i < VALUES; i++) {
+            String field = new String(bytes, bounds[i],
+                    bounds[i + 1] - bounds[i], StandardCharsets.US_ASCII);
+            try {
+                sum += TaxInputReader.parseIncome(field)
+                        .movePointRight(2).longValueExact();
+            } catch (IllegalArgumentException e) {
+                sum--;
+            }
+        }
+        return sum;
+    }
+
+    /**
+     * Parses each field in place.
+     *
+     * @return the sum of valid incomes in grosze
+     */
+    @Benchmark
+    public long ascii() {
+        long sum = 0;
+        for (int i = 0; i < VALUES; i++) {
+            long cents = AsciiDecimalParser.parseCents(bytes, bounds[i],
+                    bounds[i + 1]);
+            if (AsciiDecimalParser.isError(cents)) {
+                sum--;
+            } else {
+                sum += cents;
+            }
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,66 @@
+package com.bartoszwalter.students.taxes;
+
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.math.BigDecimal;
+
+/**
+ * Per-thread supply of incomes drawn from a distribution.
+ */
+@State(Scope.Thread)
+public class IncomeState {
+
+    /**
+     * Number of pregenerated incomes, a power of two.
+     */
+    private static final int SIZE = 4096;
+
+    /**
+     * Distribution the incomes are drawn from.
+     */
+    @Param({"MINIMUM_WAGE", "TYPICAL", "HIGH", "UNIFORM"})
+    private IncomeDistribution distribution;
+
+    /**
+     * Pregenerated incomes.
+     */
+    private BigDecimal[] incomes;
+
+    /**
+     * Index of the next income.
+     */
+    private int index;
+
+    /**
+     * Generates the incomes for the selected distribution.
+     */
+    @Setup
+    public void setUp() {
+        incomes = distribution.generate(SIZE);
+    }
+
+    /**
+     * Returns the next income, cycling through the pregenerated ones.
+     *
+     * @return the next income
+     */
+    public BigDecimal next() {
+        index = (index + 1) & (SIZE - 1);
+        return incomes[index];
+    }
+
+    /**
+     * Returns a contract type alternating with the income index.
+     *
+     * @return the contract type for the current income
+     */
+    public ContractType contractType() {
+        if ((index & 1) == 0) {
+            return ContractType.EMPLOYMENT;
+        }
+        return ContractType.CIVIL;
+    }
+}
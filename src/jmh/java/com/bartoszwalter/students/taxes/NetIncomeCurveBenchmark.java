@@ -0,0 +1,112 @@
+package com.bartoszwalter.students.taxes;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time to evaluate a salary curve of {@link #POINTS} net incomes, one
+ * grosz apart, with the fixed-point strategy into a reused sink or with
+ * a {@link NetIncomeCurve} point by point or along the range.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class NetIncomeCurveBenchmark {
+
+    /**
+     * Number of evaluated points.
+     */
+    private static final int POINTS = 100_000;
+
+    /**
+     * First gross income of the curve in grosze.
+     */
+    private static final long FROM_CENTS = 300_000;
+
+    /**
+     * Contract type of the curve.
+     */
+    @Param({"EMPLOYMENT", "CIVIL"})
+    private ContractType contractType;
+
+    /**
+     * Fixed-point strategy of the contract type.
+     */
+    private FixedPointTaxStrategy strategy;
+
+    /**
+     * Curve of the contract type.
+     */
+    private NetIncomeCurve curve;
+
+    /**
+     * Sink reused by the strategy.
+     */
+    private final MutableTaxResult sink = new MutableTaxResult();
+
+    /**
+     * Net incomes of the curve.
+     */
+    private final long[] net = new long[POINTS];
+
+    /**
+     * Creates the strategy and the curve.
+     */
+    @Setup
+    public void setUp() {
+        strategy = new FixedPointTaxStrategy(contractType);
+        curve = NetIncomeCurve.of(contractType);
+    }
+
+    /**
+     * Evaluates every point with the fixed-point strategy.
+     *
+     * @return the net incomes
+     */
+    @Benchmark
+    public long[] strategy() {
+        for (int i = 0; i < POINTS; i++) {
+            strategy.calculateTax(FROM_CENTS + i, sink);
+            net[i] = sink.get(TaxField.NET_INCOME);
+        }
+        return net;
+    }
+
+    /**
+     * Evaluates every point with the curve.
+     *
+     * @return the net incomes
+     */
+    @Benchmark
+    public long[] points() {
+        for (int i = 0; i < POINTS; i++) {
+            net[i] = curve.netCents(FROM_CENTS + i);
+        }
+        return net;
+    }
+
+    /**
+     * Evaluates the range with the curve.
+     *
+     * @return the net incomes
+     */
+    @Benchmark
+    public long[] range() {
+        curve.netCents(FROM_CENTS, 1, net);
+        return net;
+    }
+}
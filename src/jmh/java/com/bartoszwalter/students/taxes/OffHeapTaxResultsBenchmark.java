@@ -0,0 +1,127 @@
+package com.bartoszwalter.students.taxes;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time and allocation to calculate a payroll of {@link #RECORDS} records
+ * into packed heap results with {@link TaxCalculator#calculateAll(List)}
+ * or from a binary payroll file into an {@link OffHeapTaxResults} store.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OffHeapTaxResultsBenchmark {
+
+    /**
+     * Number of records of the payroll.
+     */
+    private static final int RECORDS = 100_000;
+
+    /**
+     * Calculator with the fixed-point strategies.
+     */
+    private final TaxCalculator calculator =
+            new TaxCalculator(FixedPointTaxStrategy.strategies());
+
+    /**
+     * Entries of the payroll.
+     */
+    private final List<PayrollEntry> entries = new ArrayList<>(RECORDS);
+
+    /**
+     * Files of the payroll.
+     */
+    private Path directory;
+
+    /**
+     * The payroll as a binary file.
+     */
+    private BinaryPayrollFile file;
+
+    /**
+     * Store receiving the off-heap results.
+     */
+    private OffHeapTaxResults results;
+
+    /**
+     * Writes the payroll and allocates the store.
+     *
+     * @throws IOException if the payroll cannot be written
+     */
+    @Setup
+    public void setUp() throws IOException {
+        Random random = new Random(3);
+        StringBuilder csv = new StringBuilder();
+        for (int i = 0; i < RECORDS; i++) {
+            BigDecimal gross = BigDecimal.valueOf(
+                    100_000 + random.nextInt(2_000_000), 2);
+            ContractType type = ContractType.values()[i % 2];
+            entries.add(new PayrollEntry(i, gross, type));
+            csv.append(i).append(',').append(gross.toPlainString())
+                    .append(',').append(type.name().charAt(0)).append('\n');
+        }
+        directory = Files.createTempDirectory("offheap");
+        Path text = directory.resolve("payroll.csv");
+        Path binary = directory.resolve("payroll.bin");
+        Files.writeString(text, csv);
+        BinaryPayrollFile.convert(text, binary);
+        file = BinaryPayrollFile.open(binary);
+        results = OffHeapTaxResults.allocate(RECORDS, RatePlan.DEFAULT);
+    }
+
+    /**
+     * Releases the store and file and deletes the payroll.
+     *
+     * @throws IOException if the payroll cannot be deleted
+     */
+    @TearDown
+    public void tearDown() throws IOException {
+        results.close();
+        file.close();
+        Files.delete(directory.resolve("payroll.csv"));
+        Files.delete(directory.resolve("payroll.bin"));
+        Files.delete(directory);
+    }
+
+    /**
+     * Calculates the entries into packed heap results in one thread.
+     *
+     * @return the results
+     */
+    @Benchmark
+    public CompactTaxResults heap() {
+        return calculator.calculateAll(entries, 1);
+    }
+
+    /**
+     * Calculates the binary file into the off-heap store.
+     *
+     * @return the number of records
+     */
+    @Benchmark
+    public long offHeap() {
+        return file.calculate(calculator, results);
+    }
+}
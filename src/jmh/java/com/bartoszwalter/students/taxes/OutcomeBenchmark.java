@@ -0,0 +1,108 @@
+package com.bartoszwalter.students.taxes;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time to calculate {@link #ROWS} incomes of which {@code invalidPercent}
+ * are negative, either catching the exceptions of
+ * {@link TaxCalculator#calculateTax(BigDecimal, ContractType)} or reading
+ * the {@link Outcome} of
+ * {@link TaxCalculator#calculate(BigDecimal, ContractType)}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OutcomeBenchmark {
+
+    /**
+     * Number of calculated rows.
+     */
+    private static final int ROWS = 1_000;
+
+    /**
+     * Percentage of negative incomes.
+     */
+    @Param({"0", "5"})
+    private int invalidPercent;
+
+    /**
+     * Calculator under test.
+     */
+    private final TaxCalculator calculator =
+            new TaxCalculator(FixedPointTaxStrategy.strategies());
+
+    /**
+     * Incomes of the rows.
+     */
+    private BigDecimal[] incomes;
+
+    /**
+     * Creates the incomes.
+     */
+    @Setup
+    public void setUp() {
+        SplittableRandom random = new SplittableRandom(42);
+        incomes = new BigDecimal[ROWS];
+        for (int i = 0; i < ROWS; i++) {
+            long cents = random.nextLong(100_000, 2_000_000);
+            if (random.nextInt(100) < invalidPercent) {
+                cents = -cents;
+            }
+            incomes[i] = BigDecimal.valueOf(cents, 2);
+        }
+    }
+
+    /**
+     * Calculates every row, catching rejected ones.
+     *
+     * @return the number of rejected rows
+     */
+    @Benchmark
+    public int exceptions() {
+        int rejected = 0;
+        for (int i = 0; i < ROWS; i++) {
+            try {
+                calculator.calculateTax(incomes[i],
+                        ContractType.values()[i & 1]);
+            } catch (IllegalArgumentException e) {
+                rejected++;
+            }
+        }
+        return rejected;
+    }
+
+    /**
+     * Calculates every row, counting failed outcomes.
+     *
+     * @return the number of rejected rows
+     */
+    @Benchmark
+    public int outcomes() {
+        int rejected = 0;
+        for (int i = 0; i < ROWS; i++) {
+            Outcome outcome = calculator.calculate(incomes[i],
+                    ContractType.values()[i & 1]);
+            if (!outcome.isSuccess()) {
+                rejected++;
+            }
+        }
+        return rejected;
+    }
+}
@@ -0,0 +1,123 @@
+package com.bartoszwalter.students.taxes;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time to calculate a payroll file of {@link #ROWS} rows, delimited or
+ * in the {@link BinaryPayrollFile} format, into a discarding writer.
+ * Both formats use the fixed-point strategies, so the difference is the
+ * cost of parsing text incomes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PayrollFileBenchmark {
+
+    /**
+     * Number of rows in the file.
+     */
+    private static final int ROWS = 100_000;
+
+    /**
+     * Format of the input file.
+     */
+    @Param({"text", "binary"})
+    private String format;
+
+    /**
+     * Processor under test.
+     */
+    private final PayrollFileProcessor processor = new PayrollFileProcessor(
+            new TaxCalculator(FixedPointTaxStrategy.strategies()));
+
+    /**
+     * Directory of the files.
+     */
+    private Path directory;
+
+    /**
+     * Delimited payroll file.
+     */
+    private Path csv;
+
+    /**
+     * The same file in the binary format.
+     */
+    private Path binary;
+
+    /**
+     * Writes the payroll files.
+     *
+     * @throws IOException if the files cannot be written
+     */
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("payroll-benchmark");
+        csv = directory.resolve("payroll.csv");
+        binary = directory.resolve("payroll.bin");
+        SplittableRandom random = new SplittableRandom(42);
+        try (Writer writer = Files.newBufferedWriter(csv,
+                StandardCharsets.UTF_8)) {
+            for (int i = 0; i < ROWS; i++) {
+                writer.write(i + "," + BigDecimal.valueOf(
+                        random.nextLong(100_000, 2_000_000), 2) + ","
+                        + ContractType.values()[i % 2].getCode() + "\n");
+            }
+        }
+        BinaryPayrollFile.convert(csv, binary);
+    }
+
+    /**
+     * Deletes the payroll files.
+     *
+     * @throws IOException if the files cannot be deleted
+     */
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Files.delete(csv);
+        Files.delete(binary);
+        Files.delete(directory);
+    }
+
+    /**
+     * Calculates the file.
+     *
+     * @return the number of rows
+     * @throws IOException if the file cannot be read
+     */
+    @Benchmark
+    public long process() throws IOException {
+        if ("binary".equals(format)) {
+            return processor.processBinary(binary, Writer.nullWriter());
+        }
+        try (BufferedReader reader = Files.newBufferedReader(csv,
+                StandardCharsets.UTF_8)) {
+            return processor.process(reader, Writer.nullWriter());
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package com.bartoszwalter.students.taxes;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Time from launching the command line to its first result: a new JVM
+ * calculates one interactive income, with and without the ahead-of-time
+ * cache of the {@code aot} profile. Run after packaging with that
+ * profile, e.g. {@code mvn -Paot,benchmark verify
+ * -Djmh.args=StartupBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 20)
+@Fork(1)
+public class StartupBenchmark {
+
+    /**
+     * Directory holding the packaged jar and the cache.
+     */
+    private static final Path TARGET = Path.of("target").toAbsolutePath();
+
+    /**
+     * Console input of the calculation.
+     */
+    private static final byte[] INPUT =
+            "5000\nE\n".getBytes(StandardCharsets.UTF_8);
+
+    /**
+     * Start of the output line ending the measurement.
+     */
+    private static final String FIRST_RESULT = "INFO: Net Income";
+
+    /**
+     * Whether the JVM starts with the cache: {@code none} or
+     * {@code cache}.
+     */
+    @Param({"none", "cache"})
+    private String cache;
+
+    /**
+     * Command starting the calculator.
+     */
+    private List<String> command;
+
+    /**
+     * Builds the command from the packaged jar and cache.
+     *
+     * @throws IOException if the target directory cannot be listed
+     */
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        command = new ArrayList<>();
+        command.add(Path.of(System.getProperty("java.home"), "bin", "java")
+                .toString());
+        if ("cache".equals(cache)) {
+            Path file = TARGET.resolve("taxcalculator.aot");
+            if (!Files.isRegularFile(file)) {
+                throw new IllegalStateException(
+                        "No cache at " + file + ", package with -Paot");
+            }
+            command.add(useOption() + "=" + file);
+        }
+        command.add("-cp");
+        command.add(packagedJar().toString());
+        command.add(TaxCalculator.class.getName());
+    }
+
+    /**
+     * Starts the calculator and waits for its first result.
+     *
+     * @return the result line
+     * @throws IOException if the process cannot be run
+     * @throws InterruptedException if interrupted while it exits
+     */
+    @Benchmark
+    public String firstResult() throws IOException, InterruptedException {
+        Process process = new ProcessBuilder(command)
+                .redirectErrorStream(true)
+                .start();
+        try (OutputStream in = process.getOutputStream()) {
+            in.write(INPUT);
+        }
+        try (BufferedReader out = new BufferedReader(new InputStreamReader(
+                process.getInputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = out.readLine()) != null) {
+                if (line.startsWith(FIRST_RESULT)) {
+                    return line;
+                }
+            }
+        } finally {
+            process.waitFor();
+        }
+        throw new IllegalStateException("No result from " + command);
+    }
+
+    /**
+     * Returns the option reading the cache: the {@code aot.use.option}
+     * property, else the one of the running JDK.
+     *
+     * @return the option without its value
+     */
+    private static String useOption() {
+        String option = System.getProperty("aot.use.option");
+        if (option != null) {
+            return option;
+        }
+        if (Runtime.version().feature() >= 25) {
+            return "-XX:AOTCache";
+        }
+        return "-XX:SharedArchiveFile";
+    }
+
+    /**
+     * Finds the jar built by the package phase.
+     *
+     * @return the path of the jar
+     * @throws IOException if the target directory cannot be listed
+     */
+    private static Path packagedJar() throws IOException {
+        try (Stream<Path> files = Files.list(TARGET)) {
+            return files.filter(file -> file.toString().endsWith(".jar"))
+                    .findFirst()
+                    .orElseThrow(() -> new IllegalStateException(
+                            "No jar in " + TARGET + ", run mvn package"));
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package com.bartoszwalter.students.taxes;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Single-threaded throughput of the calculation strategies.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StrategyBenchmark {
+
+    /**
+     * Employment contract strategy under test.
+     */
+    private final EmploymentContractStrategy employment =
+            new EmploymentContractStrategy();
+
+    /**
+     * Civil contract strategy under test.
+     */
+    private final CivilContractStrategy civil = new CivilContractStrategy();
+
+    /**
+     * Fixed-point employment contract strategy under test.
+     */
+    private final FixedPointTaxStrategy fixedPointEmployment =
+            new FixedPointTaxStrategy(ContractType.EMPLOYMENT);
+
+    /**
+     * Fixed-point civil contract strategy under test.
+     */
+    private final FixedPointTaxStrategy fixedPointCivil =
+            new FixedPointTaxStrategy(ContractType.CIVIL);
+
+    /**
+     * Calculator dispatching to both strategies.
+     */
+    private final TaxCalculator calculator = new TaxCalculator();
+
+    /**
+     * Fields read by the projected benchmarks.
+     */
+    private final Set<TaxField> netIncomeOnly = Set.of(TaxField.NET_INCOME);
+
+    /**
+     * Fields read by the final tax projection.
+     */
+    private final Set<TaxField> finalTaxOnly = Set.of(TaxField.FINAL_TAX);
+
+    /**
+     * Employment contract calculation.
+     *
+     * @param incomes the income supply
+     * @return the result
+     */
+    @Benchmark
+    public TaxResult employmentContract(final IncomeState incomes) {
+        return employment.calculateTax(incomes.next());
+    }
+
+    /**
+     * Civil contract calculation.
+     *
+     * @param incomes the income supply
+     * @return the result
+     */
+    @Benchmark
+    public TaxResult civilContract(final IncomeState incomes) {
+        return civil.calculateTax(incomes.next());
+    }
+
+    /**
+     * Calculation through TaxCalculator with mixed contract types.
+     *
+     * @param incomes the income supply
+     * @return the result
+     */
+    @Benchmark
+    public TaxResult calculator(final IncomeState incomes) {
+        return calculator.calculateTax(incomes.next(),
+                incomes.contractType());
+    }
+
+    /**
+     * Fixed-point employment contract calculation.
+     *
+     * @param incomes the income supply
+     * @return the result
+     */
+    @Benchmark
+    public TaxResult fixedPointEmploymentContract(final IncomeState incomes) {
+        return fixedPointEmployment.calculateTax(incomes.next());
+    }
+
+    /**
+     * Fixed-point civil contract calculation.
+     *
+     * @param incomes the income supply
+     * @return the result
+     */
+    @Benchmark
+    public TaxResult fixedPointCivilContract(final IncomeState incomes) {
+        return fixedPointCivil.calculateTax(incomes.next());
+    }
+    /**
+     * Employment contract calculation projected to the net income.
+     *
+     * @param incomes the income supply
+     * @return the net income
+     */
+    @Benchmark
+    public BigDecimal employmentNetIncome(final IncomeState incomes) {
+        return employment.calculateTax(incomes.next(), netIncomeOnly)
+                .netIncome();
+    }
+
+    /**
+     * Employment contract calculation projected to the final tax.
+     *
+     * @param incomes the income supply
+     * @return the final tax
+     */
+    @Benchmark
+    public BigDecimal employmentFinalTax(final IncomeState incomes) {
+        return employment.calculateTax(incomes.next(), finalTaxOnly)
+                .finalTax();
+    }
+
+}
@@ -0,0 +1,45 @@
+package com.bartoszwalter.students.taxes;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Multi-threaded throughput of a single shared TaxCalculator.
+ * Runs on all available processors unless overridden with -t.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(Threads.MAX)
+@Fork(1)
+public class ThroughputBenchmark {
+
+    /**
+     * Calculator shared by all benchmark threads.
+     */
+    private final TaxCalculator calculator = new TaxCalculator();
+
+    /**
+     * Calculation through the shared calculator.
+     *
+     * @param incomes the per-thread income supply
+     * @return the result
+     */
+    @Benchmark
+    public TaxResult sharedCalculator(final IncomeState incomes) {
+        return calculator.calculateTax(incomes.next(),
+                incomes.contractType());
+    }
+}
@@ -0,0 +1,139 @@
+package com.bartoszwalter.students.taxes;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time to calculate {@link #INCOMES} random whole-zloty incomes into a
+ * reused sink with the fixed-point strategy or from a memory-mapped
+ * {@link WithholdingTable} of the default range.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WithholdingTableBenchmark {
+
+    /**
+     * Number of calculated incomes.
+     */
+    private static final int INCOMES = 10_000;
+
+    /**
+     * Contract type of the incomes.
+     */
+    @Param({"EMPLOYMENT", "CIVIL"})
+    private ContractType contractType;
+
+    /**
+     * Fixed-point strategy of the contract type.
+     */
+    private FixedPointTaxStrategy strategy;
+
+    /**
+     * Table strategy of the contract type.
+     */
+    private TaxCalculationStrategy table;
+
+    /**
+     * The mapped table.
+     */
+    private WithholdingTable mapped;
+
+    /**
+     * The table file.
+     */
+    private Path path;
+
+    /**
+     * Gross incomes in grosze.
+     */
+    private final long[] incomes = new long[INCOMES];
+
+    /**
+     * Sink reused by the strategies.
+     */
+    private final MutableTaxResult sink = new MutableTaxResult();
+
+    /**
+     * Generates and maps the table and draws the incomes.
+     *
+     * @throws IOException if the table cannot be written
+     */
+    @Setup
+    public void setUp() throws IOException {
+        path = Files.createTempFile("withholding", ".bin");
+        WithholdingTable.generate(path, RatePlan.DEFAULT,
+                WithholdingTable.DEFAULT_FROM_ZLOTY,
+                WithholdingTable.DEFAULT_TO_ZLOTY, Set.of(contractType));
+        mapped = WithholdingTable.open(path);
+        table = mapped.strategies().get(contractType);
+        strategy = new FixedPointTaxStrategy(contractType);
+
+        Random random = new Random(7);
+        for (int i = 0; i < INCOMES; i++) {
+            incomes[i] = random.nextInt((int) WithholdingTable.DEFAULT_TO_ZLOTY)
+                    * 100L;
+        }
+    }
+
+    /**
+     * Unmaps and deletes the table.
+     *
+     * @throws IOException if the table cannot be deleted
+     */
+    @TearDown
+    public void tearDown() throws IOException {
+        mapped.close();
+        Files.delete(path);
+    }
+
+    /**
+     * Calculates every income with the fixed-point strategy.
+     *
+     * @return the sum of the net incomes
+     */
+    @Benchmark
+    public long fixedPoint() {
+        long net = 0;
+        for (long income : incomes) {
+            strategy.calculateTax(income, sink);
+            net += sink.get(TaxField.NET_INCOME);
+        }
+        return net;
+    }
+
+    /**
+     * Reads every income from the table.
+     *
+     * @return the sum of the net incomes
+     */
+    @Benchmark
+    public long table() {
+        long net = 0;
+        for (long income : incomes) {
+            table.calculateTax(income, sink);
+            net += sink.get(TaxField.NET_INCOME);
+        }
+        return net;
+    }
+}
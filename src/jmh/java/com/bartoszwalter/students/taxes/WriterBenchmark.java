@@ -0,0 +1,128 @@
+package com.bartoszwalter.students.taxes;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.nio.channels.Channels;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Handler;
+import java.util.logging.Logger;
+import java.util.logging.SimpleFormatter;
+import java.util.logging.StreamHandler;
+
+/**
+ * Throughput of the result writers, writing to a discarding stream so
+ * that only formatting, buffering and hand-off are measured.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WriterBenchmark {
+
+    /**
+     * Result written by every invocation.
+     */
+    private final TaxResult result = new TaxCalculator().calculateTax(
+            new BigDecimal("5000.00"), ContractType.EMPLOYMENT);
+
+    /**
+     * Logger of the formatter, redirected to a discarding handler.
+     */
+    private final Logger logger =
+            Logger.getLogger(TaxResultFormatter.class.getName());
+
+    /**
+     * Handler formatting log records into a discarding stream.
+     */
+    private Handler handler;
+
+    /**
+     * Log-based writer under test.
+     */
+    private LoggingTaxResultWriter logging;
+
+    /**
+     * Channel writer under test.
+     */
+    private ChannelTaxResultWriter channel;
+
+    /**
+     * Asynchronous channel writer under test.
+     */
+    private AsyncTaxResultWriter async;
+
+    /**
+     * Creates the writers.
+     */
+    @Setup(Level.Trial)
+    public void setUp() {
+        handler = new StreamHandler(OutputStream.nullOutputStream(),
+                new SimpleFormatter());
+        logger.setUseParentHandlers(false);
+        logger.addHandler(handler);
+        logging = new LoggingTaxResultWriter();
+        channel = new ChannelTaxResultWriter(Channels.newChannel(
+                OutputStream.nullOutputStream()),
+                ChannelTaxResultWriter.DEFAULT_BUFFER_SIZE);
+        async = new AsyncTaxResultWriter(new ChannelTaxResultWriter(
+                Channels.newChannel(OutputStream.nullOutputStream()),
+                ChannelTaxResultWriter.DEFAULT_BUFFER_SIZE));
+    }
+
+    /**
+     * Closes the writers and restores logging.
+     *
+     * @throws IOException if a writer fails
+     */
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        channel.close();
+        async.close();
+        logger.removeHandler(handler);
+        logger.setUseParentHandlers(true);
+    }
+
+    /**
+     * One log record per line.
+     */
+    @Benchmark
+    public void logging() {
+        logging.write(result, ContractType.EMPLOYMENT);
+    }
+
+    /**
+     * Buffered channel writes.
+     *
+     * @throws IOException if writing fails
+     */
+    @Benchmark
+    public void channel() throws IOException {
+        channel.write(result, ContractType.EMPLOYMENT);
+    }
+
+    /**
+     * Hand-off to the writer thread.
+     *
+     * @throws IOException if writing fails
+     */
+    @Benchmark
+    public void async() throws IOException {
+        async.write(result, ContractType.EMPLOYMENT);
+    }
+}
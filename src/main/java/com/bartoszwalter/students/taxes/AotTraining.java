@@ -0,0 +1,84 @@
+package com.bartoszwalter.students.taxes;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Training workload for the ahead-of-time cache built by the {@code aot}
+ * Maven profile. It drives {@link TaxCalculator#main(String[])} the way
+ * the launcher does: interactive calculations of both contract types,
+ * which load the input, formatting and logging classes, followed by a
+ * payroll file large enough for the calculation code to be profiled.
+ */
+public final class AotTraining {
+
+    private AotTraining() {
+        throw new UnsupportedOperationException("Utility class");
+    }
+
+    /**
+     * Interactive inputs: income and contract code.
+     */
+    private static final String[] INTERACTIVE_INPUTS = {
+        "5000\nE\n", "3000\nC\n", "12345.67\ne\n", "0\nc\n",
+    };
+
+    /**
+     * Number of rows in the training payroll file.
+     */
+    private static final int PAYROLL_ROWS = 2000;
+
+    /**
+     * Incomes cycled through by the payroll rows, in grosze.
+     */
+    private static final long[] PAYROLL_CENTS = {
+        100_000, 350_000, 523_417, 1_000_000, 2_500_050,
+    };
+
+    /**
+     * Runs the training workload.
+     *
+     * @param args ignored
+     * @throws IOException if the payroll files cannot be written
+     */
+    public static void main(final String[] args) throws IOException {
+        InputStream originalIn = System.in;
+        try {
+            for (String input : INTERACTIVE_INPUTS) {
+                System.setIn(new ByteArrayInputStream(
+                        input.getBytes(StandardCharsets.UTF_8)));
+                TaxCalculator.main(new String[0]);
+            }
+        } finally {
+            System.setIn(originalIn);
+        }
+
+        Path input = Files.createTempFile("aot-training", ".csv");
+        Path output = Files.createTempFile("aot-training", ".out.csv");
+        try {
+            try (Writer writer = Files.newBufferedWriter(input,
+                    StandardCharsets.UTF_8)) {
+                for (int i = 0; i < PAYROLL_ROWS; i++) {
+                    long cents = PAYROLL_CENTS[i % PAYROLL_CENTS.length] + i;
+                    char code = ContractType.EMPLOYMENT.getCode();
+                    if (i % 2 == 1) {
+                        code = ContractType.CIVIL.getCode();
+                    }
+                    writer.write(i + "," + BigDecimal.valueOf(cents, 2)
+                            + "," + code + "\n");
+                }
+            }
+            TaxCalculator.main(new String[] {"--payroll", input.toString(),
+                output.toString()});
+        } finally {
+            Files.deleteIfExists(input);
+            Files.deleteIfExists(output);
+        }
+    }
+}
@@ -0,0 +1,274 @@
+package com.bartoszwalter.students.taxes;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Parses non-negative ASCII decimals from a window of bytes straight into
+ * scaled longs, without creating a {@code String} or {@code BigDecimal}.
+ * <p>
+ * Surrounding whitespace is ignored, a leading {@code +} is accepted and
+ * either {@code .} or {@code ,} separates the fraction. Fraction digits
+ * beyond the requested scale must be zeros. Instead of throwing, the
+ * methods return one of the negative error codes of this class, which
+ * {@link #describe(long)} turns into a message, so rejecting a row of a
+ * dirty bulk file costs no more than accepting one. Exponents, accepted
+ * by {@link java.math.BigDecimal}, are malformed here.
+ * </p>
+ */
+public final class AsciiDecimalParser {
+
+    /**
+     * Error code of a window holding only whitespace.
+     */
+    public static final long EMPTY = -1;
+
+    /**
+     * Error code of a window that is not a decimal number.
+     */
+    public static final long MALFORMED = -2;
+
+    /**
+     * Error code of a negative number.
+     */
+    public static final long NEGATIVE = -3;
+
+    /**
+     * Error code of a number with non-zero digits beyond the scale.
+     */
+    public static final long TOO_PRECISE = -4;
+
+    /**
+     * Error code of a number whose scaled value exceeds a long.
+     */
+    public static final long TOO_LARGE = -5;
+
+    /**
+     * Scale of amounts in grosze.
+     */
+    private static final int CENTS_SCALE = TaxConstants.CURRENCY_SCALE;
+
+    /**
+     * Radix of the parsed digits.
+     */
+    private static final int RADIX = 10;
+
+    /**
+     * Largest value that can take another digit without overflowing.
+     */
+    private static final long MAX_BEFORE_DIGIT = Long.MAX_VALUE / RADIX;
+
+    private AsciiDecimalParser() {
+        throw new UnsupportedOperationException("Utility class");
+    }
+
+    /**
+     * Parses an amount in grosze from a byte array.
+     *
+     * @param bytes the bytes holding the number
+     * @param from the index of the first byte of the window
+     * @param to the index after the last byte of the window
+     * @return the amount in grosze, or a negative error code
+     * @throws IndexOutOfBoundsException if the window is out of range
+     */
+    public static long parseCents(final byte[] bytes, final int from,
+                                  final int to) {
+        return parse(bytes, from, to, CENTS_SCALE);
+    }
+
+    /**
+     * Parses an amount in grosze from a buffer, by absolute index and
+     * without changing its position.
+     *
+     * @param buffer the buffer holding the number
+     * @param from the index of the first byte of the window
+     * @param to the index after the last byte of the window
+     * @return the amount in grosze, or a negative error code
+     * @throws IndexOutOfBoundsException if the window is out of range
+     */
+    public static long parseCents(final ByteBuffer buffer, final int from,
+                                  final int to) {
+        return parse(buffer, from, to, CENTS_SCALE);
+    }
+
+    /**
+     * Parses a number from a byte array, scaled to the given number of
+     * decimal places.
+     *
+     * @param bytes the bytes holding the number
+     * @param from the index of the first byte of the window
+     * @param to the index after the last byte of the window
+     * @param scale the number of decimal places of the result
+     * @return the unscaled value, or a negative error code
+     * @throws IndexOutOfBoundsException if the window is out of range
+     */
+    public static long parse(final byte[] bytes, final int from,
+                             final int to, final int scale) {
+        if (from < 0 || to > bytes.length || from > to) {
+            throw new IndexOutOfBoundsException(
+                    "Window " + from + ".." + to + " of " + bytes.length);
+        }
+        return parse(null, bytes, from, to, scale);
+    }
+
+    /**
+     * Parses a number from a buffer, by absolute index and without
+     * changing its position, scaled to the given number of decimal
+     * places.
+     *
+     * @param buffer the buffer holding the number
+     * @param from the index of the first byte of the window
+     * @param to the index after the last byte of the window
+     * @param scale the number of decimal places of the result
+     * @return the unscaled value, or a negative error code
+     * @throws IndexOutOfBoundsException if the window is out of range
+     */
+    public static long parse(final ByteBuffer buffer, final int from,
+                             final int to, final int scale) {
+        if (from < 0 || to > buffer.limit() || from > to) {
+            throw new IndexOutOfBoundsException(
+                    "Window " + from + ".." + to + " of " + buffer.limit());
+        }
+        if (buffer.hasArray()) {
+            return parse(null, buffer.array(), buffer.arrayOffset() + from,
+                    buffer.arrayOffset() + to, scale);
+        }
+        return parse(buffer, null, from, to, scale);
+    }
+
+    /**
+     * Checks whether a result is an error code.
+     *
+     * @param result a result of this class
+     * @return true for an error code
+     */
+    public static boolean isError(final long result) {
+        return result < 0;
+    }
+
+    /**
+     * Describes an error code.
+     *
+     * @param error the error code
+     * @return the message
+     * @throws IllegalArgumentException if error is not an error code
+     */
+    public static String describe(final long error) {
+        if (error == EMPTY) {
+            return "Number cannot be empty";
+        } else if (error == MALFORMED) {
+            return "Invalid number format";
+        } else if (error == NEGATIVE) {
+            return "Number cannot be negative";
+        } else if (error == TOO_PRECISE) {
+            return "Number has too many decimal places";
+        } else if (error == TOO_LARGE) {
+            return "Number is too large";
+        }
+        throw new IllegalArgumentException("Not an error code: " + error);
+    }
+
+    /**
+     * Parses a window of either a buffer or an array.
+     *
+     * @param buffer the buffer, or null to read the array
+     * @param bytes the array, read when buffer is null
+     * @param from the index of the first byte of the window
+     * @param to the index after the last byte of the window
+     * @param scale the number of decimal places of the result
+     * @return the unscaled value, or a negative error code
+     */
+    private static long parse(final ByteBuffer buffer, final byte[] bytes,
+                              final int from, final int to,
+                              final int scale) {
+        int start = from;
+        int end = to;
+        while (start < end && isSpace(byteAt(buffer, bytes, start))) {
+            start++;
+        }
+        while (end > start && isSpace(byteAt(buffer, bytes, end - 1))) {
+            end--;
+        }
+        if (start == end) {
+            return EMPTY;
+        }
+
+        boolean negative = false;
+        byte sign = byteAt(buffer, bytes, start);
+        if (sign == '-' || sign == '+') {
+            negative = sign == '-';
+            start++;
+        }
+
+        long value = 0;
+        int decimals = -1;
+        boolean digits = false;
+        boolean roundedAway = false;
+        for (int i = start; i < end; i++) {
+            byte b = byteAt(buffer, bytes, i);
+            if (b >= '0' && b <= '9') {
+                digits = true;
+                if (decimals < scale) {
+                    if (value > MAX_BEFORE_DIGIT) {
+                        return TOO_LARGE;
+                    }
+                    value = value * RADIX + (b - '0');
+                    if (value < 0) {
+                        return TOO_LARGE;
+                    }
+                } else if (b != '0') {
+                    roundedAway = true;
+                }
+                if (decimals >= 0) {
+                    decimals++;
+                }
+            } else if ((b == '.' || b == ',') && decimals < 0) {
+                decimals = 0;
+            } else {
+                return MALFORMED;
+            }
+        }
+        if (!digits) {
+            return MALFORMED;
+        }
+        if (negative && (value != 0 || roundedAway)) {
+            return NEGATIVE;
+        }
+        if (roundedAway) {
+            return TOO_PRECISE;
+        }
+
+        for (int i = Math.max(decimals, 0); i < scale; i++) {
+            if (value > MAX_BEFORE_DIGIT) {
+                return TOO_LARGE;
+            }
+            value *= RADIX;
+        }
+        return value;
+    }
+
+    /**
+     * Reads a byte of either a buffer or an array.
+     *
+     * @param buffer the buffer, or null to read the array
+     * @param bytes the array, read when buffer is null
+     * @param index the absolute index
+     * @return the byte
+     */
+    private static byte byteAt(final ByteBuffer buffer, final byte[] bytes,
+                               final int index) {
+        if (buffer == null) {
+            return bytes[index];
+        }
+        return buffer.get(index);
+    }
+
+    /**
+     * Checks whether a byte is ASCII whitespace or a control character.
+     *
+     * @param b the byte
+     * @return true if it is ignored around a number
+     */
+    private static boolean isSpace(final byte b) {
+        return b >= 0 && b <= ' ';
+    }
+}
@@ -0,0 +1,313 @@
+package com.bartoszwalter.students.taxes;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Hands results to a background thread writing them to another writer.
+ * <p>
+ * Callers only enqueue results; when the bounded queue is full they
+ * wait. The writer thread drains everything queued at once, writes it
+ * as one batch and flushes the delegate whenever the queue runs empty.
+ * Closing writes the remaining results and closes the delegate. A
+ * failure of the delegate, checked or unchecked, is reported by the next
+ * call. Safe to use from several threads: a write or flush accepted
+ * before {@link #close()} is completed before the delegate is closed,
+ * and any later call is rejected.
+ * </p>
+ */
+public final class AsyncTaxResultWriter implements TaxResultWriter {
+
+    /**
+     * Default number of results waiting to be written.
+     */
+    public static final int DEFAULT_CAPACITY = 4096;
+
+    /**
+     * Task stopping the writer thread.
+     */
+    private static final Task STOP = new Task(null, null, null);
+
+    /**
+     * Writer receiving the results.
+     */
+    private final TaxResultWriter delegate;
+
+    /**
+     * Results and flush requests waiting for the writer thread.
+     */
+    private final BlockingQueue<Task> queue;
+
+    /**
+     * Thread writing to the delegate.
+     */
+    private final Thread worker;
+
+    /**
+     * First failure of the delegate, null while it works.
+     */
+    private volatile IOException failure;
+
+    /**
+     * Lock held shared while queueing and exclusively while closing, so
+     * nothing is queued after the task stopping the writer thread.
+     */
+    private final ReadWriteLock closeLock = new ReentrantReadWriteLock();
+
+    /**
+     * Whether this writer has been closed, guarded by closeLock.
+     */
+    private boolean closed;
+
+    /**
+     * Item of the queue: a result to write, or a flush request completed
+     * once everything before it is written.
+     *
+     * @param result the result to write, null for a flush request
+     * @param contractType the contract type of the result
+     * @param flushed completed by a flush request
+     */
+    private record Task(TaxResult result, ContractType contractType,
+                        CompletableFuture<Void> flushed) {
+    }
+
+    /**
+     * Creates a writer with the default capacity.
+     *
+     * @param delegateValue the writer receiving the results
+     * @throws IllegalArgumentException if delegate is null
+     */
+    public AsyncTaxResultWriter(final TaxResultWriter delegateValue) {
+        this(delegateValue, DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Creates a writer and starts its thread.
+     *
+     * @param delegateValue the writer receiving the results
+     * @param capacity the number of results waiting to be written
+     * @throws IllegalArgumentException if delegate is null or capacity
+     *                                  is not positive
+     */
+    public AsyncTaxResultWriter(final TaxResultWriter delegateValue,
+                                final int capacity) {
+        if (delegateValue == null) {
+            throw new IllegalArgumentException("Delegate cannot be null");
+        }
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive");
+        }
+        this.delegate = delegateValue;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.worker = Thread.ofPlatform().name("tax-result-writer")
+                .daemon().start(this::run);
+    }
+
+    @Override
+    public void write(final TaxResult result,
+                      final ContractType contractType) throws IOException {
+        if (result == null || contractType == null) {
+            throw new IllegalArgumentException(
+                    "Result and contract type cannot be null");
+        }
+        enqueueIfOpen(new Task(result, contractType, null));
+    }
+
+    @Override
+    public void flush() throws IOException {
+        CompletableFuture<Void> flushed = new CompletableFuture<>();
+        enqueueIfOpen(new Task(null, null, flushed));
+        await(flushed);
+    }
+
+    @Override
+    public void close() throws IOException {
+        closeLock.writeLock().lock();
+        try {
+            if (closed) {
+                return;
+            }
+            closed = true;
+        } finally {
+            closeLock.writeLock().unlock();
+        }
+        try {
+            enqueue(STOP);
+            worker.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while closing");
+        } finally {
+            delegate.close();
+        }
+        throwFailure();
+    }
+
+    /**
+     * Drains the queue in batches until stopped.
+     */
+    private void run() {
+        List<Task> batch = new ArrayList<>();
+        while (true) {
+            try {
+                batch.add(queue.take());
+            } catch (InterruptedException e) {
+                return;
+            }
+            queue.drainTo(batch);
+            for (Task task : batch) {
+                if (task == STOP) {
+                    failRemaining(batch);
+                    return;
+                }
+                process(task);
+            }
+            batch.clear();
+            if (queue.isEmpty()) {
+                flushDelegate();
+            }
+        }
+    }
+
+    /**
+     * Writes a result or completes a flush request.
+     *
+     * @param task the task to process
+     */
+    private void process(final Task task) {
+        if (task.flushed() != null) {
+            flushDelegate();
+            if (failure == null) {
+                task.flushed().complete(null);
+            } else {
+                task.flushed().completeExceptionally(failure);
+            }
+            return;
+        }
+        if (failure != null) {
+            return;
+        }
+        try {
+            delegate.write(task.result(), task.contractType());
+        } catch (IOException e) {
+            failure = e;
+        } catch (RuntimeException e) {
+            failure = new IOException(e);
+        }
+    }
+
+    /**
+     * Flushes the delegate unless it has failed.
+     */
+    private void flushDelegate() {
+        if (failure != null) {
+            return;
+        }
+        try {
+            delegate.flush();
+        } catch (IOException e) {
+            failure = e;
+        } catch (RuntimeException e) {
+            failure = new IOException(e);
+        }
+    }
+
+    /**
+     * Fails the flush requests found after the task stopping the writer
+     * thread, so no caller waits for them.
+     *
+     * @param batch the batch holding the stopping task
+     */
+    private void failRemaining(final List<Task> batch) {
+        queue.drainTo(batch);
+        IOException closedFailure = new IOException("Writer is closed");
+        for (Task task : batch) {
+            if (task != STOP && task.flushed() != null) {
+                task.flushed().completeExceptionally(closedFailure);
+            }
+        }
+    }
+
+    /**
+     * Queues a task unless this writer is closed or has failed.
+     *
+     * @param task the task to queue
+     * @throws IOException if the writer is closed or has failed, or if
+     *                     interrupted while waiting
+     */
+    private void enqueueIfOpen(final Task task) throws IOException {
+        closeLock.readLock().lock();
+        try {
+            ensureOpen();
+            enqueue(task);
+        } finally {
+            closeLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Queues a task, waiting while the queue is full.
+     *
+     * @param task the task to queue
+     * @throws IOException if interrupted while waiting
+     */
+    private void enqueue(final Task task) throws IOException {
+        try {
+            queue.put(task);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while queueing");
+        }
+    }
+
+    /**
+     * Waits for a flush request to complete.
+     *
+     * @param flushed the flush request
+     * @throws IOException if the delegate failed or the wait was
+     *                     interrupted
+     */
+    private void await(final CompletableFuture<Void> flushed)
+            throws IOException {
+        try {
+            flushed.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while flushing");
+        } catch (ExecutionException e) {
+            throw new IOException("Writing results failed", e.getCause());
+        }
+    }
+
+    /**
+     * Rejects use after closing or after a failure of the delegate.
+     *
+     * @throws IOException if the writer is closed or has failed
+     */
+    private void ensureOpen() throws IOException {
+        if (closed) {
+            throw new IOException("Writer is closed");
+        }
+        throwFailure();
+    }
+
+    /**
+     * Reports the failure of the delegate, if any.
+     *
+     * @throws IOException the failure of the delegate
+     */
+    private void throwFailure() throws IOException {
+        IOException cause = failure;
+        if (cause != null) {
+            throw new IOException("Writing results failed", cause);
+        }
+    }
+}
@@ -0,0 +1,609 @@
+package com.bartoszwalter.students.taxes;
+
+import java.io.IOException;
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Memory-mapped payroll file in a fixed-width binary format, read
+ * without parsing text.
+ * <p>
+ * The file starts with an {@value #HEADER_BYTES}-byte header: the
+ * magic number {@code TAXP} and a version and record size of two bytes
+ * each. Records of {@value #RECORD_BYTES} bytes follow: the employee id
+ * and the gross income in grosze as longs, and the contract code as an
+ * ASCII byte. All numbers are little-endian. {@link #convert(Path, Path)}
+ * writes the format from a delimited payroll file.
+ * </p>
+ * <p>
+ * The mapping is released by {@link #close()} and may only be read by
+ * the thread that opened the file.
+ * </p>
+ */
+public final class BinaryPayrollFile implements AutoCloseable {
+
+    /**
+     * Magic number opening the file, {@code TAXP} in ASCII.
+     */
+    public static final int MAGIC = 0x50584154;
+
+    /**
+     * Version of the format.
+     */
+    public static final short VERSION = 1;
+
+    /**
+     * Size of the header in bytes.
+     */
+    public static final int HEADER_BYTES = 8;
+
+    /**
+     * Size of a record in bytes.
+     */
+    public static final int RECORD_BYTES = 17;
+
+    /**
+     * Offset of the version in the header.
+     */
+    private static final int VERSION_OFFSET = 4;
+
+    /**
+     * Offset of the record size in the header.
+     */
+    private static final int RECORD_SIZE_OFFSET = 6;
+
+    /**
+     * Offset of the gross income in a record.
+     */
+    private static final int GROSS_OFFSET = 8;
+
+    /**
+     * Offset of the contract code in a record.
+     */
+    private static final int CODE_OFFSET = 16;
+
+    /**
+     * Layout of the longs in the file, which are not aligned.
+     */
+    private static final ValueLayout.OfLong LONG =
+            ValueLayout.JAVA_LONG_UNALIGNED.withOrder(
+                    ByteOrder.LITTLE_ENDIAN);
+
+    /**
+     * Layout of the header fields of two bytes.
+     */
+    private static final ValueLayout.OfShort SHORT =
+            ValueLayout.JAVA_SHORT_UNALIGNED.withOrder(
+                    ByteOrder.LITTLE_ENDIAN);
+
+    /**
+     * Layout of the magic number.
+     */
+    private static final ValueLayout.OfInt INT =
+            ValueLayout.JAVA_INT_UNALIGNED.withOrder(
+                    ByteOrder.LITTLE_ENDIAN);
+
+    /**
+     * Number of ASCII codes.
+     */
+    private static final int ASCII_CODES = 128;
+
+    /**
+     * Contract types indexed by their ASCII code.
+     */
+    private static final ContractType[] BY_CODE =
+            new ContractType[ASCII_CODES];
+
+    /**
+     * Records written by the converter per buffer.
+     */
+    private static final int RECORDS_PER_BUFFER = 4096;
+
+    /**
+     * Bytes of delimited input read by the converter at a time, which
+     * also bounds the length of a line.
+     */
+    private static final int INPUT_BUFFER_BYTES = 65_536;
+
+    /**
+     * Field delimiter of the delimited payroll files.
+     */
+    private static final byte DELIMITER =
+            (byte) TaxInputReader.DEFAULT_DELIMITER;
+
+    /**
+     * Prefix of comment lines in delimited payroll files.
+     */
+    private static final byte COMMENT_PREFIX = '#';
+
+    static {
+        for (ContractType type : ContractType.values()) {
+            BY_CODE[type.getCode()] = type;
+        }
+    }
+
+    /**
+     * Arena owning the mapping.
+     */
+    private final Arena arena;
+
+    /**
+     * The mapped file.
+     */
+    private final MemorySegment segment;
+
+    /**
+     * Number of records.
+     */
+    private final long size;
+
+    /**
+     * Receives each calculated record of a file.
+     */
+    @FunctionalInterface
+    public interface RecordHandler {
+
+        /**
+         * Accepts a calculated record.
+         *
+         * @param employeeId the employee id
+         * @param contractType the contract type
+         * @param result the calculated values, overwritten by the next
+         *               record
+         * @throws IOException if the record cannot be written
+         */
+        void accept(long employeeId, ContractType contractType,
+                    MutableTaxResult result) throws IOException;
+    }
+
+    /**
+     * Wraps a mapped file.
+     *
+     * @param arenaValue the arena owning the mapping
+     * @param segmentValue the mapped file
+     */
+    private BinaryPayrollFile(final Arena arenaValue,
+                              final MemorySegment segmentValue) {
+        this.arena = arenaValue;
+        this.segment = segmentValue;
+        this.size = (segmentValue.byteSize() - HEADER_BYTES) / RECORD_BYTES;
+    }
+
+    /**
+     * Maps a binary payroll file.
+     *
+     * @param path the file to map
+     * @return the mapped file
+     * @throws IOException if the file cannot be mapped
+     * @throws IllegalArgumentException if path is null or the file is not
+     *                                  in the binary format
+     */
+    public static BinaryPayrollFile open(final Path path) throws IOException {
+        if (path == null) {
+            throw new IllegalArgumentException("Path cannot be null");
+        }
+        Arena arena = Arena.ofConfined();
+        try (FileChannel channel = FileChannel.open(path,
+                StandardOpenOption.READ)) {
+            MemorySegment segment = channel.map(FileChannel.MapMode.READ_ONLY,
+                    0, channel.size(), arena);
+            validate(segment, path);
+            return new BinaryPayrollFile(arena, segment);
+        } catch (IOException | RuntimeException e) {
+            arena.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Checks whether a file starts with the magic number of the format.
+     *
+     * @param path the file to check
+     * @return true if the file looks like a binary payroll file
+     * @throws IOException if the file cannot be read
+     */
+    public static boolean isBinary(final Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path,
+                StandardOpenOption.READ)) {
+            ByteBuffer magic = ByteBuffer.allocate(Integer.BYTES)
+                    .order(ByteOrder.LITTLE_ENDIAN);
+            int read = 0;
+            while (magic.hasRemaining() && read >= 0) {
+                read = channel.read(magic);
+            }
+            return !magic.hasRemaining() && magic.getInt(0) == MAGIC;
+        }
+    }
+
+    /**
+     * Converts a delimited payroll file, in the format read by
+     * {@link TaxInputReader#readPayrollEntry(char)}, to the binary format.
+     * Lines are split and parsed as bytes by {@link AsciiDecimalParser},
+     * so no {@code String} or {@code BigDecimal} is created per row.
+     *
+     * @param csv the payroll file to read
+     * @param binary the binary file to write
+     * @return the number of converted records
+     * @throws IOException if an I/O error occurs
+     * @throws IllegalArgumentException if a row is not valid or its
+     *                                  income has more than two decimal
+     *                                  places
+     */
+    public static long convert(final Path csv, final Path binary)
+            throws IOException {
+        try (FileChannel source = FileChannel.open(csv,
+                     StandardOpenOption.READ);
+             FileChannel target = FileChannel.open(binary,
+                     StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                     StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer input = ByteBuffer.allocate(INPUT_BUFFER_BYTES);
+            byte[] bytes = input.array();
+            ByteBuffer output = ByteBuffer.allocate(
+                    RECORDS_PER_BUFFER * RECORD_BYTES)
+                    .order(ByteOrder.LITTLE_ENDIAN);
+            output.putInt(MAGIC).putShort(VERSION)
+                    .putShort((short) RECORD_BYTES);
+
+            long count = 0;
+            boolean end = false;
+            while (!end) {
+                end = source.read(input) < 0;
+                int limit = input.position();
+                int start = 0;
+                for (int newline = indexOf(bytes, (byte) '\n', start, limit);
+                     newline >= 0;
+                     newline = indexOf(bytes, (byte) '\n', start, limit)) {
+                    count += convertLine(bytes, start, newline, count,
+                            target, output);
+                    start = newline + 1;
+                }
+                if (end && start < limit) {
+                    count += convertLine(bytes, start, limit, count,
+                            target, output);
+                    start = limit;
+                }
+                if (start == 0 && limit == bytes.length) {
+                    throw invalid(count, "Line longer than "
+                            + INPUT_BUFFER_BYTES + " bytes");
+                }
+                System.arraycopy(bytes, start, bytes, 0, limit - start);
+                input.position(limit - start);
+            }
+            write(target, output);
+            return count;
+        }
+    }
+
+    /**
+     * Returns the number of records.
+     *
+     * @return the record count
+     */
+    public long size() {
+        return size;
+    }
+
+    /**
+     * Returns the employee id of a record.
+     *
+     * @param index the record index
+     * @return the employee id
+     * @throws IndexOutOfBoundsException if index is out of range
+     */
+    public long employeeId(final long index) {
+        return segment.get(LONG, offset(index));
+    }
+
+    /**
+     * Returns the gross income of a record.
+     *
+     * @param index the record index
+     * @return the gross income in grosze
+     * @throws IndexOutOfBoundsException if index is out of range
+     */
+    public long grossCents(final long index) {
+        return segment.get(LONG, offset(index) + GROSS_OFFSET);
+    }
+
+    /**
+     * Returns the contract type of a record.
+     *
+     * @param index the record index
+     * @return the contract type
+     * @throws IndexOutOfBoundsException if index is out of range
+     * @throws IllegalArgumentException if the contract code is unknown
+     */
+    public ContractType contractType(final long index) {
+        byte code = segment.get(ValueLayout.JAVA_BYTE,
+                offset(index) + CODE_OFFSET);
+        ContractType type = null;
+        if (code >= 0) {
+            type = BY_CODE[code];
+        }
+        if (type == null) {
+            throw new IllegalArgumentException(
+                    "Unknown contract type: "
+                            + (char) Byte.toUnsignedInt(code));
+        }
+        return type;
+    }
+
+    /**
+     * Calculates every record in file order. One {@link MutableTaxResult}
+     * is reused for all records, so with {@link FixedPointTaxStrategy}
+     * the calculation allocates nothing per record.
+     *
+     * @param calculator the calculator to use
+     * @param handler the handler receiving each result
+     * @return the number of calculated records
+     * @throws IOException if the handler fails
+     * @throws IllegalArgumentException if an argument is null or a record
+     *                                  is not valid
+     */
+    public long calculate(final TaxCalculator calculator,
+                          final RecordHandler handler) throws IOException {
+        if (calculator == null || handler == null) {
+            throw new IllegalArgumentException(
+                    "Calculator and handler cannot be null");
+        }
+        MutableTaxResult result = new MutableTaxResult();
+        for (long i = 0; i < size; i++) {
+            ContractType contractType;
+            try {
+                contractType = contractType(i);
+                calculator.calculateTax(grossCents(i), contractType, result);
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Invalid payroll record "
+                        + i + ": " + e.getMessage(), e);
+            }
+            handler.accept(employeeId(i), contractType, result);
+        }
+        return size;
+    }
+
+    /**
+     * Calculates every record into the row of the same index of an
+     * off-heap store, writing the values in place.
+     *
+     * @param calculator the calculator to use
+     * @param results the store receiving the results
+     * @return the number of calculated records
+     * @throws IllegalArgumentException if an argument is null, the store
+     *                                  has fewer rows than the file has
+     *                                  records or other rates than the
+     *                                  calculator, or a record is not
+     *                                  valid
+     */
+    public long calculate(final TaxCalculator calculator,
+                          final OffHeapTaxResults results) {
+        if (calculator == null || results == null) {
+            throw new IllegalArgumentException(
+                    "Calculator and results cannot be null");
+        }
+        if (results.size() < size) {
+            throw new IllegalArgumentException("Store of " + results.size()
+                    + " rows cannot hold " + size + " records");
+        }
+        if (!calculator.calculatesWith(results.getRateVersion())) {
+            throw new IllegalArgumentException("Store of rates "
+                    + results.getRateVersion()
+                    + " cannot hold results of other rates");
+        }
+        OffHeapTaxResults.Cursor cursor = results.cursor();
+        for (long i = 0; i < size; i++) {
+            try {
+                calculator.calculateTax(grossCents(i), contractType(i),
+                        cursor.at(i));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Invalid payroll record "
+                        + i + ": " + e.getMessage(), e);
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Releases the mapping. Records cannot be read afterwards.
+     */
+    @Override
+    public void close() {
+        arena.close();
+    }
+
+    /**
+     * Returns the offset of a record.
+     *
+     * @param index the record index
+     * @return the offset of its first byte
+     * @throws IndexOutOfBoundsException if index is out of range
+     */
+    private long offset(final long index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException(
+                    "Record " + index + " of " + size);
+        }
+        return HEADER_BYTES + index * RECORD_BYTES;
+    }
+
+    /**
+     * Checks the header and size of a mapped file.
+     *
+     * @param segment the mapped file
+     * @param path the file, for messages
+     * @throws IllegalArgumentException if the file is not valid
+     */
+    private static void validate(final MemorySegment segment,
+                                 final Path path) {
+        long bytes = segment.byteSize();
+        if (bytes < HEADER_BYTES || segment.get(INT, 0) != MAGIC) {
+            throw new IllegalArgumentException(
+                    "Not a binary payroll file: " + path);
+        }
+        short version = segment.get(SHORT, VERSION_OFFSET);
+        short recordSize = segment.get(SHORT, RECORD_SIZE_OFFSET);
+        if (version != VERSION || recordSize != RECORD_BYTES) {
+            throw new IllegalArgumentException("Unsupported version "
+                    + version + " with records of " + recordSize
+                    + " bytes: " + path);
+        }
+        if ((bytes - HEADER_BYTES) % RECORD_BYTES != 0) {
+            throw new IllegalArgumentException(
+                    "Truncated binary payroll file: " + path);
+        }
+    }
+
+    /**
+     * Converts one delimited line to a record, unless it is blank or a
+     * comment.
+     *
+     * @param bytes the input bytes
+     * @param from the index of the first byte of the line
+     * @param to the index of its line terminator or end
+     * @param index the index of the record, for messages
+     * @param target the channel the output is drained to when full
+     * @param output the buffer receiving the record
+     * @return 1 if a record was written, 0 for a skipped line
+     * @throws IOException if the output cannot be written
+     * @throws IllegalArgumentException if the line is not valid
+     */
+    private static int convertLine(final byte[] bytes, final int from,
+                                   final int to, final long index,
+                                   final FileChannel target,
+                                   final ByteBuffer output)
+            throws IOException {
+        int first = skipSpaces(bytes, from, to);
+        if (first == to || bytes[first] == COMMENT_PREFIX) {
+            return 0;
+        }
+        int idEnd = indexOf(bytes, DELIMITER, from, to);
+        int incomeEnd = -1;
+        if (idEnd >= 0) {
+            incomeEnd = indexOf(bytes, DELIMITER, idEnd + 1, to);
+        }
+        if (incomeEnd < 0) {
+            throw invalid(index, "Expected 3 fields");
+        }
+
+        long employeeId = parseEmployeeId(bytes, first, idEnd, index);
+        long cents = AsciiDecimalParser.parseCents(bytes, idEnd + 1,
+                incomeEnd);
+        if (AsciiDecimalParser.isError(cents)) {
+            throw invalid(index, "Invalid income: "
+                    + AsciiDecimalParser.describe(cents));
+        }
+        int codeIndex = skipSpaces(bytes, incomeEnd + 1, to);
+        if (codeIndex == to) {
+            throw invalid(index, "Contract type cannot be empty");
+        }
+        int code = Character.toUpperCase(Byte.toUnsignedInt(bytes[codeIndex]));
+        if (code >= ASCII_CODES || BY_CODE[code] == null) {
+            throw invalid(index, "Unknown contract type: " + (char) code);
+        }
+
+        if (output.remaining() < RECORD_BYTES) {
+            write(target, output);
+        }
+        output.putLong(employeeId).putLong(cents).put((byte) code);
+        return 1;
+    }
+
+    /**
+     * Parses an employee id, which unlike an income may be negative. A
+     * fraction of zeros, as in {@code 12.0}, is tolerated.
+     *
+     * @param bytes the input bytes
+     * @param from the index of its first non-space byte
+     * @param to the index after its last byte
+     * @param index the index of the record, for messages
+     * @return the employee id
+     * @throws IllegalArgumentException if the id is not a long
+     */
+    private static long parseEmployeeId(final byte[] bytes, final int from,
+                                        final int to, final long index) {
+        boolean negative = from < to && bytes[from] == '-';
+        int start = from;
+        if (negative) {
+            start++;
+        }
+        long id = AsciiDecimalParser.parse(bytes, start, to, 0);
+        if (AsciiDecimalParser.isError(id)) {
+            throw invalid(index, "Invalid employee id: "
+                    + AsciiDecimalParser.describe(id));
+        }
+        if (negative) {
+            return -id;
+        }
+        return id;
+    }
+
+    /**
+     * Finds a byte in a range.
+     *
+     * @param bytes the bytes to search
+     * @param value the byte to find
+     * @param from the index to start at
+     * @param to the index to stop before
+     * @return the index of the byte, or -1 if it is not in the range
+     */
+    private static int indexOf(final byte[] bytes, final byte value,
+                               final int from, final int to) {
+        for (int i = from; i < to; i++) {
+            if (bytes[i] == value) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Skips ASCII whitespace and control characters.
+     *
+     * @param bytes the bytes to scan
+     * @param from the index to start at
+     * @param to the index to stop before
+     * @return the index of the first other byte, or to
+     */
+    private static int skipSpaces(final byte[] bytes, final int from,
+                                  final int to) {
+        int i = from;
+        while (i < to && bytes[i] >= 0 && bytes[i] <= ' ') {
+            i++;
+        }
+        return i;
+    }
+
+    /**
+     * Creates the exception for an invalid row.
+     *
+     * @param index the index of the record
+     * @param message the problem
+     * @return the exception to throw
+     */
+    private static IllegalArgumentException invalid(final long index,
+                                                    final String message) {
+        return new IllegalArgumentException(
+                "Invalid payroll record " + index + ": " + message);
+    }
+
+    /**
+     * Writes and clears a buffer.
+     *
+     * @param target the channel to write to
+     * @param buffer the buffer to drain
+     * @throws IOException if an I/O error occurs
+     */
+    private static void write(final FileChannel target,
+                              final ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            target.write(buffer);
+        }
+        buffer.clear();
+    }
+}
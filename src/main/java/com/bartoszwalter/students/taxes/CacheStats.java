@@ -0,0 +1,27 @@
+package com.bartoszwalter.students.taxes;
+
+/**
+ * Snapshot of result cache statistics.
+ * @param hitCount Number of calculations answered from the cache.
+ * @param missCount Number of calculations delegated to the strategy.
+ * @param evictionCount Number of entries removed to make room.
+ * @param size Number of entries currently cached.
+ */
+public record CacheStats(long hitCount,
+                         long missCount,
+                         long evictionCount,
+                         long size) {
+
+    /**
+     * Returns the ratio of hits to all requests.
+     *
+     * @return the hit rate, or zero before the first request
+     */
+    public double hitRate() {
+        long requests = hitCount + missCount;
+        if (requests == 0) {
+            return 0;
+        }
+        return (double) hitCount / requests;
+    }
+}
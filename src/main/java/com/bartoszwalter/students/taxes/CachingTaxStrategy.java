@@ -0,0 +1,265 @@
+package com.bartoszwalter.students.taxes;
+
+import java.math.BigDecimal;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Decorator memoizing the results of another strategy.
+ * <p>
+ * Incomes are keyed at currency scale, so {@code 5000} and
+ * {@code 5000.00} share an entry; the returned result still carries the
+ * requested gross income. Incomes with more than two decimal places are
+ * not cached. The cache holds at most {@code maximumSize} entries: when
+ * it is full, a new income is admitted only if it was requested more
+ * often than the oldest entry, which is then evicted (TinyLFU).
+ * Lookups are lock-free; only admission takes a lock.
+ * </p>
+ * <p>
+ * A cached result is served only while its rate version is that of the
+ * plan the delegate applies, so strategies switching plans, such as those
+ * of {@link RateTableWatcher}, can be cached: once the plan changes, the
+ * entries of other versions are dropped. A delegate without a
+ * {@link TaxCalculationStrategy#getRatePlan() plan} is assumed to keep
+ * its rates.
+ * </p>
+ */
+public final class CachingTaxStrategy implements TaxCalculationStrategy {
+
+    /**
+     * Strategy calculating results on a miss.
+     */
+    private final TaxCalculationStrategy delegate;
+
+    /**
+     * Maximum number of cached entries.
+     */
+    private final int maximumSize;
+
+    /**
+     * Cached results keyed by income at currency scale.
+     */
+    private final Map<BigDecimal, TaxResult> cache;
+
+    /**
+     * Cached keys from oldest to newest, guarded by evictionLock.
+     */
+    private final Deque<BigDecimal> order;
+
+    /**
+     * Request frequency of incomes.
+     */
+    private final FrequencySketch sketch;
+
+    /**
+     * Lock guarding admission and eviction.
+     */
+    private final Object evictionLock = new Object();
+
+    /**
+     * Number of cache hits.
+     */
+    private final LongAdder hits = new LongAdder();
+
+    /**
+     * Number of cache misses.
+     */
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * Number of evicted entries.
+     */
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * Creates a caching decorator.
+     *
+     * @param delegateValue the strategy calculating results on a miss
+     * @param maximumSizeValue the maximum number of cached entries
+     * @throws IllegalArgumentException if delegate is null or the
+     *                                  maximum size is not positive
+     */
+    public CachingTaxStrategy(final TaxCalculationStrategy delegateValue,
+                              final int maximumSizeValue) {
+        if (delegateValue == null) {
+            throw new IllegalArgumentException("Delegate cannot be null");
+        }
+        if (maximumSizeValue <= 0) {
+            throw new IllegalArgumentException(
+                    "Maximum size must be positive");
+        }
+        this.delegate = delegateValue;
+        this.maximumSize = maximumSizeValue;
+        this.cache = new ConcurrentHashMap<>(maximumSizeValue);
+        this.order = new ArrayDeque<>(maximumSizeValue);
+        this.sketch = new FrequencySketch(maximumSizeValue);
+    }
+
+    /**
+     * Wraps every strategy of a map in its own cache.
+     *
+     * @param strategies the strategies keyed by contract type
+     * @param maximumSize the maximum number of entries per strategy
+     * @return the caching strategies keyed by contract type
+     */
+    public static Map<ContractType, TaxCalculationStrategy> decorate(
+            final Map<ContractType, TaxCalculationStrategy> strategies,
+            final int maximumSize) {
+        Map<ContractType, TaxCalculationStrategy> decorated =
+                new EnumMap<>(ContractType.class);
+        for (Map.Entry<ContractType, TaxCalculationStrategy> entry
+                : strategies.entrySet()) {
+            decorated.put(entry.getKey(),
+                    new CachingTaxStrategy(entry.getValue(), maximumSize));
+        }
+        return decorated;
+    }
+
+    /**
+     * Returns the cached result or calculates and caches it.
+     *
+     * @param grossIncome the gross income amount
+     * @return the tax calculation result
+     * @throws IllegalArgumentException if grossIncome is null or negative
+     */
+    @Override
+    public TaxResult calculateTax(final BigDecimal grossIncome) {
+        if (grossIncome == null
+                || grossIncome.compareTo(BigDecimal.ZERO) < 0) {
+            throw new IllegalArgumentException(
+                    "Gross income must be non-negative");
+        }
+        return calculateTrusted(grossIncome);
+    }
+
+    /**
+     * Returns the cached result or calculates and caches it, without
+     * checking the gross income.
+     *
+     * @param grossIncome the non-null, non-negative gross income
+     * @return the tax calculation result
+     */
+    @Override
+    public TaxResult calculateTrusted(final BigDecimal grossIncome) {
+        if (grossIncome.scale() > TaxConstants.CURRENCY_SCALE) {
+            misses.increment();
+            return delegate.calculateTrusted(grossIncome);
+        }
+
+        BigDecimal key = grossIncome.setScale(TaxConstants.CURRENCY_SCALE);
+        sketch.increment(key);
+
+        TaxResult cached = cache.get(key);
+        if (cached != null) {
+            RatePlan plan = delegate.getRatePlan();
+            if (plan == null
+                    || plan.getVersion().equals(cached.rateVersion())) {
+                hits.increment();
+                return withGrossIncome(cached, grossIncome);
+            }
+            invalidate(plan.getVersion());
+        }
+
+        misses.increment();
+        TaxResult result = delegate.calculateTrusted(grossIncome);
+        admit(key, result);
+        return result;
+    }
+
+    /**
+     * Returns the rates applied by the delegate.
+     *
+     * @return the plan of the delegate, or null if unknown
+     */
+    @Override
+    public RatePlan getRatePlan() {
+        return delegate.getRatePlan();
+    }
+
+    /**
+     * Returns a snapshot of the cache statistics.
+     *
+     * @return the statistics
+     */
+    public CacheStats stats() {
+        return new CacheStats(hits.sum(), misses.sum(), evictions.sum(),
+                cache.size());
+    }
+
+    /**
+     * Adds a result if there is room or if it is requested more often
+     * than the oldest entry.
+     *
+     * @param key the income at currency scale
+     * @param result the calculated result
+     */
+    private void admit(final BigDecimal key, final TaxResult result) {
+        synchronized (evictionLock) {
+            if (cache.containsKey(key)) {
+                return;
+            }
+            if (cache.size() >= maximumSize) {
+                BigDecimal victim = order.peekFirst();
+                if (sketch.frequency(key) <= sketch.frequency(victim)) {
+                    return;
+                }
+                order.pollFirst();
+                cache.remove(victim);
+                evictions.increment();
+            }
+            cache.put(key, result);
+            order.addLast(key);
+        }
+    }
+
+    /**
+     * Drops the entries calculated with other rates than the current
+     * ones.
+     *
+     * @param rateVersion the version of the rates in force
+     */
+    private void invalidate(final String rateVersion) {
+        synchronized (evictionLock) {
+            order.removeIf(key -> {
+                TaxResult cached = cache.get(key);
+                if (rateVersion.equals(cached.rateVersion())) {
+                    return false;
+                }
+                cache.remove(key);
+                return true;
+            });
+        }
+    }
+
+    /**
+     * Rebinds a cached result to the requested gross income.
+     * All other values do not depend on the scale of an income with at
+     * most two decimal places.
+     *
+     * @param cached the cached result
+     * @param grossIncome the requested gross income
+     * @return a result carrying the requested gross income
+     */
+    private static TaxResult withGrossIncome(final TaxResult cached,
+                                             final BigDecimal grossIncome) {
+        if (cached.grossIncome().equals(grossIncome)) {
+            return cached;
+        }
+        return new TaxResult(
+            grossIncome,
+            cached.socialContributions(),
+            cached.healthInsurance(),
+            cached.taxDeductibleExpenses(),
+            cached.taxableIncome(),
+            cached.advanceTax(),
+            cached.taxFreeIncome(),
+            cached.finalTax(),
+            cached.netIncome(),
+            cached.rateVersion()
+        );
+    }
+}
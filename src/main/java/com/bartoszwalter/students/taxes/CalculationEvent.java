@@ -0,0 +1,63 @@
+package com.bartoszwalter.students.taxes;
+
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight Recorder event of a {@link TaxCalculationStrategy} calculating
+ * one income for {@link TaxCalculator}.
+ */
+@Name(CalculationEvent.NAME)
+@Label("Tax Calculation")
+@Description("Execution of a tax calculation strategy")
+final class CalculationEvent extends StageEvent {
+
+    /**
+     * Instance answering whether the event is enabled, returned while it
+     * is not.
+     */
+    private static final CalculationEvent IDLE = new CalculationEvent();
+
+    /**
+     * Name of the event type.
+     */
+    static final String NAME =
+            "com.bartoszwalter.students.taxes.Calculation";
+
+    /**
+     * Contract type calculated.
+     */
+    @Label("Contract Type")
+    private String contractType;
+
+    /**
+     * Heap memory allocated by the thread during the stage.
+     */
+    @Label("Allocated")
+    @DataAmount(DataAmount.BYTES)
+    private long allocated;
+
+    /**
+     * Starts the event of a stage.
+     *
+     * @param contractTypeValue the contract type calculated
+     * @return the started event, or the shared idle instance while no
+     *         recording enables the event
+     */
+    static CalculationEvent start(final ContractType contractTypeValue) {
+        if (!IDLE.isEnabled()) {
+            return IDLE;
+        }
+        CalculationEvent event = new CalculationEvent();
+        event.contractType = contractTypeValue.name();
+        event.beginStage();
+        return event;
+    }
+
+    @Override
+    void setAllocated(final long bytes) {
+        this.allocated = bytes;
+    }
+}
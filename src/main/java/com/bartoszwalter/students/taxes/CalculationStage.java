@@ -0,0 +1,36 @@
+package com.bartoszwalter.students.taxes;
+
+/**
+ * Stage of a tax calculation measured by {@link TaxMetrics}.
+ */
+public enum CalculationStage {
+    /**
+     * Social security contributions.
+     */
+    SOCIAL_CONTRIBUTIONS,
+
+    /**
+     * Health insurance.
+     */
+    HEALTH_INSURANCE,
+
+    /**
+     * Tax-deductible expenses and taxable income.
+     */
+    TAXABLE_INCOME,
+
+    /**
+     * Advance tax, final tax and net income.
+     */
+    FINAL_TAX,
+
+    /**
+     * Formatting a result as text.
+     */
+    FORMATTING,
+
+    /**
+     * A whole {@link TaxCalculator#calculateTax} call.
+     */
+    TOTAL
+}
@@ -0,0 +1,203 @@
+package com.bartoszwalter.students.taxes;
+
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Writes results as text to a byte channel through one direct buffer.
+ * <p>
+ * Results are formatted by {@link TaxResultFormatter#format} into a
+ * reused builder, encoded as UTF-8 and written to the channel only when
+ * the buffer is full or on {@link #flush()}, so many results share one
+ * system call. Not thread-safe; wrap it in an
+ * {@link AsyncTaxResultWriter} to write from several threads.
+ * </p>
+ */
+public final class ChannelTaxResultWriter implements TaxResultWriter {
+
+    /**
+     * Default buffer size in bytes.
+     */
+    public static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * Channel receiving the encoded text.
+     */
+    private final WritableByteChannel channel;
+
+    /**
+     * Whether closing this writer closes the channel.
+     */
+    private final boolean ownsChannel;
+
+    /**
+     * Buffer collecting encoded results.
+     */
+    private final ByteBuffer buffer;
+
+    /**
+     * Encoder of the formatted text.
+     */
+    private final CharsetEncoder encoder =
+            StandardCharsets.UTF_8.newEncoder();
+
+    /**
+     * Formatter of the results.
+     */
+    private final TaxResultFormatter formatter = new TaxResultFormatter();
+
+    /**
+     * Text of the result being written.
+     */
+    private final StringBuilder text = new StringBuilder();
+
+    /**
+     * Whether this writer has been closed.
+     */
+    private boolean closed;
+
+    /**
+     * Creates a writer owning a channel.
+     *
+     * @param channelValue the channel receiving the text
+     * @param bufferSize the buffer size in bytes
+     * @throws IllegalArgumentException if channel is null or buffer size
+     *                                  is not positive
+     */
+    public ChannelTaxResultWriter(final WritableByteChannel channelValue,
+                                  final int bufferSize) {
+        this(channelValue, bufferSize, true);
+    }
+
+    /**
+     * Creates a writer.
+     *
+     * @param channelValue the channel receiving the text
+     * @param bufferSize the buffer size in bytes
+     * @param ownsChannelValue whether closing the writer closes the
+     *                         channel
+     * @throws IllegalArgumentException if channel is null or buffer size
+     *                                  is not positive
+     */
+    private ChannelTaxResultWriter(final WritableByteChannel channelValue,
+                                   final int bufferSize,
+                                   final boolean ownsChannelValue) {
+        if (channelValue == null) {
+            throw new IllegalArgumentException("Channel cannot be null");
+        }
+        if (bufferSize <= 0) {
+            throw new IllegalArgumentException(
+                    "Buffer size must be positive");
+        }
+        this.channel = channelValue;
+        this.buffer = ByteBuffer.allocateDirect(bufferSize);
+        this.ownsChannel = ownsChannelValue;
+    }
+
+    /**
+     * Creates a writer to the standard output. Closing the writer
+     * flushes it but leaves the standard output open.
+     *
+     * @return the writer
+     */
+    public static ChannelTaxResultWriter toStandardOutput() {
+        return new ChannelTaxResultWriter(
+                new FileOutputStream(FileDescriptor.out).getChannel(),
+                DEFAULT_BUFFER_SIZE, false);
+    }
+
+    /**
+     * Creates a writer to a file, replacing its contents.
+     *
+     * @param path the file to write
+     * @return the writer
+     * @throws IOException if the file cannot be opened
+     */
+    public static ChannelTaxResultWriter open(final Path path)
+            throws IOException {
+        return new ChannelTaxResultWriter(FileChannel.open(path,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING),
+                DEFAULT_BUFFER_SIZE, true);
+    }
+
+    @Override
+    public void write(final TaxResult result,
+                      final ContractType contractType) throws IOException {
+        ensureOpen();
+        text.setLength(0);
+        formatter.format(result, contractType, text);
+
+        CharBuffer chars = CharBuffer.wrap(text);
+        encoder.reset();
+        CoderResult coderResult = encoder.encode(chars, buffer, true);
+        while (coderResult.isOverflow()) {
+            drain();
+            coderResult = encoder.encode(chars, buffer, true);
+        }
+        if (coderResult.isError()) {
+            coderResult.throwException();
+        }
+        while (encoder.flush(buffer).isOverflow()) {
+            drain();
+        }
+    }
+
+    @Override
+    public void flush() throws IOException {
+        ensureOpen();
+        drain();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        try {
+            drain();
+        } finally {
+            closed = true;
+            if (ownsChannel) {
+                channel.close();
+            }
+        }
+    }
+
+    /**
+     * Writes the buffered bytes to the channel.
+     *
+     * @throws IOException if the channel fails
+     */
+    private void drain() throws IOException {
+        buffer.flip();
+        try {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        } finally {
+            buffer.clear();
+        }
+    }
+
+    /**
+     * Rejects use after closing.
+     *
+     * @throws IOException if the writer is closed
+     */
+    private void ensureOpen() throws IOException {
+        if (closed) {
+            throw new IOException("Writer is closed");
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package com.bartoszwalter.students.taxes;
 
 import java.math.BigDecimal;
+import java.util.Set;
 
 /**
  * Tax calculation strategy for civil contracts (Umowa cywilnoprawna).
@@ -12,6 +13,31 @@ import java.math.BigDecimal;
  */
 public class CivilContractStrategy implements TaxCalculationStrategy {
 
+    /**
+     * Rates applied by this strategy.
+     */
+    private final RatePlan plan;
+
+    /**
+     * Creates a strategy applying the default rates.
+     */
+    public CivilContractStrategy() {
+        this(RatePlan.DEFAULT);
+    }
+
+    /**
+     * Creates a strategy applying a rate plan.
+     *
+     * @param planValue the rates to apply
+     * @throws IllegalArgumentException if plan is null
+     */
+    public CivilContractStrategy(final RatePlan planValue) {
+        if (planValue == null) {
+            throw new IllegalArgumentException("Rate plan cannot be null");
+        }
+        this.plan = planValue;
+    }
+
     /**
      * Calculates tax for civil contract.
      *
@@ -26,10 +52,26 @@ public class CivilContractStrategy implements TaxCalculationStrategy {
             throw new IllegalArgumentException(
                     "Gross income must be non-negative");
         }
+        return calculateTrusted(grossIncome);
+    }
+
+    /**
+     * Calculates tax for civil contract without checking the gross
+     * income. Subclasses overriding {@link #calculateTax(BigDecimal)}
+     * should override this method too.
+     *
+     * @param grossIncome the non-null, non-negative gross income
+     * @return tax calculation result
+     */
+    @Override
+    public TaxResult calculateTrusted(final BigDecimal grossIncome) {
+        long time = TaxMetrics.start();
 
         // Calculate social contributions
         SocialContributions socialContributions =
-                SocialContributions.calculate(grossIncome);
+                SocialContributions.calculateTrusted(grossIncome, plan);
+        time = TaxMetrics.record(ContractType.CIVIL,
+                CalculationStage.SOCIAL_CONTRIBUTIONS, time);
 
         // Income after social contributions
         BigDecimal incomeAfterContributions =
@@ -38,14 +80,15 @@ public class CivilContractStrategy implements TaxCalculationStrategy {
 
         // Income basis for health insurance
         HealthInsurance healthInsurance =
-                HealthInsurance.calculate(incomeAfterContributions);
+                HealthInsurance.calculateTrusted(incomeAfterContributions,
+                        plan);
+        time = TaxMetrics.record(ContractType.CIVIL,
+                CalculationStage.HEALTH_INSURANCE, time);
 
         // Tax deductible expenses (20% for civil contracts)
-        BigDecimal taxDeductibleExpenses = incomeAfterContributions
-                .multiply(TaxRates.CIVIL_CONTRACT_DEDUCTIBLE_RATE)
-                .divide(TaxRates.PERCENTAGE_DIVISOR,
-                        TaxConstants.CURRENCY_SCALE,
-                        TaxConstants.CURRENCY_ROUNDING_MODE);
+        BigDecimal taxDeductibleExpenses = plan.percentOf(
+                incomeAfterContributions,
+                RatePlan.Rate.CIVIL_CONTRACT_DEDUCTIBLE);
 
         // Taxable income
         BigDecimal taxableIncome =
@@ -53,13 +96,12 @@ public class CivilContractStrategy implements TaxCalculationStrategy {
         BigDecimal roundedTaxableIncome = taxableIncome
                 .setScale(TaxConstants.INTEGER_SCALE,
                         TaxConstants.FLOOR_ROUNDING_MODE);
+        time = TaxMetrics.record(ContractType.CIVIL,
+                CalculationStage.TAXABLE_INCOME, time);
 
         // Calculate advance tax
-        BigDecimal advanceTax = roundedTaxableIncome
-                .multiply(TaxRates.ADVANCE_TAX_RATE)
-                .divide(TaxRates.PERCENTAGE_DIVISOR,
-                        TaxConstants.CURRENCY_SCALE,
-                        TaxConstants.CURRENCY_ROUNDING_MODE);
+        BigDecimal advanceTax = plan.percentOf(roundedTaxableIncome,
+                RatePlan.Rate.ADVANCE_TAX);
 
         // No tax free income for civil contracts
         BigDecimal taxFreeIncome = BigDecimal.ZERO;
@@ -77,6 +119,8 @@ public class CivilContractStrategy implements TaxCalculationStrategy {
             .subtract(socialContributions.getTotal())
             .subtract(healthInsurance.getFullRate())
             .subtract(roundedFinalTax);
+        TaxMetrics.record(ContractType.CIVIL,
+                CalculationStage.FINAL_TAX, time);
 
         return new TaxResult(
             grossIncome,
@@ -87,8 +131,37 @@ public class CivilContractStrategy implements TaxCalculationStrategy {
             advanceTax,
             taxFreeIncome,
             roundedFinalTax,
-            netIncome
+            netIncome,
+            plan.getVersion()
         );
     }
 
+    /**
+     * Calculates only the requested fields of a civil contract and the
+     * values they depend on. Subclasses overriding
+     * {@link #calculateTax(BigDecimal)} should override this method too.
+     *
+     * @param grossIncome the gross income amount
+     * @param fields the fields needed by the caller
+     * @return a view calculating the remaining fields on demand
+     * @throws IllegalArgumentException if grossIncome is null or negative
+     *                                  or fields is null
+     */
+    @Override
+    public LazyTaxResult calculateTax(final BigDecimal grossIncome,
+                                      final Set<TaxField> fields) {
+        return new LazyTaxResult(grossIncome, ContractType.CIVIL, plan)
+                .require(fields);
+    }
+
+    /**
+     * Returns the rates applied by this strategy.
+     *
+     * @return the rate plan
+     */
+    @Override
+    public RatePlan getRatePlan() {
+        return plan;
+    }
+
 }
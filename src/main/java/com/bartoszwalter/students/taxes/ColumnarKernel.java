@@ -0,0 +1,34 @@
+package com.bartoszwalter.students.taxes;
+
+/**
+ * Evaluates the tax formulas over a range of columnar rows.
+ */
+interface ColumnarKernel {
+
+    /**
+     * Code of a civil contract; every other validated code is an
+     * employment contract.
+     */
+    byte CIVIL_CODE = (byte) ContractType.CIVIL.getCode();
+
+    /**
+     * Calculates rows {@code from} (inclusive) to {@code to} (exclusive).
+     * Inputs are already validated.
+     *
+     * @param grossCents gross incomes in grosze
+     * @param contractCodes contract type codes, such as {@code 'E'}
+     * @param results columns receiving the results
+     * @param from the first row
+     * @param to the row after the last one
+     */
+    void calculate(long[] grossCents, byte[] contractCodes,
+                   TaxResultColumns results, int from, int to);
+
+    /**
+     * Checks whether the kernel calculates an income exactly.
+     *
+     * @param grossCents the gross income in grosze
+     * @return true if the income is within the kernel's range
+     */
+    boolean supports(long grossCents);
+}
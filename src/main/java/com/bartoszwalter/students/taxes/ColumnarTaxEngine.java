@@ -0,0 +1,226 @@
+package com.bartoszwalter.students.taxes;
+
+/**
+ * Calculates whole batches of incomes held in columns.
+ * <p>
+ * Takes gross incomes in grosze and contract codes as parallel arrays
+ * and fills one {@code long} column per {@link TaxField}, with the same
+ * rounding as the BigDecimal strategies. When the
+ * {@code jdk.incubator.vector} module is available (run with
+ * {@code --add-modules jdk.incubator.vector}) whole vectors of rows are
+ * evaluated at once; otherwise rows are calculated one by one. The
+ * kernels are compiled for the rates of one {@link RatePlan},
+ * {@link RatePlan#DEFAULT} unless another is given.
+ * </p>
+ */
+public final class ColumnarTaxEngine {
+
+    /**
+     * Name of the module providing the Vector API.
+     */
+    private static final String VECTOR_MODULE = "jdk.incubator.vector";
+
+    /**
+     * Code of an employment contract.
+     */
+    private static final byte EMPLOYMENT_CODE =
+            (byte) ContractType.EMPLOYMENT.getCode();
+
+    /**
+     * Kernel used when it supports every income of a batch.
+     */
+    private final ColumnarKernel kernel;
+
+    /**
+     * Kernel used for batches with incomes outside the kernel's range.
+     */
+    private final ColumnarKernel fallback;
+
+    /**
+     * Largest gross income in grosze calculable under the plan.
+     */
+    private final long maxCents;
+
+    /**
+     * Creates an engine with the given kernel.
+     *
+     * @param kernelValue the kernel to use
+     * @param plan the rate plan of the kernel
+     */
+    private ColumnarTaxEngine(final ColumnarKernel kernelValue,
+                              final RatePlan plan) {
+        this.kernel = kernelValue;
+        this.fallback = new ScalarColumnarKernel(plan);
+        this.maxCents = plan.getMaxCents();
+    }
+
+    /**
+     * Creates an engine using the Vector API when it is available.
+     *
+     * @return the engine
+     */
+    public static ColumnarTaxEngine create() {
+        return create(RatePlan.DEFAULT);
+    }
+
+    /**
+     * Creates an engine for a rate plan using the Vector API when it is
+     * available.
+     *
+     * @param plan the rate plan to apply
+     * @return the engine
+     * @throws IllegalArgumentException if plan is null
+     */
+    public static ColumnarTaxEngine create(final RatePlan plan) {
+        if (isVectorApiAvailable()) {
+            return vectorized(plan);
+        }
+        return scalar(plan);
+    }
+
+    /**
+     * Creates an engine calculating one row at a time.
+     *
+     * @return the engine
+     */
+    public static ColumnarTaxEngine scalar() {
+        return scalar(RatePlan.DEFAULT);
+    }
+
+    /**
+     * Creates an engine for a rate plan calculating one row at a time.
+     *
+     * @param plan the rate plan to apply
+     * @return the engine
+     * @throws IllegalArgumentException if plan is null
+     */
+    public static ColumnarTaxEngine scalar(final RatePlan plan) {
+        checkPlan(plan);
+        return new ColumnarTaxEngine(new ScalarColumnarKernel(plan), plan);
+    }
+
+    /**
+     * Creates an engine using the Vector API.
+     *
+     * @return the engine
+     * @throws IllegalStateException if the Vector API module is not
+     *                               available
+     */
+    public static ColumnarTaxEngine vectorized() {
+        return vectorized(RatePlan.DEFAULT);
+    }
+
+    /**
+     * Creates an engine for a rate plan using the Vector API.
+     *
+     * @param plan the rate plan to apply
+     * @return the engine
+     * @throws IllegalArgumentException if plan is null
+     * @throws IllegalStateException if the Vector API module is not
+     *                               available
+     */
+    public static ColumnarTaxEngine vectorized(final RatePlan plan) {
+        checkPlan(plan);
+        if (!isVectorApiAvailable()) {
+            throw new IllegalStateException(
+                    "Module " + VECTOR_MODULE + " is not available");
+        }
+        return new ColumnarTaxEngine(new VectorColumnarKernel(plan), plan);
+    }
+
+    /**
+     * Checks a rate plan argument.
+     *
+     * @param plan the rate plan
+     * @throws IllegalArgumentException if plan is null
+     */
+    private static void checkPlan(final RatePlan plan) {
+        if (plan == null) {
+            throw new IllegalArgumentException("Rate plan cannot be null");
+        }
+    }
+
+    /**
+     * Checks whether the Vector API module is loaded.
+     *
+     * @return true if the module is available
+     */
+    public static boolean isVectorApiAvailable() {
+        return ModuleLayer.boot().findModule(VECTOR_MODULE).isPresent();
+    }
+
+    /**
+     * Calculates a batch into new columns.
+     *
+     * @param grossCents gross incomes in grosze
+     * @param contractCodes contract type codes, such as {@code 'E'}
+     * @return the result columns
+     * @throws IllegalArgumentException if the arrays are null or differ
+     *                                  in length, or any value is invalid
+     */
+    public TaxResultColumns calculate(final long[] grossCents,
+                                      final byte[] contractCodes) {
+        if (grossCents == null) {
+            throw new IllegalArgumentException(
+                    "Gross incomes cannot be null");
+        }
+        TaxResultColumns results = new TaxResultColumns(grossCents.length);
+        calculate(grossCents, contractCodes, results);
+        return results;
+    }
+
+    /**
+     * Calculates a batch into existing columns, so they can be reused.
+     *
+     * @param grossCents gross incomes in grosze
+     * @param contractCodes contract type codes, such as {@code 'E'}
+     * @param results the columns receiving the results
+     * @throws IllegalArgumentException if an argument is null, the sizes
+     *                                  differ or any value is invalid
+     */
+    public void calculate(final long[] grossCents,
+                          final byte[] contractCodes,
+                          final TaxResultColumns results) {
+        if (grossCents == null || contractCodes == null
+                || results == null) {
+            throw new IllegalArgumentException(
+                    "Batch arrays cannot be null");
+        }
+        if (grossCents.length != contractCodes.length
+                || grossCents.length != results.size()) {
+            throw new IllegalArgumentException(
+                    "Batch arrays must have the same length");
+        }
+
+        boolean supported = true;
+        for (int row = 0; row < grossCents.length; row++) {
+            long gross = grossCents[row];
+            if (gross < 0 || gross > maxCents) {
+                throw new IllegalArgumentException(
+                        "Invalid gross income in row " + row);
+            }
+            checkCode(contractCodes[row]);
+            supported &= kernel.supports(gross);
+        }
+
+        ColumnarKernel selected = kernel;
+        if (!supported) {
+            selected = fallback;
+        }
+        selected.calculate(grossCents, contractCodes, results, 0,
+                grossCents.length);
+    }
+
+    /**
+     * Checks a contract code without a map lookup.
+     *
+     * @param code the contract type code
+     * @throws IllegalArgumentException if the code is unknown
+     */
+    private static void checkCode(final byte code) {
+        if (code != ColumnarKernel.CIVIL_CODE && code != EMPLOYMENT_CODE) {
+            throw new IllegalArgumentException(
+                    "Unknown contract type: " + (char) code);
+        }
+    }
+}
@@ -0,0 +1,269 @@
+package com.bartoszwalter.students.taxes;
+
+import java.math.BigDecimal;
+import java.util.AbstractList;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Results of a batch packed as primitives: every {@link TaxField} of a
+ * row is held as an unscaled {@code long} with its scale as a byte, and
+ * the rate version as a reference to the string of the result.
+ * <p>
+ * A row takes about 112 bytes instead of the record, its two component
+ * objects and twelve {@link BigDecimal}s of a {@link TaxResult}.
+ * {@link #get(int)} rebuilds an equal result, with the same values and
+ * scales, on each call; {@link #getUnscaled(int, TaxField)} and
+ * {@link #getDecimal(int, TaxField)} read single values. Results holding
+ * a null value or component, or a value of more than
+ * {@value #LONG_DIGITS} digits, are kept as they are.
+ * </p>
+ * <p>
+ * The list cannot be modified. Distinct rows may be stored by different
+ * threads while a batch is calculated.
+ * </p>
+ */
+public final class CompactTaxResults extends AbstractList<TaxResult>
+        implements RandomAccess {
+
+    /**
+     * Fields of a row, in order.
+     */
+    private static final TaxField[] FIELDS = TaxField.values();
+
+    /**
+     * Number of values of a row.
+     */
+    private static final int FIELD_COUNT = FIELDS.length;
+
+    /**
+     * Largest precision whose unscaled value always fits in a long.
+     */
+    private static final int LONG_DIGITS = 18;
+
+    /**
+     * Unscaled values, {@link #FIELD_COUNT} per row.
+     */
+    private final long[] values;
+
+    /**
+     * Scales of the values.
+     */
+    private final byte[] scales;
+
+    /**
+     * Rate version of each row.
+     */
+    private final String[] rateVersions;
+
+    /**
+     * Results of rows that cannot be packed, by row.
+     */
+    private final Map<Integer, TaxResult> unpacked =
+            new ConcurrentHashMap<>();
+
+    /**
+     * Creates a batch of rows to be stored.
+     *
+     * @param sizeValue the number of rows
+     * @throws IllegalArgumentException if sizeValue is negative or too
+     *                                  large
+     */
+    CompactTaxResults(final int sizeValue) {
+        if (sizeValue < 0 || sizeValue > Integer.MAX_VALUE / FIELD_COUNT) {
+            throw new IllegalArgumentException("Invalid size: " + sizeValue);
+        }
+        this.values = new long[sizeValue * FIELD_COUNT];
+        this.scales = new byte[sizeValue * FIELD_COUNT];
+        this.rateVersions = new String[sizeValue];
+    }
+
+    /**
+     * Packs a list of results.
+     *
+     * @param results the results to pack
+     * @return the packed results, in the same order
+     * @throws IllegalArgumentException if results is null or holds a null
+     */
+    public static CompactTaxResults of(final List<TaxResult> results) {
+        if (results == null) {
+            throw new IllegalArgumentException("Results cannot be null");
+        }
+        CompactTaxResults packed = new CompactTaxResults(results.size());
+        int row = 0;
+        for (TaxResult result : results) {
+            packed.put(row, result);
+            row++;
+        }
+        return packed;
+    }
+
+    /**
+     * Returns the number of rows.
+     *
+     * @return the number of rows
+     */
+    @Override
+    public int size() {
+        return rateVersions.length;
+    }
+
+    /**
+     * Rebuilds the result of a row.
+     *
+     * @param row the row to read
+     * @return a result equal in values and scales to the stored one
+     * @throws IndexOutOfBoundsException if row is out of range
+     */
+    @Override
+    public TaxResult get(final int row) {
+        TaxResult result = unpacked(row);
+        if (result != null) {
+            return result;
+        }
+        return new TaxResult(
+            getDecimal(row, TaxField.GROSS_INCOME),
+            new SocialContributions(
+                    getDecimal(row, TaxField.SOCIAL_SECURITY),
+                    getDecimal(row, TaxField.HEALTH_SOCIAL_SECURITY),
+                    getDecimal(row, TaxField.SICKNESS_SOCIAL_SECURITY)),
+            new HealthInsurance(
+                    getDecimal(row, TaxField.HEALTH_INSURANCE_FULL),
+                    getDecimal(row, TaxField.HEALTH_INSURANCE_DEDUCTIBLE)),
+            getDecimal(row, TaxField.TAX_DEDUCTIBLE_EXPENSES),
+            getDecimal(row, TaxField.TAXABLE_INCOME),
+            getDecimal(row, TaxField.ADVANCE_TAX),
+            getDecimal(row, TaxField.TAX_FREE_INCOME),
+            getDecimal(row, TaxField.FINAL_TAX),
+            getDecimal(row, TaxField.NET_INCOME),
+            rateVersions[row]
+        );
+    }
+
+    /**
+     * Returns a single value.
+     *
+     * @param row the row to read
+     * @param field the field to read
+     * @return the value with its stored scale
+     * @throws IndexOutOfBoundsException if row is out of range
+     */
+    public BigDecimal getDecimal(final int row, final TaxField field) {
+        TaxResult result = unpacked(row);
+        if (result != null) {
+            return valueOf(result, field);
+        }
+        int index = row * FIELD_COUNT + field.ordinal();
+        return BigDecimal.valueOf(values[index], scales[index]);
+    }
+
+    /**
+     * Returns a single value unscaled at the scale of its field, as in
+     * {@link TaxResultColumns}, without creating a {@link BigDecimal} for
+     * values stored at that scale.
+     *
+     * @param row the row to read
+     * @param field the field to read
+     * @return the value, unscaled at the field's scale
+     * @throws IndexOutOfBoundsException if row is out of range
+     * @throws ArithmeticException if the value has more decimal places
+     *                             than the field or does not fit in a
+     *                             long
+     */
+    public long getUnscaled(final int row, final TaxField field) {
+        TaxResult result = unpacked(row);
+        int index = row * FIELD_COUNT + field.ordinal();
+        if (result == null && scales[index] == field.getScale()) {
+            return values[index];
+        }
+        return field.toUnscaled(getDecimal(row, field));
+    }
+
+    /**
+     * Returns the rate version of a row.
+     *
+     * @param row the row to read
+     * @return the version of the rate plan that produced the result
+     * @throws IndexOutOfBoundsException if row is out of range
+     */
+    public String getRateVersion(final int row) {
+        TaxResult result = unpacked(row);
+        if (result != null) {
+            return result.rateVersion();
+        }
+        return rateVersions[row];
+    }
+
+    /**
+     * Stores the result of a row, which must not have been stored yet.
+     *
+     * @param row the row to write
+     * @param result the result to store
+     * @throws IllegalArgumentException if result is null
+     * @throws IndexOutOfBoundsException if row is out of range
+     */
+    void put(final int row, final TaxResult result) {
+        if (result == null) {
+            throw new IllegalArgumentException("Result cannot be null");
+        }
+        int offset = row * FIELD_COUNT;
+        rateVersions[row] = result.rateVersion();
+        if (result.socialContributions() == null
+                || result.healthInsurance() == null) {
+            unpacked.put(row, result);
+            return;
+        }
+        for (TaxField field : FIELDS) {
+            BigDecimal value = field.valueOf(result);
+            if (value == null || value.precision() > LONG_DIGITS
+                    || value.scale() < Byte.MIN_VALUE
+                    || value.scale() > Byte.MAX_VALUE) {
+                unpacked.put(row, result);
+                return;
+            }
+            values[offset + field.ordinal()] =
+                    value.movePointRight(value.scale()).longValueExact();
+            scales[offset + field.ordinal()] = (byte) value.scale();
+        }
+    }
+
+    /**
+     * Returns the result of a row that could not be packed.
+     *
+     * @param row the row to read
+     * @return the stored result, or null if the row is packed
+     * @throws IndexOutOfBoundsException if row is out of range
+     */
+    private TaxResult unpacked(final int row) {
+        if (row < 0 || row >= rateVersions.length) {
+            throw new IndexOutOfBoundsException(row);
+        }
+        if (unpacked.isEmpty()) {
+            return null;
+        }
+        return unpacked.get(row);
+    }
+
+    /**
+     * Reads a value of a result that could not be packed.
+     *
+     * @param result the result
+     * @param field the field to read
+     * @return the value, or null if it or its component is missing
+     */
+    private static BigDecimal valueOf(final TaxResult result,
+                                      final TaxField field) {
+        boolean social = field == TaxField.SOCIAL_SECURITY
+                || field == TaxField.HEALTH_SOCIAL_SECURITY
+                || field == TaxField.SICKNESS_SOCIAL_SECURITY;
+        boolean health = field == TaxField.HEALTH_INSURANCE_FULL
+                || field == TaxField.HEALTH_INSURANCE_DEDUCTIBLE;
+        if ((social && result.socialContributions() == null)
+                || (health && result.healthInsurance() == null)) {
+            return null;
+        }
+        return field.valueOf(result);
+    }
+}
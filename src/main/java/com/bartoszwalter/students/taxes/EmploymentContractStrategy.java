@@ -1,6 +1,7 @@
 package com.bartoszwalter.students.taxes;
 
 import java.math.BigDecimal;
+import java.util.Set;
 
 /**
  * Tax calculation strategy for employment contracts (Umowa o pracę).
@@ -13,6 +14,31 @@ import java.math.BigDecimal;
 public class EmploymentContractStrategy
         implements TaxCalculationStrategy {
 
+    /**
+     * Rates applied by this strategy.
+     */
+    private final RatePlan plan;
+
+    /**
+     * Creates a strategy applying the default rates.
+     */
+    public EmploymentContractStrategy() {
+        this(RatePlan.DEFAULT);
+    }
+
+    /**
+     * Creates a strategy applying a rate plan.
+     *
+     * @param planValue the rates to apply
+     * @throws IllegalArgumentException if plan is null
+     */
+    public EmploymentContractStrategy(final RatePlan planValue) {
+        if (planValue == null) {
+            throw new IllegalArgumentException("Rate plan cannot be null");
+        }
+        this.plan = planValue;
+    }
+
     /**
      * Calculates tax for employment contract.
      *
@@ -27,18 +53,36 @@ public class EmploymentContractStrategy
             throw new IllegalArgumentException(
                     "Gross income must be non-negative");
         }
+        return calculateTrusted(grossIncome);
+    }
+
+    /**
+     * Calculates tax for employment contract without checking the gross
+     * income. Subclasses overriding {@link #calculateTax(BigDecimal)}
+     * should override this method too.
+     *
+     * @param grossIncome the non-null, non-negative gross income
+     * @return tax calculation result
+     */
+    @Override
+    public TaxResult calculateTrusted(final BigDecimal grossIncome) {
+        long time = TaxMetrics.start();
 
         // Calculate social contributions
         SocialContributions socialContributions =
-                SocialContributions.calculate(grossIncome);
+                SocialContributions.calculateTrusted(grossIncome, plan);
+        time = TaxMetrics.record(ContractType.EMPLOYMENT,
+                CalculationStage.SOCIAL_CONTRIBUTIONS, time);
 
         // Health insurance based on gross income
         HealthInsurance healthInsurance =
-                HealthInsurance.calculate(grossIncome);
+                HealthInsurance.calculateTrusted(grossIncome, plan);
+        time = TaxMetrics.record(ContractType.EMPLOYMENT,
+                CalculationStage.HEALTH_INSURANCE, time);
 
         // Tax deductible expenses (fixed for employment)
         BigDecimal taxDeductibleExpenses =
-                TaxRates.EMPLOYMENT_TAX_DEDUCTIBLE_EXPENSES;
+                plan.getEmploymentDeductibleExpenses();
 
         // Taxable income
         BigDecimal taxableIncome =
@@ -46,16 +90,15 @@ public class EmploymentContractStrategy
         BigDecimal roundedTaxableIncome = taxableIncome
                 .setScale(TaxConstants.INTEGER_SCALE,
                         TaxConstants.FLOOR_ROUNDING_MODE);
+        time = TaxMetrics.record(ContractType.EMPLOYMENT,
+                CalculationStage.TAXABLE_INCOME, time);
 
         // Calculate advance tax
-        BigDecimal advanceTax = roundedTaxableIncome
-                .multiply(TaxRates.ADVANCE_TAX_RATE)
-                .divide(TaxRates.PERCENTAGE_DIVISOR,
-                        TaxConstants.CURRENCY_SCALE,
-                        TaxConstants.CURRENCY_ROUNDING_MODE);
+        BigDecimal advanceTax = plan.percentOf(roundedTaxableIncome,
+                RatePlan.Rate.ADVANCE_TAX);
 
         // Tax free income applies to employment contracts
-        BigDecimal taxFreeIncome = TaxRates.TAX_FREE_INCOME;
+        BigDecimal taxFreeIncome = plan.getTaxFreeIncome();
 
         // Calculate tax after reductions
         BigDecimal reducedTax = advanceTax.subtract(taxFreeIncome);
@@ -72,6 +115,8 @@ public class EmploymentContractStrategy
             .subtract(socialContributions.getTotal())
             .subtract(healthInsurance.getFullRate())
             .subtract(roundedFinalTax);
+        TaxMetrics.record(ContractType.EMPLOYMENT,
+                CalculationStage.FINAL_TAX, time);
 
         return new TaxResult(
             grossIncome,
@@ -82,8 +127,37 @@ public class EmploymentContractStrategy
             advanceTax,
             taxFreeIncome,
             roundedFinalTax,
-            netIncome
+            netIncome,
+            plan.getVersion()
         );
     }
 
+    /**
+     * Calculates only the requested fields of an employment contract and the
+     * values they depend on. Subclasses overriding
+     * {@link #calculateTax(BigDecimal)} should override this method too.
+     *
+     * @param grossIncome the gross income amount
+     * @param fields the fields needed by the caller
+     * @return a view calculating the remaining fields on demand
+     * @throws IllegalArgumentException if grossIncome is null or negative
+     *                                  or fields is null
+     */
+    @Override
+    public LazyTaxResult calculateTax(final BigDecimal grossIncome,
+                                      final Set<TaxField> fields) {
+        return new LazyTaxResult(grossIncome, ContractType.EMPLOYMENT, plan)
+                .require(fields);
+    }
+
+    /**
+     * Returns the rates applied by this strategy.
+     *
+     * @return the rate plan
+     */
+    @Override
+    public RatePlan getRatePlan() {
+        return plan;
+    }
+
 }
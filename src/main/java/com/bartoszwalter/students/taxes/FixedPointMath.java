@@ -0,0 +1,135 @@
+package com.bartoszwalter.students.taxes;
+
+import java.math.BigDecimal;
+
+/**
+ * Exact integer arithmetic on amounts held as {@code long} grosze.
+ * Rates are passed in basis points, as compiled by {@link RatePlan}, and
+ * the rounding rules from {@link TaxConstants} are reproduced with
+ * integer division, so results match the BigDecimal calculation.
+ */
+final class FixedPointMath {
+
+    private FixedPointMath() {
+        throw new UnsupportedOperationException("Utility class");
+    }
+
+    /**
+     * Number of grosze in one zloty.
+     */
+    static final long CENTS_PER_UNIT = 100;
+
+    /**
+     * Percentage divisor in basis points.
+     */
+    static final long PERCENTAGE_DIVISOR_BP =
+            basisPoints(TaxRates.PERCENTAGE_DIVISOR);
+
+    /**
+     * Offset turning a floor division by the percentage divisor into a
+     * division rounded half up, for non-negative dividends.
+     */
+    static final long HALF_PERCENTAGE_DIVISOR_BP = PERCENTAGE_DIVISOR_BP / 2;
+
+    /**
+     * Converts a value with at most two decimal places to hundredths.
+     *
+     * @param value the value to convert
+     * @return the value multiplied by 100
+     * @throws ArithmeticException if the value has more than two
+     *                             decimal places
+     */
+    static long basisPoints(final BigDecimal value) {
+        return value.movePointRight(TaxConstants.CURRENCY_SCALE)
+                .longValueExact();
+    }
+
+    /**
+     * Checks whether an amount can be calculated exactly in grosze with
+     * a given overflow limit.
+     *
+     * @param amount the non-negative amount to check
+     * @param maxAmount the largest amount calculable without overflow
+     * @return true if the amount fits the fixed-point engine
+     */
+    static boolean isRepresentable(final BigDecimal amount,
+                                   final BigDecimal maxAmount) {
+        return amount.scale() <= TaxConstants.CURRENCY_SCALE
+                && amount.compareTo(maxAmount) <= 0;
+    }
+
+    /**
+     * Converts a representable amount to grosze.
+     *
+     * @param amount the amount to convert
+     * @return the amount in grosze
+     */
+    static long toCents(final BigDecimal amount) {
+        return amount.movePointRight(TaxConstants.CURRENCY_SCALE)
+                .longValue();
+    }
+
+    /**
+     * Calculates a percentage of an amount, rounded like
+     * {@link TaxConstants#CURRENCY_ROUNDING_MODE} to grosze.
+     *
+     * @param cents the amount in grosze
+     * @param rateBasisPoints the rate in basis points
+     * @return the percentage in grosze
+     */
+    static long percentOf(final long cents, final long rateBasisPoints) {
+        return divideHalfUp(cents * rateBasisPoints, PERCENTAGE_DIVISOR_BP);
+    }
+
+    /**
+     * Calculates a percentage of a non-negative amount like
+     * {@link #percentOf(long, long)}, with a single division.
+     *
+     * @param cents the non-negative amount in grosze
+     * @param rateBasisPoints the rate in basis points
+     * @return the percentage in grosze
+     */
+    static long percentOfNonNegative(final long cents,
+                                     final long rateBasisPoints) {
+        return (cents * rateBasisPoints + HALF_PERCENTAGE_DIVISOR_BP)
+                / PERCENTAGE_DIVISOR_BP;
+    }
+
+    /**
+     * Truncates grosze to whole zloty, like
+     * {@link TaxConstants#FLOOR_ROUNDING_MODE}.
+     *
+     * @param cents the amount in grosze
+     * @return the amount in whole zloty, rounded towards zero
+     */
+    static long truncateToUnits(final long cents) {
+        return cents / CENTS_PER_UNIT;
+    }
+
+    /**
+     * Rounds grosze to whole zloty, like
+     * {@link TaxConstants#CURRENCY_ROUNDING_MODE}.
+     *
+     * @param cents the amount in grosze
+     * @return the amount in whole zloty, rounded half away from zero
+     */
+    static long roundToUnits(final long cents) {
+        return divideHalfUp(cents, CENTS_PER_UNIT);
+    }
+
+    /**
+     * Divides with rounding half away from zero.
+     *
+     * @param dividend the dividend
+     * @param divisor the positive divisor
+     * @return the rounded quotient
+     */
+    static long divideHalfUp(final long dividend, final long divisor) {
+        long quotient = dividend / divisor;
+        long remainder = Math.abs(dividend % divisor);
+        if (remainder * 2 >= divisor) {
+            quotient += Long.signum(dividend);
+        }
+        return quotient;
+    }
+}
@@ -0,0 +1,338 @@
+package com.bartoszwalter.students.taxes;
+
+import java.math.BigDecimal;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Tax calculation strategy working on {@code long} grosze.
+ * <p>
+ * Produces results identical to {@link EmploymentContractStrategy} and
+ * {@link CivilContractStrategy}, including the scale of every value,
+ * without chaining BigDecimal operations. Incomes with more than two
+ * decimal places, or too large to calculate without overflow, are
+ * delegated to the BigDecimal strategy. Calculating into a
+ * {@link TaxResultSink} allocates nothing. The integer formulas are those
+ * of the {@link RatePlan}, shared with {@link NetIncomeCurve}.
+ * </p>
+ */
+public final class FixedPointTaxStrategy implements TaxCalculationStrategy {
+
+    /**
+     * Contract type calculated by this strategy.
+     */
+    private final ContractType contractType;
+
+    /**
+     * BigDecimal strategy used when an income does not fit in grosze.
+     */
+    private final TaxCalculationStrategy fallback;
+
+    /**
+     * Rates applied by this strategy.
+     */
+    private final RatePlan plan;
+
+    /**
+     * Largest gross income in grosze calculable without overflow.
+     */
+    private final long maxCents;
+
+    /**
+     * {@link #maxCents} as an amount.
+     */
+    private final BigDecimal maxAmount;
+
+    /**
+     * Creates a fixed-point strategy for the given contract type with the
+     * default rates.
+     *
+     * @param contractTypeValue the contract type to calculate
+     * @throws IllegalArgumentException if contract type is null
+     */
+    public FixedPointTaxStrategy(final ContractType contractTypeValue) {
+        this(contractTypeValue, RatePlan.DEFAULT);
+    }
+
+    /**
+     * Creates a fixed-point strategy for the given contract type.
+     *
+     * @param contractTypeValue the contract type to calculate
+     * @param planValue the rates to apply
+     * @throws IllegalArgumentException if contract type or plan is null
+     */
+    public FixedPointTaxStrategy(final ContractType contractTypeValue,
+                                 final RatePlan planValue) {
+        if (contractTypeValue == null) {
+            throw new IllegalArgumentException(
+                    "Contract type cannot be null");
+        }
+        if (planValue == null) {
+            throw new IllegalArgumentException("Rate plan cannot be null");
+        }
+        this.contractType = contractTypeValue;
+        this.plan = planValue;
+        if (contractTypeValue == ContractType.EMPLOYMENT) {
+            this.fallback = new EmploymentContractStrategy(planValue);
+        } else {
+            this.fallback = new CivilContractStrategy(planValue);
+        }
+        this.maxCents = planValue.getMaxCents();
+        this.maxAmount = BigDecimal.valueOf(maxCents,
+                TaxConstants.CURRENCY_SCALE);
+    }
+
+    /**
+     * Creates fixed-point strategies for all contract types with the
+     * default rates.
+     *
+     * @return the strategies keyed by contract type
+     */
+    public static Map<ContractType, TaxCalculationStrategy> strategies() {
+        return strategies(RatePlan.DEFAULT);
+    }
+
+    /**
+     * Creates fixed-point strategies for all contract types.
+     *
+     * @param plan the rates to apply
+     * @return the strategies keyed by contract type
+     * @throws IllegalArgumentException if plan is null
+     */
+    public static Map<ContractType, TaxCalculationStrategy> strategies(
+            final RatePlan plan) {
+        Map<ContractType, TaxCalculationStrategy> strategies =
+                new EnumMap<>(ContractType.class);
+        for (ContractType type : ContractType.values()) {
+            strategies.put(type, new FixedPointTaxStrategy(type, plan));
+        }
+        return strategies;
+    }
+
+    /**
+     * Returns the rates applied by this strategy.
+     *
+     * @return the rate plan
+     */
+    @Override
+    public RatePlan getRatePlan() {
+        return plan;
+    }
+
+    /**
+     * Calculates tax in grosze.
+     *
+     * @param grossIncome the gross income amount
+     * @return tax calculation result
+     * @throws IllegalArgumentException if grossIncome is null or negative
+     */
+    @Override
+    public TaxResult calculateTax(final BigDecimal grossIncome) {
+        if (grossIncome == null
+                || grossIncome.compareTo(BigDecimal.ZERO) < 0) {
+            throw new IllegalArgumentException(
+                    "Gross income must be non-negative");
+        }
+        return calculateTrusted(grossIncome);
+    }
+
+    /**
+     * Calculates tax in grosze without checking the gross income.
+     *
+     * @param grossIncome the non-null, non-negative gross income
+     * @return tax calculation result
+     */
+    @Override
+    public TaxResult calculateTrusted(final BigDecimal grossIncome) {
+        if (!isRepresentable(grossIncome)) {
+            return fallback.calculateTrusted(grossIncome);
+        }
+
+        MutableTaxResult values = new MutableTaxResult();
+        calculate(FixedPointMath.toCents(grossIncome), values);
+        return toResult(grossIncome, values);
+    }
+
+    /**
+     * Calculates tax in grosze into a sink without allocating.
+     *
+     * @param grossCents the gross income in grosze
+     * @param sink the sink receiving the calculated values
+     * @throws IllegalArgumentException if grossCents is negative or too
+     *                                  large, or sink is null
+     */
+    @Override
+    public void calculateTax(final long grossCents,
+                             final TaxResultSink sink) {
+        if (grossCents < 0 || grossCents > maxCents) {
+            throw new IllegalArgumentException(
+                    "Gross income must be non-negative and at most "
+                            + maxCents + " grosze");
+        }
+        if (sink == null) {
+            throw new IllegalArgumentException("Sink cannot be null");
+        }
+        calculate(grossCents, sink);
+    }
+
+    /**
+     * Dispatches to the formula of the contract type.
+     *
+     * @param gross the gross income in grosze
+     * @param sink the sink receiving the calculated values
+     */
+    private void calculate(final long gross, final TaxResultSink sink) {
+        if (contractType == ContractType.EMPLOYMENT) {
+            calculateEmployment(gross, sink);
+        } else {
+            calculateCivil(gross, sink);
+        }
+    }
+
+    /**
+     * Calculates an employment contract.
+     *
+     * @param gross the gross income in grosze
+     * @param sink the sink receiving the calculated values
+     */
+    private void calculateEmployment(final long gross,
+                                     final TaxResultSink sink) {
+        long socialSecurity =
+                plan.percentOf(gross, RatePlan.Rate.SOCIAL_SECURITY);
+        long healthSocialSecurity =
+                plan.percentOf(gross, RatePlan.Rate.HEALTH_SOCIAL_SECURITY);
+        long sicknessSocialSecurity = plan.percentOf(gross,
+                RatePlan.Rate.SICKNESS_SOCIAL_SECURITY);
+        long contributions = socialSecurity + healthSocialSecurity
+                + sicknessSocialSecurity;
+
+        long healthFull =
+                plan.percentOf(gross, RatePlan.Rate.HEALTH_INSURANCE_FULL);
+        long healthDeductible = plan.percentOf(gross,
+                RatePlan.Rate.HEALTH_INSURANCE_DEDUCTIBLE);
+
+        long taxableIncome = plan.employmentTaxableIncome(gross);
+        long advanceTax = plan.advanceTax(taxableIncome);
+        long finalTax = plan.employmentFinalTax(advanceTax,
+                healthDeductible);
+        long netIncome = gross - contributions - healthFull
+                - finalTax * FixedPointMath.CENTS_PER_UNIT;
+
+        sink.accept(TaxField.GROSS_INCOME, gross);
+        sink.accept(TaxField.SOCIAL_SECURITY, socialSecurity);
+        sink.accept(TaxField.HEALTH_SOCIAL_SECURITY, healthSocialSecurity);
+        sink.accept(TaxField.SICKNESS_SOCIAL_SECURITY,
+                sicknessSocialSecurity);
+        sink.accept(TaxField.HEALTH_INSURANCE_FULL, healthFull);
+        sink.accept(TaxField.HEALTH_INSURANCE_DEDUCTIBLE, healthDeductible);
+        sink.accept(TaxField.TAX_DEDUCTIBLE_EXPENSES,
+                plan.getEmploymentDeductibleCents());
+        sink.accept(TaxField.TAXABLE_INCOME, taxableIncome);
+        sink.accept(TaxField.ADVANCE_TAX, advanceTax);
+        sink.accept(TaxField.TAX_FREE_INCOME,
+                plan.getTaxFreeIncomeCents());
+        sink.accept(TaxField.FINAL_TAX, finalTax);
+        sink.accept(TaxField.NET_INCOME, netIncome);
+    }
+
+    /**
+     * Calculates a civil contract.
+     *
+     * @param gross the gross income in grosze
+     * @param sink the sink receiving the calculated values
+     */
+    private void calculateCivil(final long gross,
+                                final TaxResultSink sink) {
+        long socialSecurity =
+                plan.percentOf(gross, RatePlan.Rate.SOCIAL_SECURITY);
+        long healthSocialSecurity =
+                plan.percentOf(gross, RatePlan.Rate.HEALTH_SOCIAL_SECURITY);
+        long sicknessSocialSecurity = plan.percentOf(gross,
+                RatePlan.Rate.SICKNESS_SOCIAL_SECURITY);
+        long contributions = socialSecurity + healthSocialSecurity
+                + sicknessSocialSecurity;
+        long incomeAfterContributions = gross - contributions;
+
+        long healthFull = plan.percentOf(incomeAfterContributions,
+                RatePlan.Rate.HEALTH_INSURANCE_FULL);
+        long healthDeductible = plan.percentOf(incomeAfterContributions,
+                RatePlan.Rate.HEALTH_INSURANCE_DEDUCTIBLE);
+
+        long taxDeductibleExpenses = plan.percentOf(incomeAfterContributions,
+                RatePlan.Rate.CIVIL_CONTRACT_DEDUCTIBLE);
+        long taxableIncome = plan.civilTaxableIncome(
+                incomeAfterContributions, taxDeductibleExpenses);
+        long advanceTax = plan.advanceTax(taxableIncome);
+        long finalTax = plan.civilFinalTax(advanceTax, healthDeductible);
+        long netIncome = gross - contributions - healthFull
+                - finalTax * FixedPointMath.CENTS_PER_UNIT;
+
+        sink.accept(TaxField.GROSS_INCOME, gross);
+        sink.accept(TaxField.SOCIAL_SECURITY, socialSecurity);
+        sink.accept(TaxField.HEALTH_SOCIAL_SECURITY, healthSocialSecurity);
+        sink.accept(TaxField.SICKNESS_SOCIAL_SECURITY,
+                sicknessSocialSecurity);
+        sink.accept(TaxField.HEALTH_INSURANCE_FULL, healthFull);
+        sink.accept(TaxField.HEALTH_INSURANCE_DEDUCTIBLE, healthDeductible);
+        sink.accept(TaxField.TAX_DEDUCTIBLE_EXPENSES,
+                taxDeductibleExpenses);
+        sink.accept(TaxField.TAXABLE_INCOME, taxableIncome);
+        sink.accept(TaxField.ADVANCE_TAX, advanceTax);
+        sink.accept(TaxField.TAX_FREE_INCOME, 0);
+        sink.accept(TaxField.FINAL_TAX, finalTax);
+        sink.accept(TaxField.NET_INCOME, netIncome);
+    }
+
+    /**
+     * Checks whether an income is calculated in grosze under this
+     * strategy's plan rather than by the BigDecimal fallback.
+     *
+     * @param grossIncome the non-null gross income
+     * @return true if it has at most two decimal places and does not
+     *         exceed the plan's largest income
+     */
+    boolean isRepresentable(final BigDecimal grossIncome) {
+        return FixedPointMath.isRepresentable(grossIncome, maxAmount);
+    }
+
+    /**
+     * Builds a result with the same values and scales as the BigDecimal
+     * strategy of this contract type, from values calculated by this
+     * strategy or read from a {@link WithholdingTable}.
+     *
+     * @param grossIncome the gross income amount
+     * @param values the calculated values
+     * @return tax calculation result
+     */
+    TaxResult toResult(final BigDecimal grossIncome,
+                       final MutableTaxResult values) {
+        BigDecimal taxDeductibleExpenses;
+        BigDecimal taxFreeIncome;
+        if (contractType == ContractType.EMPLOYMENT) {
+            taxDeductibleExpenses = plan.getEmploymentDeductibleExpenses();
+            taxFreeIncome = plan.getTaxFreeIncome();
+        } else {
+            taxDeductibleExpenses =
+                    values.getDecimal(TaxField.TAX_DEDUCTIBLE_EXPENSES);
+            taxFreeIncome = BigDecimal.ZERO;
+        }
+
+        return new TaxResult(
+            grossIncome,
+            new SocialContributions(
+                    values.getDecimal(TaxField.SOCIAL_SECURITY),
+                    values.getDecimal(TaxField.HEALTH_SOCIAL_SECURITY),
+                    values.getDecimal(TaxField.SICKNESS_SOCIAL_SECURITY)),
+            new HealthInsurance(
+                    values.getDecimal(TaxField.HEALTH_INSURANCE_FULL),
+                    values.getDecimal(TaxField.HEALTH_INSURANCE_DEDUCTIBLE)),
+            taxDeductibleExpenses,
+            values.getDecimal(TaxField.TAXABLE_INCOME),
+            values.getDecimal(TaxField.ADVANCE_TAX),
+            taxFreeIncome,
+            values.getDecimal(TaxField.FINAL_TAX),
+            values.getDecimal(TaxField.NET_INCOME),
+            plan.getVersion()
+        );
+    }
+}
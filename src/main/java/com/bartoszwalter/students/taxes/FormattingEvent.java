@@ -0,0 +1,63 @@
+package com.bartoszwalter.students.taxes;
+
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight Recorder event of one result being formatted as text, by
+ * {@link TaxResultFormatter} or as a payroll output row.
+ */
+@Name(FormattingEvent.NAME)
+@Label("Result Formatting")
+@Description("Formatting of a tax calculation result")
+final class FormattingEvent extends StageEvent {
+
+    /**
+     * Instance answering whether the event is enabled, returned while it
+     * is not.
+     */
+    private static final FormattingEvent IDLE = new FormattingEvent();
+
+    /**
+     * Name of the event type.
+     */
+    static final String NAME =
+            "com.bartoszwalter.students.taxes.Formatting";
+
+    /**
+     * Contract type of the result.
+     */
+    @Label("Contract Type")
+    private String contractType;
+
+    /**
+     * Heap memory allocated by the thread during the stage.
+     */
+    @Label("Allocated")
+    @DataAmount(DataAmount.BYTES)
+    private long allocated;
+
+    /**
+     * Starts the event of a stage.
+     *
+     * @param contractTypeValue the contract type of the result
+     * @return the started event, or the shared idle instance while no
+     *         recording enables the event
+     */
+    static FormattingEvent start(final ContractType contractTypeValue) {
+        if (!IDLE.isEnabled()) {
+            return IDLE;
+        }
+        FormattingEvent event = new FormattingEvent();
+        event.contractType = contractTypeValue.name();
+        event.beginStage();
+        return event;
+    }
+
+    @Override
+    void setAllocated(final long bytes) {
+        this.allocated = bytes;
+    }
+}
@@ -0,0 +1,138 @@
+package com.bartoszwalter.students.taxes;
+
+/**
+ * Approximate access frequency of keys, kept in a count-min sketch.
+ * <p>
+ * Counters saturate at 15 and are all halved once the number of
+ * recorded accesses reaches ten times the capacity (at least 16), so
+ * old popularity fades over time. Concurrent updates are not
+ * synchronized; a lost increment only makes the estimate slightly less
+ * precise.
+ * </p>
+ */
+final class FrequencySketch {
+
+    /**
+     * Number of counters updated for every key.
+     */
+    private static final int DEPTH = 4;
+
+    /**
+     * Largest value of a single counter.
+     */
+    private static final int MAX_COUNT = 15;
+
+    /**
+     * Accesses per tracked key after which counters are halved.
+     */
+    private static final int RESET_MULTIPLIER = 10;
+
+    /**
+     * Seeds of the hash functions, one per row.
+     */
+    private static final long[] SEEDS = {
+        0x9E3779B97F4A7C15L, 0xC2B2AE3D27D4EB4FL,
+        0x165667B19E3779F9L, 0xD6E8FEB86659FD93L,
+    };
+
+    /**
+     * Smallest number of tracked keys the sketch is sized for.
+     */
+    private static final int MIN_CAPACITY = 16;
+
+    /**
+     * Number of bits in an int.
+     */
+    private static final int INT_BITS = 32;
+
+    /**
+     * Counters of all rows.
+     */
+    private final int[] table;
+
+    /**
+     * Mask selecting a counter index.
+     */
+    private final int mask;
+
+    /**
+     * Number of recorded accesses that triggers a reset.
+     */
+    private final int sampleSize;
+
+    /**
+     * Accesses recorded since the last reset.
+     */
+    private int additions;
+
+    /**
+     * Creates a sketch sized for the given number of keys.
+     *
+     * @param capacity the expected number of tracked keys
+     */
+    FrequencySketch(final int capacity) {
+        int tracked = Math.max(capacity, MIN_CAPACITY);
+        int size = Integer.highestOneBit(tracked) * DEPTH;
+        this.table = new int[size];
+        this.mask = size - 1;
+        this.sampleSize = tracked * RESET_MULTIPLIER;
+    }
+
+    /**
+     * Records an access to a key.
+     *
+     * @param key the accessed key
+     */
+    void increment(final Object key) {
+        int hash = key.hashCode();
+        boolean added = false;
+        for (int i = 0; i < DEPTH; i++) {
+            int index = indexOf(hash, i);
+            if (table[index] < MAX_COUNT) {
+                table[index]++;
+                added = true;
+            }
+        }
+        if (added && ++additions >= sampleSize) {
+            reset();
+        }
+    }
+
+    /**
+     * Estimates how often a key was accessed.
+     *
+     * @param key the key to look up
+     * @return the estimated access count, at most 15
+     */
+    int frequency(final Object key) {
+        int hash = key.hashCode();
+        int frequency = MAX_COUNT;
+        for (int i = 0; i < DEPTH; i++) {
+            frequency = Math.min(frequency, table[indexOf(hash, i)]);
+        }
+        return frequency;
+    }
+
+    /**
+     * Halves all counters.
+     */
+    private void reset() {
+        for (int i = 0; i < table.length; i++) {
+            table[i] >>>= 1;
+        }
+        additions /= 2;
+    }
+
+    /**
+     * Computes the counter index of a hash in a row.
+     *
+     * @param hash the key hash
+     * @param row the row
+     * @return the counter index
+     */
+    private int indexOf(final int hash, final int row) {
+        long value = (hash + SEEDS[row]) * SEEDS[row];
+        value += value >>> INT_BITS;
+        return (int) value & mask;
+    }
+}
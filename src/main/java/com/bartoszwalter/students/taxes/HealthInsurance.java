@@ -26,36 +26,57 @@ final class HealthInsurance {
      * @param fullRateValue the full health insurance rate
      * @param deductibleRateValue the tax-deductible health insurance rate
      */
-    private HealthInsurance(final BigDecimal fullRateValue,
-                            final BigDecimal deductibleRateValue) {
+    HealthInsurance(final BigDecimal fullRateValue,
+                    final BigDecimal deductibleRateValue) {
         this.fullRate = fullRateValue;
         this.deductibleRate = deductibleRateValue;
     }
 
     /**
-     * Calculates health insurance from income basis.
+     * Calculates health insurance from income basis with the default
+     * rates.
      *
      * @param incomeBasis the income basis for calculation
      * @return calculated health insurance
      * @throws IllegalArgumentException if incomeBasis is null or negative
      */
     public static HealthInsurance calculate(final BigDecimal incomeBasis) {
+        return calculate(incomeBasis, RatePlan.DEFAULT);
+    }
+
+    /**
+     * Calculates health insurance from income basis.
+     *
+     * @param incomeBasis the income basis for calculation
+     * @param plan the rates to apply
+     * @return calculated health insurance
+     * @throws IllegalArgumentException if incomeBasis is null or negative
+     */
+    static HealthInsurance calculate(final BigDecimal incomeBasis,
+                                     final RatePlan plan) {
         if (incomeBasis == null
                 || incomeBasis.compareTo(BigDecimal.ZERO) < 0) {
             throw new IllegalArgumentException(
                     "Income basis must be non-negative");
         }
+        return calculateTrusted(incomeBasis, plan);
+    }
 
-        BigDecimal fullRateCalculated = incomeBasis
-                .multiply(TaxRates.HEALTH_INSURANCE_FULL_RATE)
-                .divide(TaxRates.PERCENTAGE_DIVISOR,
-                        TaxConstants.CURRENCY_SCALE,
-                        TaxConstants.CURRENCY_ROUNDING_MODE);
-        BigDecimal deductibleRateCalculated = incomeBasis
-                .multiply(TaxRates.HEALTH_INSURANCE_DEDUCTIBLE_RATE)
-                .divide(TaxRates.PERCENTAGE_DIVISOR,
-                        TaxConstants.CURRENCY_SCALE,
-                        TaxConstants.CURRENCY_ROUNDING_MODE);
+    /**
+     * Calculates health insurance from an income basis the caller has
+     * already checked, skipping the checks of
+     * {@link #calculate(BigDecimal, RatePlan)}.
+     *
+     * @param incomeBasis the non-null, non-negative income basis
+     * @param plan the rates to apply
+     * @return calculated health insurance
+     */
+    static HealthInsurance calculateTrusted(final BigDecimal incomeBasis,
+                                            final RatePlan plan) {
+        BigDecimal fullRateCalculated = plan.percentOf(incomeBasis,
+                RatePlan.Rate.HEALTH_INSURANCE_FULL);
+        BigDecimal deductibleRateCalculated = plan.percentOf(incomeBasis,
+                RatePlan.Rate.HEALTH_INSURANCE_DEDUCTIBLE);
 
         return new HealthInsurance(fullRateCalculated,
                 deductibleRateCalculated);
@@ -0,0 +1,62 @@
+package com.bartoszwalter.students.taxes;
+
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight Recorder event of {@link TaxInputReader} parsing one input.
+ */
+@Name(InputParsingEvent.NAME)
+@Label("Input Parsing")
+@Description("Parsing of an income, a contract type or a payroll line")
+final class InputParsingEvent extends StageEvent {
+
+    /**
+     * Instance answering whether the event is enabled, returned while it
+     * is not.
+     */
+    private static final InputParsingEvent IDLE = new InputParsingEvent();
+
+    /**
+     * Name of the event type.
+     */
+    static final String NAME =
+            "com.bartoszwalter.students.taxes.InputParsing";
+
+    /**
+     * Line of the payroll input, or 0 for interactive input.
+     */
+    @Label("Line Number")
+    private long lineNumber;
+
+    /**
+     * Heap memory allocated by the thread during the stage.
+     */
+    @Label("Allocated")
+    @DataAmount(DataAmount.BYTES)
+    private long allocated;
+
+    /**
+     * Starts the event of a stage.
+     *
+     * @param lineNumberValue the payroll line, or 0 for interactive input
+     * @return the started event, or the shared idle instance while no
+     *         recording enables the event
+     */
+    static InputParsingEvent start(final long lineNumberValue) {
+        if (!IDLE.isEnabled()) {
+            return IDLE;
+        }
+        InputParsingEvent event = new InputParsingEvent();
+        event.lineNumber = lineNumberValue;
+        event.beginStage();
+        return event;
+    }
+
+    @Override
+    void setAllocated(final long bytes) {
+        this.allocated = bytes;
+    }
+}
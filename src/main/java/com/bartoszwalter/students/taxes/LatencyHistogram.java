@@ -0,0 +1,184 @@
+package com.bartoszwalter.students.taxes;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free histogram of latencies in nanoseconds.
+ * <p>
+ * Buckets are laid out like an HDR histogram: values below
+ * {@link #SUB_BUCKETS} have a bucket each, and every further power of
+ * two is split into {@link #SUB_BUCKETS} linear buckets, so a recorded
+ * value is known within 1/{@value #SUB_BUCKETS} of itself from one
+ * nanosecond up to {@link #MAX_TRACKABLE} nanoseconds. Larger values
+ * fall into the last bucket. Recording is a few shifts and atomic
+ * increments and never blocks; a summary taken while other threads
+ * record may miss their latest values.
+ * </p>
+ */
+public final class LatencyHistogram {
+
+    /**
+     * Bits selecting a linear sub-bucket within a power of two.
+     */
+    private static final int SUB_BUCKET_BITS = 4;
+
+    /**
+     * Number of linear sub-buckets per power of two.
+     */
+    public static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+    /**
+     * Highest power of two with its own buckets.
+     */
+    private static final int MAX_MAGNITUDE = 40;
+
+    /**
+     * Largest value recorded exactly, about 18 minutes.
+     */
+    public static final long MAX_TRACKABLE = (1L << (MAX_MAGNITUDE + 1)) - 1;
+
+    /**
+     * Number of buckets.
+     */
+    private static final int BUCKET_COUNT =
+            SUB_BUCKETS + (MAX_MAGNITUDE - SUB_BUCKET_BITS + 1) * SUB_BUCKETS;
+
+    /**
+     * Percentiles reported by a summary.
+     */
+    private static final double P50 = 0.5;
+
+    /**
+     * Percentiles reported by a summary.
+     */
+    private static final double P90 = 0.9;
+
+    /**
+     * Percentiles reported by a summary.
+     */
+    private static final double P99 = 0.99;
+
+    /**
+     * Percentiles reported by a summary.
+     */
+    private static final double P999 = 0.999;
+
+    /**
+     * Number of values in each bucket.
+     */
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+
+    /**
+     * Sum of the recorded values.
+     */
+    private final LongAdder sum = new LongAdder();
+
+    /**
+     * Largest recorded value.
+     */
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * Records a latency.
+     *
+     * @param nanos the latency in nanoseconds; negative values count as 0
+     */
+    public void record(final long nanos) {
+        long value = Math.max(0, nanos);
+        counts.incrementAndGet(bucketOf(value));
+        sum.add(value);
+        if (value > max.get()) {
+            max.accumulateAndGet(value, Math::max);
+        }
+    }
+
+    /**
+     * Forgets every recorded value.
+     */
+    public void reset() {
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            counts.set(i, 0);
+        }
+        sum.reset();
+        max.set(0);
+    }
+
+    /**
+     * Summarizes the recorded values.
+     *
+     * @return the count, mean, percentiles and maximum
+     */
+    public LatencySummary summary() {
+        long[] snapshot = new long[BUCKET_COUNT];
+        long count = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            snapshot[i] = counts.get(i);
+            count += snapshot[i];
+        }
+        long maximum = max.get();
+        return new LatencySummary(count, sum.sum(),
+                percentile(snapshot, count, P50, maximum),
+                percentile(snapshot, count, P90, maximum),
+                percentile(snapshot, count, P99, maximum),
+                percentile(snapshot, count, P999, maximum),
+                maximum);
+    }
+
+    /**
+     * Returns the bucket of a value.
+     *
+     * @param value the non-negative value
+     * @return the bucket index
+     */
+    static int bucketOf(final long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        long clamped = Math.min(value, MAX_TRACKABLE);
+        int magnitude = Long.SIZE - 1 - Long.numberOfLeadingZeros(clamped);
+        int shift = magnitude - SUB_BUCKET_BITS;
+        int subBucket = (int) (clamped >>> shift) - SUB_BUCKETS;
+        return SUB_BUCKETS + shift * SUB_BUCKETS + subBucket;
+    }
+
+    /**
+     * Returns the largest value of a bucket.
+     *
+     * @param bucket the bucket index
+     * @return the highest value falling into the bucket
+     */
+    static long highestValueOf(final int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int shift = bucket / SUB_BUCKETS - 1;
+        long subBucket = bucket % SUB_BUCKETS + SUB_BUCKETS;
+        return ((subBucket + 1) << shift) - 1;
+    }
+
+    /**
+     * Finds a percentile in a snapshot of the buckets.
+     *
+     * @param snapshot the bucket counts
+     * @param count the total count
+     * @param fraction the percentile as a fraction
+     * @param maximum the largest recorded value
+     * @return the highest value of the bucket holding the percentile,
+     *         at most the maximum; 0 when empty
+     */
+    private static long percentile(final long[] snapshot, final long count,
+                                   final double fraction,
+                                   final long maximum) {
+        long rank = Math.max(1, (long) Math.ceil(count * fraction));
+        long seen = 0;
+        for (int i = 0; i < snapshot.length; i++) {
+            seen += snapshot[i];
+            if (seen >= rank) {
+                return Math.min(highestValueOf(i), maximum);
+            }
+        }
+        return 0;
+    }
+}
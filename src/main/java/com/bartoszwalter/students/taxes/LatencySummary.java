@@ -0,0 +1,91 @@
+package com.bartoszwalter.students.taxes;
+
+import lombok.Getter;
+
+/**
+ * Summary of a {@link LatencyHistogram}, in nanoseconds. Percentiles are
+ * the highest value of the bucket holding them, so they overstate the
+ * exact value by at most one bucket width.
+ */
+@Getter
+public final class LatencySummary {
+
+    /**
+     * Number of recorded values.
+     */
+    private final long count;
+
+    /**
+     * Sum of the recorded values.
+     */
+    private final long totalNanos;
+
+    /**
+     * Median.
+     */
+    private final long p50Nanos;
+
+    /**
+     * 90th percentile.
+     */
+    private final long p90Nanos;
+
+    /**
+     * 99th percentile.
+     */
+    private final long p99Nanos;
+
+    /**
+     * 99.9th percentile.
+     */
+    private final long p999Nanos;
+
+    /**
+     * Largest recorded value.
+     */
+    private final long maxNanos;
+
+    /**
+     * Creates a summary.
+     *
+     * @param countValue the number of recorded values
+     * @param totalNanosValue the sum of the recorded values
+     * @param p50NanosValue the median
+     * @param p90NanosValue the 90th percentile
+     * @param p99NanosValue the 99th percentile
+     * @param p999NanosValue the 99.9th percentile
+     * @param maxNanosValue the largest recorded value
+     */
+    LatencySummary(final long countValue, final long totalNanosValue,
+                   final long p50NanosValue, final long p90NanosValue,
+                   final long p99NanosValue, final long p999NanosValue,
+                   final long maxNanosValue) {
+        this.count = countValue;
+        this.totalNanos = totalNanosValue;
+        this.p50Nanos = p50NanosValue;
+        this.p90Nanos = p90NanosValue;
+        this.p99Nanos = p99NanosValue;
+        this.p999Nanos = p999NanosValue;
+        this.maxNanos = maxNanosValue;
+    }
+
+    /**
+     * Returns the mean of the recorded values.
+     *
+     * @return the mean in nanoseconds, 0 when nothing was recorded
+     */
+    public long getMeanNanos() {
+        if (count == 0) {
+            return 0;
+        }
+        return totalNanos / count;
+    }
+
+    @Override
+    public String toString() {
+        return "count=" + count + " mean=" + getMeanNanos()
+                + "ns p50=" + p50Nanos + "ns p90=" + p90Nanos
+                + "ns p99=" + p99Nanos + "ns p99.9=" + p999Nanos
+                + "ns max=" + maxNanos + "ns";
+    }
+}
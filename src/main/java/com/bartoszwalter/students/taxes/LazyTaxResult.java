@@ -0,0 +1,398 @@
+package com.bartoszwalter.students.taxes;
+
+import java.math.BigDecimal;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * View of a tax calculation computing each value on first access.
+ * <p>
+ * A value is calculated together with only the values it depends on,
+ * then memoized. For an employment contract, for example, the final tax
+ * needs neither the social contributions nor the net income. The values
+ * are identical to those of {@link EmploymentContractStrategy} and
+ * {@link CivilContractStrategy}, including their scale. Not thread-safe;
+ * confine a view to one thread or call {@link #toTaxResult()} first.
+ * </p>
+ */
+public final class LazyTaxResult {
+
+    /**
+     * Accessors calculating each field of a view.
+     */
+    private static final Map<TaxField, Function<LazyTaxResult, BigDecimal>>
+            ACCESSORS = accessors();
+
+    /**
+     * Contract type calculated, or null for a complete result.
+     */
+    private final ContractType contractType;
+
+    /**
+     * Rates applied, or null for a complete result.
+     */
+    private final RatePlan plan;
+
+    /**
+     * Calculated values indexed by field ordinal, null until computed.
+     */
+    private final BigDecimal[] values =
+            new BigDecimal[TaxField.values().length];
+
+    /**
+     * Social contributions, null until computed.
+     */
+    private SocialContributions socialContributions;
+
+    /**
+     * Health insurance, null until computed.
+     */
+    private HealthInsurance healthInsurance;
+
+    /**
+     * Income after social contributions, null until computed.
+     */
+    private BigDecimal incomeAfterContributions;
+
+    /**
+     * Materialized result, null until requested.
+     */
+    private TaxResult result;
+
+    /**
+     * Creates a view calculating a contract lazily with the default
+     * rates.
+     *
+     * @param grossIncome the gross income amount
+     * @param contractTypeValue the contract type to calculate
+     * @throws IllegalArgumentException if grossIncome is null or negative
+     *                                  or contract type is null
+     */
+    LazyTaxResult(final BigDecimal grossIncome,
+                  final ContractType contractTypeValue) {
+        this(grossIncome, contractTypeValue, RatePlan.DEFAULT);
+    }
+
+    /**
+     * Creates a view calculating a contract lazily.
+     *
+     * @param grossIncome the gross income amount
+     * @param contractTypeValue the contract type to calculate
+     * @param planValue the rates to apply
+     * @throws IllegalArgumentException if grossIncome is null or negative
+     *                                  or contract type or plan is null
+     */
+    LazyTaxResult(final BigDecimal grossIncome,
+                  final ContractType contractTypeValue,
+                  final RatePlan planValue) {
+        if (grossIncome == null
+                || grossIncome.compareTo(BigDecimal.ZERO) < 0) {
+            throw new IllegalArgumentException(
+                    "Gross income must be non-negative");
+        }
+        if (contractTypeValue == null) {
+            throw new IllegalArgumentException(
+                    "Contract type cannot be null");
+        }
+        if (planValue == null) {
+            throw new IllegalArgumentException("Rate plan cannot be null");
+        }
+        this.contractType = contractTypeValue;
+        this.plan = planValue;
+        store(TaxField.GROSS_INCOME, grossIncome);
+    }
+
+    /**
+     * Creates a view of an already complete result.
+     *
+     * @param complete the calculated result
+     * @throws IllegalArgumentException if the result is null
+     */
+    LazyTaxResult(final TaxResult complete) {
+        if (complete == null) {
+            throw new IllegalArgumentException("Result cannot be null");
+        }
+        this.contractType = null;
+        this.plan = null;
+        this.result = complete;
+        this.socialContributions = complete.socialContributions();
+        this.healthInsurance = complete.healthInsurance();
+        for (TaxField field : TaxField.values()) {
+            store(field, field.valueOf(complete));
+        }
+    }
+
+    /**
+     * Creates the accessor of every field.
+     *
+     * @return the accessors keyed by field
+     */
+    private static Map<TaxField, Function<LazyTaxResult, BigDecimal>>
+            accessors() {
+        Map<TaxField, Function<LazyTaxResult, BigDecimal>> accessors =
+                new EnumMap<>(TaxField.class);
+        accessors.put(TaxField.GROSS_INCOME, LazyTaxResult::grossIncome);
+        accessors.put(TaxField.SOCIAL_SECURITY,
+                view -> view.socialContributions().getSocialSecurity());
+        accessors.put(TaxField.HEALTH_SOCIAL_SECURITY,
+                view -> view.socialContributions().getHealthSocialSecurity());
+        accessors.put(TaxField.SICKNESS_SOCIAL_SECURITY,
+                view -> view.socialContributions()
+                        .getSicknessSocialSecurity());
+        accessors.put(TaxField.HEALTH_INSURANCE_FULL,
+                view -> view.healthInsurance().getFullRate());
+        accessors.put(TaxField.HEALTH_INSURANCE_DEDUCTIBLE,
+                view -> view.healthInsurance().getDeductibleRate());
+        accessors.put(TaxField.TAX_DEDUCTIBLE_EXPENSES,
+                LazyTaxResult::taxDeductibleExpenses);
+        accessors.put(TaxField.TAXABLE_INCOME, LazyTaxResult::taxableIncome);
+        accessors.put(TaxField.ADVANCE_TAX, LazyTaxResult::advanceTax);
+        accessors.put(TaxField.TAX_FREE_INCOME, LazyTaxResult::taxFreeIncome);
+        accessors.put(TaxField.FINAL_TAX, LazyTaxResult::finalTax);
+        accessors.put(TaxField.NET_INCOME, LazyTaxResult::netIncome);
+        return accessors;
+    }
+
+    /**
+     * Calculates the given fields now.
+     *
+     * @param fields the fields to calculate
+     * @return this view
+     * @throws IllegalArgumentException if fields is null
+     */
+    LazyTaxResult require(final Set<TaxField> fields) {
+        if (fields == null) {
+            throw new IllegalArgumentException("Fields cannot be null");
+        }
+        for (TaxField field : fields) {
+            get(field);
+        }
+        return this;
+    }
+
+    /**
+     * Tells whether a field has been calculated.
+     *
+     * @param field the field to check
+     * @return true if the value is memoized
+     */
+    boolean isComputed(final TaxField field) {
+        return values[field.ordinal()] != null;
+    }
+
+    /**
+     * Returns the value of a field, calculating it if needed.
+     *
+     * @param field the field to read
+     * @return the value of the field
+     * @throws IllegalArgumentException if field is null
+     */
+    public BigDecimal get(final TaxField field) {
+        if (field == null) {
+            throw new IllegalArgumentException("Field cannot be null");
+        }
+        return ACCESSORS.get(field).apply(this);
+    }
+
+    /**
+     * Returns the gross income.
+     *
+     * @return the gross income
+     */
+    public BigDecimal grossIncome() {
+        return stored(TaxField.GROSS_INCOME);
+    }
+
+    /**
+     * Returns the social contributions, calculating them if needed.
+     *
+     * @return the social contributions
+     */
+    public SocialContributions socialContributions() {
+        if (socialContributions == null) {
+            socialContributions = SocialContributions.calculateTrusted(
+                    grossIncome(), plan);
+            store(TaxField.SOCIAL_SECURITY,
+                    socialContributions.getSocialSecurity());
+            store(TaxField.HEALTH_SOCIAL_SECURITY,
+                    socialContributions.getHealthSocialSecurity());
+            store(TaxField.SICKNESS_SOCIAL_SECURITY,
+                    socialContributions.getSicknessSocialSecurity());
+        }
+        return socialContributions;
+    }
+
+    /**
+     * Returns the health insurance, calculating it if needed.
+     *
+     * @return the health insurance
+     */
+    public HealthInsurance healthInsurance() {
+        if (healthInsurance == null) {
+            healthInsurance = HealthInsurance.calculateTrusted(basis(),
+                    plan);
+            store(TaxField.HEALTH_INSURANCE_FULL,
+                    healthInsurance.getFullRate());
+            store(TaxField.HEALTH_INSURANCE_DEDUCTIBLE,
+                    healthInsurance.getDeductibleRate());
+        }
+        return healthInsurance;
+    }
+
+    /**
+     * Returns the tax-deductible expenses, calculating them if needed.
+     *
+     * @return the tax-deductible expenses
+     */
+    public BigDecimal taxDeductibleExpenses() {
+        BigDecimal value = stored(TaxField.TAX_DEDUCTIBLE_EXPENSES);
+        if (value != null) {
+            return value;
+        }
+        if (contractType == ContractType.EMPLOYMENT) {
+            value = plan.getEmploymentDeductibleExpenses();
+        } else {
+            value = plan.percentOf(basis(),
+                    RatePlan.Rate.CIVIL_CONTRACT_DEDUCTIBLE);
+        }
+        return store(TaxField.TAX_DEDUCTIBLE_EXPENSES, value);
+    }
+
+    /**
+     * Returns the taxable income, calculating it if needed.
+     *
+     * @return the taxable income rounded down to zloty
+     */
+    public BigDecimal taxableIncome() {
+        BigDecimal value = stored(TaxField.TAXABLE_INCOME);
+        if (value != null) {
+            return value;
+        }
+        return store(TaxField.TAXABLE_INCOME, basis()
+                .subtract(taxDeductibleExpenses())
+                .setScale(TaxConstants.INTEGER_SCALE,
+                        TaxConstants.FLOOR_ROUNDING_MODE));
+    }
+
+    /**
+     * Returns the advance tax, calculating it if needed.
+     *
+     * @return the advance tax
+     */
+    public BigDecimal advanceTax() {
+        BigDecimal value = stored(TaxField.ADVANCE_TAX);
+        if (value != null) {
+            return value;
+        }
+        return store(TaxField.ADVANCE_TAX, plan.percentOf(taxableIncome(),
+                RatePlan.Rate.ADVANCE_TAX));
+    }
+
+    /**
+     * Returns the tax-free income.
+     *
+     * @return the tax-free income
+     */
+    public BigDecimal taxFreeIncome() {
+        BigDecimal value = stored(TaxField.TAX_FREE_INCOME);
+        if (value != null) {
+            return value;
+        }
+        if (contractType == ContractType.EMPLOYMENT) {
+            value = plan.getTaxFreeIncome();
+        } else {
+            value = BigDecimal.ZERO;
+        }
+        return store(TaxField.TAX_FREE_INCOME, value);
+    }
+
+    /**
+     * Returns the final tax, calculating it if needed.
+     *
+     * @return the final tax rounded to zloty
+     */
+    public BigDecimal finalTax() {
+        BigDecimal value = stored(TaxField.FINAL_TAX);
+        if (value != null) {
+            return value;
+        }
+        return store(TaxField.FINAL_TAX, advanceTax()
+                .subtract(taxFreeIncome())
+                .subtract(healthInsurance().getDeductibleRate())
+                .setScale(TaxConstants.INTEGER_SCALE,
+                        TaxConstants.CURRENCY_ROUNDING_MODE));
+    }
+
+    /**
+     * Returns the net income, calculating it if needed.
+     *
+     * @return the net income
+     */
+    public BigDecimal netIncome() {
+        BigDecimal value = stored(TaxField.NET_INCOME);
+        if (value != null) {
+            return value;
+        }
+        return store(TaxField.NET_INCOME, grossIncome()
+                .subtract(socialContributions().getTotal())
+                .subtract(healthInsurance().getFullRate())
+                .subtract(finalTax()));
+    }
+
+    /**
+     * Calculates every remaining value and returns them as a result.
+     *
+     * @return the complete result
+     */
+    public TaxResult toTaxResult() {
+        if (result == null) {
+            result = new TaxResult(grossIncome(), socialContributions(),
+                    healthInsurance(), taxDeductibleExpenses(),
+                    taxableIncome(), advanceTax(), taxFreeIncome(),
+                    finalTax(), netIncome(), plan.getVersion());
+        }
+        return result;
+    }
+
+    /**
+     * Returns the basis of health insurance and civil contract expenses:
+     * the gross income for employment contracts, the income after social
+     * contributions otherwise.
+     *
+     * @return the basis
+     */
+    private BigDecimal basis() {
+        if (contractType == ContractType.EMPLOYMENT) {
+            return grossIncome();
+        }
+        if (incomeAfterContributions == null) {
+            incomeAfterContributions = socialContributions()
+                    .getIncomeAfterContributions(grossIncome());
+        }
+        return incomeAfterContributions;
+    }
+
+    /**
+     * Returns a memoized value.
+     *
+     * @param field the field to read
+     * @return the value, or null if not computed yet
+     */
+    private BigDecimal stored(final TaxField field) {
+        return values[field.ordinal()];
+    }
+
+    /**
+     * Memoizes a value.
+     *
+     * @param field the calculated field
+     * @param value the value
+     * @return the value
+     */
+    private BigDecimal store(final TaxField field, final BigDecimal value) {
+        values[field.ordinal()] = value;
+        return value;
+    }
+}
@@ -0,0 +1,50 @@
+package com.bartoszwalter.students.taxes;
+
+/**
+ * Writes results through {@link TaxResultFormatter#displayResult}, one
+ * log record per line. Each line is published immediately, so flushing
+ * and closing do nothing.
+ */
+public final class LoggingTaxResultWriter implements TaxResultWriter {
+
+    /**
+     * Formatter logging the results.
+     */
+    private final TaxResultFormatter formatter;
+
+    /**
+     * Creates a writer logging with a new formatter.
+     */
+    public LoggingTaxResultWriter() {
+        this(new TaxResultFormatter());
+    }
+
+    /**
+     * Creates a writer logging with the given formatter.
+     *
+     * @param formatterValue the formatter logging the results
+     * @throws IllegalArgumentException if formatter is null
+     */
+    public LoggingTaxResultWriter(final TaxResultFormatter formatterValue) {
+        if (formatterValue == null) {
+            throw new IllegalArgumentException("Formatter cannot be null");
+        }
+        this.formatter = formatterValue;
+    }
+
+    @Override
+    public void write(final TaxResult result,
+                      final ContractType contractType) {
+        formatter.displayResult(result, contractType);
+    }
+
+    @Override
+    public void flush() {
+        // Every line is logged as soon as it is written.
+    }
+
+    @Override
+    public void close() {
+        // Logging needs no resources.
+    }
+}
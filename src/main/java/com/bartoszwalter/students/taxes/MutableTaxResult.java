@@ -0,0 +1,46 @@
+package com.bartoszwalter.students.taxes;
+
+import java.math.BigDecimal;
+
+/**
+ * Reusable buffer holding the values of one calculation as unscaled
+ * longs. Not thread-safe; use one instance per thread.
+ */
+public final class MutableTaxResult implements TaxResultSink {
+
+    /**
+     * Values indexed by field ordinal.
+     */
+    private final long[] values = new long[TaxField.values().length];
+
+    /**
+     * Stores a calculated value.
+     *
+     * @param field the calculated field
+     * @param unscaledValue the value, unscaled at the field's scale
+     */
+    @Override
+    public void accept(final TaxField field, final long unscaledValue) {
+        values[field.ordinal()] = unscaledValue;
+    }
+
+    /**
+     * Returns the unscaled value of a field.
+     *
+     * @param field the field to read
+     * @return the value, unscaled at the field's scale
+     */
+    public long get(final TaxField field) {
+        return values[field.ordinal()];
+    }
+
+    /**
+     * Returns the value of a field as a BigDecimal.
+     *
+     * @param field the field to read
+     * @return the value
+     */
+    public BigDecimal getDecimal(final TaxField field) {
+        return field.toDecimal(values[field.ordinal()]);
+    }
+}
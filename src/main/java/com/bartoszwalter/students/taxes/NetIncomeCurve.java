@@ -0,0 +1,378 @@
+package com.bartoszwalter.students.taxes;
+
+/**
+ * Net income, final tax and social contributions of one contract type as
+ * functions of the gross income in grosze, for salary curves evaluated
+ * at millions of points.
+ * <p>
+ * Apart from rounding, every value of a calculation is linear in the
+ * gross income: a percentage term {@code g * r / 10000} rounded half up
+ * is {@code floor((g * r + 5000) / 10000)}. The curve evaluates only the
+ * terms net income, final tax and contributions depend on, with the
+ * integer formulas of its {@link RatePlan} that
+ * {@link FixedPointTaxStrategy} also applies. Along a range of evenly
+ * spaced incomes, {@link #netCents(long, long, long[])} advances the
+ * terms of the gross income by their constant quotient and remainder
+ * steps instead of dividing, carrying one grosz whenever a remainder
+ * crosses a rounding boundary.
+ * </p>
+ */
+public final class NetIncomeCurve {
+
+    /**
+     * Contract type of the curve.
+     */
+    private final ContractType contractType;
+
+    /**
+     * Rates and integer formulas of the curve.
+     */
+    private final RatePlan plan;
+
+    /**
+     * Largest gross income in grosze calculable without overflow.
+     */
+    private final long maxCents;
+
+    /**
+     * Creates a curve.
+     *
+     * @param contractTypeValue the contract type to evaluate
+     * @param planValue the rates to apply
+     */
+    private NetIncomeCurve(final ContractType contractTypeValue,
+                           final RatePlan planValue) {
+        this.contractType = contractTypeValue;
+        this.plan = planValue;
+        this.maxCents = planValue.getMaxCents();
+    }
+
+    /**
+     * Creates the curve of a contract type with the default rates.
+     *
+     * @param contractType the contract type to evaluate
+     * @return the curve
+     * @throws IllegalArgumentException if contract type is null
+     */
+    public static NetIncomeCurve of(final ContractType contractType) {
+        return of(contractType, RatePlan.DEFAULT);
+    }
+
+    /**
+     * Creates the curve of a contract type.
+     *
+     * @param contractType the contract type to evaluate
+     * @param plan the rates to apply
+     * @return the curve
+     * @throws IllegalArgumentException if contract type or plan is null
+     */
+    public static NetIncomeCurve of(final ContractType contractType,
+                                    final RatePlan plan) {
+        if (contractType == null) {
+            throw new IllegalArgumentException(
+                    "Contract type cannot be null");
+        }
+        if (plan == null) {
+            throw new IllegalArgumentException("Rate plan cannot be null");
+        }
+        return new NetIncomeCurve(contractType, plan);
+    }
+
+    /**
+     * Returns the contract type of the curve.
+     *
+     * @return the contract type
+     */
+    public ContractType getContractType() {
+        return contractType;
+    }
+
+    /**
+     * Returns the largest gross income the curve can evaluate.
+     *
+     * @return the largest gross income in grosze
+     */
+    public long getMaxCents() {
+        return maxCents;
+    }
+
+    /**
+     * Evaluates the net income.
+     *
+     * @param grossCents the gross income in grosze
+     * @return the net income in grosze, as {@link TaxField#NET_INCOME}
+     * @throws IllegalArgumentException if grossCents is negative or too
+     *                                  large
+     */
+    public long netCents(final long grossCents) {
+        checkGross(grossCents);
+        long contributions = contributions(grossCents);
+        if (contractType == ContractType.EMPLOYMENT) {
+            return employmentNet(grossCents, contributions,
+                    plan.percentOf(grossCents,
+                            RatePlan.Rate.HEALTH_INSURANCE_FULL),
+                    plan.percentOf(grossCents,
+                            RatePlan.Rate.HEALTH_INSURANCE_DEDUCTIBLE));
+        }
+        return civilNet(grossCents, contributions);
+    }
+
+    /**
+     * Evaluates the final tax.
+     *
+     * @param grossCents the gross income in grosze
+     * @return the final tax in grosze, a whole number of zloty
+     * @throws IllegalArgumentException if grossCents is negative or too
+     *                                  large
+     */
+    public long taxCents(final long grossCents) {
+        checkGross(grossCents);
+        if (contractType == ContractType.EMPLOYMENT) {
+            return employmentTax(grossCents, plan.percentOf(grossCents,
+                    RatePlan.Rate.HEALTH_INSURANCE_DEDUCTIBLE));
+        }
+        return civilTax(grossCents - contributions(grossCents));
+    }
+
+    /**
+     * Evaluates the social contributions.
+     *
+     * @param grossCents the gross income in grosze
+     * @return the sum of the social security, health social security and
+     *         sickness social security contributions in grosze
+     * @throws IllegalArgumentException if grossCents is negative or too
+     *                                  large
+     */
+    public long contributionsCents(final long grossCents) {
+        checkGross(grossCents);
+        return contributions(grossCents);
+    }
+
+    /**
+     * Evaluates the net income at evenly spaced gross incomes: element
+     * {@code i} of the array receives the net income of
+     * {@code fromCents + i * stepCents}. The percentage terms of the gross
+     * income are stepped without division.
+     *
+     * @param fromCents the first gross income in grosze
+     * @param stepCents the distance between gross incomes in grosze
+     * @param netCents the array receiving the net incomes in grosze
+     * @throws IllegalArgumentException if the array is null, fromCents or
+     *                                  stepCents is negative or the last
+     *                                  gross income is too large
+     */
+    public void netCents(final long fromCents, final long stepCents,
+                         final long[] netCents) {
+        if (netCents == null) {
+            throw new IllegalArgumentException("Array cannot be null");
+        }
+        if (stepCents < 0) {
+            throw new IllegalArgumentException(
+                    "Step cannot be negative: " + stepCents);
+        }
+        checkGross(fromCents);
+        int points = netCents.length;
+        if (points > 1 && stepCents > 0
+                && (maxCents - fromCents) / stepCents < points - 1) {
+            throw new IllegalArgumentException("Gross incomes from "
+                    + fromCents + " by " + stepCents
+                    + " exceed " + maxCents + " grosze");
+        }
+
+        Term socialSecurity = term(RatePlan.Rate.SOCIAL_SECURITY,
+                fromCents, stepCents);
+        Term healthSocialSecurity = term(
+                RatePlan.Rate.HEALTH_SOCIAL_SECURITY, fromCents, stepCents);
+        Term sicknessSocialSecurity = term(
+                RatePlan.Rate.SICKNESS_SOCIAL_SECURITY, fromCents, stepCents);
+        Term healthFull = term(RatePlan.Rate.HEALTH_INSURANCE_FULL,
+                fromCents, stepCents);
+        Term healthDeductible = term(
+                RatePlan.Rate.HEALTH_INSURANCE_DEDUCTIBLE, fromCents,
+                stepCents);
+        boolean employment = contractType == ContractType.EMPLOYMENT;
+
+        long gross = fromCents;
+        for (int i = 0; i < points; i++) {
+            long contributions = socialSecurity.value
+                    + healthSocialSecurity.value
+                    + sicknessSocialSecurity.value;
+            if (employment) {
+                netCents[i] = employmentNet(gross, contributions,
+                        healthFull.value, healthDeductible.value);
+                healthFull.advance();
+                healthDeductible.advance();
+            } else {
+                netCents[i] = civilNet(gross, contributions);
+            }
+            socialSecurity.advance();
+            healthSocialSecurity.advance();
+            sicknessSocialSecurity.advance();
+            gross += stepCents;
+        }
+    }
+
+    /**
+     * Calculates the social contributions of a valid gross income.
+     *
+     * @param gross the gross income in grosze
+     * @return the contributions in grosze
+     */
+    private long contributions(final long gross) {
+        return plan.percentOf(gross, RatePlan.Rate.SOCIAL_SECURITY)
+                + plan.percentOf(gross, RatePlan.Rate.HEALTH_SOCIAL_SECURITY)
+                + plan.percentOf(gross,
+                        RatePlan.Rate.SICKNESS_SOCIAL_SECURITY);
+    }
+
+    /**
+     * Calculates the net income of an employment contract from the terms
+     * of the gross income.
+     *
+     * @param gross the gross income in grosze
+     * @param contributions the social contributions in grosze
+     * @param healthFull the full health insurance in grosze
+     * @param healthDeductible the deductible health insurance in grosze
+     * @return the net income in grosze
+     */
+    private long employmentNet(final long gross, final long contributions,
+                               final long healthFull,
+                               final long healthDeductible) {
+        return gross - contributions - healthFull
+                - employmentTax(gross, healthDeductible);
+    }
+
+    /**
+     * Calculates the final tax of an employment contract.
+     *
+     * @param gross the gross income in grosze
+     * @param healthDeductible the deductible health insurance in grosze
+     * @return the final tax in grosze
+     */
+    private long employmentTax(final long gross,
+                               final long healthDeductible) {
+        long advanceTax = plan.advanceTax(
+                plan.employmentTaxableIncome(gross));
+        return plan.employmentFinalTax(advanceTax, healthDeductible)
+                * FixedPointMath.CENTS_PER_UNIT;
+    }
+
+    /**
+     * Calculates the net income of a civil contract.
+     *
+     * @param gross the gross income in grosze
+     * @param contributions the social contributions in grosze
+     * @return the net income in grosze
+     */
+    private long civilNet(final long gross, final long contributions) {
+        long incomeAfterContributions = gross - contributions;
+        return incomeAfterContributions
+                - plan.percentOf(incomeAfterContributions,
+                        RatePlan.Rate.HEALTH_INSURANCE_FULL)
+                - civilTax(incomeAfterContributions);
+    }
+
+    /**
+     * Calculates the final tax of a civil contract.
+     *
+     * @param incomeAfterContributions the gross income less the social
+     *                                 contributions, in grosze
+     * @return the final tax in grosze
+     */
+    private long civilTax(final long incomeAfterContributions) {
+        long advanceTax = plan.advanceTax(plan.civilTaxableIncome(
+                incomeAfterContributions, plan.percentOf(
+                        incomeAfterContributions,
+                        RatePlan.Rate.CIVIL_CONTRACT_DEDUCTIBLE)));
+        return plan.civilFinalTax(advanceTax, plan.percentOf(
+                incomeAfterContributions,
+                RatePlan.Rate.HEALTH_INSURANCE_DEDUCTIBLE))
+                * FixedPointMath.CENTS_PER_UNIT;
+    }
+
+    /**
+     * Starts a percentage term of the gross income along a range.
+     *
+     * @param rate the rate of the term
+     * @param fromCents the first gross income in grosze
+     * @param stepCents the distance between gross incomes in grosze
+     * @return the term at the first gross income
+     */
+    private Term term(final RatePlan.Rate rate, final long fromCents,
+                      final long stepCents) {
+        return new Term(plan.basisPoints(rate), fromCents, stepCents);
+    }
+
+    /**
+     * Checks that a gross income can be evaluated.
+     *
+     * @param grossCents the gross income in grosze
+     * @throws IllegalArgumentException if it is negative or too large
+     */
+    private void checkGross(final long grossCents) {
+        if (grossCents < 0 || grossCents > maxCents) {
+            throw new IllegalArgumentException(
+                    "Gross income must be non-negative and at most "
+                            + maxCents + " grosze");
+        }
+    }
+
+    /**
+     * A percentage term of the gross income stepped along a range: the
+     * quotient and remainder of {@code g * rate + 5000} divided by the
+     * percentage divisor.
+     */
+    private static final class Term {
+
+        /**
+         * Current value of the term in grosze.
+         */
+        private long value;
+
+        /**
+         * Remainder of the current division.
+         */
+        private long remainder;
+
+        /**
+         * Quotient added per step.
+         */
+        private final long valueStep;
+
+        /**
+         * Remainder added per step.
+         */
+        private final long remainderStep;
+
+        /**
+         * Starts a term at the first gross income.
+         *
+         * @param rateBasisPoints the rate in basis points
+         * @param fromCents the first gross income in grosze
+         * @param stepCents the distance between gross incomes in grosze
+         */
+        Term(final long rateBasisPoints, final long fromCents,
+             final long stepCents) {
+            long dividend = fromCents * rateBasisPoints
+                    + FixedPointMath.HALF_PERCENTAGE_DIVISOR_BP;
+            long increment = stepCents * rateBasisPoints;
+            this.value = dividend / FixedPointMath.PERCENTAGE_DIVISOR_BP;
+            this.remainder = dividend % FixedPointMath.PERCENTAGE_DIVISOR_BP;
+            this.valueStep = increment / FixedPointMath.PERCENTAGE_DIVISOR_BP;
+            this.remainderStep =
+                    increment % FixedPointMath.PERCENTAGE_DIVISOR_BP;
+        }
+
+        /**
+         * Moves the term to the next gross income.
+         */
+        void advance() {
+            value += valueStep;
+            remainder += remainderStep;
+            if (remainder >= FixedPointMath.PERCENTAGE_DIVISOR_BP) {
+                value++;
+                remainder -= FixedPointMath.PERCENTAGE_DIVISOR_BP;
+            }
+        }
+    }
+}
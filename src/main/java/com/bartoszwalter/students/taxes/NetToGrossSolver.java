@@ -0,0 +1,481 @@
+package com.bartoszwalter.students.taxes;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Finds the smallest gross income reaching a target net income.
+ * <p>
+ * Without rounding, the net income of both contract types is a linear
+ * function of the gross income. Rounding contributions and health
+ * insurance to grosze, taxable income to zloty and final tax to zloty
+ * keeps the exact net income within a few tens of grosze of that line,
+ * but makes it non-monotonic: a grosz more can raise the final tax by a
+ * zloty. The solver therefore inverts the line to the lowest gross
+ * income that could possibly reach the target and searches upwards from
+ * there, evaluating candidates with the allocation-free
+ * {@link FixedPointTaxStrategy}.
+ * </p>
+ * <p>
+ * Each evaluation that falls short bounds the incomes above it: until
+ * the deductible health insurance has grown enough to round the final
+ * tax down, the net income grows no faster than the income less the
+ * contributions and full health insurance. The search jumps straight to
+ * the first income either bound no longer rules out, so every skipped
+ * income provably falls short and the answer stays the smallest one,
+ * while a target takes a handful of evaluations instead of a scan of
+ * every grosz. The line and the strategies are those of the
+ * {@link RatePlan} the solver is created with.
+ * </p>
+ */
+public final class NetToGrossSolver {
+
+    /**
+     * Largest distance in grosze between the net income and its linear
+     * model caused by rounding contributions, health insurance and the
+     * final tax, apart from the taxable income.
+     */
+    static final long ROUNDING_ERROR_CENTS = 60;
+
+    /**
+     * Number of social contributions, each rounded separately.
+     */
+    private static final int CONTRIBUTION_COUNT = 3;
+
+    /**
+     * Rate plan the solver applies.
+     */
+    private final RatePlan plan;
+
+    /**
+     * Largest distance in grosze between the net income and its linear
+     * model.
+     */
+    private final long modelErrorCents;
+
+    /**
+     * Net income per grosz of gross income on an employment contract.
+     */
+    private final double employmentSlope;
+
+    /**
+     * Net income in grosze of a zero gross income on an employment
+     * contract, before rounding.
+     */
+    private final double employmentInterceptCents;
+
+    /**
+     * Net income per grosz of gross income on a civil contract.
+     */
+    private final double civilSlope;
+
+    /**
+     * Largest target net income in grosze; its gross income always fits
+     * in the fixed-point range of the plan.
+     */
+    private final long maxTargetCents;
+
+    /**
+     * Deductible health insurance rate in basis points.
+     */
+    private final long healthDeductibleBp;
+
+    /**
+     * Largest growth of the employment net income before the final tax,
+     * per grosz of gross income, in units of
+     * {@link FixedPointMath#PERCENTAGE_DIVISOR_BP}.
+     */
+    private final long employmentGrowth;
+
+    /**
+     * Largest growth of the civil net income before the final tax, per
+     * grosz of gross income, in units of the square of
+     * {@link FixedPointMath#PERCENTAGE_DIVISOR_BP}.
+     */
+    private final long civilGrowth;
+
+    /**
+     * Whether the contributions of the plan leave a civil contract a
+     * non-negative income, which the civil bounds rely on.
+     */
+    private final boolean civilBounded;
+
+    /**
+     * Strategies evaluating candidate gross incomes.
+     */
+    private final Map<ContractType, TaxCalculationStrategy> strategies =
+            new EnumMap<>(ContractType.class);
+
+    /**
+     * Creates a solver for all contract types under
+     * {@link RatePlan#DEFAULT}.
+     */
+    public NetToGrossSolver() {
+        this(RatePlan.DEFAULT);
+    }
+
+    /**
+     * Creates a solver for all contract types under a rate plan.
+     *
+     * @param planValue the rate plan to apply
+     * @throws IllegalArgumentException if planValue is null
+     */
+    public NetToGrossSolver(final RatePlan planValue) {
+        this(planValue, FixedPointTaxStrategy.strategies(planValue));
+    }
+
+    /**
+     * Creates a solver evaluating candidates with the given strategies,
+     * which must calculate exactly like the fixed-point strategies of the
+     * plan.
+     *
+     * @param planValue the rate plan to apply
+     * @param strategiesValue the strategies keyed by contract type
+     * @throws IllegalArgumentException if planValue is null
+     */
+    NetToGrossSolver(final RatePlan planValue,
+                     final Map<ContractType, TaxCalculationStrategy>
+                             strategiesValue) {
+        if (planValue == null) {
+            throw new IllegalArgumentException("Rate plan cannot be null");
+        }
+        this.plan = planValue;
+        long divisor = FixedPointMath.PERCENTAGE_DIVISOR_BP;
+        long advanceBp = planValue.basisPoints(RatePlan.Rate.ADVANCE_TAX);
+        long contributions = planValue.basisPoints(
+                RatePlan.Rate.SOCIAL_SECURITY)
+                + planValue.basisPoints(RatePlan.Rate.HEALTH_SOCIAL_SECURITY)
+                + planValue.basisPoints(
+                        RatePlan.Rate.SICKNESS_SOCIAL_SECURITY);
+        long healthFull = planValue.basisPoints(
+                RatePlan.Rate.HEALTH_INSURANCE_FULL);
+        double healthDeductible = planValue.basisPoints(
+                RatePlan.Rate.HEALTH_INSURANCE_DEDUCTIBLE);
+        this.modelErrorCents = ROUNDING_ERROR_CENTS
+                + Math.ceilDiv(advanceBp * FixedPointMath.CENTS_PER_UNIT,
+                        divisor);
+        this.employmentSlope = (divisor - contributions - healthFull
+                - advanceBp + healthDeductible) / divisor;
+        this.employmentInterceptCents = (double) advanceBp
+                * planValue.getEmploymentDeductibleCents() / divisor
+                + planValue.getTaxFreeIncomeCents();
+        double civilBasisShare = (double) (divisor - contributions)
+                / divisor;
+        this.civilSlope = civilBasisShare * (divisor - healthFull
+                - (double) advanceBp * (divisor - planValue.basisPoints(
+                        RatePlan.Rate.CIVIL_CONTRACT_DEDUCTIBLE)) / divisor
+                + healthDeductible) / divisor;
+        double reachable = Math.min(employmentSlope, civilSlope)
+                * planValue.getMaxCents() - 2 * modelErrorCents;
+        this.maxTargetCents = (long) Math.max(0, reachable);
+        this.healthDeductibleBp = planValue.basisPoints(
+                RatePlan.Rate.HEALTH_INSURANCE_DEDUCTIBLE);
+        this.employmentGrowth = divisor - contributions - healthFull;
+        this.civilGrowth = (divisor - contributions) * (divisor - healthFull);
+        this.civilBounded = contributions <= divisor;
+        strategies.putAll(strategiesValue);
+    }
+
+    /**
+     * Returns the rate plan the solver applies.
+     *
+     * @return the rate plan
+     */
+    public RatePlan getRatePlan() {
+        return plan;
+    }
+
+    /**
+     * Finds the smallest gross income whose net income is at least the
+     * target.
+     *
+     * @param targetNet the net income to reach
+     * @param contractType the type of contract
+     * @return the gross income with two decimal places
+     * @throws IllegalArgumentException if targetNet is null, negative or
+     *                                  too large, or contract type is
+     *                                  null
+     */
+    public BigDecimal grossForNet(final BigDecimal targetNet,
+                                  final ContractType contractType) {
+        return BigDecimal.valueOf(solve(toTargetCents(targetNet),
+                contractType, strategy(contractType),
+                new MutableTaxResult()), TaxConstants.CURRENCY_SCALE);
+    }
+
+    /**
+     * Finds the smallest gross income reaching each target, for example
+     * for every cell of a salary grid.
+     *
+     * @param targetNets the net incomes to reach
+     * @param contractType the type of contract
+     * @return the gross incomes, in the same order as the targets
+     * @throws IllegalArgumentException if targetNets is null, any target
+     *                                  is invalid, or contract type is
+     *                                  null
+     */
+    public List<BigDecimal> grossForNet(final List<BigDecimal> targetNets,
+                                        final ContractType contractType) {
+        if (targetNets == null) {
+            throw new IllegalArgumentException("Targets cannot be null");
+        }
+        TaxCalculationStrategy strategy = strategy(contractType);
+        MutableTaxResult result = new MutableTaxResult();
+        List<BigDecimal> grossIncomes = new ArrayList<>(targetNets.size());
+        for (BigDecimal targetNet : targetNets) {
+            grossIncomes.add(BigDecimal.valueOf(
+                    solve(toTargetCents(targetNet), contractType, strategy,
+                            result),
+                    TaxConstants.CURRENCY_SCALE));
+        }
+        return grossIncomes;
+    }
+
+    /**
+     * Returns the strategy of a contract type.
+     *
+     * @param contractType the type of contract
+     * @return the strategy
+     * @throws IllegalArgumentException if contract type is null
+     */
+    private TaxCalculationStrategy strategy(
+            final ContractType contractType) {
+        if (contractType == null) {
+            throw new IllegalArgumentException(
+                    "Contract type cannot be null");
+        }
+        return strategies.get(contractType);
+    }
+
+    /**
+     * Converts a target to grosze, rounding up since net incomes are
+     * whole grosze.
+     *
+     * @param targetNet the net income to reach
+     * @return the target in grosze
+     * @throws IllegalArgumentException if targetNet is null, negative or
+     *                                  too large
+     */
+    private long toTargetCents(final BigDecimal targetNet) {
+        if (targetNet == null || targetNet.signum() < 0) {
+            throw new IllegalArgumentException(
+                    "Target net income must be non-negative");
+        }
+        BigDecimal cents = targetNet.setScale(TaxConstants.CURRENCY_SCALE,
+                RoundingMode.CEILING).movePointRight(
+                        TaxConstants.CURRENCY_SCALE);
+        if (cents.compareTo(BigDecimal.valueOf(maxTargetCents)) > 0) {
+            throw new IllegalArgumentException(
+                    "Target net income must be at most "
+                            + BigDecimal.valueOf(maxTargetCents,
+                                    TaxConstants.CURRENCY_SCALE));
+        }
+        return cents.longValueExact();
+    }
+
+    /**
+     * Searches upwards from the lowest gross income the linear model
+     * allows, skipping incomes that provably fall short.
+     *
+     * @param targetCents the net income to reach in grosze
+     * @param contractType the type of contract
+     * @param strategy the strategy evaluating candidates
+     * @param result the buffer receiving each evaluation
+     * @return the smallest gross income in grosze reaching the target
+     */
+    private long solve(final long targetCents,
+                       final ContractType contractType,
+                       final TaxCalculationStrategy strategy,
+                       final MutableTaxResult result) {
+        long gross = Math.max(0, lowestCandidate(targetCents, contractType));
+        strategy.calculateTax(gross, result);
+        while (result.get(TaxField.NET_INCOME) < targetCents) {
+            gross += Math.min(plan.getMaxCents(),
+                    safeStep(targetCents, contractType, result));
+            strategy.calculateTax(gross, result);
+        }
+        return gross;
+    }
+
+    /**
+     * Returns how far above an evaluated income falling short of the
+     * target the next income that may reach it lies. Below the income
+     * at which the final tax could first drop, the net income grows at
+     * most as fast as the income less the contributions and full health
+     * insurance.
+     *
+     * @param targetCents the net income to reach in grosze
+     * @param contractType the type of contract
+     * @param result the evaluation falling short of the target
+     * @return the positive distance in grosze
+     */
+    private long safeStep(final long targetCents,
+                          final ContractType contractType,
+                          final MutableTaxResult result) {
+        long shortfall = targetCents - result.get(TaxField.NET_INCOME);
+        long gross = result.get(TaxField.GROSS_INCOME);
+        long contributionHeadroom =
+                headroom(gross, RatePlan.Rate.SOCIAL_SECURITY)
+                + headroom(gross, RatePlan.Rate.HEALTH_SOCIAL_SECURITY)
+                + headroom(gross, RatePlan.Rate.SICKNESS_SOCIAL_SECURITY);
+        if (contractType == ContractType.EMPLOYMENT) {
+            long growthStep = growthStep(shortfall,
+                    FixedPointMath.PERCENTAGE_DIVISOR_BP,
+                    contributionHeadroom
+                            + headroom(gross,
+                                    RatePlan.Rate.HEALTH_INSURANCE_FULL),
+                    employmentGrowth);
+            return Math.min(growthStep, finalTaxStep(result, 0,
+                    headroom(gross,
+                            RatePlan.Rate.HEALTH_INSURANCE_DEDUCTIBLE)));
+        }
+        if (!civilBounded) {
+            return 1;
+        }
+        long divisor = FixedPointMath.PERCENTAGE_DIVISOR_BP;
+        long basis = gross - result.get(TaxField.SOCIAL_SECURITY)
+                - result.get(TaxField.HEALTH_SOCIAL_SECURITY)
+                - result.get(TaxField.SICKNESS_SOCIAL_SECURITY);
+        long growthStep = growthStep(shortfall, divisor * divisor,
+                contributionHeadroom * (divisor - plan.basisPoints(
+                        RatePlan.Rate.HEALTH_INSURANCE_FULL))
+                        + headroom(basis, RatePlan.Rate.HEALTH_INSURANCE_FULL)
+                        * divisor,
+                civilGrowth);
+        return Math.min(growthStep, finalTaxStep(result,
+                civilAdvanceDrop(basis),
+                headroom(basis, RatePlan.Rate.HEALTH_INSURANCE_DEDUCTIBLE)));
+    }
+
+    /**
+     * Returns how far a percentage of an amount is from rounding up: for
+     * any increase d of the amount, the percentage grows by at least
+     * {@code (d * rate - headroom) / PERCENTAGE_DIVISOR_BP} grosze and
+     * by at most {@code (d * rate + PERCENTAGE_DIVISOR_BP - 1 - headroom)
+     * / PERCENTAGE_DIVISOR_BP}, rounded down.
+     *
+     * @param cents the non-negative amount in grosze
+     * @param rate the rate
+     * @return the headroom, in units of basis points of a grosz
+     */
+    private long headroom(final long cents, final RatePlan.Rate rate) {
+        long divisor = FixedPointMath.PERCENTAGE_DIVISOR_BP;
+        return divisor - 1 - (cents * plan.basisPoints(rate)
+                + FixedPointMath.HALF_PERCENTAGE_DIVISOR_BP) % divisor;
+    }
+
+    /**
+     * Returns the smallest distance over which the net income before the
+     * final tax can grow by a shortfall. Over a distance of k grosze it
+     * grows by at most {@code (k * growth + slack) / scale}, the slack
+     * covering the rounding of each amount.
+     *
+     * @param shortfall the positive growth needed in grosze
+     * @param scale the denominator of the growth
+     * @param slack the largest rounding gain, in units of the scale
+     * @param growth the largest growth per grosz, in units of the scale
+     * @return the positive distance in grosze
+     */
+    private static long growthStep(final long shortfall, final long scale,
+                                   final long slack, final long growth) {
+        if (shortfall > Long.MAX_VALUE / scale) {
+            return 1;
+        }
+        long needed = shortfall * scale - slack;
+        if (needed <= 0) {
+            return 1;
+        }
+        if (growth <= 0) {
+            return Long.MAX_VALUE;
+        }
+        return Math.ceilDiv(needed, growth);
+    }
+
+    /**
+     * Returns the distance to the first income at which the final tax
+     * may be lower than in an evaluation. The amount the final tax is
+     * rounded from falls only through the deductible health insurance,
+     * whose base grows by at most a grosz per grosz of income, and
+     * through a lower advance tax.
+     *
+     * @param result the evaluation
+     * @param advanceDrop the largest fall of the advance tax above the
+     *                    evaluated income, in grosze
+     * @param healthHeadroom the {@link #headroom} of the deductible
+     *                       health insurance
+     * @return the positive distance in grosze
+     */
+    private long finalTaxStep(final MutableTaxResult result,
+                              final long advanceDrop,
+                              final long healthHeadroom) {
+        long finalTax = result.get(TaxField.FINAL_TAX);
+        long lowestRounded = finalTax * FixedPointMath.CENTS_PER_UNIT
+                - FixedPointMath.CENTS_PER_UNIT / 2;
+        if (finalTax <= 0) {
+            lowestRounded++;
+        }
+        long slack = result.get(TaxField.ADVANCE_TAX)
+                - result.get(TaxField.TAX_FREE_INCOME)
+                - result.get(TaxField.HEALTH_INSURANCE_DEDUCTIBLE)
+                - advanceDrop - lowestRounded;
+        if (slack < 0) {
+            return 1;
+        }
+        if (healthDeductibleBp == 0) {
+            return Long.MAX_VALUE;
+        }
+        return (slack * FixedPointMath.PERCENTAGE_DIVISOR_BP + healthHeadroom)
+                / healthDeductibleBp + 1;
+    }
+
+    /**
+     * Returns the largest fall of the advance tax of a civil contract
+     * above an evaluated income. Rounding each contribution up can lower
+     * the income after contributions by a grosz per contribution but the
+     * first, and never by more.
+     *
+     * @param basis the evaluated income after contributions in grosze
+     * @return the fall of the advance tax in grosze
+     */
+    private long civilAdvanceDrop(final long basis) {
+        return plan.advanceTax(civilTaxableIncome(basis))
+                - plan.advanceTax(civilTaxableIncome(Math.max(0,
+                        basis - (CONTRIBUTION_COUNT - 1))));
+    }
+
+    /**
+     * Calculates the taxable income of a civil contract.
+     *
+     * @param basis the income after contributions in grosze
+     * @return the taxable income in whole zloty
+     */
+    private long civilTaxableIncome(final long basis) {
+        return plan.civilTaxableIncome(basis, plan.percentOf(basis,
+                RatePlan.Rate.CIVIL_CONTRACT_DEDUCTIBLE));
+    }
+
+    /**
+     * Inverts the linear model: every smaller gross income has a net
+     * income below the target.
+     *
+     * @param targetCents the net income to reach in grosze
+     * @param contractType the type of contract
+     * @return a lower bound of the solution in grosze
+     */
+    private long lowestCandidate(final long targetCents,
+                                 final ContractType contractType) {
+        double reachable = targetCents - modelErrorCents;
+        double gross;
+        if (contractType == ContractType.EMPLOYMENT) {
+            gross = (reachable - employmentInterceptCents)
+                    / employmentSlope;
+        } else {
+            gross = reachable / civilSlope;
+        }
+        return (long) Math.floor(gross) - 1;
+    }
+}
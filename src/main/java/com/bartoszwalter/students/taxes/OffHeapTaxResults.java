@@ -0,0 +1,476 @@
+package com.bartoszwalter.students.taxes;
+
+import java.io.IOException;
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.math.BigDecimal;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Results of a batch stored outside the heap, in native memory or a
+ * memory-mapped file, so a batch of any size adds no garbage collection
+ * work.
+ * <p>
+ * The store starts with an {@value #HEADER_BYTES}-byte header: the magic
+ * number {@code TAXR}, the version, the row size and the length of the
+ * rate version as two bytes each, followed by six reserved bytes. The
+ * version of the rate plan the rows are calculated with follows in UTF-8,
+ * then rows of {@value #ROW_BYTES} bytes, holding every {@link TaxField}
+ * in ordinal order as a long, unscaled at the scale of its field as in
+ * {@link TaxResultColumns}. All numbers are little-endian. A store
+ * created in a file can be reopened by {@link #open(Path)} without
+ * recalculating it, and tells by {@link #getRateVersion()} which rates
+ * produced it.
+ * </p>
+ * <p>
+ * Calculations write rows through a {@link Cursor}, one per thread;
+ * distinct rows may be written and read by any thread. The memory is
+ * released by {@link #close()}.
+ * </p>
+ */
+public final class OffHeapTaxResults implements AutoCloseable {
+
+    /**
+     * Magic number opening the store, {@code TAXR} in ASCII.
+     */
+    public static final int MAGIC = 0x52584154;
+
+    /**
+     * Version of the format.
+     */
+    public static final short VERSION = 2;
+
+    /**
+     * Size of the fixed part of the header in bytes.
+     */
+    public static final int HEADER_BYTES = 16;
+
+    /**
+     * Number of values of a row.
+     */
+    private static final int FIELD_COUNT = TaxField.values().length;
+
+    /**
+     * Size of a row in bytes.
+     */
+    public static final int ROW_BYTES = FIELD_COUNT * Long.BYTES;
+
+    /**
+     * Offset of the version in the header.
+     */
+    private static final int VERSION_OFFSET = 4;
+
+    /**
+     * Offset of the row size in the header.
+     */
+    private static final int ROW_SIZE_OFFSET = 6;
+
+    /**
+     * Offset of the rate version length in the header.
+     */
+    private static final int RATE_VERSION_LENGTH_OFFSET = 8;
+
+    /**
+     * Layout of the values.
+     */
+    private static final ValueLayout.OfLong LONG =
+            ValueLayout.JAVA_LONG_UNALIGNED.withOrder(
+                    ByteOrder.LITTLE_ENDIAN);
+
+    /**
+     * Layout of the magic number.
+     */
+    private static final ValueLayout.OfInt INT =
+            ValueLayout.JAVA_INT_UNALIGNED.withOrder(
+                    ByteOrder.LITTLE_ENDIAN);
+
+    /**
+     * Layout of the header fields of two bytes.
+     */
+    private static final ValueLayout.OfShort SHORT =
+            ValueLayout.JAVA_SHORT_UNALIGNED.withOrder(
+                    ByteOrder.LITTLE_ENDIAN);
+
+    /**
+     * Arena owning the memory.
+     */
+    private final Arena arena;
+
+    /**
+     * The header and rows.
+     */
+    private final MemorySegment segment;
+
+    /**
+     * Offset of the first row.
+     */
+    private final long rowsOffset;
+
+    /**
+     * Number of rows.
+     */
+    private final long size;
+
+    /**
+     * Version of the rate plan the rows are calculated with.
+     */
+    private final String rateVersion;
+
+    /**
+     * Whether the segment maps a file.
+     */
+    private final boolean mapped;
+
+    /**
+     * Writes the values a strategy calculates into one row at a time,
+     * without copying them through the heap. Not thread-safe; use one
+     * cursor per thread.
+     */
+    public final class Cursor implements TaxResultSink {
+
+        /**
+         * Offset of the current row.
+         */
+        private long offset = -1;
+
+        /**
+         * Creates a cursor before the first row.
+         */
+        private Cursor() {
+        }
+
+        /**
+         * Moves to a row.
+         *
+         * @param row the row receiving the next values
+         * @return this cursor
+         * @throws IndexOutOfBoundsException if row is out of range
+         */
+        public Cursor at(final long row) {
+            offset = offset(row);
+            return this;
+        }
+
+        /**
+         * Stores a value in the current row.
+         *
+         * @param field the field of the value
+         * @param unscaledValue the value, unscaled at the field's scale
+         * @throws IllegalStateException if no row was selected
+         */
+        @Override
+        public void accept(final TaxField field, final long unscaledValue) {
+            if (offset < 0) {
+                throw new IllegalStateException("No row selected");
+            }
+            segment.set(LONG, offset + (long) field.ordinal() * Long.BYTES,
+                    unscaledValue);
+        }
+    }
+
+    /**
+     * Wraps a validated segment.
+     *
+     * @param arenaValue the arena owning the memory
+     * @param segmentValue the header and rows
+     * @param rateVersionValue the version of the rates
+     * @param mappedValue whether the segment maps a file
+     */
+    private OffHeapTaxResults(final Arena arenaValue,
+                              final MemorySegment segmentValue,
+                              final String rateVersionValue,
+                              final boolean mappedValue) {
+        this.arena = arenaValue;
+        this.segment = segmentValue;
+        this.rowsOffset = HEADER_BYTES + Short.toUnsignedInt(
+                segmentValue.get(SHORT, RATE_VERSION_LENGTH_OFFSET));
+        this.size = (segmentValue.byteSize() - rowsOffset) / ROW_BYTES;
+        this.rateVersion = rateVersionValue;
+        this.mapped = mappedValue;
+    }
+
+    /**
+     * Allocates a zero-filled store in native memory.
+     *
+     * @param rows the number of rows
+     * @param plan the rates the rows will be calculated with
+     * @return the store
+     * @throws IllegalArgumentException if plan is null, its version is too
+     *                                  long or rows is negative or too
+     *                                  large
+     */
+    public static OffHeapTaxResults allocate(final long rows,
+                                             final RatePlan plan) {
+        byte[] version = rateVersion(plan);
+        long bytes = byteSize(rows, version);
+        Arena arena = Arena.ofShared();
+        try {
+            MemorySegment segment = arena.allocate(bytes, Long.BYTES);
+            writeHeader(segment, version);
+            return new OffHeapTaxResults(arena, segment, plan.getVersion(),
+                    false);
+        } catch (RuntimeException e) {
+            arena.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Creates a zero-filled store in a file, replacing its content.
+     *
+     * @param path the file to create
+     * @param rows the number of rows
+     * @param plan the rates the rows will be calculated with
+     * @return the store, mapping the file
+     * @throws IOException if the file cannot be created or mapped
+     * @throws IllegalArgumentException if path or plan is null, the
+     *                                  version of plan is too long or
+     *                                  rows is negative or too large
+     */
+    public static OffHeapTaxResults create(final Path path, final long rows,
+                                           final RatePlan plan)
+            throws IOException {
+        if (path == null) {
+            throw new IllegalArgumentException("Path cannot be null");
+        }
+        byte[] version = rateVersion(plan);
+        long bytes = byteSize(rows, version);
+        Arena arena = Arena.ofShared();
+        try (FileChannel channel = FileChannel.open(path,
+                StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            MemorySegment segment = channel.map(
+                    FileChannel.MapMode.READ_WRITE, 0, bytes, arena);
+            writeHeader(segment, version);
+            return new OffHeapTaxResults(arena, segment, plan.getVersion(),
+                    true);
+        } catch (IOException | RuntimeException e) {
+            arena.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Maps a store created by {@link #create(Path, long, RatePlan)}, for
+     * reading and writing.
+     *
+     * @param path the file to map
+     * @return the store
+     * @throws IOException if the file cannot be mapped
+     * @throws IllegalArgumentException if path is null or the file is not
+     *                                  a result store
+     */
+    public static OffHeapTaxResults open(final Path path) throws IOException {
+        if (path == null) {
+            throw new IllegalArgumentException("Path cannot be null");
+        }
+        Arena arena = Arena.ofShared();
+        try (FileChannel channel = FileChannel.open(path,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            MemorySegment segment = channel.map(
+                    FileChannel.MapMode.READ_WRITE, 0, channel.size(), arena);
+            String rateVersion = validate(segment, path);
+            return new OffHeapTaxResults(arena, segment, rateVersion, true);
+        } catch (IOException | RuntimeException e) {
+            arena.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Returns the number of rows.
+     *
+     * @return the number of rows
+     */
+    public long size() {
+        return size;
+    }
+
+    /**
+     * Returns the version of the rate plan the rows are calculated with.
+     *
+     * @return the rate version
+     */
+    public String getRateVersion() {
+        return rateVersion;
+    }
+
+    /**
+     * Creates a cursor writing rows of this store.
+     *
+     * @return a cursor before the first row
+     */
+    public Cursor cursor() {
+        return new Cursor();
+    }
+
+    /**
+     * Returns a single value.
+     *
+     * @param row the row to read
+     * @param field the field to read
+     * @return the value, unscaled at the field's scale
+     * @throws IndexOutOfBoundsException if row is out of range
+     */
+    public long get(final long row, final TaxField field) {
+        return segment.get(LONG,
+                offset(row) + (long) field.ordinal() * Long.BYTES);
+    }
+
+    /**
+     * Returns a single value as a decimal.
+     *
+     * @param row the row to read
+     * @param field the field to read
+     * @return the value at the field's scale
+     * @throws IndexOutOfBoundsException if row is out of range
+     */
+    public BigDecimal getDecimal(final long row, final TaxField field) {
+        return field.toDecimal(get(row, field));
+    }
+
+    /**
+     * Copies every value of a row into a sink.
+     *
+     * @param row the row to read
+     * @param sink the sink receiving the values
+     * @throws IndexOutOfBoundsException if row is out of range
+     * @throws IllegalArgumentException if sink is null
+     */
+    public void read(final long row, final TaxResultSink sink) {
+        if (sink == null) {
+            throw new IllegalArgumentException("Sink cannot be null");
+        }
+        long offset = offset(row);
+        for (TaxField field : TaxField.values()) {
+            sink.accept(field, segment.get(LONG,
+                    offset + (long) field.ordinal() * Long.BYTES));
+        }
+    }
+
+    /**
+     * Writes the rows of a file-backed store to the storage device. Does
+     * nothing for a store in native memory.
+     */
+    public void force() {
+        if (mapped) {
+            segment.force();
+        }
+    }
+
+    /**
+     * Releases the memory, or the mapping of a file-backed store, whose
+     * rows stay in the file. The store cannot be used afterwards.
+     */
+    @Override
+    public void close() {
+        arena.close();
+    }
+
+    /**
+     * Returns the offset of a row.
+     *
+     * @param row the row index
+     * @return the offset of its first byte
+     * @throws IndexOutOfBoundsException if row is out of range
+     */
+    private long offset(final long row) {
+        if (row < 0 || row >= size) {
+            throw new IndexOutOfBoundsException("Row " + row + " of " + size);
+        }
+        return rowsOffset + row * ROW_BYTES;
+    }
+
+    /**
+     * Encodes the version of a rate plan for the header.
+     *
+     * @param plan the rate plan
+     * @return the version in UTF-8
+     * @throws IllegalArgumentException if plan is null or its version is
+     *                                  too long
+     */
+    private static byte[] rateVersion(final RatePlan plan) {
+        if (plan == null) {
+            throw new IllegalArgumentException("Rate plan cannot be null");
+        }
+        byte[] version = plan.getVersion().getBytes(StandardCharsets.UTF_8);
+        if (version.length > Character.MAX_VALUE) {
+            throw new IllegalArgumentException(
+                    "Rate version too long: " + plan.getVersion());
+        }
+        return version;
+    }
+
+    /**
+     * Returns the size of a store.
+     *
+     * @param rows the number of rows
+     * @param version the rate version in UTF-8
+     * @return the size in bytes
+     * @throws IllegalArgumentException if rows is negative or too large
+     */
+    private static long byteSize(final long rows, final byte[] version) {
+        long header = HEADER_BYTES + version.length;
+        if (rows < 0 || rows > (Long.MAX_VALUE - header) / ROW_BYTES) {
+            throw new IllegalArgumentException("Invalid row count: " + rows);
+        }
+        return header + rows * ROW_BYTES;
+    }
+
+    /**
+     * Writes the header of a new store.
+     *
+     * @param segment the store
+     * @param version the rate version in UTF-8
+     */
+    private static void writeHeader(final MemorySegment segment,
+                                    final byte[] version) {
+        segment.set(INT, 0, MAGIC);
+        segment.set(SHORT, VERSION_OFFSET, VERSION);
+        segment.set(SHORT, ROW_SIZE_OFFSET, (short) ROW_BYTES);
+        segment.set(SHORT, RATE_VERSION_LENGTH_OFFSET,
+                (short) version.length);
+        MemorySegment.copy(MemorySegment.ofArray(version), 0, segment,
+                HEADER_BYTES, version.length);
+    }
+
+    /**
+     * Checks the header and size of a mapped store.
+     *
+     * @param segment the mapped file
+     * @param path the file, for messages
+     * @return the rate version of the store
+     * @throws IllegalArgumentException if the file is not valid
+     */
+    private static String validate(final MemorySegment segment,
+                                   final Path path) {
+        long bytes = segment.byteSize();
+        if (bytes < HEADER_BYTES || segment.get(INT, 0) != MAGIC) {
+            throw new IllegalArgumentException(
+                    "Not a result store: " + path);
+        }
+        short version = segment.get(SHORT, VERSION_OFFSET);
+        short rowSize = segment.get(SHORT, ROW_SIZE_OFFSET);
+        if (version != VERSION || rowSize != ROW_BYTES) {
+            throw new IllegalArgumentException("Unsupported version "
+                    + version + " with rows of " + rowSize + " bytes: "
+                    + path);
+        }
+        int versionLength = Short.toUnsignedInt(
+                segment.get(SHORT, RATE_VERSION_LENGTH_OFFSET));
+        long rowBytes = bytes - HEADER_BYTES - versionLength;
+        if (rowBytes < 0 || rowBytes % ROW_BYTES != 0) {
+            throw new IllegalArgumentException(
+                    "Truncated result store: " + path);
+        }
+        byte[] rateVersion = segment.asSlice(HEADER_BYTES, versionLength)
+                .toArray(ValueLayout.JAVA_BYTE);
+        return new String(rateVersion, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,157 @@
+package com.bartoszwalter.students.taxes;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Result of {@link TaxCalculator#calculate(java.math.BigDecimal,
+ * ContractType)}: either a {@link Success} holding the calculated
+ * {@link TaxResult} or a {@link Failure} naming why the input was
+ * rejected. Failures are shared constants, so rejecting an input
+ * allocates nothing and builds no stack trace.
+ */
+public sealed interface Outcome permits Outcome.Success, Outcome.Failure {
+
+    /**
+     * Reason an input was rejected.
+     */
+    enum Reason {
+
+        /**
+         * The gross income was null.
+         */
+        MISSING_INCOME("Gross income cannot be null"),
+
+        /**
+         * The gross income was negative.
+         */
+        NEGATIVE_INCOME("Gross income must be non-negative"),
+
+        /**
+         * No strategy calculates the contract type, or it was null.
+         */
+        UNSUPPORTED_CONTRACT_TYPE("Unsupported contract type");
+
+        /**
+         * Message describing the reason.
+         */
+        private final String message;
+
+        /**
+         * Creates a reason.
+         *
+         * @param messageValue the message describing the reason
+         */
+        Reason(final String messageValue) {
+            this.message = messageValue;
+        }
+
+        /**
+         * Returns the message describing the reason.
+         *
+         * @return the message
+         */
+        public String getMessage() {
+            return message;
+        }
+    }
+
+    /**
+     * Checks whether the calculation succeeded.
+     *
+     * @return true for a {@link Success}
+     */
+    boolean isSuccess();
+
+    /**
+     * Returns the calculated result.
+     *
+     * @return the result
+     * @throws IllegalStateException if this is a failure
+     */
+    TaxResult orElseThrow();
+
+    /**
+     * A calculated result.
+     *
+     * @param result the calculated result
+     */
+    record Success(TaxResult result) implements Outcome {
+
+        @Override
+        public boolean isSuccess() {
+            return true;
+        }
+
+        @Override
+        public TaxResult orElseThrow() {
+            return result;
+        }
+    }
+
+    /**
+     * A rejected input. Obtain instances from {@link #of(Reason)}.
+     *
+     * @param reason why the input was rejected
+     */
+    record Failure(Reason reason) implements Outcome {
+
+        /**
+         * Shared failure of each reason.
+         */
+        private static final Map<Reason, Failure> FAILURES = failures();
+
+        /**
+         * Checks the reason.
+         *
+         * @throws IllegalArgumentException if reason is null
+         */
+        public Failure {
+            if (reason == null) {
+                throw new IllegalArgumentException("Reason cannot be null");
+            }
+        }
+
+        /**
+         * Returns the shared failure of a reason.
+         *
+         * @param reason why the input was rejected
+         * @return the failure
+         */
+        public static Failure of(final Reason reason) {
+            return FAILURES.get(reason);
+        }
+
+        /**
+         * Returns the message describing the reason.
+         *
+         * @return the message
+         */
+        public String message() {
+            return reason.getMessage();
+        }
+
+        @Override
+        public boolean isSuccess() {
+            return false;
+        }
+
+        @Override
+        public TaxResult orElseThrow() {
+            throw new IllegalStateException(message());
+        }
+
+        /**
+         * Creates the failure of each reason.
+         *
+         * @return the failures keyed by reason
+         */
+        private static Map<Reason, Failure> failures() {
+            Map<Reason, Failure> failures = new EnumMap<>(Reason.class);
+            for (Reason reason : Reason.values()) {
+                failures.put(reason, new Failure(reason));
+            }
+            return failures;
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.bartoszwalter.students.taxes;
+
+import java.util.List;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Fork-join task calculating a range of payroll entries.
+ * Each leaf stores its results in the shared {@link CompactTaxResults}
+ * at the index of the entry, so the input order is preserved.
+ */
+final class PayrollBatchTask extends RecursiveAction {
+
+    /**
+     * Maximum number of entries calculated by a single leaf task.
+     */
+    static final int THRESHOLD = 1024;
+
+    /**
+     * Calculator used for every entry.
+     */
+    private final TaxCalculator calculator;
+
+    /**
+     * Entries to calculate.
+     */
+    private final List<PayrollEntry> entries;
+
+    /**
+     * Results indexed like the entries.
+     */
+    private final CompactTaxResults results;
+
+    /**
+     * First index of the range (inclusive).
+     */
+    private final int from;
+
+    /**
+     * Last index of the range (exclusive).
+     */
+    private final int to;
+
+    /**
+     * Creates a task for the given range of entries.
+     *
+     * @param calculatorValue the calculator used for every entry
+     * @param entriesValue the entries to calculate
+     * @param resultsValue the results receiving each entry
+     * @param fromValue the first index of the range (inclusive)
+     * @param toValue the last index of the range (exclusive)
+     */
+    PayrollBatchTask(final TaxCalculator calculatorValue,
+                     final List<PayrollEntry> entriesValue,
+                     final CompactTaxResults resultsValue,
+                     final int fromValue,
+                     final int toValue) {
+        this.calculator = calculatorValue;
+        this.entries = entriesValue;
+        this.results = resultsValue;
+        this.from = fromValue;
+        this.to = toValue;
+    }
+
+    /**
+     * Calculates the range directly or splits it in two halves.
+     */
+    @Override
+    protected void compute() {
+        if (to - from <= THRESHOLD) {
+            for (int i = from; i < to; i++) {
+                PayrollEntry entry = entries.get(i);
+                results.put(i, calculator.calculateTax(
+                        entry.grossIncome(), entry.contractType()));
+            }
+            return;
+        }
+
+        int middle = (from + to) >>> 1;
+        invokeAll(
+                new PayrollBatchTask(calculator, entries, results,
+                        from, middle),
+                new PayrollBatchTask(calculator, entries, results,
+                        middle, to));
+    }
+}
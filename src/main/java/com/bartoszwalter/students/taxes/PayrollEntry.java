@@ -0,0 +1,14 @@
+package com.bartoszwalter.students.taxes;
+
+import java.math.BigDecimal;
+
+/**
+ * Represents a single payroll line to be calculated in a batch.
+ * @param employeeId Identifier of the employee.
+ * @param grossIncome Gross income of the employee.
+ * @param contractType Contract type of the employee.
+ */
+public record PayrollEntry(long employeeId,
+                           BigDecimal grossIncome,
+                           ContractType contractType) {
+}
@@ -0,0 +1,280 @@
+package com.bartoszwalter.students.taxes;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Calculates taxes for a delimited payroll file in a streaming fashion.
+ * Rows are read through {@link TaxInputReader}, calculated one by one
+ * and written out immediately, so memory use does not depend on the
+ * size of the file. Files in the {@link BinaryPayrollFile} format are
+ * mapped instead and produce the same columns.
+ */
+public final class PayrollFileProcessor {
+
+    /**
+     * Names of the output columns.
+     */
+    private static final String[] COLUMNS = {
+        "employeeId", "contractType", "grossIncome", "socialSecurity",
+        "healthSocialSecurity", "sicknessSocialSecurity",
+        "healthInsuranceFull", "healthInsuranceDeductible",
+        "taxDeductibleExpenses", "taxableIncome", "advanceTax",
+        "taxFreeIncome", "finalTax", "netIncome",
+    };
+
+    /**
+     * Fields written after the contract type, in column order.
+     */
+    private static final TaxField[] FIELDS = TaxField.values();
+
+    /**
+     * Longest text of a value: a sign, 19 digits and a decimal point.
+     */
+    private static final int MAX_VALUE_CHARS = 21;
+
+    /**
+     * Radix of the written values.
+     */
+    private static final int DECIMAL_RADIX = 10;
+
+    /**
+     * Calculator used for every row.
+     */
+    private final TaxCalculator calculator;
+
+    /**
+     * Field delimiter used for both input and output.
+     */
+    private final char delimiter;
+
+    /**
+     * Creates a processor using the default delimiter.
+     *
+     * @param calculatorValue the calculator used for every row
+     */
+    public PayrollFileProcessor(final TaxCalculator calculatorValue) {
+        this(calculatorValue, TaxInputReader.DEFAULT_DELIMITER);
+    }
+
+    /**
+     * Creates a processor using the given delimiter.
+     *
+     * @param calculatorValue the calculator used for every row
+     * @param delimiterValue the field delimiter
+     */
+    public PayrollFileProcessor(final TaxCalculator calculatorValue,
+                                final char delimiterValue) {
+        this.calculator = calculatorValue;
+        this.delimiter = delimiterValue;
+    }
+
+    /**
+     * Processes a payroll file into a result file. A file in the
+     * {@link BinaryPayrollFile} format is processed by
+     * {@link #processBinary(Path, Writer)}.
+     *
+     * @param input the payroll file to read
+     * @param output the result file to write
+     * @return the number of processed rows
+     * @throws IOException if an I/O error occurs
+     * @throws IllegalArgumentException if a row is not valid
+     */
+    public long process(final Path input, final Path output)
+            throws IOException {
+        if (BinaryPayrollFile.isBinary(input)) {
+            try (BufferedWriter target = Files.newBufferedWriter(output,
+                    StandardCharsets.UTF_8)) {
+                return processBinary(input, target);
+            }
+        }
+        try (BufferedReader source = Files.newBufferedReader(input,
+                     StandardCharsets.UTF_8);
+             BufferedWriter target = Files.newBufferedWriter(output,
+                     StandardCharsets.UTF_8)) {
+            return process(source, target);
+        }
+    }
+
+    /**
+     * Processes payroll rows from a reader into a writer. Values are
+     * written at the scale of their {@link TaxField}, e.g. {@code 0.00},
+     * whatever the scale of the income in the row, so a payroll gives
+     * the same text as its {@link BinaryPayrollFile}.
+     * The streams are not closed.
+     *
+     * @param input the reader supplying payroll rows
+     * @param output the writer receiving result rows
+     * @return the number of processed rows
+     * @throws IOException if an I/O error occurs
+     * @throws IllegalArgumentException if a row is not valid
+     */
+    public long process(final BufferedReader input, final Writer output)
+            throws IOException {
+        TaxInputReader reader = new TaxInputReader(input);
+        writeHeader(output);
+
+        long count = 0;
+        PayrollEntry entry = reader.readPayrollEntry(delimiter);
+        while (entry != null) {
+            TaxResult result = calculator.calculateTax(
+                    entry.grossIncome(), entry.contractType());
+            writeRow(output, entry, result);
+            count++;
+            entry = reader.readPayrollEntry(delimiter);
+        }
+        output.flush();
+        return count;
+    }
+
+    /**
+     * Processes a {@link BinaryPayrollFile} into a writer. Records are
+     * calculated straight from the mapped file in grosze, and values are
+     * written at the scale of their {@link TaxField}, so no text is
+     * parsed and no {@link BigDecimal} is created per row. The writer is
+     * not closed.
+     *
+     * @param input the binary payroll file to read
+     * @param output the writer receiving result rows
+     * @return the number of processed records
+     * @throws IOException if an I/O error occurs
+     * @throws IllegalArgumentException if the file or a record is not
+     *                                  valid
+     */
+    public long processBinary(final Path input, final Writer output)
+            throws IOException {
+        writeHeader(output);
+        char[] digits = new char[MAX_VALUE_CHARS];
+        long count;
+        try (BinaryPayrollFile file = BinaryPayrollFile.open(input)) {
+            count = file.calculate(calculator,
+                    (employeeId, contractType, result) -> writeRow(output,
+                            employeeId, contractType, result, digits));
+        }
+        output.flush();
+        return count;
+    }
+
+    /**
+     * Writes the header row.
+     *
+     * @param output the writer receiving the header
+     * @throws IOException if an I/O error occurs
+     */
+    private void writeHeader(final Writer output) throws IOException {
+        for (int i = 0; i < COLUMNS.length; i++) {
+            if (i > 0) {
+                output.write(delimiter);
+            }
+            output.write(COLUMNS[i]);
+        }
+        output.write(System.lineSeparator());
+    }
+
+    /**
+     * Writes a single result row.
+     *
+     * @param output the writer receiving the row
+     * @param entry the payroll entry
+     * @param result the calculated result
+     * @throws IOException if an I/O error occurs
+     */
+    private void writeRow(final Writer output, final PayrollEntry entry,
+                          final TaxResult result) throws IOException {
+        StageTimer event = StageTimer.formatting(entry.contractType());
+        output.write(Long.toString(entry.employeeId()));
+        output.write(delimiter);
+        output.write(entry.contractType().getCode());
+        for (TaxField field : FIELDS) {
+            writeValue(output, field, field.valueOf(result));
+        }
+        output.write(System.lineSeparator());
+        event.finish();
+    }
+
+    /**
+     * Writes a single result row of unscaled values.
+     *
+     * @param output the writer receiving the row
+     * @param employeeId the employee id
+     * @param contractType the contract type
+     * @param result the calculated values
+     * @param digits scratch space for one value
+     * @throws IOException if an I/O error occurs
+     */
+    private void writeRow(final Writer output, final long employeeId,
+                          final ContractType contractType,
+                          final MutableTaxResult result,
+                          final char[] digits) throws IOException {
+        StageTimer event = StageTimer.formatting(contractType);
+        writeUnscaled(output, employeeId, 0, digits);
+        output.write(delimiter);
+        output.write(contractType.getCode());
+        for (TaxField field : FIELDS) {
+            output.write(delimiter);
+            writeUnscaled(output, result.get(field), field.getScale(),
+                    digits);
+        }
+        output.write(System.lineSeparator());
+        event.finish();
+    }
+
+    /**
+     * Writes an unscaled value as {@link BigDecimal#toPlainString()}
+     * would, without creating one.
+     *
+     * @param output the writer receiving the value
+     * @param unscaledValue the value, unscaled at the given scale
+     * @param scale the number of decimal places
+     * @param digits scratch space for the value
+     * @throws IOException if an I/O error occurs
+     */
+    static void writeUnscaled(final Writer output, final long unscaledValue,
+                              final int scale, final char[] digits)
+            throws IOException {
+        int position = digits.length;
+        long remaining = unscaledValue;
+        int written = 0;
+        do {
+            if (written == scale && scale > 0) {
+                digits[--position] = '.';
+            }
+            long quotient = remaining / DECIMAL_RADIX;
+            digits[--position] = (char) ('0'
+                    + Math.abs(remaining - quotient * DECIMAL_RADIX));
+            remaining = quotient;
+            written++;
+        } while (remaining != 0 || written <= scale);
+        if (unscaledValue < 0) {
+            digits[--position] = '-';
+        }
+        output.write(digits, position, digits.length - position);
+    }
+
+    /**
+     * Writes a delimiter followed by a decimal value at the scale of its
+     * field, as {@link #writeUnscaled} does. A value needing more decimal
+     * places, such as a gross income given to a fraction of a grosz, is
+     * written with all of them.
+     *
+     * @param output the writer receiving the value
+     * @param field the field of the value
+     * @param value the value to write
+     * @throws IOException if an I/O error occurs
+     */
+    private void writeValue(final Writer output, final TaxField field,
+                            final BigDecimal value) throws IOException {
+        BigDecimal scaled = value;
+        if (value.stripTrailingZeros().scale() <= field.getScale()) {
+            scaled = value.setScale(field.getScale());
+        }
+        output.write(delimiter);
+        output.write(scaled.toPlainString());
+    }
+}
@@ -0,0 +1,613 @@
+package com.bartoszwalter.students.taxes;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.util.Properties;
+import java.util.TreeSet;
+import java.util.zip.CRC32;
+
+/**
+ * Immutable rates of one tax year, in force from an effective date.
+ * <p>
+ * A plan is compiled once from a rate table: every percentage is folded
+ * into a fraction ({@code 9.76} becomes {@code 0.0976}) and into basis
+ * points for the fixed-point engine, so a calculation multiplies once
+ * instead of dividing by 100 each time. Results equal those of the
+ * original {@code multiply(rate).divide(100)} formulas. Plans are safe
+ * to share between threads.
+ * </p>
+ * <p>
+ * A rate table is a properties file with the keys {@code taxYear},
+ * {@code effectiveFrom} (an ISO date within the tax year), one key per
+ * {@link Rate} in percent and the amounts
+ * {@code employmentTaxDeductibleExpenses} and {@code taxFreeIncome} in
+ * zloty. Values may have at most two decimal places. An optional
+ * {@code version} names the table; without it the version is the
+ * effective date followed by a checksum of the values, so every edit
+ * of a table yields a new version.
+ * </p>
+ */
+public final class RatePlan {
+
+    /**
+     * A percentage rate of a plan.
+     */
+    public enum Rate {
+        /**
+         * Social security contribution rate.
+         */
+        SOCIAL_SECURITY("socialSecurityRate",
+                TaxRates.SOCIAL_SECURITY_RATE),
+
+        /**
+         * Health social security contribution rate.
+         */
+        HEALTH_SOCIAL_SECURITY("healthSocialSecurityRate",
+                TaxRates.HEALTH_SOCIAL_SECURITY_RATE),
+
+        /**
+         * Sickness social security contribution rate.
+         */
+        SICKNESS_SOCIAL_SECURITY("sicknessSocialSecurityRate",
+                TaxRates.SICKNESS_SOCIAL_SECURITY_RATE),
+
+        /**
+         * Full health insurance rate.
+         */
+        HEALTH_INSURANCE_FULL("healthInsuranceFullRate",
+                TaxRates.HEALTH_INSURANCE_FULL_RATE),
+
+        /**
+         * Tax-deductible health insurance rate.
+         */
+        HEALTH_INSURANCE_DEDUCTIBLE("healthInsuranceDeductibleRate",
+                TaxRates.HEALTH_INSURANCE_DEDUCTIBLE_RATE),
+
+        /**
+         * Advance tax rate.
+         */
+        ADVANCE_TAX("advanceTaxRate", TaxRates.ADVANCE_TAX_RATE),
+
+        /**
+         * Civil contract tax-deductible expenses rate.
+         */
+        CIVIL_CONTRACT_DEDUCTIBLE("civilContractDeductibleRate",
+                TaxRates.CIVIL_CONTRACT_DEDUCTIBLE_RATE);
+
+        /**
+         * Key of the rate in a rate table.
+         */
+        private final String key;
+
+        /**
+         * Rate of the default plan, in percent.
+         */
+        private final BigDecimal defaultPercent;
+
+        /**
+         * Creates a rate.
+         *
+         * @param keyValue the key in a rate table
+         * @param defaultPercentValue the default rate in percent
+         */
+        Rate(final String keyValue, final BigDecimal defaultPercentValue) {
+            this.key = keyValue;
+            this.defaultPercent = defaultPercentValue;
+        }
+
+        /**
+         * Returns the key of the rate in a rate table.
+         *
+         * @return the key
+         */
+        public String getKey() {
+            return key;
+        }
+    }
+
+    /**
+     * Key of the tax year in a rate table.
+     */
+    static final String TAX_YEAR_KEY = "taxYear";
+
+    /**
+     * Key of the effective date in a rate table.
+     */
+    static final String EFFECTIVE_FROM_KEY = "effectiveFrom";
+
+    /**
+     * Key of the employment deductible expenses in a rate table.
+     */
+    static final String EMPLOYMENT_DEDUCTIBLE_KEY =
+            "employmentTaxDeductibleExpenses";
+
+    /**
+     * Key of the monthly tax-free income in a rate table.
+     */
+    static final String TAX_FREE_INCOME_KEY = "taxFreeIncome";
+
+    /**
+     * Key of the optional version in a rate table.
+     */
+    static final String VERSION_KEY = "version";
+
+    /**
+     * Radix of the checksum in a derived version.
+     */
+    private static final int CHECKSUM_RADIX = 16;
+
+    /**
+     * Year from which the {@link TaxRates} constants apply.
+     */
+    private static final int DEFAULT_TAX_YEAR = 2009;
+
+    /**
+     * Highest percentage rate.
+     */
+    private static final BigDecimal MAX_PERCENT = new BigDecimal("100");
+
+    /**
+     * Plan of the {@link TaxRates} constants.
+     */
+    public static final RatePlan DEFAULT = defaultPlan();
+
+    /**
+     * Tax year of the plan.
+     */
+    private final int taxYear;
+
+    /**
+     * First day the plan is in force.
+     */
+    private final LocalDate effectiveFrom;
+
+    /**
+     * Version identifying the rate table.
+     */
+    private final String version;
+
+    /**
+     * Rates as fractions, indexed by rate ordinal.
+     */
+    private final BigDecimal[] fractions =
+            new BigDecimal[Rate.values().length];
+
+    /**
+     * Rates in basis points, indexed by rate ordinal.
+     */
+    private final long[] basisPoints = new long[Rate.values().length];
+
+    /**
+     * Monthly deductible expenses of an employment contract.
+     */
+    private final BigDecimal employmentDeductibleExpenses;
+
+    /**
+     * Monthly tax-free income of an employment contract.
+     */
+    private final BigDecimal taxFreeIncome;
+
+    /**
+     * {@link #employmentDeductibleExpenses} in grosze.
+     */
+    private final long employmentDeductibleCents;
+
+    /**
+     * {@link #taxFreeIncome} in grosze.
+     */
+    private final long taxFreeIncomeCents;
+
+    /**
+     * Largest gross income in grosze calculable without overflow.
+     */
+    private final long maxCents;
+
+    /**
+     * Compiles a plan.
+     *
+     * @param versionValue the version of the rate table
+     * @param taxYearValue the tax year
+     * @param effectiveFromValue the first day in force
+     * @param percents the rates in percent, indexed by rate ordinal
+     * @param employmentDeductibleValue the employment deductible expenses
+     * @param taxFreeIncomeValue the monthly tax-free income
+     * @throws IllegalArgumentException if a value is missing or invalid
+     */
+    private RatePlan(final String versionValue,
+                     final int taxYearValue,
+                     final LocalDate effectiveFromValue,
+                     final BigDecimal[] percents,
+                     final BigDecimal employmentDeductibleValue,
+                     final BigDecimal taxFreeIncomeValue) {
+        if (effectiveFromValue == null
+                || effectiveFromValue.getYear() != taxYearValue) {
+            throw new IllegalArgumentException(
+                    "Effective date must be within tax year "
+                            + taxYearValue);
+        }
+        this.version = versionValue;
+        this.taxYear = taxYearValue;
+        this.effectiveFrom = effectiveFromValue;
+        long maxRate = 1;
+        for (Rate rate : Rate.values()) {
+            BigDecimal percent = percents[rate.ordinal()];
+            if (percent == null || percent.signum() < 0
+                    || percent.compareTo(MAX_PERCENT) > 0) {
+                throw new IllegalArgumentException(rate.getKey()
+                        + " must be between 0 and 100 percent");
+            }
+            fractions[rate.ordinal()] = percent.movePointLeft(
+                    TaxConstants.CURRENCY_SCALE);
+            basisPoints[rate.ordinal()] = cents(rate.getKey(), percent);
+            maxRate = Math.max(maxRate, basisPoints[rate.ordinal()]);
+        }
+        this.employmentDeductibleExpenses = amount(
+                EMPLOYMENT_DEDUCTIBLE_KEY, employmentDeductibleValue);
+        this.taxFreeIncome = amount(TAX_FREE_INCOME_KEY, taxFreeIncomeValue);
+        this.employmentDeductibleCents =
+                FixedPointMath.toCents(employmentDeductibleExpenses);
+        this.taxFreeIncomeCents = FixedPointMath.toCents(taxFreeIncome);
+        this.maxCents = (Long.MAX_VALUE
+                - FixedPointMath.PERCENTAGE_DIVISOR_BP) / maxRate;
+    }
+
+    /**
+     * Compiles the plan of the {@link TaxRates} constants as a rate table
+     * without a {@code version}, so that its version is derived from the
+     * constants like that of a loaded table, and data written by a build
+     * with other constants is told apart.
+     *
+     * @return the default plan
+     */
+    private static RatePlan defaultPlan() {
+        Properties table = new Properties();
+        table.setProperty(TAX_YEAR_KEY, Integer.toString(DEFAULT_TAX_YEAR));
+        table.setProperty(EFFECTIVE_FROM_KEY,
+                LocalDate.of(DEFAULT_TAX_YEAR, 1, 1).toString());
+        for (Rate rate : Rate.values()) {
+            table.setProperty(rate.getKey(),
+                    rate.defaultPercent.toPlainString());
+        }
+        table.setProperty(EMPLOYMENT_DEDUCTIBLE_KEY,
+                TaxRates.EMPLOYMENT_TAX_DEDUCTIBLE_EXPENSES.toPlainString());
+        table.setProperty(TAX_FREE_INCOME_KEY,
+                TaxRates.TAX_FREE_INCOME.toPlainString());
+        return compile(table);
+    }
+
+    /**
+     * Compiles a plan from a rate table.
+     *
+     * @param table the rate table
+     * @return the plan
+     * @throws IllegalArgumentException if a key is missing or a value is
+     *                                  invalid
+     */
+    public static RatePlan compile(final Properties table) {
+        if (table == null) {
+            throw new IllegalArgumentException("Rate table cannot be null");
+        }
+        BigDecimal[] percents = new BigDecimal[Rate.values().length];
+        for (Rate rate : Rate.values()) {
+            percents[rate.ordinal()] = decimal(table, rate.getKey());
+        }
+        int year;
+        LocalDate from;
+        try {
+            year = Integer.parseInt(required(table, TAX_YEAR_KEY));
+            from = LocalDate.parse(required(table, EFFECTIVE_FROM_KEY));
+        } catch (NumberFormatException | DateTimeException e) {
+            throw new IllegalArgumentException(
+                    "Invalid tax year or effective date", e);
+        }
+        return new RatePlan(version(table, from), year, from, percents,
+                decimal(table, EMPLOYMENT_DEDUCTIBLE_KEY),
+                decimal(table, TAX_FREE_INCOME_KEY));
+    }
+
+    /**
+     * Loads and compiles a rate table file.
+     *
+     * @param path the properties file, in UTF-8
+     * @return the plan
+     * @throws IOException if the file cannot be read
+     * @throws IllegalArgumentException if the table is not valid
+     */
+    public static RatePlan load(final Path path) throws IOException {
+        Properties table = new Properties();
+        try (Reader reader = Files.newBufferedReader(path,
+                StandardCharsets.UTF_8)) {
+            table.load(reader);
+        }
+        try {
+            return compile(table);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException(
+                    path + ": " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Calculates a percentage of an amount, rounded like
+     * {@link TaxConstants#CURRENCY_ROUNDING_MODE} to grosze.
+     *
+     * @param amount the amount
+     * @param rate the rate to apply
+     * @return the percentage of the amount
+     */
+    public BigDecimal percentOf(final BigDecimal amount, final Rate rate) {
+        return amount.multiply(fractions[rate.ordinal()])
+                .setScale(TaxConstants.CURRENCY_SCALE,
+                        TaxConstants.CURRENCY_ROUNDING_MODE);
+    }
+
+    /**
+     * Returns a rate in basis points.
+     *
+     * @param rate the rate
+     * @return the rate in hundredths of a percent
+     */
+    public long basisPoints(final Rate rate) {
+        return basisPoints[rate.ordinal()];
+    }
+
+    /**
+     * Returns the version of the rate table.
+     *
+     * @return the version
+     */
+    public String getVersion() {
+        return version;
+    }
+
+    /**
+     * Returns the tax year.
+     *
+     * @return the tax year
+     */
+    public int getTaxYear() {
+        return taxYear;
+    }
+
+    /**
+     * Returns the first day the plan is in force.
+     *
+     * @return the effective date
+     */
+    public LocalDate getEffectiveFrom() {
+        return effectiveFrom;
+    }
+
+    /**
+     * Returns the monthly deductible expenses of an employment contract.
+     *
+     * @return the expenses in zloty, with two decimal places
+     */
+    public BigDecimal getEmploymentDeductibleExpenses() {
+        return employmentDeductibleExpenses;
+    }
+
+    /**
+     * Returns the monthly tax-free income of an employment contract.
+     *
+     * @return the income in zloty, with two decimal places
+     */
+    public BigDecimal getTaxFreeIncome() {
+        return taxFreeIncome;
+    }
+
+    /**
+     * Returns the largest gross income in grosze the fixed-point engine
+     * can calculate with this plan without overflow.
+     *
+     * @return the largest gross income in grosze
+     */
+    long getMaxCents() {
+        return maxCents;
+    }
+
+    /**
+     * Returns the monthly deductible expenses of an employment contract.
+     *
+     * @return the expenses in grosze
+     */
+    long getEmploymentDeductibleCents() {
+        return employmentDeductibleCents;
+    }
+
+    /**
+     * Returns the monthly tax-free income of an employment contract.
+     *
+     * @return the income in grosze
+     */
+    long getTaxFreeIncomeCents() {
+        return taxFreeIncomeCents;
+    }
+
+    /**
+     * Calculates a percentage of a non-negative amount in grosze, rounded
+     * like {@link #percentOf(BigDecimal, Rate)}.
+     *
+     * @param cents the non-negative amount in grosze
+     * @param rate the rate to apply
+     * @return the percentage in grosze
+     */
+    long percentOf(final long cents, final Rate rate) {
+        return FixedPointMath.percentOfNonNegative(cents,
+                basisPoints[rate.ordinal()]);
+    }
+
+    /**
+     * Calculates the taxable income of an employment contract.
+     *
+     * @param grossCents the gross income in grosze
+     * @return the taxable income in whole zloty
+     */
+    long employmentTaxableIncome(final long grossCents) {
+        return FixedPointMath.truncateToUnits(
+                grossCents - employmentDeductibleCents);
+    }
+
+    /**
+     * Calculates the taxable income of a civil contract.
+     *
+     * @param incomeAfterContributions the gross income less the social
+     *                                 contributions, in grosze
+     * @param deductibleCents the deductible expenses in grosze
+     * @return the taxable income in whole zloty
+     */
+    long civilTaxableIncome(final long incomeAfterContributions,
+                            final long deductibleCents) {
+        return FixedPointMath.truncateToUnits(
+                incomeAfterContributions - deductibleCents);
+    }
+
+    /**
+     * Calculates the advance tax on a taxable income.
+     *
+     * @param taxableIncome the taxable income in whole zloty, negative
+     *                      when the deductions exceed the income
+     * @return the advance tax in grosze
+     */
+    long advanceTax(final long taxableIncome) {
+        return FixedPointMath.percentOf(
+                taxableIncome * FixedPointMath.CENTS_PER_UNIT,
+                basisPoints[Rate.ADVANCE_TAX.ordinal()]);
+    }
+
+    /**
+     * Calculates the final tax of an employment contract.
+     *
+     * @param advanceTaxCents the advance tax in grosze
+     * @param healthDeductibleCents the deductible health insurance in
+     *                              grosze
+     * @return the final tax in whole zloty
+     */
+    long employmentFinalTax(final long advanceTaxCents,
+                            final long healthDeductibleCents) {
+        return FixedPointMath.roundToUnits(advanceTaxCents
+                - taxFreeIncomeCents - healthDeductibleCents);
+    }
+
+    /**
+     * Calculates the final tax of a civil contract.
+     *
+     * @param advanceTaxCents the advance tax in grosze
+     * @param healthDeductibleCents the deductible health insurance in
+     *                              grosze
+     * @return the final tax in whole zloty
+     */
+    long civilFinalTax(final long advanceTaxCents,
+                       final long healthDeductibleCents) {
+        return FixedPointMath.roundToUnits(
+                advanceTaxCents - healthDeductibleCents);
+    }
+
+    @Override
+    public String toString() {
+        return "RatePlan[" + version + ", " + taxYear + " from "
+                + effectiveFrom + "]";
+    }
+
+    /**
+     * Returns the version of a rate table: its {@code version} value, or
+     * the effective date and a checksum of every value.
+     *
+     * @param table the rate table
+     * @param effectiveFromValue the effective date of the table
+     * @return the version
+     */
+    private static String version(final Properties table,
+                                  final LocalDate effectiveFromValue) {
+        String declared = table.getProperty(VERSION_KEY);
+        if (declared != null && !declared.isBlank()) {
+            return declared.trim();
+        }
+        CRC32 checksum = new CRC32();
+        for (String key : new TreeSet<>(table.stringPropertyNames())) {
+            checksum.update((key + '=' + table.getProperty(key).trim()
+                    + '\n').getBytes(StandardCharsets.UTF_8));
+        }
+        return effectiveFromValue + "#"
+                + Long.toString(checksum.getValue(), CHECKSUM_RADIX);
+    }
+
+    /**
+     * Reads a required value of a rate table.
+     *
+     * @param table the rate table
+     * @param key the key
+     * @return the trimmed value
+     * @throws IllegalArgumentException if the key is missing
+     */
+    private static String required(final Properties table,
+                                   final String key) {
+        String value = table.getProperty(key);
+        if (value == null || value.isBlank()) {
+            throw new IllegalArgumentException("Missing " + key);
+        }
+        return value.trim();
+    }
+
+    /**
+     * Reads a decimal value of a rate table.
+     *
+     * @param table the rate table
+     * @param key the key
+     * @return the value
+     * @throws IllegalArgumentException if the key is missing or the value
+     *                                  is not a number
+     */
+    private static BigDecimal decimal(final Properties table,
+                                      final String key) {
+        String value = required(table, key);
+        try {
+            return new BigDecimal(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(
+                    "Invalid " + key + ": " + value, e);
+        }
+    }
+
+    /**
+     * Validates an amount and gives it two decimal places.
+     *
+     * @param key the key of the amount
+     * @param value the amount
+     * @return the amount with two decimal places
+     * @throws IllegalArgumentException if the amount is negative or has
+     *                                  more decimal places
+     */
+    private static BigDecimal amount(final String key,
+                                     final BigDecimal value) {
+        if (value.signum() < 0) {
+            throw new IllegalArgumentException(key + " must be non-negative");
+        }
+        return BigDecimal.valueOf(cents(key, value),
+                TaxConstants.CURRENCY_SCALE);
+    }
+
+    /**
+     * Converts a value with at most two decimal places to hundredths.
+     *
+     * @param key the key of the value
+     * @param value the value
+     * @return the value multiplied by 100
+     * @throws IllegalArgumentException if the value has more decimal
+     *                                  places
+     */
+    private static long cents(final String key, final BigDecimal value) {
+        try {
+            return FixedPointMath.basisPoints(value);
+        } catch (ArithmeticException e) {
+            throw new IllegalArgumentException(
+                    key + " must have at most two decimal places", e);
+        }
+    }
+}
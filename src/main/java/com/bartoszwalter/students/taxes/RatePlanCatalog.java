@@ -0,0 +1,150 @@
+package com.bartoszwalter.students.taxes;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+
+/**
+ * Immutable set of rate plans keyed by their effective date, so one
+ * process can calculate several tax years at once.
+ */
+public final class RatePlanCatalog {
+
+    /**
+     * File name suffix of rate tables in a directory.
+     */
+    private static final String TABLE_SUFFIX = ".properties";
+
+    /**
+     * Plans keyed by effective date.
+     */
+    private final NavigableMap<LocalDate, RatePlan> plans;
+
+    /**
+     * Creates a catalog.
+     *
+     * @param plansValue the plans keyed by effective date
+     */
+    private RatePlanCatalog(
+            final NavigableMap<LocalDate, RatePlan> plansValue) {
+        this.plans = Collections.unmodifiableNavigableMap(plansValue);
+    }
+
+    /**
+     * Creates a catalog of plans.
+     *
+     * @param plans the plans
+     * @return the catalog
+     * @throws IllegalArgumentException if plans is null, empty, contains
+     *                                  null or two plans share an
+     *                                  effective date
+     */
+    public static RatePlanCatalog of(final Collection<RatePlan> plans) {
+        if (plans == null || plans.isEmpty()) {
+            throw new IllegalArgumentException(
+                    "Plans cannot be null or empty");
+        }
+        NavigableMap<LocalDate, RatePlan> byDate = new TreeMap<>();
+        for (RatePlan plan : plans) {
+            if (plan == null) {
+                throw new IllegalArgumentException("Plan cannot be null");
+            }
+            if (byDate.put(plan.getEffectiveFrom(), plan) != null) {
+                throw new IllegalArgumentException(
+                        "Two plans are effective from "
+                                + plan.getEffectiveFrom());
+            }
+        }
+        return new RatePlanCatalog(byDate);
+    }
+
+    /**
+     * Loads every {@code .properties} rate table of a directory.
+     *
+     * @param directory the directory of rate tables
+     * @return the catalog
+     * @throws IOException if a table cannot be read
+     * @throws IllegalArgumentException if a table is not valid, two share
+     *                                  an effective date or there is none
+     */
+    public static RatePlanCatalog load(final Path directory)
+            throws IOException {
+        List<Path> tables;
+        try (Stream<Path> files = Files.list(directory)) {
+            tables = files.filter(file -> file.getFileName().toString()
+                    .endsWith(TABLE_SUFFIX)).sorted().toList();
+        }
+        List<RatePlan> plans = new ArrayList<>();
+        for (Path table : tables) {
+            plans.add(RatePlan.load(table));
+        }
+        if (plans.isEmpty()) {
+            throw new IllegalArgumentException(
+                    "No rate tables in " + directory);
+        }
+        return of(plans);
+    }
+
+    /**
+     * Returns the plan in force on a date.
+     *
+     * @param date the date
+     * @return the plan with the latest effective date not after it
+     * @throws IllegalArgumentException if date is null or precedes every
+     *                                  plan
+     */
+    public RatePlan forDate(final LocalDate date) {
+        if (date == null) {
+            throw new IllegalArgumentException("Date cannot be null");
+        }
+        Map.Entry<LocalDate, RatePlan> entry = plans.floorEntry(date);
+        if (entry == null) {
+            throw new IllegalArgumentException(
+                    "No rate plan in force on " + date);
+        }
+        return entry.getValue();
+    }
+
+    /**
+     * Returns when the plan in force next changes.
+     *
+     * @param date the date
+     * @return the first effective date after it, or null if none
+     * @throws IllegalArgumentException if date is null
+     */
+    public LocalDate nextChangeAfter(final LocalDate date) {
+        if (date == null) {
+            throw new IllegalArgumentException("Date cannot be null");
+        }
+        return plans.higherKey(date);
+    }
+
+    /**
+     * Returns the plans of a tax year.
+     *
+     * @param taxYear the tax year
+     * @return the plans of the year in effective order, possibly empty
+     */
+    public List<RatePlan> forYear(final int taxYear) {
+        return List.copyOf(plans.subMap(LocalDate.of(taxYear, 1, 1), true,
+                LocalDate.of(taxYear + 1, 1, 1), false).values());
+    }
+
+    /**
+     * Returns every plan.
+     *
+     * @return the plans in effective order
+     */
+    public List<RatePlan> getPlans() {
+        return List.copyOf(plans.values());
+    }
+}
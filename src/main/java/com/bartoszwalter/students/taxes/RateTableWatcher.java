@@ -0,0 +1,387 @@
+package com.bartoszwalter.students.taxes;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.time.Clock;
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Keeps the rate plan in force up to date with a directory of rate
+ * tables.
+ * <p>
+ * The tables are compiled into an immutable snapshot: the catalog, the
+ * plan in force today and its strategies. When a table changes, a new
+ * snapshot is compiled on a background thread and swapped in
+ * atomically; a table that fails to load leaves the previous snapshot
+ * in place. The {@link #strategies()} read the current snapshot once
+ * per calculation without locking, so a calculation in flight finishes
+ * on the snapshot it started with, and its {@link TaxResult} records the
+ * version of that plan. When the next plan of the catalog comes into
+ * force the snapshot is recompiled on first use.
+ * </p>
+ * <p>
+ * Failures of a reload are logged and the directory stays watched; a
+ * directory that is deleted is watched again once it is created anew.
+ * </p>
+ */
+public final class RateTableWatcher implements AutoCloseable {
+
+    /**
+     * Logger instance for this class.
+     */
+    private static final Logger LOGGER =
+            Logger.getLogger(RateTableWatcher.class.getName());
+
+    /**
+     * Time without further changes before a directory is reloaded, so a
+     * table being written is read once complete.
+     */
+    private static final long SETTLE_MILLIS = 200;
+
+    /**
+     * Time between attempts to watch a directory that is missing.
+     */
+    private static final long RETRY_MILLIS = 1_000;
+
+    /**
+     * Directory of the rate tables.
+     */
+    private final Path directory;
+
+    /**
+     * Clock deciding which plan is in force.
+     */
+    private final Clock clock;
+
+    /**
+     * The current snapshot.
+     */
+    private final AtomicReference<Snapshot> snapshot;
+
+    /**
+     * Strategies calculating with the current snapshot.
+     */
+    private final Map<ContractType, TaxCalculationStrategy> strategies;
+
+    /**
+     * Service notified of changes in the directory.
+     */
+    private final WatchService watchService;
+
+    /**
+     * Thread reloading changed tables.
+     */
+    private final Thread worker;
+
+    /**
+     * Compiled state of one version of the rate tables.
+     *
+     * @param catalog the loaded plans
+     * @param plan the plan in force
+     * @param byType strategies of the plan, indexed by contract ordinal
+     * @param expiresAt epoch millisecond from which another plan is in
+     *                  force, or {@link Long#MAX_VALUE}
+     */
+    private record Snapshot(RatePlanCatalog catalog, RatePlan plan,
+                            TaxCalculationStrategy[] byType,
+                            long expiresAt) {
+    }
+
+    /**
+     * Loads the tables and starts watching the directory.
+     *
+     * @param directoryValue the directory of rate tables
+     * @param clockValue the clock deciding which plan is in force
+     * @throws IOException if the directory cannot be read or watched
+     * @throws IllegalArgumentException if the tables are not valid or no
+     *                                  plan is in force
+     */
+    private RateTableWatcher(final Path directoryValue,
+                             final Clock clockValue) throws IOException {
+        this.directory = directoryValue;
+        this.clock = clockValue;
+        this.snapshot = new AtomicReference<>(
+                compile(RatePlanCatalog.load(directoryValue)));
+        Map<ContractType, TaxCalculationStrategy> current =
+                new EnumMap<>(ContractType.class);
+        for (ContractType type : ContractType.values()) {
+            current.put(type, new CurrentPlanStrategy(type));
+        }
+        this.strategies = Collections.unmodifiableMap(current);
+        this.watchService = directoryValue.getFileSystem().newWatchService();
+        register();
+        this.worker = Thread.ofPlatform().name("rate-table-watcher")
+                .daemon().start(this::watch);
+    }
+
+    /**
+     * Loads the tables of a directory and watches it for changes.
+     *
+     * @param directory the directory of rate tables
+     * @return the running watcher
+     * @throws IOException if the directory cannot be read or watched
+     * @throws IllegalArgumentException if directory is null, the tables
+     *                                  are not valid or no plan is in
+     *                                  force today
+     */
+    public static RateTableWatcher start(final Path directory)
+            throws IOException {
+        return start(directory, Clock.systemDefaultZone());
+    }
+
+    /**
+     * Loads the tables of a directory and watches it for changes.
+     *
+     * @param directory the directory of rate tables
+     * @param clock the clock deciding which plan is in force
+     * @return the running watcher
+     * @throws IOException if the directory cannot be read or watched
+     * @throws IllegalArgumentException if an argument is null, the
+     *                                  tables are not valid or no plan is
+     *                                  in force
+     */
+    static RateTableWatcher start(final Path directory, final Clock clock)
+            throws IOException {
+        if (directory == null || clock == null) {
+            throw new IllegalArgumentException(
+                    "Directory and clock cannot be null");
+        }
+        return new RateTableWatcher(directory, clock);
+    }
+
+    /**
+     * Returns strategies calculating with the plan in force, for
+     * example for {@link TaxCalculator#TaxCalculator(Map)}.
+     *
+     * @return the strategies keyed by contract type
+     */
+    public Map<ContractType, TaxCalculationStrategy> strategies() {
+        return strategies;
+    }
+
+    /**
+     * Returns the plan in force.
+     *
+     * @return the current plan
+     */
+    public RatePlan currentPlan() {
+        return current().plan();
+    }
+
+    /**
+     * Returns the loaded plans.
+     *
+     * @return the current catalog
+     */
+    public RatePlanCatalog getCatalog() {
+        return current().catalog();
+    }
+
+    /**
+     * Loads the tables now and swaps in the new snapshot.
+     *
+     * @throws IOException if the directory cannot be read
+     * @throws IllegalArgumentException if the tables are not valid or no
+     *                                  plan is in force; the previous
+     *                                  snapshot stays in place
+     */
+    public synchronized void reload() throws IOException {
+        snapshot.set(compile(RatePlanCatalog.load(directory)));
+    }
+
+    /**
+     * Stops watching the directory. The strategies keep calculating with
+     * the last snapshot.
+     *
+     * @throws IOException if the watch service cannot be closed
+     */
+    @Override
+    public void close() throws IOException {
+        watchService.close();
+        try {
+            worker.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Returns the current snapshot, recompiling it once another plan has
+     * come into force.
+     *
+     * @return the snapshot to calculate with
+     */
+    private Snapshot current() {
+        Snapshot current = snapshot.get();
+        if (clock.millis() < current.expiresAt()) {
+            return current;
+        }
+        snapshot.compareAndSet(current, compile(current.catalog()));
+        return snapshot.get();
+    }
+
+    /**
+     * Compiles the snapshot of the plan in force today.
+     *
+     * @param catalog the loaded plans
+     * @return the snapshot
+     * @throws IllegalArgumentException if no plan is in force
+     */
+    private Snapshot compile(final RatePlanCatalog catalog) {
+        LocalDate today = LocalDate.now(clock);
+        RatePlan plan = catalog.forDate(today);
+        TaxCalculationStrategy[] byType =
+                new TaxCalculationStrategy[ContractType.values().length];
+        for (ContractType type : ContractType.values()) {
+            byType[type.ordinal()] = new FixedPointTaxStrategy(type, plan);
+        }
+        LocalDate next = catalog.nextChangeAfter(today);
+        long expiresAt = Long.MAX_VALUE;
+        if (next != null) {
+            expiresAt = next.atStartOfDay(clock.getZone()).toInstant()
+                    .toEpochMilli();
+        }
+        return new Snapshot(catalog, plan, byType, expiresAt);
+    }
+
+    /**
+     * Reloads the tables whenever the directory changes.
+     */
+    private void watch() {
+        while (true) {
+            try {
+                awaitChange();
+            } catch (InterruptedException | ClosedWatchServiceException e) {
+                return;
+            }
+            try {
+                reload();
+                LOGGER.log(Level.INFO, "Rate plan in force: {0}",
+                        currentPlan());
+            } catch (IOException | RuntimeException e) {
+                LOGGER.log(Level.WARNING, "Keeping rate plan "
+                        + currentPlan() + ": " + e.getMessage(), e);
+            }
+        }
+    }
+
+    /**
+     * Waits until the directory changes and stays unchanged for
+     * {@link #SETTLE_MILLIS}. If the directory is no longer watched, for
+     * example because it was deleted, waits until it can be watched
+     * again.
+     *
+     * @throws InterruptedException if the thread is interrupted
+     * @throws ClosedWatchServiceException if the watcher is closed
+     */
+    private void awaitChange() throws InterruptedException {
+        WatchKey key = watchService.take();
+        boolean valid = true;
+        do {
+            key.pollEvents();
+            if (!key.reset()) {
+                valid = false;
+            }
+            key = watchService.poll(SETTLE_MILLIS, TimeUnit.MILLISECONDS);
+        } while (key != null);
+        if (valid) {
+            return;
+        }
+        LOGGER.log(Level.WARNING, "Rate table directory {0} is no longer"
+                + " watched", directory);
+        while (true) {
+            try {
+                register();
+                LOGGER.log(Level.INFO, "Watching rate table directory {0}"
+                        + " again", directory);
+                return;
+            } catch (ClosedWatchServiceException e) {
+                throw e;
+            } catch (IOException | RuntimeException e) {
+                Thread.sleep(RETRY_MILLIS);
+            }
+        }
+    }
+
+    /**
+     * Registers the directory with the watch service.
+     *
+     * @throws IOException if the directory cannot be watched
+     */
+    private void register() throws IOException {
+        directory.register(watchService,
+                StandardWatchEventKinds.ENTRY_CREATE,
+                StandardWatchEventKinds.ENTRY_MODIFY,
+                StandardWatchEventKinds.ENTRY_DELETE);
+    }
+
+    /**
+     * Strategy delegating each calculation to the current snapshot.
+     */
+    private final class CurrentPlanStrategy
+            implements TaxCalculationStrategy {
+
+        /**
+         * Contract type calculated.
+         */
+        private final ContractType contractType;
+
+        /**
+         * Creates a strategy.
+         *
+         * @param contractTypeValue the contract type to calculate
+         */
+        CurrentPlanStrategy(final ContractType contractTypeValue) {
+            this.contractType = contractTypeValue;
+        }
+
+        @Override
+        public TaxResult calculateTax(final BigDecimal grossIncome) {
+            return strategy().calculateTax(grossIncome);
+        }
+
+        @Override
+        public TaxResult calculateTrusted(final BigDecimal grossIncome) {
+            return strategy().calculateTrusted(grossIncome);
+        }
+
+        @Override
+        public void calculateTax(final long grossCents,
+                                 final TaxResultSink sink) {
+            strategy().calculateTax(grossCents, sink);
+        }
+
+        @Override
+        public LazyTaxResult calculateTax(final BigDecimal grossIncome,
+                                          final Set<TaxField> fields) {
+            return strategy().calculateTax(grossIncome, fields);
+        }
+
+        @Override
+        public RatePlan getRatePlan() {
+            return current().plan();
+        }
+
+        /**
+         * Returns the strategy of the current snapshot.
+         *
+         * @return the strategy of this contract type
+         */
+        private TaxCalculationStrategy strategy() {
+            return current().byType()[contractType.ordinal()];
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package com.bartoszwalter.students.taxes;
+
+/**
+ * Columnar kernel calculating one row at a time with
+ * {@link FixedPointTaxStrategy}.
+ */
+final class ScalarColumnarKernel implements ColumnarKernel {
+
+    /**
+     * Strategy for employment contract rows.
+     */
+    private final FixedPointTaxStrategy employment;
+
+    /**
+     * Strategy for civil contract rows.
+     */
+    private final FixedPointTaxStrategy civilContract;
+
+    /**
+     * Largest gross income in grosze calculable under the plan.
+     */
+    private final long maxCents;
+
+    /**
+     * Creates a kernel for a rate plan.
+     *
+     * @param plan the rate plan to apply
+     */
+    ScalarColumnarKernel(final RatePlan plan) {
+        this.employment = new FixedPointTaxStrategy(ContractType.EMPLOYMENT,
+                plan);
+        this.civilContract = new FixedPointTaxStrategy(ContractType.CIVIL,
+                plan);
+        this.maxCents = plan.getMaxCents();
+    }
+
+    @Override
+    public void calculate(final long[] grossCents,
+                          final byte[] contractCodes,
+                          final TaxResultColumns results, final int from,
+                          final int to) {
+        RowSink sink = new RowSink(results);
+        for (int row = from; row < to; row++) {
+            sink.row = row;
+            if (contractCodes[row] == CIVIL_CODE) {
+                civilContract.calculateTax(grossCents[row], sink);
+            } else {
+                employment.calculateTax(grossCents[row], sink);
+            }
+        }
+    }
+
+    @Override
+    public boolean supports(final long grossCents) {
+        return grossCents <= maxCents;
+    }
+
+    /**
+     * Sink writing into the current row of the result columns.
+     */
+    private static final class RowSink implements TaxResultSink {
+
+        /**
+         * Columns receiving the values.
+         */
+        private final TaxResultColumns results;
+
+        /**
+         * Row currently written.
+         */
+        private int row;
+
+        /**
+         * Creates a sink for the given columns.
+         *
+         * @param resultsValue the columns receiving the values
+         */
+        RowSink(final TaxResultColumns resultsValue) {
+            this.results = resultsValue;
+        }
+
+        @Override
+        public void accept(final TaxField field, final long unscaledValue) {
+            results.set(field, row, unscaledValue);
+        }
+    }
+}
@@ -35,16 +35,17 @@ final class SocialContributions {
      * @param sicknessSocialSecurityValue the sickness social security
      *                                    contribution
      */
-    private SocialContributions(final BigDecimal socialSecurityValue,
-                                final BigDecimal healthSocialSecurityValue,
-                                final BigDecimal sicknessSocialSecurityValue) {
+    SocialContributions(final BigDecimal socialSecurityValue,
+                        final BigDecimal healthSocialSecurityValue,
+                        final BigDecimal sicknessSocialSecurityValue) {
         this.socialSecurity = socialSecurityValue;
         this.healthSocialSecurity = healthSocialSecurityValue;
         this.sicknessSocialSecurity = sicknessSocialSecurityValue;
     }
 
     /**
-     * Calculates social contributions from gross income.
+     * Calculates social contributions from gross income with the
+     * default rates.
      *
      * @param grossIncome the gross income
      * @return calculated social contributions
@@ -52,27 +53,44 @@ final class SocialContributions {
      */
     public static SocialContributions calculate(
             final BigDecimal grossIncome) {
+        return calculate(grossIncome, RatePlan.DEFAULT);
+    }
+
+    /**
+     * Calculates social contributions from gross income.
+     *
+     * @param grossIncome the gross income
+     * @param plan the rates to apply
+     * @return calculated social contributions
+     * @throws IllegalArgumentException if grossIncome is null or negative
+     */
+    static SocialContributions calculate(final BigDecimal grossIncome,
+                                         final RatePlan plan) {
         if (grossIncome == null
                 || grossIncome.compareTo(BigDecimal.ZERO) < 0) {
             throw new IllegalArgumentException(
                     "Gross income must be non-negative");
         }
+        return calculateTrusted(grossIncome, plan);
+    }
 
-        BigDecimal socialSecurityCalculated = grossIncome
-                .multiply(TaxRates.SOCIAL_SECURITY_RATE)
-                .divide(TaxRates.PERCENTAGE_DIVISOR,
-                        TaxConstants.CURRENCY_SCALE,
-                        TaxConstants.CURRENCY_ROUNDING_MODE);
-        BigDecimal healthSocialSecurityCalculated = grossIncome
-                .multiply(TaxRates.HEALTH_SOCIAL_SECURITY_RATE)
-                .divide(TaxRates.PERCENTAGE_DIVISOR,
-                        TaxConstants.CURRENCY_SCALE,
-                        TaxConstants.CURRENCY_ROUNDING_MODE);
-        BigDecimal sicknessSocialSecurityCalculated = grossIncome
-                .multiply(TaxRates.SICKNESS_SOCIAL_SECURITY_RATE)
-                .divide(TaxRates.PERCENTAGE_DIVISOR,
-                        TaxConstants.CURRENCY_SCALE,
-                        TaxConstants.CURRENCY_ROUNDING_MODE);
+    /**
+     * Calculates social contributions from a gross income the caller has
+     * already checked, skipping the checks of
+     * {@link #calculate(BigDecimal, RatePlan)}.
+     *
+     * @param grossIncome the non-null, non-negative gross income
+     * @param plan the rates to apply
+     * @return calculated social contributions
+     */
+    static SocialContributions calculateTrusted(final BigDecimal grossIncome,
+                                                final RatePlan plan) {
+        BigDecimal socialSecurityCalculated = plan.percentOf(grossIncome,
+                RatePlan.Rate.SOCIAL_SECURITY);
+        BigDecimal healthSocialSecurityCalculated = plan.percentOf(
+                grossIncome, RatePlan.Rate.HEALTH_SOCIAL_SECURITY);
+        BigDecimal sicknessSocialSecurityCalculated = plan.percentOf(
+                grossIncome, RatePlan.Rate.SICKNESS_SOCIAL_SECURITY);
 
         return new SocialContributions(socialSecurityCalculated,
                 healthSocialSecurityCalculated,
@@ -0,0 +1,77 @@
+package com.bartoszwalter.students.taxes;
+
+import java.lang.management.ManagementFactory;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight Recorder event timing one stage of a tax calculation run and the
+ * heap memory the stage allocated. Each event type hands out a shared
+ * idle instance while no recording enables it, so an untraced stage
+ * allocates nothing and {@link #finish()} only checks a flag.
+ */
+@Category("Tax Calculator")
+@StackTrace(false)
+abstract class StageEvent extends Event implements StageTimer {
+
+    /**
+     * Source of per-thread allocation counters.
+     */
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean)
+                    ManagementFactory.getThreadMXBean();
+
+    /**
+     * Heap memory allocated by the thread when the stage started.
+     */
+    private transient long allocatedAtStart;
+
+    /**
+     * Whether the event was enabled when the stage started.
+     */
+    private transient boolean started;
+
+    /**
+     * Starts timing the stage of an event enabled by a recording.
+     */
+    final void beginStage() {
+        started = true;
+        allocatedAtStart = allocatedBytes();
+        begin();
+    }
+
+    /**
+     * Ends the stage and commits the event if it was started and passes
+     * the recording's thresholds. Does nothing for an idle instance.
+     */
+    @Override
+    public final void finish() {
+        if (started) {
+            end();
+            if (shouldCommit()) {
+                setAllocated(Math.max(0,
+                        allocatedBytes() - allocatedAtStart));
+                commit();
+            }
+        }
+    }
+
+    /**
+     * Sets the heap memory allocated during the stage. Recorded fields
+     * must be declared by the concrete event class.
+     *
+     * @param bytes the allocated bytes
+     */
+    abstract void setAllocated(long bytes);
+
+    /**
+     * Returns the heap memory allocated by the current thread.
+     *
+     * @return the allocated bytes, or 0 if not supported
+     */
+    private static long allocatedBytes() {
+        return Math.max(0, THREADS.getCurrentThreadAllocatedBytes());
+    }
+}
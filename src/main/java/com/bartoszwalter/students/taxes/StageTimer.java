@@ -0,0 +1,66 @@
+package com.bartoszwalter.students.taxes;
+
+import jdk.jfr.FlightRecorder;
+
+/**
+ * Timing of one stage of a tax calculation run, reported as a
+ * {@link StageEvent} while a recording enables it.
+ * <p>
+ * The factories do not touch the event classes until Flight Recorder
+ * has been initialized: initializing the first event class starts the
+ * recorder's registration machinery, which costs hundreds of
+ * milliseconds of start-up. Every recording initializes the recorder
+ * first, so no enabled event is missed.
+ * </p>
+ */
+interface StageTimer {
+
+    /**
+     * Timer of a stage no recording can observe.
+     */
+    StageTimer NONE = () -> { };
+
+    /**
+     * Ends the stage.
+     */
+    void finish();
+
+    /**
+     * Starts timing the parsing of an input.
+     *
+     * @param lineNumber the payroll line, or 0 for interactive input
+     * @return the started timer
+     */
+    static StageTimer inputParsing(final long lineNumber) {
+        if (!FlightRecorder.isInitialized()) {
+            return NONE;
+        }
+        return InputParsingEvent.start(lineNumber);
+    }
+
+    /**
+     * Starts timing a calculation.
+     *
+     * @param contractType the contract type calculated
+     * @return the started timer
+     */
+    static StageTimer calculation(final ContractType contractType) {
+        if (!FlightRecorder.isInitialized()) {
+            return NONE;
+        }
+        return CalculationEvent.start(contractType);
+    }
+
+    /**
+     * Starts timing the formatting of a result.
+     *
+     * @param contractType the contract type of the result
+     * @return the started timer
+     */
+    static StageTimer formatting(final ContractType contractType) {
+        if (!FlightRecorder.isInitialized()) {
+            return NONE;
+        }
+        return FormattingEvent.start(contractType);
+    }
+}
@@ -1,6 +1,7 @@
 package com.bartoszwalter.students.taxes;
 
 import java.math.BigDecimal;
+import java.util.Set;
 
 /**
  * Strategy interface for calculating taxes based on contract type.
@@ -16,4 +17,67 @@ public interface TaxCalculationStrategy {
      */
     TaxResult calculateTax(BigDecimal grossIncome);
 
+    /**
+     * Calculates tax for a gross income the caller has already checked to
+     * be non-null and non-negative, as
+     * {@link TaxCalculator#calculate(BigDecimal, ContractType)} does.
+     * Implementations may skip their own checks; the default delegates to
+     * {@link #calculateTax(BigDecimal)}.
+     *
+     * @param grossIncome the non-null, non-negative gross income
+     * @return the tax calculation result
+     */
+    default TaxResult calculateTrusted(final BigDecimal grossIncome) {
+        return calculateTax(grossIncome);
+    }
+
+    /**
+     * Calculates tax for a gross income in grosze and writes every value
+     * into a sink. The default implementation builds a {@link TaxResult};
+     * strategies able to calculate without allocating should override it.
+     *
+     * @param grossCents the gross income in grosze
+     * @param sink the sink receiving the calculated values
+     * @throws IllegalArgumentException if grossCents is negative or sink
+     *                                  is null
+     */
+    default void calculateTax(final long grossCents,
+                              final TaxResultSink sink) {
+        if (sink == null) {
+            throw new IllegalArgumentException("Sink cannot be null");
+        }
+        TaxResultSink.writeTo(calculateTax(BigDecimal.valueOf(grossCents,
+                TaxConstants.CURRENCY_SCALE)), sink);
+    }
+
+    /**
+     * Calculates the given fields for a gross income, leaving the others
+     * to be calculated on first access. The default implementation
+     * calculates the complete result; strategies able to calculate a
+     * single dependency chain should override it.
+     *
+     * @param grossIncome the gross income amount
+     * @param fields the fields needed by the caller
+     * @return a view holding at least the requested fields
+     * @throws IllegalArgumentException if grossIncome is null or negative
+     *                                  or fields is null
+     */
+    default LazyTaxResult calculateTax(final BigDecimal grossIncome,
+                                       final Set<TaxField> fields) {
+        if (fields == null) {
+            throw new IllegalArgumentException("Fields cannot be null");
+        }
+        return new LazyTaxResult(calculateTax(grossIncome));
+    }
+
+    /**
+     * Returns the rate plan the next calculation applies. The default
+     * returns null, for strategies whose rates are not a {@link RatePlan}.
+     *
+     * @return the plan in use, or null if unknown
+     */
+    default RatePlan getRatePlan() {
+        return null;
+    }
+
 }
@@ -1,11 +1,25 @@
 package com.bartoszwalter.students.taxes;
 
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
 import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
 import java.math.BigDecimal;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.EnumMap;
+import java.util.List;
 import java.util.Map;
+import java.util.RandomAccess;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import java.util.stream.Stream;
 
 /**
  * Main calculator class for computing taxes based on contract type.
@@ -19,6 +33,61 @@ public class TaxCalculator {
     private static final Logger LOGGER =
             Logger.getLogger(TaxCalculator.class.getName());
 
+    /**
+     * Command line option selecting the payroll file mode.
+     */
+    private static final String PAYROLL_OPTION = "--payroll";
+
+    /**
+     * Number of arguments of the payroll file mode.
+     */
+    private static final int PAYROLL_ARGUMENT_COUNT = 3;
+
+    /**
+     * Command line option converting a payroll file to the binary format.
+     */
+    private static final String CONVERT_OPTION = "--convert";
+
+    /**
+     * Command line option selecting the HTTP server mode.
+     */
+    private static final String SERVER_OPTION = "--server";
+
+    /**
+     * Largest number of arguments of the HTTP server mode.
+     */
+    private static final int SERVER_ARGUMENT_COUNT = 2;
+
+    /**
+     * Command line option selecting the line-by-line REPL mode.
+     */
+    private static final String REPL_OPTION = "--repl";
+
+    /**
+     * Command line option selecting the Unix domain socket daemon mode.
+     */
+    private static final String DAEMON_OPTION = "--daemon";
+
+    /**
+     * Largest number of arguments of the daemon mode.
+     */
+    private static final int DAEMON_ARGUMENT_COUNT = 2;
+
+    /**
+     * Command line option generating a withholding table.
+     */
+    private static final String GENERATE_TABLE_OPTION = "--generate-table";
+
+    /**
+     * Number of arguments of the table generation mode with a range.
+     */
+    private static final int GENERATE_TABLE_ARGUMENT_COUNT = 4;
+
+    /**
+     * Command line option profiling the run that follows it.
+     */
+    private static final String PROFILE_OPTION = "--profile";
+
     /**
      * Map of contract types to their calculation strategies.
      */
@@ -29,6 +98,12 @@ public class TaxCalculator {
      */
     private final TaxResultFormatter formatter;
 
+    /**
+     * Solver of the rate plan the strategies applied last, replaced when
+     * they apply another one.
+     */
+    private volatile NetToGrossSolver solver;
+
     /**
      * Creates a new TaxCalculator with all available strategies.
      */
@@ -41,6 +116,24 @@ public class TaxCalculator {
         this.formatter = new TaxResultFormatter();
     }
 
+    /**
+     * Creates a new TaxCalculator with the given strategies, for example
+     * {@link FixedPointTaxStrategy#strategies()}.
+     *
+     * @param strategiesValue the strategies keyed by contract type
+     * @throws IllegalArgumentException if strategiesValue is null
+     */
+    public TaxCalculator(
+            final Map<ContractType, TaxCalculationStrategy> strategiesValue) {
+        if (strategiesValue == null) {
+            throw new IllegalArgumentException(
+                    "Strategies cannot be null");
+        }
+        this.strategies = new EnumMap<>(ContractType.class);
+        this.strategies.putAll(strategiesValue);
+        this.formatter = new TaxResultFormatter();
+    }
+
     /**
      * Calculates tax based on income and contract type.
      *
@@ -65,7 +158,275 @@ public class TaxCalculator {
                     "Unsupported contract type: " + contractType);
         }
 
-        return strategy.calculateTax(grossIncome);
+        return calculateTrusted(grossIncome, contractType, strategy);
+    }
+
+    /**
+     * Calculates tax based on income and contract type, reporting invalid
+     * input as a {@link Outcome.Failure} instead of throwing. The input
+     * is checked once here and the strategy then skips its own checks,
+     * which keeps rejected rows of a bulk file cheap.
+     *
+     * @param grossIncome the gross income amount
+     * @param contractType the type of contract
+     * @return the result, or the reason the input was rejected
+     */
+    public Outcome calculate(final BigDecimal grossIncome,
+                             final ContractType contractType) {
+        if (grossIncome == null) {
+            return Outcome.Failure.of(Outcome.Reason.MISSING_INCOME);
+        }
+        if (grossIncome.signum() < 0) {
+            return Outcome.Failure.of(Outcome.Reason.NEGATIVE_INCOME);
+        }
+        TaxCalculationStrategy strategy = strategies.get(contractType);
+        if (strategy == null) {
+            return Outcome.Failure.of(
+                    Outcome.Reason.UNSUPPORTED_CONTRACT_TYPE);
+        }
+        return new Outcome.Success(
+                calculateTrusted(grossIncome, contractType, strategy));
+    }
+
+    /**
+     * Calculates checked input with a strategy, recording its metrics.
+     *
+     * @param grossIncome the non-null, non-negative gross income
+     * @param contractType the type of contract
+     * @param strategy the strategy of the contract type
+     * @return the tax calculation result
+     */
+    private static TaxResult calculateTrusted(
+            final BigDecimal grossIncome, final ContractType contractType,
+            final TaxCalculationStrategy strategy) {
+        StageTimer event = StageTimer.calculation(contractType);
+        long start = TaxMetrics.start();
+        TaxResult result = strategy.calculateTrusted(grossIncome);
+        TaxMetrics.record(contractType, CalculationStage.TOTAL, start);
+        event.finish();
+        return result;
+    }
+
+    /**
+     * Calculates only the given fields of a result, leaving the others to
+     * be calculated on first access.
+     *
+     * @param grossIncome the gross income amount
+     * @param contractType the type of contract
+     * @param fields the fields needed by the caller
+     * @return a view holding at least the requested fields
+     * @throws IllegalArgumentException if contract type is not supported,
+     *                                  grossIncome is invalid or fields
+     *                                  is null
+     */
+    public LazyTaxResult calculateTax(final BigDecimal grossIncome,
+                                      final ContractType contractType,
+                                      final Set<TaxField> fields) {
+        TaxCalculationStrategy strategy = strategies.get(contractType);
+
+        if (strategy == null) {
+            throw new IllegalArgumentException(
+                    "Unsupported contract type: " + contractType);
+        }
+
+        return strategy.calculateTax(grossIncome, fields);
+    }
+
+    /**
+     * Calculates tax for an income in grosze and writes every value into
+     * a sink. With {@link FixedPointTaxStrategy} nothing is allocated, so
+     * a batch can reuse one {@link MutableTaxResult} for all records.
+     *
+     * @param grossCents the gross income in grosze
+     * @param contractType the type of contract
+     * @param sink the sink receiving the calculated values
+     * @throws IllegalArgumentException if contract type is not supported,
+     *                                  grossCents is invalid or sink is
+     *                                  null
+     */
+    public void calculateTax(final long grossCents,
+                             final ContractType contractType,
+                             final TaxResultSink sink) {
+        TaxCalculationStrategy strategy = strategies.get(contractType);
+
+        if (strategy == null) {
+            throw new IllegalArgumentException(
+                    "Unsupported contract type: " + contractType);
+        }
+
+        StageTimer event = StageTimer.calculation(contractType);
+        long start = TaxMetrics.start();
+        strategy.calculateTax(grossCents, sink);
+        TaxMetrics.record(contractType, CalculationStage.TOTAL, start);
+        event.finish();
+    }
+
+    /**
+     * Tells whether every strategy calculates with the given rates,
+     * without calculating anything. A strategy that does not expose its
+     * rate plan calculates with unknown rates.
+     *
+     * @param rateVersion the version of a rate plan
+     * @return true if every result is calculated with that version
+     */
+    boolean calculatesWith(final String rateVersion) {
+        for (TaxCalculationStrategy strategy : strategies.values()) {
+            RatePlan plan = strategy.getRatePlan();
+            if (plan == null || !plan.getVersion().equals(rateVersion)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Calculates taxes for a batch of payroll entries in the common
+     * fork-join pool.
+     *
+     * @param entries the payroll entries to calculate
+     * @return the results, packed in the same order as the entries
+     * @throws IllegalArgumentException if entries is null or any entry
+     *                                  is invalid
+     */
+    public CompactTaxResults calculateAll(
+            final List<PayrollEntry> entries) {
+        return calculateAll(entries, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Calculates taxes for a batch of payroll entries in a dedicated
+     * fork-join pool with the given parallelism level.
+     *
+     * @param entries the payroll entries to calculate
+     * @param parallelism the number of worker threads to use
+     * @return the results, packed in the same order as the entries
+     * @throws IllegalArgumentException if entries is null, any entry
+     *                                  is invalid or parallelism is not
+     *                                  positive
+     */
+    public CompactTaxResults calculateAll(
+            final List<PayrollEntry> entries, final int parallelism) {
+        if (parallelism <= 0) {
+            throw new IllegalArgumentException(
+                    "Parallelism must be positive");
+        }
+
+        try (ForkJoinPool pool = new ForkJoinPool(parallelism)) {
+            return calculateAll(entries, pool);
+        }
+    }
+
+    /**
+     * Calculates taxes for a stream of payroll entries.
+     * The returned stream is lazy, keeps the encounter order of the
+     * entries and runs in parallel when the source stream is parallel.
+     *
+     * @param entries the payroll entries to calculate
+     * @return a stream of results, in the encounter order of the entries
+     * @throws IllegalArgumentException if entries is null
+     */
+    public Stream<TaxResult> calculateAll(
+            final Stream<PayrollEntry> entries) {
+        if (entries == null) {
+            throw new IllegalArgumentException(
+                    "Payroll entries cannot be null");
+        }
+
+        return entries.map(entry -> calculateTax(
+                entry.grossIncome(), entry.contractType()));
+    }
+
+    /**
+     * Finds the smallest gross income whose net income under the rate
+     * plan of the contract type's strategy is at least the target.
+     *
+     * @param targetNet the net income to reach
+     * @param contractType the type of contract
+     * @return the gross income with two decimal places
+     * @throws IllegalArgumentException if targetNet is null, negative or
+     *                                  too large, or contract type is
+     *                                  null or unsupported
+     * @throws IllegalStateException if the strategy does not expose its
+     *                               rate plan
+     * @see NetToGrossSolver
+     */
+    public BigDecimal grossForNet(final BigDecimal targetNet,
+                                  final ContractType contractType) {
+        return solver(contractType).grossForNet(targetNet, contractType);
+    }
+
+    /**
+     * Finds the smallest gross income reaching each target net income.
+     *
+     * @param targetNets the net incomes to reach
+     * @param contractType the type of contract
+     * @return the gross incomes, in the same order as the targets
+     * @throws IllegalArgumentException if targetNets is null, any target
+     *                                  is invalid, or contract type is
+     *                                  null or unsupported
+     * @throws IllegalStateException if the strategy does not expose its
+     *                               rate plan
+     */
+    public List<BigDecimal> grossForNet(final List<BigDecimal> targetNets,
+                                        final ContractType contractType) {
+        return solver(contractType).grossForNet(targetNets, contractType);
+    }
+
+    /**
+     * Returns a solver for the rate plan the strategy of a contract type
+     * applies next, reusing the last one while the plan is unchanged.
+     *
+     * @param contractType the type of contract
+     * @return the solver
+     * @throws IllegalArgumentException if contract type is null or
+     *                                  unsupported
+     * @throws IllegalStateException if the strategy does not expose its
+     *                               rate plan
+     */
+    private NetToGrossSolver solver(final ContractType contractType) {
+        TaxCalculationStrategy strategy = strategies.get(contractType);
+
+        if (strategy == null) {
+            throw new IllegalArgumentException(
+                    "Unsupported contract type: " + contractType);
+        }
+
+        RatePlan plan = strategy.getRatePlan();
+        if (plan == null) {
+            throw new IllegalStateException("Strategy of " + contractType
+                    + " does not expose its rate plan");
+        }
+        NetToGrossSolver current = solver;
+        if (current == null || current.getRatePlan() != plan) {
+            current = new NetToGrossSolver(plan);
+            solver = current;
+        }
+        return current;
+    }
+
+    /**
+     * Calculates taxes for a batch of payroll entries in the given pool.
+     *
+     * @param entries the payroll entries to calculate
+     * @param pool the pool running the calculation
+     * @return the results, in the same order as the entries
+     */
+    private CompactTaxResults calculateAll(
+            final List<PayrollEntry> entries, final ForkJoinPool pool) {
+        if (entries == null) {
+            throw new IllegalArgumentException(
+                    "Payroll entries cannot be null");
+        }
+
+        List<PayrollEntry> source = entries;
+        if (!(entries instanceof RandomAccess)) {
+            source = new ArrayList<>(entries);
+        }
+
+        CompactTaxResults results = new CompactTaxResults(source.size());
+        pool.invoke(new PayrollBatchTask(this, source, results,
+                0, results.size()));
+        return results;
     }
 
     /**
@@ -75,6 +436,23 @@ public class TaxCalculator {
      * @throws IllegalArgumentException if user input is invalid
      */
     public void processUserInput() throws IOException {
+        processUserInputTo(new LoggingTaxResultWriter(formatter));
+    }
+
+    /**
+     * Reads input from the user, performs tax calculation and writes the
+     * result to the given writer, which is flushed but left open.
+     *
+     * @param writer the writer receiving the result
+     * @throws IOException if an I/O error occurs
+     * @throws IllegalArgumentException if user input is invalid or
+     *                                  writer is null
+     */
+    public void processUserInputTo(final TaxResultWriter writer)
+            throws IOException {
+        if (writer == null) {
+            throw new IllegalArgumentException("Writer cannot be null");
+        }
         TaxInputReader inputReader = new TaxInputReader(System.in);
 
         try {
@@ -82,27 +460,310 @@ public class TaxCalculator {
             ContractType contractType = inputReader.readContractType();
 
             TaxResult result = calculateTax(income, contractType);
-            formatter.displayResult(result, contractType);
+            writer.write(result, contractType);
+            writer.flush();
         } finally {
             inputReader.close();
         }
     }
 
+    /**
+     * Calculates a delimited or {@link BinaryPayrollFile binary} payroll
+     * file into a result file.
+     *
+     * @param input the payroll file to read
+     * @param output the result file to write
+     * @return the number of processed rows
+     * @throws IOException if an I/O error occurs
+     * @throws IllegalArgumentException if a row is not valid
+     */
+    public long processPayrollFile(final Path input, final Path output)
+            throws IOException {
+        return new PayrollFileProcessor(this).process(input, output);
+    }
+
     /**
      * Main entry point of the application.
+     * Without arguments the calculator runs interactively; with
+     * {@code --payroll <input> <output>} it processes a payroll file,
+     * delimited or {@link BinaryPayrollFile binary}, with
+     * {@code --convert <csv> <binary>} it converts a delimited payroll
+     * file to the binary format and with {@code --server [port]} it
+     * serves {@link TaxHttpServer} requests until the JVM exits.
+     * {@code --repl} answers
+     * {@link TaxRepl} lines from standard input until it ends, and
+     * {@code --daemon [socket]} answers them on a {@link TaxDaemon}
+     * socket until the JVM exits.
+     * {@code --generate-table <file> [from to]} writes a
+     * {@link WithholdingTable} of the whole-zloty incomes from and to the
+     * given amounts, 0 to 50 000 by default; the binary payroll, server,
+     * REPL and daemon modes read the table named by the
+     * {@value WithholdingTable#PATH_PROPERTY} system property, if set.
+     * Prefixed with {@code --profile}, an
+     * interactive, payroll or REPL run logs a {@link TaxProfiler}
+     * breakdown of its stages at the end. While {@link TaxMetrics}
+     * records, its MBean is registered and the latencies are logged
+     * before returning.
      *
-     * @param args command line arguments (not used)
+     * @param args command line arguments
      */
     public static void main(final String[] args) {
-        TaxCalculator calculator = new TaxCalculator();
+        if (TaxMetrics.isEnabled()) {
+            TaxMetrics.registerMBean();
+        }
 
         try {
-            calculator.processUserInput();
+            if (args.length > 0 && PROFILE_OPTION.equals(args[0])) {
+                runProfiled(Arrays.copyOfRange(args, 1, args.length));
+            } else {
+                run(args);
+            }
         } catch (IllegalArgumentException e) {
             LOGGER.log(Level.WARNING, "Invalid input: {0}",
                     e.getMessage());
         } catch (IOException e) {
             LOGGER.log(Level.SEVERE, "Error reading input", e);
         }
+        String latencies = TaxMetrics.dump();
+        if (!latencies.isEmpty()) {
+            LOGGER.log(Level.INFO, "Latencies:\n{0}", latencies);
+        }
+    }
+
+    /**
+     * Runs the mode selected by the arguments.
+     *
+     * @param args command line arguments
+     * @throws IOException if an I/O error occurs
+     * @throws IllegalArgumentException if the input is not valid
+     */
+    private static void run(final String[] args) throws IOException {
+        TaxCalculator calculator = new TaxCalculator();
+        if (args.length > 0 && PAYROLL_OPTION.equals(args[0])) {
+            runPayroll(calculator, args);
+        } else if (args.length > 0 && CONVERT_OPTION.equals(args[0])) {
+            runConvert(args);
+        } else if (args.length > 0 && SERVER_OPTION.equals(args[0])) {
+            runServer(args);
+        } else if (args.length > 0 && REPL_OPTION.equals(args[0])) {
+            runRepl(args);
+        } else if (args.length > 0 && DAEMON_OPTION.equals(args[0])) {
+            runDaemon(args);
+        } else if (args.length > 0
+                && GENERATE_TABLE_OPTION.equals(args[0])) {
+            runGenerateTable(args);
+        } else {
+            calculator.processUserInput();
+        }
+    }
+
+    /**
+     * Runs the mode selected by the arguments while recording its stage
+     * events, then logs the breakdown.
+     *
+     * @param args command line arguments after the profile option
+     * @throws IOException if an I/O error occurs
+     * @throws IllegalArgumentException if the input is not valid or the
+     *                                  server or daemon mode is
+     *                                  selected, which does not end
+     */
+    private static void runProfiled(final String[] args) throws IOException {
+        if (args.length > 0 && (SERVER_OPTION.equals(args[0])
+                || DAEMON_OPTION.equals(args[0]))) {
+            throw new IllegalArgumentException(PROFILE_OPTION
+                    + " cannot be combined with " + args[0]);
+        }
+        try (TaxProfiler profiler = TaxProfiler.start()) {
+            run(args);
+            LOGGER.log(Level.INFO, "Profile:\n{0}", profiler.report());
+        }
+    }
+
+    /**
+     * Runs the payroll file mode. Binary files, which hold incomes in
+     * grosze, are calculated with the fixed-point strategies.
+     *
+     * @param calculator the calculator to use for delimited files
+     * @param args command line arguments
+     * @throws IOException if an I/O error occurs
+     * @throws IllegalArgumentException if the arguments are not valid
+     */
+    private static void runPayroll(final TaxCalculator calculator,
+                                   final String[] args) throws IOException {
+        if (args.length != PAYROLL_ARGUMENT_COUNT) {
+            throw new IllegalArgumentException(
+                    "Usage: " + PAYROLL_OPTION + " <input> <output>");
+        }
+
+        Path input = Path.of(args[1]);
+        TaxCalculator selected = calculator;
+        if (BinaryPayrollFile.isBinary(input)) {
+            selected = new TaxCalculator(fixedPointStrategies());
+        }
+        long count = selected.processPayrollFile(input, Path.of(args[2]));
+        LOGGER.log(Level.INFO, "Processed {0} payroll rows", count);
+    }
+
+    /**
+     * Runs the conversion of a delimited payroll file to the binary
+     * format.
+     *
+     * @param args command line arguments
+     * @throws IOException if an I/O error occurs
+     * @throws IllegalArgumentException if the arguments or a row are not
+     *                                  valid
+     */
+    private static void runConvert(final String[] args) throws IOException {
+        if (args.length != PAYROLL_ARGUMENT_COUNT) {
+            throw new IllegalArgumentException(
+                    "Usage: " + CONVERT_OPTION + " <csv> <binary>");
+        }
+
+        long count = BinaryPayrollFile.convert(Path.of(args[1]),
+                Path.of(args[2]));
+        LOGGER.log(Level.INFO, "Converted {0} payroll rows", count);
+    }
+
+    /**
+     * Runs the generation of a withholding table of both contract types.
+     *
+     * @param args command line arguments
+     * @throws IOException if an I/O error occurs
+     * @throws IllegalArgumentException if the arguments are not valid
+     */
+    private static void runGenerateTable(final String[] args)
+            throws IOException {
+        if (args.length != 2
+                && args.length != GENERATE_TABLE_ARGUMENT_COUNT) {
+            throw new IllegalArgumentException("Usage: "
+                    + GENERATE_TABLE_OPTION + " <file> [from to]");
+        }
+        long from = WithholdingTable.DEFAULT_FROM_ZLOTY;
+        long to = WithholdingTable.DEFAULT_TO_ZLOTY;
+        if (args.length == GENERATE_TABLE_ARGUMENT_COUNT) {
+            try {
+                from = Long.parseLong(args[2]);
+                to = Long.parseLong(args[args.length - 1]);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException(
+                        "Invalid income range: " + e.getMessage(), e);
+            }
+        }
+
+        long count = WithholdingTable.generate(Path.of(args[1]),
+                RatePlan.DEFAULT, from, to, Set.of(ContractType.values()));
+        LOGGER.log(Level.INFO, "Generated {0} table rows", count);
+    }
+
+    /**
+     * Creates the fixed-point strategies of the long-running and binary
+     * modes, reading the withholding table named by the
+     * {@value WithholdingTable#PATH_PROPERTY} system property if it is
+     * set. The table stays mapped until the JVM exits, unless its
+     * strategies cannot be created.
+     *
+     * @return the strategies keyed by contract type
+     * @throws IOException if the table cannot be mapped
+     * @throws IllegalArgumentException if the table is not valid or was
+     *                                  generated with other rates
+     */
+    private static Map<ContractType, TaxCalculationStrategy>
+            fixedPointStrategies() throws IOException {
+        String table = System.getProperty(WithholdingTable.PATH_PROPERTY);
+        if (table == null || table.isEmpty()) {
+            return FixedPointTaxStrategy.strategies();
+        }
+        WithholdingTable mapped = WithholdingTable.open(Path.of(table));
+        try {
+            return mapped.strategies();
+        } catch (RuntimeException e) {
+            mapped.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Runs the HTTP server mode with the fixed-point strategies, with
+     * Nagle's algorithm disabled unless
+     * {@value TaxHttpServer#NO_DELAY_PROPERTY} is already set.
+     *
+     * @param args command line arguments
+     * @throws IOException if the server cannot be started
+     * @throws IllegalArgumentException if the arguments are not valid
+     */
+    private static void runServer(final String[] args) throws IOException {
+        if (args.length > SERVER_ARGUMENT_COUNT) {
+            throw new IllegalArgumentException(
+                    "Usage: " + SERVER_OPTION + " [port]");
+        }
+        int port = TaxHttpServer.DEFAULT_PORT;
+        if (args.length == SERVER_ARGUMENT_COUNT) {
+            try {
+                port = Integer.parseInt(args[1]);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException(
+                        "Invalid port: " + args[1], e);
+            }
+        }
+
+        System.getProperties().putIfAbsent(
+                TaxHttpServer.NO_DELAY_PROPERTY, "true");
+        TaxHttpServer server = TaxHttpServer.start(
+                new TaxCalculator(fixedPointStrategies()),
+                new InetSocketAddress(port));
+        Runtime.getRuntime().addShutdownHook(new Thread(server::close));
+        LOGGER.log(Level.INFO, "Listening on port {0}",
+                server.getAddress().getPort());
+    }
+
+    /**
+     * Runs the REPL mode with the fixed-point strategies, answering
+     * standard input on standard output.
+     *
+     * @param args command line arguments
+     * @throws IOException if an I/O error occurs
+     * @throws IllegalArgumentException if the arguments are not valid
+     */
+    private static void runRepl(final String[] args) throws IOException {
+        if (args.length != 1) {
+            throw new IllegalArgumentException("Usage: " + REPL_OPTION);
+        }
+
+        TaxRepl repl = new TaxRepl(
+                new TaxCalculator(fixedPointStrategies()));
+        repl.serve(new BufferedReader(new InputStreamReader(System.in,
+                        StandardCharsets.UTF_8)),
+                new BufferedWriter(new OutputStreamWriter(System.out,
+                        StandardCharsets.UTF_8)));
+    }
+
+    /**
+     * Runs the daemon mode with the fixed-point strategies.
+     *
+     * @param args command line arguments
+     * @throws IOException if the socket cannot be bound
+     * @throws IllegalArgumentException if the arguments are not valid
+     */
+    private static void runDaemon(final String[] args) throws IOException {
+        if (args.length > DAEMON_ARGUMENT_COUNT) {
+            throw new IllegalArgumentException(
+                    "Usage: " + DAEMON_OPTION + " [socket]");
+        }
+        Path socket = TaxDaemon.defaultSocket();
+        if (args.length == DAEMON_ARGUMENT_COUNT) {
+            socket = Path.of(args[1]);
+        }
+
+        TaxDaemon daemon = TaxDaemon.start(
+                new TaxCalculator(fixedPointStrategies()),
+                socket);
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            try {
+                daemon.close();
+            } catch (IOException e) {
+                LOGGER.log(Level.WARNING, "Cannot remove socket", e);
+            }
+        }));
+        LOGGER.log(Level.INFO, "Listening on {0}", daemon.getSocket());
     }
 }
@@ -0,0 +1,274 @@
+package com.bartoszwalter.students.taxes;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.ConnectException;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Keeps a warm calculator behind a Unix domain socket, so that repeated
+ * command line calls skip the start-up of a JVM.
+ * <p>
+ * Every connection speaks the {@link TaxRepl} line protocol on its own
+ * virtual thread and may send any number of lines. A socket file left
+ * by a daemon that did not shut down is replaced; one a daemon still
+ * listens on is not, and neither is any other kind of file.
+ * </p>
+ */
+public final class TaxDaemon implements AutoCloseable {
+
+    /**
+     * Logger instance for this class.
+     */
+    private static final Logger LOGGER =
+            Logger.getLogger(TaxDaemon.class.getName());
+
+    /**
+     * Environment variable naming the socket, also read by the
+     * {@code taxcalc-client} script.
+     */
+    public static final String SOCKET_VARIABLE = "TAXCALC_SOCKET";
+
+    /**
+     * Socket used when none is given and {@value #SOCKET_VARIABLE} is not
+     * set. It is fixed rather than under {@code java.io.tmpdir} so that
+     * the client script finds it wherever {@code TMPDIR} differs.
+     */
+    public static final Path DEFAULT_SOCKET =
+            Path.of("/tmp/taxcalculator.sock");
+
+    /**
+     * Mask of the file type bits of a Unix file mode.
+     */
+    private static final int FILE_TYPE_MASK = 0170000;
+
+    /**
+     * File type bits of a Unix domain socket.
+     */
+    private static final int SOCKET_FILE_TYPE = 0140000;
+
+    /**
+     * Protocol answering every connection.
+     */
+    private final TaxRepl repl;
+
+    /**
+     * Path of the socket file.
+     */
+    private final Path socket;
+
+    /**
+     * Channel accepting connections.
+     */
+    private final ServerSocketChannel server;
+
+    /**
+     * Executor running one virtual thread per connection.
+     */
+    private final ExecutorService executor;
+
+    /**
+     * Open connections, closed with the daemon.
+     */
+    private final Set<SocketChannel> connections =
+            ConcurrentHashMap.newKeySet();
+
+    /**
+     * Thread accepting connections; not a daemon thread, so it keeps the
+     * JVM running.
+     */
+    private final Thread acceptor;
+
+    /**
+     * Binds the socket and starts accepting connections.
+     *
+     * @param calculator the calculator shared by all connections
+     * @param socketValue the path of the socket file
+     * @throws IOException if the socket cannot be bound
+     */
+    private TaxDaemon(final TaxCalculator calculator, final Path socketValue)
+            throws IOException {
+        this.repl = new TaxRepl(calculator);
+        this.socket = socketValue;
+        this.server = ServerSocketChannel.open(StandardProtocolFamily.UNIX);
+        server.bind(UnixDomainSocketAddress.of(socketValue));
+        this.executor = Executors.newVirtualThreadPerTaskExecutor();
+        this.acceptor = Thread.ofPlatform().name("tax-daemon")
+                .start(this::acceptConnections);
+    }
+
+    /**
+     * Returns the socket used when none is given: the one named by
+     * {@value #SOCKET_VARIABLE}, or {@link #DEFAULT_SOCKET}.
+     *
+     * @return the socket path
+     */
+    public static Path defaultSocket() {
+        String socket = System.getenv(SOCKET_VARIABLE);
+        if (socket == null || socket.isEmpty()) {
+            return DEFAULT_SOCKET;
+        }
+        return Path.of(socket);
+    }
+
+    /**
+     * Starts a daemon.
+     *
+     * @param calculator the calculator shared by all connections
+     * @param socket the path of the socket file
+     * @return the running daemon
+     * @throws IOException if the socket cannot be bound, another daemon
+     *                     listens on it or the path holds another kind
+     *                     of file
+     * @throws IllegalArgumentException if an argument is null
+     */
+    public static TaxDaemon start(final TaxCalculator calculator,
+                                  final Path socket) throws IOException {
+        if (calculator == null || socket == null) {
+            throw new IllegalArgumentException(
+                    "Calculator and socket cannot be null");
+        }
+        removeStaleSocket(socket);
+        return new TaxDaemon(calculator, socket);
+    }
+
+    /**
+     * Returns the path of the socket file.
+     *
+     * @return the socket the daemon listens on
+     */
+    public Path getSocket() {
+        return socket;
+    }
+
+    /**
+     * Stops accepting connections, closes the open ones and removes the
+     * socket file.
+     *
+     * @throws IOException if the socket cannot be closed or removed
+     */
+    @Override
+    public void close() throws IOException {
+        server.close();
+        try {
+            acceptor.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        for (SocketChannel connection : connections) {
+            connection.close();
+        }
+        executor.close();
+        Files.deleteIfExists(socket);
+    }
+
+    /**
+     * Deletes a socket file no daemon listens on.
+     *
+     * @param socket the path of the socket file
+     * @throws IOException if the path is not a socket, a daemon listens
+     *                     on it or it cannot be deleted
+     */
+    private static void removeStaleSocket(final Path socket)
+            throws IOException {
+        if (!Files.exists(socket, LinkOption.NOFOLLOW_LINKS)) {
+            return;
+        }
+        if (!isSocket(socket)) {
+            throw new IOException(socket + " exists and is not a socket");
+        }
+        boolean listening;
+        try (SocketChannel probe = SocketChannel.open(
+                UnixDomainSocketAddress.of(socket))) {
+            listening = probe.isConnected();
+        } catch (ConnectException e) {
+            listening = false;
+        }
+        if (listening) {
+            throw new IOException("A daemon already listens on " + socket);
+        }
+        Files.delete(socket);
+    }
+
+    /**
+     * Checks whether a path is a Unix domain socket, without following
+     * links. Where Unix file modes are not available, any file that is
+     * not a regular file, directory or link is taken as a socket.
+     *
+     * @param path the existing path
+     * @return true if the path is a socket
+     * @throws IOException if the attributes cannot be read
+     */
+    private static boolean isSocket(final Path path) throws IOException {
+        try {
+            int mode = (Integer) Files.getAttribute(path, "unix:mode",
+                    LinkOption.NOFOLLOW_LINKS);
+            return (mode & FILE_TYPE_MASK) == SOCKET_FILE_TYPE;
+        } catch (UnsupportedOperationException e) {
+            return Files.readAttributes(path, BasicFileAttributes.class,
+                    LinkOption.NOFOLLOW_LINKS).isOther();
+        }
+    }
+
+    /**
+     * Accepts connections until the daemon is closed.
+     */
+    private void acceptConnections() {
+        while (server.isOpen()) {
+            SocketChannel connection;
+            try {
+                connection = server.accept();
+            } catch (IOException e) {
+                if (server.isOpen()) {
+                    LOGGER.log(Level.SEVERE, "Cannot accept connections",
+                            e);
+                }
+                return;
+            }
+            connections.add(connection);
+            executor.execute(() -> serve(connection));
+        }
+    }
+
+    /**
+     * Answers the lines of one connection until the client closes it.
+     *
+     * @param connection the connection
+     */
+    private void serve(final SocketChannel connection) {
+        try (connection;
+             BufferedReader input = new BufferedReader(new InputStreamReader(
+                     Channels.newInputStream(connection),
+                     StandardCharsets.UTF_8));
+             Writer output = new BufferedWriter(new OutputStreamWriter(
+                     Channels.newOutputStream(connection),
+                     StandardCharsets.UTF_8))) {
+            repl.serve(input, output);
+        } catch (IOException e) {
+            if (server.isOpen()) {
+                LOGGER.log(Level.WARNING, "Connection failed", e);
+            }
+        } finally {
+            connections.remove(connection);
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package com.bartoszwalter.students.taxes;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+
+/**
+ * Connection to a running {@link TaxDaemon}. Requests on one connection
+ * are answered in order, without the start-up of a calculator; shell
+ * scripts can use the {@code taxcalc-client} launcher instead.
+ * Not thread-safe.
+ */
+public final class TaxDaemonClient implements AutoCloseable {
+
+    /**
+     * Connection to the daemon.
+     */
+    private final SocketChannel channel;
+
+    /**
+     * Answers read from the daemon.
+     */
+    private final BufferedReader input;
+
+    /**
+     * Requests written to the daemon.
+     */
+    private final Writer output;
+
+    /**
+     * Connects to a daemon.
+     *
+     * @param channelValue the connected channel
+     */
+    private TaxDaemonClient(final SocketChannel channelValue) {
+        this.channel = channelValue;
+        this.input = new BufferedReader(new InputStreamReader(
+                Channels.newInputStream(channelValue),
+                StandardCharsets.UTF_8));
+        this.output = new BufferedWriter(new OutputStreamWriter(
+                Channels.newOutputStream(channelValue),
+                StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Connects to the daemon listening on a socket.
+     *
+     * @param socket the path of the socket file
+     * @return the connected client
+     * @throws IOException if no daemon listens on the socket
+     * @throws IllegalArgumentException if socket is null
+     */
+    public static TaxDaemonClient connect(final Path socket)
+            throws IOException {
+        if (socket == null) {
+            throw new IllegalArgumentException("Socket cannot be null");
+        }
+        return new TaxDaemonClient(SocketChannel.open(
+                UnixDomainSocketAddress.of(socket)));
+    }
+
+    /**
+     * Calculates tax in the daemon.
+     *
+     * @param grossIncome the gross income amount
+     * @param contractType the type of contract
+     * @return the JSON answer: the result, or an {@code error} object if
+     *         the daemon rejected the request
+     * @throws IOException if the daemon cannot be reached
+     * @throws IllegalArgumentException if an argument is null
+     */
+    public String calculate(final BigDecimal grossIncome,
+                            final ContractType contractType)
+            throws IOException {
+        if (grossIncome == null || contractType == null) {
+            throw new IllegalArgumentException(
+                    "Income and contract type cannot be null");
+        }
+        output.write(grossIncome.toPlainString());
+        output.write(' ');
+        output.write(contractType.getCode());
+        output.write('\n');
+        output.flush();
+        String answer = input.readLine();
+        if (answer == null) {
+            throw new EOFException("The daemon closed the connection");
+        }
+        return answer;
+    }
+
+    /**
+     * Closes the connection.
+     *
+     * @throws IOException if the connection cannot be closed
+     */
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
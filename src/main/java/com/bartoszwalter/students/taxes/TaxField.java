@@ -0,0 +1,142 @@
+package com.bartoszwalter.students.taxes;
+
+import java.math.BigDecimal;
+import java.util.function.Function;
+
+/**
+ * Identifies a single value of a {@link TaxResult}.
+ * Each field knows its scale, so it can be carried as an unscaled
+ * {@code long}: grosze for currency values, zloty for rounded ones.
+ */
+public enum TaxField {
+    /**
+     * Gross income.
+     */
+    GROSS_INCOME(TaxConstants.CURRENCY_SCALE, TaxResult::grossIncome),
+
+    /**
+     * Social security contribution.
+     */
+    SOCIAL_SECURITY(TaxConstants.CURRENCY_SCALE,
+            result -> result.socialContributions().getSocialSecurity()),
+
+    /**
+     * Health social security contribution.
+     */
+    HEALTH_SOCIAL_SECURITY(TaxConstants.CURRENCY_SCALE,
+            result -> result.socialContributions()
+                    .getHealthSocialSecurity()),
+
+    /**
+     * Sickness social security contribution.
+     */
+    SICKNESS_SOCIAL_SECURITY(TaxConstants.CURRENCY_SCALE,
+            result -> result.socialContributions()
+                    .getSicknessSocialSecurity()),
+
+    /**
+     * Full health insurance rate.
+     */
+    HEALTH_INSURANCE_FULL(TaxConstants.CURRENCY_SCALE,
+            result -> result.healthInsurance().getFullRate()),
+
+    /**
+     * Tax-deductible health insurance rate.
+     */
+    HEALTH_INSURANCE_DEDUCTIBLE(TaxConstants.CURRENCY_SCALE,
+            result -> result.healthInsurance().getDeductibleRate()),
+
+    /**
+     * Tax-deductible expenses.
+     */
+    TAX_DEDUCTIBLE_EXPENSES(TaxConstants.CURRENCY_SCALE,
+            TaxResult::taxDeductibleExpenses),
+
+    /**
+     * Taxable income, rounded to zloty.
+     */
+    TAXABLE_INCOME(TaxConstants.INTEGER_SCALE, TaxResult::taxableIncome),
+
+    /**
+     * Advance tax.
+     */
+    ADVANCE_TAX(TaxConstants.CURRENCY_SCALE, TaxResult::advanceTax),
+
+    /**
+     * Tax-free income.
+     */
+    TAX_FREE_INCOME(TaxConstants.CURRENCY_SCALE, TaxResult::taxFreeIncome),
+
+    /**
+     * Final tax, rounded to zloty.
+     */
+    FINAL_TAX(TaxConstants.INTEGER_SCALE, TaxResult::finalTax),
+
+    /**
+     * Net income.
+     */
+    NET_INCOME(TaxConstants.CURRENCY_SCALE, TaxResult::netIncome);
+
+    /**
+     * Number of decimal places of the unscaled value.
+     */
+    private final int scale;
+
+    /**
+     * Reads the field from a result.
+     */
+    private final Function<TaxResult, BigDecimal> accessor;
+
+    /**
+     * Creates a field.
+     *
+     * @param scaleValue the number of decimal places
+     * @param accessorValue reads the field from a result
+     */
+    TaxField(final int scaleValue,
+             final Function<TaxResult, BigDecimal> accessorValue) {
+        this.scale = scaleValue;
+        this.accessor = accessorValue;
+    }
+
+    /**
+     * Returns the number of decimal places of the unscaled value.
+     *
+     * @return the scale
+     */
+    public int getScale() {
+        return scale;
+    }
+
+    /**
+     * Reads the field from a result.
+     *
+     * @param result the result to read
+     * @return the value of the field
+     */
+    public BigDecimal valueOf(final TaxResult result) {
+        return accessor.apply(result);
+    }
+
+    /**
+     * Converts a value to its unscaled form.
+     *
+     * @param value the value to convert
+     * @return the value as a count of units at this field's scale
+     * @throws ArithmeticException if the value needs more decimal places
+     *                             or does not fit in a long
+     */
+    public long toUnscaled(final BigDecimal value) {
+        return value.movePointRight(scale).longValueExact();
+    }
+
+    /**
+     * Converts an unscaled value to a BigDecimal.
+     *
+     * @param unscaledValue the value as a count of units at this scale
+     * @return the value
+     */
+    public BigDecimal toDecimal(final long unscaledValue) {
+        return BigDecimal.valueOf(unscaledValue, scale);
+    }
+}
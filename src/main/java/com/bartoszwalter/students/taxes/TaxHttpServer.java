@@ -0,0 +1,224 @@
+package com.bartoszwalter.students.taxes;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * HTTP service calculating taxes with one shared {@link TaxCalculator}.
+ * <p>
+ * {@code POST /tax} takes a JSON object with a {@code grossIncome}
+ * number or string and a {@code contractType} ({@code EMPLOYMENT},
+ * {@code CIVIL} or their one-letter codes) and answers with every
+ * {@link TaxField} of the result. Each exchange runs on its own virtual
+ * thread. Responses have a fixed length, so HTTP/1.1 connections are
+ * kept alive between requests.
+ * </p>
+ * <p>
+ * The JDK server writes the headers and the body of a response
+ * separately, which Nagle's algorithm delays until the client
+ * acknowledges the headers. Applications should set
+ * {@value #NO_DELAY_PROPERTY} to {@code true} before the first JDK server
+ * starts, as the command line does; this class leaves it unchanged.
+ * </p>
+ */
+public final class TaxHttpServer implements AutoCloseable {
+
+    /**
+     * Path of the calculation endpoint.
+     */
+    public static final String PATH = "/tax";
+
+    /**
+     * Port used when none is given.
+     */
+    public static final int DEFAULT_PORT = 8080;
+
+    /**
+     * System property disabling Nagle's algorithm in the JDK server.
+     */
+    public static final String NO_DELAY_PROPERTY =
+            "sun.net.httpserver.nodelay";
+
+    /**
+     * Largest accepted request body in bytes.
+     */
+    private static final int MAX_BODY_BYTES = 4096;
+
+    /**
+     * Status of a request with an unsupported method.
+     */
+    private static final int METHOD_NOT_ALLOWED =
+            HttpURLConnection.HTTP_BAD_METHOD;
+
+    /**
+     * Content type of every response.
+     */
+    private static final String JSON_CONTENT_TYPE =
+            "application/json; charset=utf-8";
+
+    /**
+     * Calculator shared by all requests.
+     */
+    private final TaxCalculator calculator;
+
+    /**
+     * Executor running one virtual thread per exchange.
+     */
+    private final ExecutorService executor;
+
+    /**
+     * The underlying server.
+     */
+    private final HttpServer server;
+
+    /**
+     * Creates and starts a server.
+     *
+     * @param calculatorValue the calculator shared by all requests
+     * @param address the address to listen on; port 0 picks a free port
+     * @throws IOException if the server cannot be bound
+     */
+    private TaxHttpServer(final TaxCalculator calculatorValue,
+                          final InetSocketAddress address)
+            throws IOException {
+        this.calculator = calculatorValue;
+        this.executor = Executors.newVirtualThreadPerTaskExecutor();
+        this.server = HttpServer.create(address, 0);
+        server.createContext(PATH, this::handle);
+        server.setExecutor(executor);
+        server.start();
+    }
+
+    /**
+     * Starts a server. Responses are delayed by Nagle's algorithm unless
+     * {@value #NO_DELAY_PROPERTY} was set to {@code true} before the first
+     * JDK server started.
+     *
+     * @param calculator the calculator shared by all requests
+     * @param address the address to listen on; port 0 picks a free port
+     * @return the running server
+     * @throws IOException if the server cannot be bound
+     * @throws IllegalArgumentException if an argument is null
+     */
+    public static TaxHttpServer start(final TaxCalculator calculator,
+                                      final InetSocketAddress address)
+            throws IOException {
+        if (calculator == null || address == null) {
+            throw new IllegalArgumentException(
+                    "Calculator and address cannot be null");
+        }
+        return new TaxHttpServer(calculator, address);
+    }
+
+    /**
+     * Returns the address the server listens on.
+     *
+     * @return the bound address
+     */
+    public InetSocketAddress getAddress() {
+        return server.getAddress();
+    }
+
+    /**
+     * Stops accepting requests and waits for running exchanges.
+     */
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.close();
+    }
+
+    /**
+     * Handles one exchange.
+     *
+     * @param exchange the exchange
+     * @throws IOException if the response cannot be sent
+     */
+    private void handle(final HttpExchange exchange) throws IOException {
+        try (exchange) {
+            if (!"POST".equals(exchange.getRequestMethod())) {
+                exchange.getResponseHeaders().set("Allow", "POST");
+                respond(exchange, METHOD_NOT_ALLOWED,
+                        TaxJson.error("Use POST"));
+                return;
+            }
+            String response;
+            try {
+                response = calculate(readBody(exchange));
+            } catch (IllegalArgumentException e) {
+                respond(exchange, HttpURLConnection.HTTP_BAD_REQUEST,
+                        TaxJson.error(e.getMessage()));
+                return;
+            }
+            respond(exchange, HttpURLConnection.HTTP_OK, response);
+        }
+    }
+
+    /**
+     * Calculates the tax described by a request body.
+     *
+     * @param body the JSON request
+     * @return the JSON response
+     * @throws IllegalArgumentException if the request is not valid
+     */
+    private String calculate(final String body) {
+        Map<String, String> request = TaxJson.parseObject(body);
+        BigDecimal income =
+                TaxInputReader.parseRequestIncome(request.get("grossIncome"));
+        ContractType contractType = TaxInputReader.parseContractType(
+                request.get("contractType"));
+        return TaxJson.toJson(calculator.calculateTax(income, contractType),
+                contractType);
+    }
+
+    /**
+     * Reads a request body of limited size.
+     *
+     * @param exchange the exchange
+     * @return the body as text
+     * @throws IOException if the body cannot be read
+     * @throws IllegalArgumentException if the body is too large
+     */
+    private static String readBody(final HttpExchange exchange)
+            throws IOException {
+        try (InputStream body = exchange.getRequestBody()) {
+            byte[] bytes = body.readNBytes(MAX_BODY_BYTES + 1);
+            if (bytes.length > MAX_BODY_BYTES) {
+                throw new IllegalArgumentException(
+                        "Request body must be at most " + MAX_BODY_BYTES
+                                + " bytes");
+            }
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+    }
+
+    /**
+     * Sends a JSON response with a fixed length.
+     *
+     * @param exchange the exchange
+     * @param status the HTTP status
+     * @param json the response body
+     * @throws IOException if the response cannot be sent
+     */
+    private static void respond(final HttpExchange exchange,
+                                final int status, final String json)
+            throws IOException {
+        byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", JSON_CONTENT_TYPE);
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream body = exchange.getResponseBody()) {
+            body.write(bytes);
+        }
+    }
+}
@@ -4,6 +4,7 @@ import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.LineNumberReader;
 import java.math.BigDecimal;
 import java.nio.charset.StandardCharsets;
 import java.util.logging.Logger;
@@ -21,10 +22,31 @@ public class TaxInputReader {
     private static final Logger LOGGER =
             Logger.getLogger(TaxInputReader.class.getName());
 
+    /**
+     * Default field delimiter of payroll files.
+     */
+    public static final char DEFAULT_DELIMITER = ',';
+
+    /**
+     * Prefix of comment lines in payroll files.
+     */
+    private static final char COMMENT_PREFIX = '#';
+
+    /**
+     * Number of fields in a payroll line.
+     */
+    private static final int PAYROLL_FIELD_COUNT = 3;
+
+    /**
+     * Largest income accepted from a network request.
+     */
+    private static final BigDecimal MAX_REQUEST_INCOME = BigDecimal.valueOf(
+            RatePlan.DEFAULT.getMaxCents(), TaxConstants.CURRENCY_SCALE);
+
     /**
      * BufferedReader for reading input.
      */
-    private final BufferedReader reader;
+    private final LineNumberReader reader;
 
     /**
      * Creates a new input reader with the specified input stream.
@@ -32,9 +54,17 @@ public class TaxInputReader {
      * @param inputStream the input stream to read from
      */
     public TaxInputReader(final InputStream inputStream) {
-        this.reader = new BufferedReader(
-                new InputStreamReader(inputStream,
-                        StandardCharsets.UTF_8));
+        this(new BufferedReader(new InputStreamReader(inputStream,
+                StandardCharsets.UTF_8)));
+    }
+
+    /**
+     * Creates a new input reader on top of the specified reader.
+     *
+     * @param source the reader to read from
+     */
+    public TaxInputReader(final BufferedReader source) {
+        this.reader = new LineNumberReader(source);
     }
 
     /**
@@ -48,6 +78,118 @@ public class TaxInputReader {
         LOGGER.info("Enter income: ");
         String input = reader.readLine();
 
+        StageTimer event = StageTimer.inputParsing(0);
+        BigDecimal income = parseIncome(input);
+        event.finish();
+        return income;
+    }
+
+    /**
+     * Reads contract type from user input with validation.
+     *
+     * @return the contract type
+     * @throws IOException if an I/O error occurs
+     * @throws IllegalArgumentException if the input is not valid
+     */
+    public ContractType readContractType() throws IOException {
+        LOGGER.info(
+                "Contract Type: (E)mployment, (C)ivil: ");
+        String input = reader.readLine();
+
+        StageTimer event = StageTimer.inputParsing(0);
+        ContractType contractType = parseContractType(input);
+        event.finish();
+        return contractType;
+    }
+
+    /**
+     * Reads the next payroll entry without prompting.
+     * Each line holds an employee id, an income and a contract code
+     * separated by the given delimiter. Blank lines and lines starting
+     * with '#' are skipped. Only one line is held in memory at a time,
+     * so inputs of any size can be streamed.
+     *
+     * @param delimiter the field delimiter
+     * @return the next payroll entry, or null at the end of input
+     * @throws IOException if an I/O error occurs
+     * @throws IllegalArgumentException if the line is not valid
+     */
+    public PayrollEntry readPayrollEntry(final char delimiter)
+            throws IOException {
+        String line = reader.readLine();
+        while (line != null && isSkippable(line)) {
+            line = reader.readLine();
+        }
+        if (line == null) {
+            return null;
+        }
+
+        StageTimer event = StageTimer.inputParsing(reader.getLineNumber());
+        try {
+            PayrollEntry entry = parsePayrollEntry(line, delimiter);
+            event.finish();
+            return entry;
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid payroll line "
+                    + reader.getLineNumber() + ": " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Checks whether a payroll line carries no entry.
+     *
+     * @param line the line to check
+     * @return true for blank and comment lines
+     */
+    private static boolean isSkippable(final String line) {
+        String trimmed = line.trim();
+        return trimmed.isEmpty() || trimmed.charAt(0) == COMMENT_PREFIX;
+    }
+
+    /**
+     * Parses a single delimited payroll line.
+     *
+     * @param line the line to parse
+     * @param delimiter the field delimiter
+     * @return the parsed payroll entry
+     * @throws IllegalArgumentException if the line is not valid
+     */
+    private static PayrollEntry parsePayrollEntry(final String line,
+                                                  final char delimiter) {
+        String[] fields = new String[PAYROLL_FIELD_COUNT];
+        int start = 0;
+        for (int i = 0; i < PAYROLL_FIELD_COUNT - 1; i++) {
+            int end = line.indexOf(delimiter, start);
+            if (end < 0) {
+                throw new IllegalArgumentException(
+                        "Expected " + PAYROLL_FIELD_COUNT + " fields");
+            }
+            fields[i] = line.substring(start, end);
+            start = end + 1;
+        }
+        fields[PAYROLL_FIELD_COUNT - 1] = line.substring(start);
+
+        long employeeId;
+        try {
+            employeeId = Long.parseLong(fields[0].trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(
+                    "Invalid employee id: " + fields[0], e);
+        }
+
+        return new PayrollEntry(employeeId, parseIncome(fields[1]),
+                parseContractType(fields[2]));
+    }
+
+    /**
+     * Parses and validates an income value.
+     *
+     * @param input the text to parse
+     * @return the income amount
+     * @throws IllegalArgumentException if the input is not a valid,
+     *                                  non-negative number
+     */
+    static BigDecimal parseIncome(final String input) {
         if (input == null || input.trim().isEmpty()) {
             throw new IllegalArgumentException("Income cannot be empty");
         }
@@ -66,17 +208,40 @@ public class TaxInputReader {
     }
 
     /**
-     * Reads contract type from user input with validation.
+     * Parses an income received from a client over the network. Besides
+     * the checks of {@link #parseIncome(String)}, the income must have at
+     * most two decimal places and be calculable by the fixed-point
+     * engine under {@link RatePlan#DEFAULT}, so that a short request such
+     * as {@code 1e5000000} cannot force a costly BigDecimal calculation.
      *
+     * @param input the text to parse
+     * @return the income amount
+     * @throws IllegalArgumentException if the input is not a valid,
+     *                                  non-negative number within range
+     */
+    static BigDecimal parseRequestIncome(final String input) {
+        BigDecimal income = parseIncome(input);
+        if (income.scale() > TaxConstants.CURRENCY_SCALE) {
+            throw new IllegalArgumentException(
+                    "Income must have at most "
+                            + TaxConstants.CURRENCY_SCALE
+                            + " decimal places");
+        }
+        if (income.compareTo(MAX_REQUEST_INCOME) > 0) {
+            throw new IllegalArgumentException(
+                    "Income must be at most " + MAX_REQUEST_INCOME);
+        }
+        return income;
+    }
+
+    /**
+     * Parses a contract type from its code.
+     *
+     * @param input the text to parse
      * @return the contract type
-     * @throws IOException if an I/O error occurs
      * @throws IllegalArgumentException if the input is not valid
      */
-    public ContractType readContractType() throws IOException {
-        LOGGER.info(
-                "Contract Type: (E)mployment, (C)ivil: ");
-        String input = reader.readLine();
-
+    static ContractType parseContractType(final String input) {
         if (input == null || input.trim().isEmpty()) {
             throw new IllegalArgumentException(
                     "Contract type cannot be empty");
@@ -0,0 +1,326 @@
+package com.bartoszwalter.students.taxes;
+
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Minimal JSON support for the HTTP service: flat objects whose values
+ * are strings or numbers.
+ */
+final class TaxJson {
+
+    /**
+     * Radix of unicode escapes.
+     */
+    private static final int HEX_RADIX = 16;
+
+    /**
+     * Number of digits of a unicode escape.
+     */
+    private static final int UNICODE_DIGITS = 4;
+
+    /**
+     * Highest control character, which must be escaped.
+     */
+    private static final char LAST_CONTROL_CHARACTER = 0x1f;
+
+    private TaxJson() {
+        throw new UnsupportedOperationException("Utility class");
+    }
+
+    /**
+     * Parses a flat JSON object. Numbers are returned as written.
+     *
+     * @param json the JSON text
+     * @return the values keyed by name, in document order
+     * @throws IllegalArgumentException if the text is not a flat object
+     *                                  of strings and numbers
+     */
+    static Map<String, String> parseObject(final String json) {
+        Parser parser = new Parser(json);
+        Map<String, String> values = new LinkedHashMap<>();
+        parser.expect('{');
+        if (!parser.consume('}')) {
+            do {
+                String name = parser.string();
+                parser.expect(':');
+                if (values.put(name, parser.value()) != null) {
+                    throw new IllegalArgumentException(
+                            "Duplicate JSON name: " + name);
+                }
+            } while (parser.consume(','));
+            parser.expect('}');
+        }
+        parser.end();
+        return values;
+    }
+
+    /**
+     * Serializes a result as a JSON object with one number per
+     * {@link TaxField}, named in camel case.
+     *
+     * @param result the result to serialize
+     * @param contractType the contract type of the result
+     * @return the JSON text
+     */
+    static String toJson(final TaxResult result,
+                         final ContractType contractType) {
+        StringBuilder json = new StringBuilder("{\"contractType\":\"")
+                .append(contractType.name()).append('"');
+        for (TaxField field : TaxField.values()) {
+            json.append(",\"").append(camelCase(field)).append("\":")
+                    .append(field.valueOf(result).toPlainString());
+        }
+        return json.append('}').toString();
+    }
+
+    /**
+     * Serializes an error message.
+     *
+     * @param message the message
+     * @return the JSON text
+     */
+    static String error(final String message) {
+        StringBuilder json = new StringBuilder("{\"error\":");
+        appendString(json, String.valueOf(message));
+        return json.append('}').toString();
+    }
+
+    /**
+     * Returns the camel case name of a field.
+     *
+     * @param field the field
+     * @return the name, for example {@code grossIncome}
+     */
+    static String camelCase(final TaxField field) {
+        String[] words = field.name().toLowerCase(Locale.ROOT).split("_");
+        StringBuilder name = new StringBuilder(words[0]);
+        for (int i = 1; i < words.length; i++) {
+            name.append(Character.toUpperCase(words[i].charAt(0)))
+                    .append(words[i], 1, words[i].length());
+        }
+        return name.toString();
+    }
+
+    /**
+     * Appends a quoted, escaped JSON string.
+     *
+     * @param json the text to append to
+     * @param value the string value
+     */
+    private static void appendString(final StringBuilder json,
+                                     final String value) {
+        json.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                json.append('\\').append(c);
+            } else if (c <= LAST_CONTROL_CHARACTER) {
+                json.append(String.format("\\u%04x", (int) c));
+            } else {
+                json.append(c);
+            }
+        }
+        json.append('"');
+    }
+
+    /**
+     * Cursor over the JSON text.
+     */
+    private static final class Parser {
+
+        /**
+         * The JSON text.
+         */
+        private final String json;
+
+        /**
+         * Index of the next character.
+         */
+        private int position;
+
+        /**
+         * Creates a parser.
+         *
+         * @param jsonValue the JSON text
+         * @throws IllegalArgumentException if the text is null
+         */
+        Parser(final String jsonValue) {
+            if (jsonValue == null) {
+                throw new IllegalArgumentException("JSON cannot be null");
+            }
+            this.json = jsonValue;
+        }
+
+        /**
+         * Consumes a character after optional whitespace.
+         *
+         * @param c the expected character
+         * @return true if it was present
+         */
+        boolean consume(final char c) {
+            skipWhitespace();
+            if (position < json.length() && json.charAt(position) == c) {
+                position++;
+                return true;
+            }
+            return false;
+        }
+
+        /**
+         * Requires a character after optional whitespace.
+         *
+         * @param c the expected character
+         * @throws IllegalArgumentException if it is missing
+         */
+        void expect(final char c) {
+            if (!consume(c)) {
+                throw error("'" + c + "' expected");
+            }
+        }
+
+        /**
+         * Requires the end of the text after optional whitespace.
+         *
+         * @throws IllegalArgumentException if more text follows
+         */
+        void end() {
+            skipWhitespace();
+            if (position != json.length()) {
+                throw error("end of JSON expected");
+            }
+        }
+
+        /**
+         * Reads a string or number value.
+         *
+         * @return the string contents or the number as written
+         * @throws IllegalArgumentException if the value is not a string
+         *                                  or number
+         */
+        String value() {
+            skipWhitespace();
+            if (position < json.length() && json.charAt(position) == '"') {
+                return string();
+            }
+            int start = position;
+            while (position < json.length()
+                    && isNumberCharacter(json.charAt(position))) {
+                position++;
+            }
+            if (start == position) {
+                throw error("string or number expected");
+            }
+            return json.substring(start, position);
+        }
+
+        /**
+         * Reads a quoted string.
+         *
+         * @return the unescaped contents
+         * @throws IllegalArgumentException if the string is malformed
+         */
+        String string() {
+            expect('"');
+            StringBuilder value = new StringBuilder();
+            while (position < json.length()) {
+                char c = json.charAt(position++);
+                if (c == '"') {
+                    return value.toString();
+                }
+                if (c == '\\') {
+                    value.append(escape());
+                } else if (c <= LAST_CONTROL_CHARACTER) {
+                    throw error("control character in string");
+                } else {
+                    value.append(c);
+                }
+            }
+            throw error("unterminated string");
+        }
+
+        /**
+         * Reads the character after a backslash.
+         *
+         * @return the escaped character
+         * @throws IllegalArgumentException if the escape is invalid
+         */
+        private char escape() {
+            if (position >= json.length()) {
+                throw error("unterminated string");
+            }
+            char c = json.charAt(position++);
+            switch (c) {
+                case '"', '\\', '/':
+                    return c;
+                case 'b':
+                    return '\b';
+                case 'f':
+                    return '\f';
+                case 'n':
+                    return '\n';
+                case 'r':
+                    return '\r';
+                case 't':
+                    return '\t';
+                case 'u':
+                    return unicode();
+                default:
+                    throw error("invalid escape \\" + c);
+            }
+        }
+
+        /**
+         * Reads the four hex digits of a unicode escape.
+         *
+         * @return the escaped character
+         * @throws IllegalArgumentException if the digits are invalid
+         */
+        private char unicode() {
+            if (position + UNICODE_DIGITS > json.length()) {
+                throw error("invalid unicode escape");
+            }
+            try {
+                char c = (char) Integer.parseInt(json.substring(position,
+                        position + UNICODE_DIGITS), HEX_RADIX);
+                position += UNICODE_DIGITS;
+                return c;
+            } catch (NumberFormatException e) {
+                throw error("invalid unicode escape");
+            }
+        }
+
+        /**
+         * Skips insignificant whitespace.
+         */
+        private void skipWhitespace() {
+            while (position < json.length()
+                    && Character.isWhitespace(json.charAt(position))) {
+                position++;
+            }
+        }
+
+        /**
+         * Creates an error pointing at the current position.
+         *
+         * @param message what went wrong
+         * @return the exception
+         */
+        private IllegalArgumentException error(final String message) {
+            return new IllegalArgumentException("Invalid JSON at "
+                    + position + ": " + message);
+        }
+
+        /**
+         * Tells whether a character may appear in a number.
+         *
+         * @param c the character
+         * @return true for digits, signs, points and exponents
+         */
+        private static boolean isNumberCharacter(final char c) {
+            return c >= '0' && c <= '9' || c == '-' || c == '+'
+                    || c == '.' || c == 'e' || c == 'E';
+        }
+    }
+}
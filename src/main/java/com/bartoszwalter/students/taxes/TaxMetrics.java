@@ -0,0 +1,249 @@
+package com.bartoszwalter.students.taxes;
+
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.StandardMBean;
+
+/**
+ * Latency histograms of tax calculations per contract type and
+ * {@link CalculationStage}.
+ * <p>
+ * Recording is off unless the {@value #ENABLED_PROPERTY} system property
+ * is {@code true} or {@link #setEnabled(boolean)} turns it on. While off,
+ * an instrumented calculation only reads one volatile flag and never
+ * calls {@link System#nanoTime()}. The stages inside a calculation are
+ * timed by the {@code BigDecimal} strategies; the fixed-point
+ * strategies finish in less time than two clock reads take, so only
+ * their {@link CalculationStage#TOTAL} is recorded. Summaries are
+ * available here, as text from {@link #dump()} and through the
+ * {@link TaxMetricsMXBean} once {@link #registerMBean()} is called.
+ * </p>
+ */
+public final class TaxMetrics {
+
+    private TaxMetrics() {
+        throw new UnsupportedOperationException("Utility class");
+    }
+
+    /**
+     * System property enabling recording at startup.
+     */
+    public static final String ENABLED_PROPERTY = "taxcalculator.metrics";
+
+    /**
+     * JMX name of the management bean.
+     */
+    public static final String OBJECT_NAME =
+            "com.bartoszwalter.students.taxes:type=TaxMetrics";
+
+    /**
+     * Start time returned while recording is off.
+     */
+    static final long NOT_TIMED = Long.MIN_VALUE;
+
+    /**
+     * Number of stages.
+     */
+    private static final int STAGE_COUNT = CalculationStage.values().length;
+
+    /**
+     * Histograms indexed by contract ordinal times the stage count plus
+     * stage ordinal.
+     */
+    private static final LatencyHistogram[] HISTOGRAMS =
+            new LatencyHistogram[ContractType.values().length * STAGE_COUNT];
+
+    static {
+        for (int i = 0; i < HISTOGRAMS.length; i++) {
+            HISTOGRAMS[i] = new LatencyHistogram();
+        }
+    }
+
+    /**
+     * Whether latencies are recorded.
+     */
+    private static volatile boolean enabled =
+            Boolean.getBoolean(ENABLED_PROPERTY);
+
+    /**
+     * Tells whether latencies are recorded.
+     *
+     * @return true if recording
+     */
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Starts or stops recording latencies. Stages already started when
+     * recording stops are still recorded.
+     *
+     * @param enabledValue true to record
+     */
+    public static void setEnabled(final boolean enabledValue) {
+        enabled = enabledValue;
+    }
+
+    /**
+     * Starts timing a stage.
+     *
+     * @return the current time, or {@link #NOT_TIMED} if recording is off
+     */
+    static long start() {
+        if (!enabled) {
+            return NOT_TIMED;
+        }
+        return System.nanoTime();
+    }
+
+    /**
+     * Records the latency of a stage, which becomes the start of the
+     * next one.
+     *
+     * @param contractType the contract type calculated
+     * @param stage the stage that finished
+     * @param start the value of {@link #start()} or of the previous call
+     * @return the current time, or {@link #NOT_TIMED} if start was
+     */
+    static long record(final ContractType contractType,
+                       final CalculationStage stage, final long start) {
+        if (start == NOT_TIMED) {
+            return NOT_TIMED;
+        }
+        long now = System.nanoTime();
+        histogram(contractType, stage).record(now - start);
+        return now;
+    }
+
+    /**
+     * Summarizes the latencies of a stage.
+     *
+     * @param contractType the contract type
+     * @param stage the stage
+     * @return the summary
+     * @throws IllegalArgumentException if an argument is null
+     */
+    public static LatencySummary summary(final ContractType contractType,
+                                         final CalculationStage stage) {
+        if (contractType == null || stage == null) {
+            throw new IllegalArgumentException(
+                    "Contract type and stage cannot be null");
+        }
+        return histogram(contractType, stage).summary();
+    }
+
+    /**
+     * Summarizes every stage with recorded latencies.
+     *
+     * @return summaries keyed by {@code CONTRACT_TYPE.STAGE} in contract
+     *         and stage order
+     */
+    public static Map<String, LatencySummary> summaries() {
+        Map<String, LatencySummary> summaries = new LinkedHashMap<>();
+        for (ContractType type : ContractType.values()) {
+            for (CalculationStage stage : CalculationStage.values()) {
+                LatencySummary summary = histogram(type, stage).summary();
+                if (summary.getCount() > 0) {
+                    summaries.put(type + "." + stage, summary);
+                }
+            }
+        }
+        return summaries;
+    }
+
+    /**
+     * Returns the recorded latencies as text, one line per contract type
+     * and stage with recorded values.
+     *
+     * @return the text, each line ended by a line feed
+     */
+    public static String dump() {
+        StringBuilder out = new StringBuilder();
+        for (Map.Entry<String, LatencySummary> entry
+                : summaries().entrySet()) {
+            out.append(entry.getKey()).append(' ')
+                    .append(entry.getValue()).append('\n');
+        }
+        return out.toString();
+    }
+
+    /**
+     * Forgets every recorded latency.
+     */
+    public static void reset() {
+        for (LatencyHistogram histogram : HISTOGRAMS) {
+            histogram.reset();
+        }
+    }
+
+    /**
+     * Registers the {@link TaxMetricsMXBean} with the platform MBean
+     * server as {@value #OBJECT_NAME}, unless already registered.
+     *
+     * @throws IllegalStateException if the bean cannot be registered
+     */
+    public static synchronized void registerMBean() {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            ObjectName name = new ObjectName(OBJECT_NAME);
+            if (!server.isRegistered(name)) {
+                server.registerMBean(new StandardMBean(new Bean(),
+                        TaxMetricsMXBean.class, true), name);
+            }
+        } catch (InstanceAlreadyExistsException e) {
+            return;
+        } catch (JMException e) {
+            throw new IllegalStateException(
+                    "Cannot register " + OBJECT_NAME, e);
+        }
+    }
+
+    /**
+     * Returns the histogram of a stage.
+     *
+     * @param contractType the contract type
+     * @param stage the stage
+     * @return the histogram
+     */
+    private static LatencyHistogram histogram(
+            final ContractType contractType, final CalculationStage stage) {
+        return HISTOGRAMS[contractType.ordinal() * STAGE_COUNT
+                + stage.ordinal()];
+    }
+
+    /**
+     * Management bean delegating to the static recorder.
+     */
+    private static final class Bean implements TaxMetricsMXBean {
+
+        @Override
+        public boolean isEnabled() {
+            return TaxMetrics.isEnabled();
+        }
+
+        @Override
+        public void setEnabled(final boolean enabledValue) {
+            TaxMetrics.setEnabled(enabledValue);
+        }
+
+        @Override
+        public Map<String, LatencySummary> getLatencies() {
+            return summaries();
+        }
+
+        @Override
+        public String dump() {
+            return TaxMetrics.dump();
+        }
+
+        @Override
+        public void reset() {
+            TaxMetrics.reset();
+        }
+    }
+}
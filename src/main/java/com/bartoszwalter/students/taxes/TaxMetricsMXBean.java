@@ -0,0 +1,44 @@
+package com.bartoszwalter.students.taxes;
+
+import java.util.Map;
+
+/**
+ * Management interface of {@link TaxMetrics}, registered as
+ * {@value TaxMetrics#OBJECT_NAME}.
+ */
+public interface TaxMetricsMXBean {
+
+    /**
+     * Tells whether latencies are recorded.
+     *
+     * @return true if recording
+     */
+    boolean isEnabled();
+
+    /**
+     * Starts or stops recording latencies.
+     *
+     * @param enabled true to record
+     */
+    void setEnabled(boolean enabled);
+
+    /**
+     * Returns the latencies recorded so far.
+     *
+     * @return summaries keyed by {@code CONTRACT_TYPE.STAGE}, only for
+     *         pairs with recorded values
+     */
+    Map<String, LatencySummary> getLatencies();
+
+    /**
+     * Returns the recorded latencies as text.
+     *
+     * @return one line per contract type and stage
+     */
+    String dump();
+
+    /**
+     * Forgets every recorded latency.
+     */
+    void reset();
+}
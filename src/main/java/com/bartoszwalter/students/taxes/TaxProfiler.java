@@ -0,0 +1,161 @@
+package com.bartoszwalter.students.taxes;
+
+import java.util.Locale;
+
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingStream;
+
+/**
+ * Streams the calculator's Flight Recorder events during a run and sums
+ * the time and heap allocation of each stage: input parsing, calculation
+ * and formatting. Stages running on several threads at once are summed,
+ * so their total can exceed the run time.
+ */
+public final class TaxProfiler implements AutoCloseable {
+
+    /**
+     * Names of the events of each stage.
+     */
+    private static final String[] EVENTS = {
+        InputParsingEvent.NAME, CalculationEvent.NAME, FormattingEvent.NAME,
+    };
+
+    /**
+     * Labels of each stage in the report.
+     */
+    private static final String[] LABELS = {
+        "Input parsing", "Calculation", "Formatting",
+    };
+
+    /**
+     * Nanoseconds in a millisecond.
+     */
+    private static final double NANOS_PER_MILLI = 1_000_000.0;
+
+    /**
+     * Nanoseconds in a microsecond.
+     */
+    private static final double NANOS_PER_MICRO = 1_000.0;
+
+    /**
+     * Factor turning a fraction into a percentage.
+     */
+    private static final double PERCENT = 100.0;
+
+    /**
+     * Format of a report row.
+     */
+    private static final String ROW = "%-14s %10d %12.3f %10.3f %14d %10d%n";
+
+    /**
+     * Stream receiving the events.
+     */
+    private final RecordingStream stream;
+
+    /**
+     * Number of events of each stage, also guarding the other totals,
+     * which the stream's thread updates.
+     */
+    private final long[] counts = new long[EVENTS.length];
+
+    /**
+     * Total duration of each stage in nanoseconds.
+     */
+    private final long[] nanos = new long[EVENTS.length];
+
+    /**
+     * Total allocation of each stage in bytes.
+     */
+    private final long[] bytes = new long[EVENTS.length];
+
+    /**
+     * Time the profiler started.
+     */
+    private final long startNanos;
+
+    /**
+     * Run time, or -1 while recording; guarded by the stream.
+     */
+    private long runNanos = -1;
+
+    /**
+     * Starts recording the stage events.
+     */
+    private TaxProfiler() {
+        this.stream = new RecordingStream();
+        for (int i = 0; i < EVENTS.length; i++) {
+            int stage = i;
+            stream.enable(EVENTS[i]).withoutStackTrace();
+            stream.onEvent(EVENTS[i], event -> add(stage, event));
+        }
+        stream.startAsync();
+        this.startNanos = System.nanoTime();
+    }
+
+    /**
+     * Starts profiling.
+     *
+     * @return the running profiler
+     */
+    public static TaxProfiler start() {
+        return new TaxProfiler();
+    }
+
+    /**
+     * Stops recording on first call and returns the breakdown.
+     *
+     * @return one line per stage with its count, total and mean time,
+     *         and total and mean allocation, followed by the run time
+     */
+    public String report() {
+        long run;
+        synchronized (stream) {
+            if (runNanos < 0) {
+                runNanos = System.nanoTime() - startNanos;
+                stream.stop();
+            }
+            run = runNanos;
+        }
+        StringBuilder out = new StringBuilder(String.format(Locale.ROOT,
+                "%-14s %10s %12s %10s %14s %10s%n", "Stage", "Count",
+                "Total ms", "Mean us", "Alloc bytes", "Bytes/op"));
+        long stageNanos = 0;
+        synchronized (counts) {
+            for (int i = 0; i < EVENTS.length; i++) {
+                long count = Math.max(1, counts[i]);
+                out.append(String.format(Locale.ROOT, ROW, LABELS[i],
+                        counts[i], nanos[i] / NANOS_PER_MILLI,
+                        nanos[i] / NANOS_PER_MICRO / count, bytes[i],
+                        bytes[i] / count));
+                stageNanos += nanos[i];
+            }
+        }
+        out.append(String.format(Locale.ROOT,
+                "Run time %.3f ms, %.1f%% in the stages above%n",
+                run / NANOS_PER_MILLI,
+                PERCENT * stageNanos / Math.max(1, run)));
+        return out.toString();
+    }
+
+    /**
+     * Stops recording and releases the stream.
+     */
+    @Override
+    public void close() {
+        stream.close();
+    }
+
+    /**
+     * Adds an event to the totals of its stage.
+     *
+     * @param stage the stage index
+     * @param event the recorded event
+     */
+    private void add(final int stage, final RecordedEvent event) {
+        synchronized (counts) {
+            counts[stage]++;
+            nanos[stage] += event.getDuration().toNanos();
+            bytes[stage] += event.getLong("allocated");
+        }
+    }
+}
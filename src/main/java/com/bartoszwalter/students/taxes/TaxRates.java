@@ -4,6 +4,8 @@ import java.math.BigDecimal;
 
 /**
  * Contains tax rate constants used in calculations.
+ * They make up {@link RatePlan#DEFAULT}; other years are loaded as
+ * rate tables.
  */
 public final class TaxRates {
 
@@ -0,0 +1,162 @@
+package com.bartoszwalter.students.taxes;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+
+/**
+ * Line protocol of the long-lived modes: the {@code --repl} command line
+ * and {@link TaxDaemon} connections.
+ * <p>
+ * Each input line holds an income and a contract type separated by
+ * whitespace, for example {@code 5000 E}, and is answered by one line
+ * holding the result as the JSON object of {@link TaxHttpServer}, or an
+ * {@code error} object. Blank lines and lines starting with '#' are
+ * skipped without an answer, and lines longer than
+ * {@value #MAX_LINE_CHARS} characters are answered with an error
+ * without being held in memory. Answers are flushed whenever no further
+ * input is buffered, so a piped file is written in blocks while an
+ * interactive caller sees each answer at once.
+ * </p>
+ */
+public final class TaxRepl {
+
+    /**
+     * Prefix of comment lines.
+     */
+    private static final char COMMENT_PREFIX = '#';
+
+    /**
+     * Number of fields in a request line.
+     */
+    private static final int FIELD_COUNT = 2;
+
+    /**
+     * Largest accepted request line in characters.
+     */
+    static final int MAX_LINE_CHARS = 256;
+
+    /**
+     * Calculator answering every line.
+     */
+    private final TaxCalculator calculator;
+
+    /**
+     * Creates a REPL answering with the given calculator.
+     *
+     * @param calculatorValue the calculator, shared by concurrent sessions
+     * @throws IllegalArgumentException if calculatorValue is null
+     */
+    public TaxRepl(final TaxCalculator calculatorValue) {
+        if (calculatorValue == null) {
+            throw new IllegalArgumentException("Calculator cannot be null");
+        }
+        this.calculator = calculatorValue;
+    }
+
+    /**
+     * Answers every line of the input until it ends. Invalid lines are
+     * answered with an error and do not end the session.
+     *
+     * @param input the request lines
+     * @param output the writer receiving the answers, flushed but left
+     *               open
+     * @return the number of answered lines
+     * @throws IOException if an I/O error occurs
+     */
+    public long serve(final BufferedReader input, final Writer output)
+            throws IOException {
+        long count = 0;
+        for (String line = readLine(input); line != null;
+                line = readLine(input)) {
+            String answer;
+            if (line.length() > MAX_LINE_CHARS) {
+                answer = TaxJson.error("Line must be at most "
+                        + MAX_LINE_CHARS + " characters");
+            } else {
+                answer = answer(line);
+            }
+            if (answer != null) {
+                output.write(answer);
+                output.write('\n');
+                count++;
+            }
+            if (!input.ready()) {
+                output.flush();
+            }
+        }
+        output.flush();
+        return count;
+    }
+
+    /**
+     * Answers one request line.
+     *
+     * @param line the line holding an income and a contract type
+     * @return the JSON answer, or null for a blank or comment line
+     */
+    String answer(final String line) {
+        String trimmed = line.trim();
+        if (trimmed.isEmpty() || trimmed.charAt(0) == COMMENT_PREFIX) {
+            return null;
+        }
+
+        String[] fields = trimmed.split("\\s+");
+        if (fields.length != FIELD_COUNT) {
+            return TaxJson.error("Expected an income and a contract type");
+        }
+        try {
+            BigDecimal income = TaxInputReader.parseRequestIncome(fields[0]);
+            ContractType contractType =
+                    TaxInputReader.parseContractType(fields[1]);
+            return TaxJson.toJson(calculator.calculateTax(income,
+                    contractType), contractType);
+        } catch (IllegalArgumentException e) {
+            return TaxJson.error(e.getMessage());
+        }
+    }
+
+    /**
+     * Reads one line ended by a line feed, dropping a carriage return
+     * before it. Only the first {@value #MAX_LINE_CHARS} + 1 characters
+     * are kept; the rest of a longer line is skipped.
+     *
+     * @param input the request lines
+     * @return the line, longer than {@value #MAX_LINE_CHARS} characters
+     *         if it was cut, or null at the end of the input
+     * @throws IOException if an I/O error occurs
+     */
+    private static String readLine(final BufferedReader input)
+            throws IOException {
+        int c = input.read();
+        if (c < 0) {
+            return null;
+        }
+        StringBuilder line = new StringBuilder();
+        boolean carriageReturn = false;
+        while (c >= 0 && c != '\n') {
+            if (carriageReturn) {
+                append(line, '\r');
+            }
+            carriageReturn = c == '\r';
+            if (!carriageReturn) {
+                append(line, (char) c);
+            }
+            c = input.read();
+        }
+        return line.toString();
+    }
+
+    /**
+     * Appends a character unless the line is already too long.
+     *
+     * @param line the line read so far
+     * @param c the character to append
+     */
+    private static void append(final StringBuilder line, final char c) {
+        if (line.length() <= MAX_LINE_CHARS) {
+            line.append(c);
+        }
+    }
+}
@@ -14,6 +14,7 @@ import java.math.BigDecimal;
  * @param taxFreeIncome Tax-free income of the person.
  * @param finalTax Final tax of the person.
  * @param netIncome Net income of the person.
+ * @param rateVersion Version of the rate plan that produced the result.
  */
 public record TaxResult(BigDecimal grossIncome,
                         SocialContributions socialContributions,
@@ -23,5 +24,6 @@ public record TaxResult(BigDecimal grossIncome,
                         BigDecimal advanceTax,
                         BigDecimal taxFreeIncome,
                         BigDecimal finalTax,
-                        BigDecimal netIncome) {
+                        BigDecimal netIncome,
+                        String rateVersion) {
 }
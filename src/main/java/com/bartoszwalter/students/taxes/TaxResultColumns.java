@@ -0,0 +1,76 @@
+package com.bartoszwalter.students.taxes;
+
+/**
+ * Results of a batch stored as one {@code long} column per
+ * {@link TaxField}. Row {@code i} of every column belongs to the
+ * {@code i}-th income of the batch; values are unscaled at the scale
+ * of their field.
+ */
+public final class TaxResultColumns {
+
+    /**
+     * Columns indexed by field ordinal.
+     */
+    private final long[][] columns;
+
+    /**
+     * Number of rows.
+     */
+    private final int size;
+
+    /**
+     * Creates zero-filled columns.
+     *
+     * @param sizeValue the number of rows
+     * @throws IllegalArgumentException if sizeValue is negative
+     */
+    public TaxResultColumns(final int sizeValue) {
+        if (sizeValue < 0) {
+            throw new IllegalArgumentException(
+                    "Size must be non-negative");
+        }
+        this.size = sizeValue;
+        this.columns = new long[TaxField.values().length][sizeValue];
+    }
+
+    /**
+     * Returns the number of rows.
+     *
+     * @return the number of rows
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the backing array of a column.
+     *
+     * @param field the field of the column
+     * @return the column, not a copy
+     */
+    public long[] column(final TaxField field) {
+        return columns[field.ordinal()];
+    }
+
+    /**
+     * Returns a single unscaled value.
+     *
+     * @param field the field to read
+     * @param row the row to read
+     * @return the value, unscaled at the field's scale
+     */
+    public long get(final TaxField field, final int row) {
+        return columns[field.ordinal()][row];
+    }
+
+    /**
+     * Stores a single unscaled value.
+     *
+     * @param field the field to write
+     * @param row the row to write
+     * @param unscaledValue the value, unscaled at the field's scale
+     */
+    void set(final TaxField field, final int row, final long unscaledValue) {
+        columns[field.ordinal()][row] = unscaledValue;
+    }
+}
@@ -2,6 +2,7 @@ package com.bartoszwalter.students.taxes;
 
 import java.math.BigDecimal;
 import java.text.DecimalFormat;
+import java.util.logging.Level;
 import java.util.logging.Logger;
 
 /**
@@ -21,98 +22,151 @@ public class TaxResultFormatter {
     private static final String ROUNDED_LABEL = " rounded = ";
 
     /**
-     * Displays the tax calculation result.
+     * Separator ending each formatted line.
+     */
+    private static final String LINE_SEPARATOR = System.lineSeparator();
+
+    /**
+     * Format of amounts with two decimal places, one per thread since
+     * DecimalFormat is not thread-safe.
+     */
+    private static final ThreadLocal<DecimalFormat> DECIMAL_FORMAT =
+            ThreadLocal.withInitial(() -> new DecimalFormat("#.00"));
+
+    /**
+     * Format of amounts rounded to integers, one per thread.
+     */
+    private static final ThreadLocal<DecimalFormat> INTEGER_FORMAT =
+            ThreadLocal.withInitial(() -> new DecimalFormat("#"));
+
+    /**
+     * Displays the tax calculation result, logging each line. Nothing is
+     * formatted unless the logger records information messages.
      *
      * @param result the tax result to display
      * @param contractType the contract type
      */
     public void displayResult(final TaxResult result,
                               final ContractType contractType) {
-        LOGGER.info(() -> String.format("Contract Type: %s",
-                contractType.getDisplayName()));
-
-        LOGGER.info(() -> String.format("Gross Income: %s",
-            formatDecimal(result.grossIncome())));
-
-        displaySocialContributions(result.socialContributions());
-        displayHealthInsurance(result);
-        displayTaxCalculation(result);
+        if (!LOGGER.isLoggable(Level.INFO)) {
+            return;
+        }
+        StringBuilder text = new StringBuilder();
+        format(result, contractType, text);
+
+        int start = 0;
+        int end = text.indexOf(LINE_SEPARATOR);
+        while (end >= 0) {
+            LOGGER.info(text.substring(start, end));
+            start = end + LINE_SEPARATOR.length();
+            end = text.indexOf(LINE_SEPARATOR, start);
+        }
+    }
 
-        LOGGER.info(() -> String.format("Net Income: %s",
-            formatDecimal(result.netIncome())));
-        LOGGER.info("");
+    /**
+     * Appends the lines describing a tax calculation result, each ended
+     * by the platform line separator and followed by an empty line.
+     *
+     * @param result the tax result to format
+     * @param contractType the contract type
+     * @param out the text to append to
+     */
+    public void format(final TaxResult result,
+                       final ContractType contractType,
+                       final StringBuilder out) {
+        StageTimer event = StageTimer.formatting(contractType);
+        long start = TaxMetrics.start();
+        line(out.append("Contract Type: ")
+                .append(contractType.getDisplayName()));
+        line(out.append("Gross Income: ")
+                .append(formatDecimal(result.grossIncome())));
+
+        formatSocialContributions(result.socialContributions(), out);
+        formatHealthInsurance(result, out);
+        formatTaxCalculation(result, out);
+
+        line(out.append("Net Income: ")
+                .append(formatDecimal(result.netIncome())));
+        line(out);
+        TaxMetrics.record(contractType, CalculationStage.FORMATTING, start);
+        event.finish();
     }
 
     /**
-     * Displays social contributions.
+     * Formats social contributions.
      *
      * @param contributions the social contributions
+     * @param out the text to append to
      */
-    private void displaySocialContributions(
-            final SocialContributions contributions) {
-        LOGGER.info(() -> String.format("Social security tax: %s",
-                formatDecimal(contributions.getSocialSecurity())));
-
-        LOGGER.info(() -> String.format(
-                "Health social security tax: %s",
+    private void formatSocialContributions(
+            final SocialContributions contributions,
+            final StringBuilder out) {
+        line(out.append("Social security tax: ")
+                .append(formatDecimal(contributions.getSocialSecurity())));
+        line(out.append("Health social security tax: ").append(
                 formatDecimal(contributions.getHealthSocialSecurity())));
-
-        LOGGER.info(() -> String.format(
-                "Sickness social security tax: %s",
+        line(out.append("Sickness social security tax: ").append(
                 formatDecimal(contributions.getSicknessSocialSecurity())));
     }
 
     /**
-     * Displays health insurance information.
+     * Formats health insurance information.
      *
      * @param result the tax result
+     * @param out the text to append to
      */
-    private void displayHealthInsurance(final TaxResult result) {
+    private void formatHealthInsurance(final TaxResult result,
+                                       final StringBuilder out) {
         HealthInsurance health = result.healthInsurance();
 
-        LOGGER.info(() -> String.format(
-                "Income basis for health social security: %s",
-                formatDecimal(result.grossIncome())));
-
-        LOGGER.info(() -> String.format(
-                "Health social security tax: 9%% = %s, 7.75%% = %s",
-                formatDecimal(health.getFullRate()),
-                formatDecimal(health.getDeductibleRate())));
+        line(out.append("Income basis for health social security: ")
+                .append(formatDecimal(result.grossIncome())));
+        line(out.append("Health social security tax: 9% = ")
+                .append(formatDecimal(health.getFullRate()))
+                .append(", 7.75% = ")
+                .append(formatDecimal(health.getDeductibleRate())));
     }
 
     /**
-     * Displays tax calculation details.
+     * Formats tax calculation details.
      *
      * @param result the tax result
+     * @param out the text to append to
      */
-    private void displayTaxCalculation(final TaxResult result) {
-        LOGGER.info(() -> String.format(
-                "Tax deductible expenses: %s",
-                formatDecimal(result.taxDeductibleExpenses())));
-
-        LOGGER.info(() -> String.format("Income to be taxed: %s%s%s",
-                formatDecimal(result.taxableIncome()),
-                ROUNDED_LABEL,
-                formatInteger(result.taxableIncome())));
-
-        LOGGER.info(() -> String.format("Advance tax 18%%: %s",
-                formatDecimal(result.advanceTax())));
+    private void formatTaxCalculation(final TaxResult result,
+                                      final StringBuilder out) {
+        line(out.append("Tax deductible expenses: ")
+                .append(formatDecimal(result.taxDeductibleExpenses())));
+        line(out.append("Income to be taxed: ")
+                .append(formatDecimal(result.taxableIncome()))
+                .append(ROUNDED_LABEL)
+                .append(formatInteger(result.taxableIncome())));
+        line(out.append("Advance tax 18%: ")
+                .append(formatDecimal(result.advanceTax())));
 
         if (result.taxFreeIncome().compareTo(BigDecimal.ZERO) > 0) {
-            LOGGER.info(() -> String.format("Tax free income: %s",
-                    formatDecimal(result.taxFreeIncome())));
+            line(out.append("Tax free income: ")
+                    .append(formatDecimal(result.taxFreeIncome())));
 
             BigDecimal reducedTax =
                     result.advanceTax().subtract(result.taxFreeIncome());
-            LOGGER.info(() -> String.format("Reduced tax: %s",
-                    formatDecimal(reducedTax)));
+            line(out.append("Reduced tax: ")
+                    .append(formatDecimal(reducedTax)));
         }
 
-        LOGGER.info(() -> String.format(
-                "Advance tax paid: %s%s%s",
-                formatDecimal(result.finalTax()),
-                ROUNDED_LABEL,
-                formatInteger(result.finalTax())));
+        line(out.append("Advance tax paid: ")
+                .append(formatDecimal(result.finalTax()))
+                .append(ROUNDED_LABEL)
+                .append(formatInteger(result.finalTax())));
+    }
+
+    /**
+     * Ends the current line.
+     *
+     * @param out the text to append to
+     */
+    private static void line(final StringBuilder out) {
+        out.append(LINE_SEPARATOR);
     }
 
     /**
@@ -121,9 +175,8 @@ public class TaxResultFormatter {
      * @param value the value to format
      * @return formatted string
      */
-    private String formatDecimal(final BigDecimal value) {
-        DecimalFormat formatter = new DecimalFormat("#.00");
-        return formatter.format(value);
+    private static String formatDecimal(final BigDecimal value) {
+        return DECIMAL_FORMAT.get().format(value);
     }
 
     /**
@@ -132,8 +185,7 @@ public class TaxResultFormatter {
      * @param value the value to format
      * @return formatted string
      */
-    private String formatInteger(final BigDecimal value) {
-        DecimalFormat formatter = new DecimalFormat("#");
-        return formatter.format(value);
+    private static String formatInteger(final BigDecimal value) {
+        return INTEGER_FORMAT.get().format(value);
     }
 }
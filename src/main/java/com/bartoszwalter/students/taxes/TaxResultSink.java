@@ -0,0 +1,35 @@
+package com.bartoszwalter.students.taxes;
+
+/**
+ * Receives the values of a tax calculation one field at a time.
+ * <p>
+ * Lets a batch reuse a single mutable buffer, such as
+ * {@link MutableTaxResult}, instead of building a {@link TaxResult}
+ * for every record. Values are unscaled at the scale of their
+ * {@link TaxField}.
+ * </p>
+ */
+@FunctionalInterface
+public interface TaxResultSink {
+
+    /**
+     * Accepts a calculated value.
+     *
+     * @param field the calculated field
+     * @param unscaledValue the value, unscaled at the field's scale
+     */
+    void accept(TaxField field, long unscaledValue);
+
+    /**
+     * Writes every field of a result into a sink.
+     *
+     * @param result the result to write
+     * @param sink the sink receiving the values
+     * @throws ArithmeticException if a value does not fit its field
+     */
+    static void writeTo(final TaxResult result, final TaxResultSink sink) {
+        for (TaxField field : TaxField.values()) {
+            sink.accept(field, field.toUnscaled(field.valueOf(result)));
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package com.bartoszwalter.students.taxes;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+
+/**
+ * Destination of displayed tax calculation results.
+ * <p>
+ * Implementations may buffer results; they are guaranteed to be written
+ * only after {@link #flush()} or {@link #close()}.
+ * </p>
+ */
+public interface TaxResultWriter extends Closeable, Flushable {
+
+    /**
+     * Writes a tax calculation result.
+     *
+     * @param result the tax result to write
+     * @param contractType the contract type
+     * @throws IOException if the result cannot be written
+     */
+    void write(TaxResult result, ContractType contractType)
+            throws IOException;
+}
@@ -0,0 +1,386 @@
+package com.bartoszwalter.students.taxes;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.LongVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Columnar kernel evaluating whole vectors of rows with the
+ * {@code jdk.incubator.vector} API.
+ * <p>
+ * Both contract types share one formula: a civil contract uses the
+ * income after social contributions as its basis and the civil
+ * deductible rate of it as deductible expenses, an employment contract
+ * the gross income and the fixed expenses. Rates and amounts come from
+ * the {@link RatePlan} the kernel is created with. Lanes are blended by
+ * contract type. Division by a constant is estimated in double
+ * precision and then corrected with the exact integer remainder, which
+ * is exact while the dividend stays below 2^53; {@link #supports(long)}
+ * limits incomes accordingly. The helpers are kept small so that the
+ * JIT inlines them and the vectors never leave registers.
+ * </p>
+ */
+final class VectorColumnarKernel implements ColumnarKernel {
+
+    /**
+     * Species used for all long lanes.
+     */
+    private static final VectorSpecies<Long> LONGS =
+            LongVector.SPECIES_PREFERRED;
+
+    /**
+     * Number of significand bits of a double.
+     */
+    private static final int DOUBLE_PRECISION = 53;
+
+    /**
+     * Largest dividend of a percentage calculated exactly.
+     */
+    private static final long MAX_EXACT_DIVIDEND =
+            (1L << DOUBLE_PRECISION) - FixedPointMath.PERCENTAGE_DIVISOR_BP;
+
+    /**
+     * Social security rate in basis points.
+     */
+    private final long socialSecurityBp;
+
+    /**
+     * Health social security rate in basis points.
+     */
+    private final long healthSocialSecurityBp;
+
+    /**
+     * Sickness social security rate in basis points.
+     */
+    private final long sicknessSocialSecurityBp;
+
+    /**
+     * Full health insurance rate in basis points.
+     */
+    private final long healthInsuranceFullBp;
+
+    /**
+     * Deductible health insurance rate in basis points.
+     */
+    private final long healthInsuranceDeductibleBp;
+
+    /**
+     * Advance tax rate in basis points.
+     */
+    private final long advanceTaxBp;
+
+    /**
+     * Civil contract deductible expenses rate in basis points.
+     */
+    private final long civilContractDeductibleBp;
+
+    /**
+     * Employment contract deductible expenses in grosze.
+     */
+    private final long employmentDeductibleCents;
+
+    /**
+     * Monthly tax-free income in grosze.
+     */
+    private final long taxFreeIncomeCents;
+
+    /**
+     * Largest gross income in grosze calculated exactly.
+     */
+    private final long maxExactCents;
+
+    /**
+     * Kernel used for the rows after the last full vector.
+     */
+    private final ScalarColumnarKernel tail;
+
+    /**
+     * Creates a kernel for a rate plan.
+     *
+     * @param plan the rate plan to apply
+     */
+    VectorColumnarKernel(final RatePlan plan) {
+        this.socialSecurityBp = plan.basisPoints(RatePlan.Rate.SOCIAL_SECURITY);
+        this.healthSocialSecurityBp =
+                plan.basisPoints(RatePlan.Rate.HEALTH_SOCIAL_SECURITY);
+        this.sicknessSocialSecurityBp =
+                plan.basisPoints(RatePlan.Rate.SICKNESS_SOCIAL_SECURITY);
+        this.healthInsuranceFullBp =
+                plan.basisPoints(RatePlan.Rate.HEALTH_INSURANCE_FULL);
+        this.healthInsuranceDeductibleBp =
+                plan.basisPoints(RatePlan.Rate.HEALTH_INSURANCE_DEDUCTIBLE);
+        this.advanceTaxBp = plan.basisPoints(RatePlan.Rate.ADVANCE_TAX);
+        this.civilContractDeductibleBp =
+                plan.basisPoints(RatePlan.Rate.CIVIL_CONTRACT_DEDUCTIBLE);
+        this.employmentDeductibleCents = plan.getEmploymentDeductibleCents();
+        this.taxFreeIncomeCents = plan.getTaxFreeIncomeCents();
+        long maxRate = 1;
+        for (RatePlan.Rate rate : RatePlan.Rate.values()) {
+            maxRate = Math.max(maxRate, plan.basisPoints(rate));
+        }
+        this.maxExactCents = Math.min(MAX_EXACT_DIVIDEND / maxRate,
+                plan.getMaxCents());
+        this.tail = new ScalarColumnarKernel(plan);
+    }
+
+    @Override
+    public void calculate(final long[] grossCents,
+                          final byte[] contractCodes,
+                          final TaxResultColumns results, final int from,
+                          final int to) {
+        int bound = from + LONGS.loopBound(to - from);
+        contributions(grossCents, results, from, bound);
+        healthAndExpenses(contractCodes, results, from, bound);
+        advanceTax(contractCodes, results, from, bound);
+        finalTax(results, from, bound);
+        tail.calculate(grossCents, contractCodes, results, bound, to);
+    }
+
+    /**
+     * Copies the gross incomes and calculates the social contributions.
+     *
+     * @param grossCents gross incomes in grosze
+     * @param results the columns to fill
+     * @param from the first row
+     * @param to the row after the last full vector
+     */
+    private void contributions(final long[] grossCents,
+                               final TaxResultColumns results,
+                               final int from, final int to) {
+        long[] gross = results.column(TaxField.GROSS_INCOME);
+        long[] socialSecurity = results.column(TaxField.SOCIAL_SECURITY);
+        long[] healthSocial =
+                results.column(TaxField.HEALTH_SOCIAL_SECURITY);
+        long[] sickness = results.column(TaxField.SICKNESS_SOCIAL_SECURITY);
+        for (int row = from; row < to; row += LONGS.length()) {
+            LongVector income = LongVector.fromArray(LONGS, grossCents, row);
+            income.intoArray(gross, row);
+            percentOf(income, socialSecurityBp)
+                    .intoArray(socialSecurity, row);
+            percentOf(income, healthSocialSecurityBp)
+                    .intoArray(healthSocial, row);
+            percentOf(income, sicknessSocialSecurityBp)
+                    .intoArray(sickness, row);
+        }
+    }
+
+    /**
+     * Calculates the health insurance, deductible expenses and tax-free
+     * income from the contribution columns.
+     *
+     * @param contractCodes contract type codes of the rows
+     * @param results the columns to fill
+     * @param from the first row
+     * @param to the row after the last full vector
+     */
+    private void healthAndExpenses(final byte[] contractCodes,
+                                   final TaxResultColumns results,
+                                   final int from, final int to) {
+        long[] healthFull = results.column(TaxField.HEALTH_INSURANCE_FULL);
+        long[] healthDeductible =
+                results.column(TaxField.HEALTH_INSURANCE_DEDUCTIBLE);
+        long[] deductible = results.column(TaxField.TAX_DEDUCTIBLE_EXPENSES);
+        long[] taxFree = results.column(TaxField.TAX_FREE_INCOME);
+        LongVector fixedExpenses = LongVector.broadcast(LONGS,
+                employmentDeductibleCents);
+        LongVector freeIncome = LongVector.broadcast(LONGS,
+                taxFreeIncomeCents);
+        for (int row = from; row < to; row += LONGS.length()) {
+            VectorMask<Long> isCivil = civilLanes(contractCodes, row);
+            LongVector basis = basis(results, row, isCivil);
+            percentOf(basis, healthInsuranceFullBp)
+                    .intoArray(healthFull, row);
+            percentOf(basis, healthInsuranceDeductibleBp)
+                    .intoArray(healthDeductible, row);
+            fixedExpenses.blend(percentOf(basis,
+                    civilContractDeductibleBp), isCivil)
+                    .intoArray(deductible, row);
+            freeIncome.blend(0, isCivil).intoArray(taxFree, row);
+        }
+    }
+
+    /**
+     * Calculates the taxable income and advance tax from the columns
+     * filled by the earlier stages.
+     *
+     * @param contractCodes contract type codes of the rows
+     * @param results the columns to fill
+     * @param from the first row
+     * @param to the row after the last full vector
+     */
+    private void advanceTax(final byte[] contractCodes,
+                            final TaxResultColumns results,
+                            final int from, final int to) {
+        long[] deductible = results.column(TaxField.TAX_DEDUCTIBLE_EXPENSES);
+        long[] taxable = results.column(TaxField.TAXABLE_INCOME);
+        long[] advance = results.column(TaxField.ADVANCE_TAX);
+        for (int row = from; row < to; row += LONGS.length()) {
+            VectorMask<Long> isCivil = civilLanes(contractCodes, row);
+            LongVector taxableUnits = truncatedUnits(
+                    basis(results, row, isCivil)
+                    .sub(LongVector.fromArray(LONGS, deductible, row)));
+            taxableUnits.intoArray(taxable, row);
+            percentOf(taxableUnits.mul(FixedPointMath.CENTS_PER_UNIT),
+                    advanceTaxBp).intoArray(advance, row);
+        }
+    }
+
+    /**
+     * Selects the lanes of a vector of rows with a civil contract.
+     *
+     * @param contractCodes contract type codes of the rows
+     * @param row the first row of the vector
+     * @return the mask of civil contract lanes
+     */
+    private static VectorMask<Long> civilLanes(final byte[] contractCodes,
+                                               final int row) {
+        long lanes = 0;
+        for (int lane = 0; lane < LONGS.length(); lane++) {
+            if (contractCodes[row + lane] == CIVIL_CODE) {
+                lanes |= 1L << lane;
+            }
+        }
+        return VectorMask.fromLong(LONGS, lanes);
+    }
+
+    /**
+     * Calculates the final tax and net income from the columns filled
+     * by the earlier stages.
+     *
+     * @param results the columns to fill
+     * @param from the first row
+     * @param to the row after the last full vector
+     */
+    private static void finalTax(final TaxResultColumns results,
+                                 final int from, final int to) {
+        long[] healthFull = results.column(TaxField.HEALTH_INSURANCE_FULL);
+        long[] healthDeductible =
+                results.column(TaxField.HEALTH_INSURANCE_DEDUCTIBLE);
+        long[] taxFree = results.column(TaxField.TAX_FREE_INCOME);
+        long[] advance = results.column(TaxField.ADVANCE_TAX);
+        long[] finalTax = results.column(TaxField.FINAL_TAX);
+        long[] net = results.column(TaxField.NET_INCOME);
+        for (int row = from; row < to; row += LONGS.length()) {
+            LongVector finalUnits = roundedUnits(
+                    LongVector.fromArray(LONGS, advance, row)
+                    .sub(LongVector.fromArray(LONGS, taxFree, row))
+                    .sub(LongVector.fromArray(LONGS, healthDeductible, row)));
+            finalUnits.intoArray(finalTax, row);
+            afterContributions(results, row)
+                    .sub(LongVector.fromArray(LONGS, healthFull, row))
+                    .sub(finalUnits.mul(FixedPointMath.CENTS_PER_UNIT))
+                    .intoArray(net, row);
+        }
+    }
+
+    /**
+     * Loads the gross income less social contributions of one vector.
+     *
+     * @param results the columns holding the contributions
+     * @param row the first row of the vector
+     * @return the income after social contributions in grosze
+     */
+    private static LongVector afterContributions(
+            final TaxResultColumns results, final int row) {
+        return LongVector.fromArray(LONGS,
+                        results.column(TaxField.GROSS_INCOME), row)
+                .sub(LongVector.fromArray(LONGS,
+                        results.column(TaxField.SOCIAL_SECURITY), row))
+                .sub(LongVector.fromArray(LONGS,
+                        results.column(TaxField.HEALTH_SOCIAL_SECURITY), row))
+                .sub(LongVector.fromArray(LONGS,
+                        results.column(TaxField.SICKNESS_SOCIAL_SECURITY),
+                        row));
+    }
+
+    /**
+     * Loads the health insurance and expenses basis of one vector: the
+     * income after contributions for civil contracts and the gross
+     * income otherwise.
+     *
+     * @param results the columns holding the contributions
+     * @param row the first row of the vector
+     * @param isCivil lanes calculated as civil contracts
+     * @return the basis in grosze
+     */
+    private static LongVector basis(final TaxResultColumns results,
+                                    final int row,
+                                    final VectorMask<Long> isCivil) {
+        return LongVector.fromArray(LONGS,
+                results.column(TaxField.GROSS_INCOME), row)
+                .blend(afterContributions(results, row), isCivil);
+    }
+
+    @Override
+    public boolean supports(final long grossCents) {
+        return grossCents <= maxExactCents;
+    }
+
+    /**
+     * Converts grosze to whole zlotys, truncating towards zero.
+     *
+     * @param cents amounts in grosze
+     * @return the amounts in zlotys
+     */
+    private static LongVector truncatedUnits(final LongVector cents) {
+        return floorDivide(cents.abs(), FixedPointMath.CENTS_PER_UNIT)
+                .lanewise(VectorOperators.NEG, cents.lt(0));
+    }
+
+    /**
+     * Converts grosze to whole zlotys, rounding half away from zero.
+     *
+     * @param cents amounts in grosze
+     * @return the amounts in zlotys
+     */
+    private static LongVector roundedUnits(final LongVector cents) {
+        return divideHalfUp(cents.abs(), FixedPointMath.CENTS_PER_UNIT)
+                .lanewise(VectorOperators.NEG, cents.lt(0));
+    }
+
+    /**
+     * Calculates a percentage in grosze, rounded half up.
+     *
+     * @param cents non-negative amounts in grosze
+     * @param rateBasisPoints the rate in basis points
+     * @return the percentages in grosze
+     */
+    private static LongVector percentOf(final LongVector cents,
+                                        final long rateBasisPoints) {
+        return divideHalfUp(cents.mul(rateBasisPoints),
+                FixedPointMath.PERCENTAGE_DIVISOR_BP);
+    }
+
+    /**
+     * Divides non-negative dividends by an even positive constant,
+     * rounding half up.
+     *
+     * @param dividend the dividends, below 2^53
+     * @param divisor the even positive divisor
+     * @return the quotients
+     */
+    private static LongVector divideHalfUp(final LongVector dividend,
+                                           final long divisor) {
+        return floorDivide(dividend.add(divisor / 2), divisor);
+    }
+
+    /**
+     * Divides non-negative dividends by a positive constant, truncating.
+     * The correctly rounded double quotient is never below the exact
+     * one, so it only needs lowering where the integer remainder is
+     * negative.
+     *
+     * @param dividend the dividends, below 2^53
+     * @param divisor the positive divisor
+     * @return the quotients
+     */
+    private static LongVector floorDivide(final LongVector dividend,
+                                          final long divisor) {
+        LongVector quotient = (LongVector) ((DoubleVector) dividend
+                .convert(VectorOperators.L2D, 0)).div(divisor)
+                .convert(VectorOperators.D2L, 0);
+        return quotient.sub(1, dividend.sub(quotient.mul(divisor)).lt(0));
+    }
+}
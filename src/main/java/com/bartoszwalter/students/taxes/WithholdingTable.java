@@ -0,0 +1,558 @@
+package com.bartoszwalter.students.taxes;
+
+import java.io.IOException;
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Memory-mapped table of precomputed results for every whole-zloty
+ * income of a range, shared through the page cache by every JVM mapping
+ * the same file.
+ * <p>
+ * The file starts with a {@value #HEADER_BYTES}-byte header: the magic
+ * number {@code TAXW}, the version and the number of fields per row as
+ * two bytes each, the first income in zloty and the number of rows as
+ * longs, a bit mask of the contract types by ordinal as an int, and the
+ * length of the rate version as two bytes, followed by two reserved
+ * bytes. The rate version follows in UTF-8, then one section of rows per
+ * contract type in ordinal order. A row holds every {@link TaxField} but
+ * the gross income, unscaled as in {@link TaxField#toUnscaled}, as ints.
+ * All numbers are little-endian.
+ * </p>
+ * <p>
+ * The strategies of {@link #strategies(RatePlan)} answer incomes of the
+ * table with one indexed read and calculate any other income with
+ * {@link FixedPointTaxStrategy}. The mapping may be read by any thread
+ * and is released by {@link #close()}.
+ * </p>
+ */
+public final class WithholdingTable implements AutoCloseable {
+
+    /**
+     * Magic number opening the file, {@code TAXW} in ASCII.
+     */
+    public static final int MAGIC = 0x57584154;
+
+    /**
+     * Version of the format.
+     */
+    public static final short VERSION = 1;
+
+    /**
+     * Size of the fixed part of the header in bytes.
+     */
+    public static final int HEADER_BYTES = 32;
+
+    /**
+     * System property naming a table the command line calculates with.
+     */
+    public static final String PATH_PROPERTY = "taxcalculator.table";
+
+    /**
+     * First income of the default range in zloty.
+     */
+    public static final long DEFAULT_FROM_ZLOTY = 0;
+
+    /**
+     * Last income of the default range in zloty.
+     */
+    public static final long DEFAULT_TO_ZLOTY = 50_000;
+
+    /**
+     * Fields stored in a row, in order.
+     */
+    private static final TaxField[] FIELDS = Arrays.stream(TaxField.values())
+            .filter(field -> field != TaxField.GROSS_INCOME)
+            .toArray(TaxField[]::new);
+
+    /**
+     * Size of a row in bytes.
+     */
+    public static final int ROW_BYTES = FIELDS.length * Integer.BYTES;
+
+    /**
+     * Offset of the version in the header.
+     */
+    private static final int VERSION_OFFSET = 4;
+
+    /**
+     * Offset of the field count in the header.
+     */
+    private static final int FIELD_COUNT_OFFSET = 6;
+
+    /**
+     * Offset of the first income in the header.
+     */
+    private static final int FROM_OFFSET = 8;
+
+    /**
+     * Offset of the row count in the header.
+     */
+    private static final int ROWS_OFFSET = 16;
+
+    /**
+     * Offset of the contract type mask in the header.
+     */
+    private static final int TYPES_OFFSET = 24;
+
+    /**
+     * Offset of the rate version length in the header.
+     */
+    private static final int RATE_VERSION_LENGTH_OFFSET = 28;
+
+    /**
+     * Rows written by the generator per buffer.
+     */
+    private static final int ROWS_PER_BUFFER = 4096;
+
+    /**
+     * Layout of the longs in the file, which are not aligned.
+     */
+    private static final ValueLayout.OfLong LONG =
+            ValueLayout.JAVA_LONG_UNALIGNED.withOrder(
+                    ByteOrder.LITTLE_ENDIAN);
+
+    /**
+     * Layout of the ints in the file.
+     */
+    private static final ValueLayout.OfInt INT =
+            ValueLayout.JAVA_INT_UNALIGNED.withOrder(
+                    ByteOrder.LITTLE_ENDIAN);
+
+    /**
+     * Layout of the header fields of two bytes.
+     */
+    private static final ValueLayout.OfShort SHORT =
+            ValueLayout.JAVA_SHORT_UNALIGNED.withOrder(
+                    ByteOrder.LITTLE_ENDIAN);
+
+    /**
+     * Arena owning the mapping.
+     */
+    private final Arena arena;
+
+    /**
+     * The mapped file.
+     */
+    private final MemorySegment segment;
+
+    /**
+     * First income of the table in zloty.
+     */
+    private final long fromZloty;
+
+    /**
+     * Number of rows per contract type.
+     */
+    private final long rows;
+
+    /**
+     * Version of the rates the table was generated with.
+     */
+    private final String rateVersion;
+
+    /**
+     * Offset of the section of each contract type by ordinal, or -1.
+     */
+    private final long[] sectionOffsets;
+
+    /**
+     * Wraps a validated mapping.
+     *
+     * @param arenaValue the arena owning the mapping
+     * @param segmentValue the mapped file
+     * @param rateVersionValue the version of the rates
+     * @param sectionOffsetsValue the offset of each section, or -1
+     */
+    private WithholdingTable(final Arena arenaValue,
+                             final MemorySegment segmentValue,
+                             final String rateVersionValue,
+                             final long[] sectionOffsetsValue) {
+        this.arena = arenaValue;
+        this.segment = segmentValue;
+        this.fromZloty = segmentValue.get(LONG, FROM_OFFSET);
+        this.rows = segmentValue.get(LONG, ROWS_OFFSET);
+        this.rateVersion = rateVersionValue;
+        this.sectionOffsets = sectionOffsetsValue;
+    }
+
+    /**
+     * Writes a table of the whole-zloty incomes of a range.
+     *
+     * @param path the file to write
+     * @param plan the rates to apply
+     * @param fromZloty the first income in zloty
+     * @param toZloty the last income in zloty
+     * @param contractTypes the contract types of the table
+     * @return the number of written rows
+     * @throws IOException if the file cannot be written
+     * @throws IllegalArgumentException if an argument is null, no
+     *                                  contract type is given, the range
+     *                                  is empty or negative, or a value
+     *                                  does not fit in an int
+     */
+    public static long generate(final Path path, final RatePlan plan,
+                                final long fromZloty, final long toZloty,
+                                final Set<ContractType> contractTypes)
+            throws IOException {
+        if (path == null || plan == null || contractTypes == null
+                || contractTypes.isEmpty()) {
+            throw new IllegalArgumentException(
+                    "Path, plan and contract types cannot be empty");
+        }
+        if (fromZloty < 0 || toZloty < fromZloty || toZloty
+                > plan.getMaxCents() / FixedPointMath.CENTS_PER_UNIT) {
+            throw new IllegalArgumentException("Invalid income range "
+                    + fromZloty + ".." + toZloty);
+        }
+
+        byte[] version = plan.getVersion().getBytes(StandardCharsets.UTF_8);
+        int mask = 0;
+        for (ContractType type : contractTypes) {
+            mask |= 1 << type.ordinal();
+        }
+        long count = 0;
+        try (FileChannel target = FileChannel.open(path,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = ByteBuffer.allocate(Math.max(
+                    ROWS_PER_BUFFER * ROW_BYTES, HEADER_BYTES + version.length))
+                    .order(ByteOrder.LITTLE_ENDIAN);
+            buffer.putInt(MAGIC).putShort(VERSION)
+                    .putShort((short) FIELDS.length)
+                    .putLong(fromZloty).putLong(toZloty - fromZloty + 1)
+                    .putInt(mask).putShort((short) version.length)
+                    .putShort((short) 0).put(version);
+
+            MutableTaxResult values = new MutableTaxResult();
+            for (ContractType type : ContractType.values()) {
+                if (!contractTypes.contains(type)) {
+                    continue;
+                }
+                FixedPointTaxStrategy strategy =
+                        new FixedPointTaxStrategy(type, plan);
+                for (long zloty = fromZloty; zloty <= toZloty; zloty++) {
+                    strategy.calculateTax(
+                            zloty * FixedPointMath.CENTS_PER_UNIT, values);
+                    if (buffer.remaining() < ROW_BYTES) {
+                        write(target, buffer);
+                    }
+                    putRow(buffer, values, zloty);
+                    count++;
+                }
+            }
+            write(target, buffer);
+        }
+        return count;
+    }
+
+    /**
+     * Maps a table.
+     *
+     * @param path the file to map
+     * @return the mapped table
+     * @throws IOException if the file cannot be mapped
+     * @throws IllegalArgumentException if path is null or the file is not
+     *                                  a valid table
+     */
+    public static WithholdingTable open(final Path path) throws IOException {
+        if (path == null) {
+            throw new IllegalArgumentException("Path cannot be null");
+        }
+        Arena arena = Arena.ofShared();
+        try (FileChannel channel = FileChannel.open(path,
+                StandardOpenOption.READ)) {
+            MemorySegment segment = channel.map(FileChannel.MapMode.READ_ONLY,
+                    0, channel.size(), arena);
+            return validate(arena, segment, path);
+        } catch (IOException | RuntimeException e) {
+            arena.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Returns the version of the rates the table was generated with.
+     *
+     * @return the rate version
+     */
+    public String getRateVersion() {
+        return rateVersion;
+    }
+
+    /**
+     * Returns the first income of the table.
+     *
+     * @return the first income in zloty
+     */
+    public long getFromZloty() {
+        return fromZloty;
+    }
+
+    /**
+     * Returns the last income of the table.
+     *
+     * @return the last income in zloty
+     */
+    public long getToZloty() {
+        return fromZloty + rows - 1;
+    }
+
+    /**
+     * Checks whether the table holds a contract type.
+     *
+     * @param contractType the contract type
+     * @return true if its incomes can be read
+     */
+    public boolean covers(final ContractType contractType) {
+        return contractType != null
+                && sectionOffsets[contractType.ordinal()] >= 0;
+    }
+
+    /**
+     * Reads the values of an income into a sink, if the table holds it.
+     *
+     * @param contractType the contract type
+     * @param grossCents the gross income in grosze
+     * @param sink the sink receiving the values
+     * @return true if the values were read, false if the table does not
+     *         hold the contract type or income
+     */
+    public boolean read(final ContractType contractType,
+                        final long grossCents, final TaxResultSink sink) {
+        if (!covers(contractType)
+                || grossCents % FixedPointMath.CENTS_PER_UNIT != 0) {
+            return false;
+        }
+        long row = grossCents / FixedPointMath.CENTS_PER_UNIT - fromZloty;
+        if (row < 0 || row >= rows) {
+            return false;
+        }
+        long offset = sectionOffsets[contractType.ordinal()]
+                + row * ROW_BYTES;
+        sink.accept(TaxField.GROSS_INCOME, grossCents);
+        for (int i = 0; i < FIELDS.length; i++) {
+            sink.accept(FIELDS[i],
+                    segment.get(INT, offset + (long) i * Integer.BYTES));
+        }
+        return true;
+    }
+
+    /**
+     * Creates strategies reading the table with the default rates.
+     *
+     * @return the strategies keyed by contract type
+     * @throws IllegalArgumentException if the table was generated with
+     *                                  other rates
+     */
+    public Map<ContractType, TaxCalculationStrategy> strategies() {
+        return strategies(RatePlan.DEFAULT);
+    }
+
+    /**
+     * Creates strategies reading the table, and calculating incomes it
+     * does not hold with {@link FixedPointTaxStrategy}.
+     *
+     * @param plan the rates the table was generated with
+     * @return the strategies keyed by contract type
+     * @throws IllegalArgumentException if plan is null or its version
+     *                                  differs from the table's
+     */
+    public Map<ContractType, TaxCalculationStrategy> strategies(
+            final RatePlan plan) {
+        if (plan == null) {
+            throw new IllegalArgumentException("Rate plan cannot be null");
+        }
+        if (!plan.getVersion().equals(rateVersion)) {
+            throw new IllegalArgumentException("Table generated with rates "
+                    + rateVersion + ", not " + plan.getVersion());
+        }
+        Map<ContractType, TaxCalculationStrategy> strategies =
+                new EnumMap<>(ContractType.class);
+        for (ContractType type : ContractType.values()) {
+            FixedPointTaxStrategy fallback =
+                    new FixedPointTaxStrategy(type, plan);
+            if (covers(type)) {
+                strategies.put(type, new TableStrategy(type, fallback));
+            } else {
+                strategies.put(type, fallback);
+            }
+        }
+        return strategies;
+    }
+
+    /**
+     * Releases the mapping. The table and its strategies cannot be read
+     * afterwards.
+     */
+    @Override
+    public void close() {
+        arena.close();
+    }
+
+    /**
+     * Checks the header and size of a mapped table.
+     *
+     * @param arena the arena owning the mapping
+     * @param segment the mapped file
+     * @param path the file, for messages
+     * @return the table
+     * @throws IllegalArgumentException if the file is not valid
+     */
+    private static WithholdingTable validate(final Arena arena,
+                                             final MemorySegment segment,
+                                             final Path path) {
+        long bytes = segment.byteSize();
+        if (bytes < HEADER_BYTES || segment.get(INT, 0) != MAGIC) {
+            throw new IllegalArgumentException(
+                    "Not a withholding table: " + path);
+        }
+        short version = segment.get(SHORT, VERSION_OFFSET);
+        short fieldCount = segment.get(SHORT, FIELD_COUNT_OFFSET);
+        if (version != VERSION || fieldCount != FIELDS.length) {
+            throw new IllegalArgumentException("Unsupported version "
+                    + version + " with " + fieldCount + " fields: " + path);
+        }
+
+        long rows = segment.get(LONG, ROWS_OFFSET);
+        int mask = segment.get(INT, TYPES_OFFSET);
+        int versionLength = Short.toUnsignedInt(
+                segment.get(SHORT, RATE_VERSION_LENGTH_OFFSET));
+        long[] offsets = new long[ContractType.values().length];
+        long offset = HEADER_BYTES + versionLength;
+        for (ContractType type : ContractType.values()) {
+            offsets[type.ordinal()] = -1;
+            if ((mask & (1 << type.ordinal())) != 0) {
+                offsets[type.ordinal()] = offset;
+                offset += rows * ROW_BYTES;
+            }
+        }
+        if (rows <= 0 || offset != bytes) {
+            throw new IllegalArgumentException(
+                    "Truncated withholding table: " + path);
+        }
+
+        byte[] rateVersion = segment.asSlice(HEADER_BYTES, versionLength)
+                .toArray(ValueLayout.JAVA_BYTE);
+        return new WithholdingTable(arena, segment,
+                new String(rateVersion, StandardCharsets.UTF_8), offsets);
+    }
+
+    /**
+     * Appends the values of a calculated income as a row.
+     *
+     * @param buffer the buffer receiving the row
+     * @param values the calculated values
+     * @param zloty the income, for messages
+     * @throws IllegalArgumentException if a value does not fit in an int
+     */
+    private static void putRow(final ByteBuffer buffer,
+                               final MutableTaxResult values,
+                               final long zloty) {
+        for (TaxField field : FIELDS) {
+            try {
+                buffer.putInt(Math.toIntExact(values.get(field)));
+            } catch (ArithmeticException e) {
+                throw new IllegalArgumentException("Value of " + field
+                        + " for " + zloty + " zloty does not fit the table",
+                        e);
+            }
+        }
+    }
+
+    /**
+     * Writes and clears a buffer.
+     *
+     * @param target the channel to write to
+     * @param buffer the buffer to drain
+     * @throws IOException if an I/O error occurs
+     */
+    private static void write(final FileChannel target,
+                              final ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            target.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    /**
+     * Strategy answering the incomes of the table from it and every
+     * other income with a fixed-point strategy.
+     */
+    private final class TableStrategy implements TaxCalculationStrategy {
+
+        /**
+         * Contract type calculated.
+         */
+        private final ContractType contractType;
+
+        /**
+         * Strategy for incomes outside the table, which also builds the
+         * results of rows.
+         */
+        private final FixedPointTaxStrategy fallback;
+
+        /**
+         * Creates a strategy.
+         *
+         * @param contractTypeValue the contract type to calculate
+         * @param fallbackValue the strategy for other incomes
+         */
+        TableStrategy(final ContractType contractTypeValue,
+                      final FixedPointTaxStrategy fallbackValue) {
+            this.contractType = contractTypeValue;
+            this.fallback = fallbackValue;
+        }
+
+        @Override
+        public TaxResult calculateTax(final BigDecimal grossIncome) {
+            if (grossIncome == null
+                    || grossIncome.compareTo(BigDecimal.ZERO) < 0) {
+                throw new IllegalArgumentException(
+                        "Gross income must be non-negative");
+            }
+            return calculateTrusted(grossIncome);
+        }
+
+        @Override
+        public TaxResult calculateTrusted(final BigDecimal grossIncome) {
+            if (fallback.isRepresentable(grossIncome)) {
+                MutableTaxResult values = new MutableTaxResult();
+                if (read(contractType, FixedPointMath.toCents(grossIncome),
+                        values)) {
+                    return fallback.toResult(grossIncome, values);
+                }
+            }
+            return fallback.calculateTrusted(grossIncome);
+        }
+
+        @Override
+        public void calculateTax(final long grossCents,
+                                 final TaxResultSink sink) {
+            if (sink == null) {
+                throw new IllegalArgumentException("Sink cannot be null");
+            }
+            if (!read(contractType, grossCents, sink)) {
+                fallback.calculateTax(grossCents, sink);
+            }
+        }
+
+        @Override
+        public RatePlan getRatePlan() {
+            return fallback.getRatePlan();
+        }
+    }
+}
@@ -0,0 +1,307 @@
+package com.bartoszwalter.students.taxes;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * Running year-to-date totals of monthly results, keyed by employee id.
+ * <p>
+ * Adding a month updates the totals of one employee in constant time,
+ * so annual limits such as a contribution cap or a tax threshold can be
+ * checked without replaying the year. Totals are kept as unscaled longs
+ * of the tracked fields only, in flat primitive arrays indexed through
+ * an open-addressing table of employee ids: tracking three fields costs
+ * about 40 bytes per employee. Not thread-safe.
+ * </p>
+ */
+public final class YearToDateAccumulator {
+
+    /**
+     * Number of employees the arrays are first sized for.
+     */
+    private static final int INITIAL_CAPACITY = 16;
+
+    /**
+     * Multiplier spreading sequential ids over the table (2^64 divided
+     * by the golden ratio).
+     */
+    private static final long HASH_MULTIPLIER = 0x9E3779B97F4A7C15L;
+
+    /**
+     * Marks a field that is not tracked.
+     */
+    private static final int NOT_TRACKED = -1;
+
+    /**
+     * Tracked fields, in column order.
+     */
+    private final TaxField[] fields;
+
+    /**
+     * Column of each field by ordinal, or {@link #NOT_TRACKED}.
+     */
+    private final int[] columns = new int[TaxField.values().length];
+
+    /**
+     * Employee ids in insertion order.
+     */
+    private long[] ids = new long[INITIAL_CAPACITY];
+
+    /**
+     * Totals of each employee, one row of tracked fields per id.
+     */
+    private long[] totals;
+
+    /**
+     * Hash table of row numbers plus one; zero marks an empty slot.
+     */
+    private int[] slots = new int[INITIAL_CAPACITY * 2];
+
+    /**
+     * Shift turning a hash into a slot index.
+     */
+    private int shift = Long.SIZE - Integer.numberOfTrailingZeros(
+            INITIAL_CAPACITY * 2);
+
+    /**
+     * Number of employees.
+     */
+    private int size;
+
+    /**
+     * Creates an accumulator tracking every field.
+     */
+    public YearToDateAccumulator() {
+        this(EnumSet.allOf(TaxField.class));
+    }
+
+    /**
+     * Creates an accumulator tracking some fields.
+     *
+     * @param trackedFields the fields to total
+     * @throws IllegalArgumentException if trackedFields is null or empty
+     */
+    public YearToDateAccumulator(final Set<TaxField> trackedFields) {
+        if (trackedFields == null || trackedFields.isEmpty()) {
+            throw new IllegalArgumentException(
+                    "Tracked fields cannot be null or empty");
+        }
+        this.fields = EnumSet.copyOf(trackedFields).toArray(new TaxField[0]);
+        Arrays.fill(columns, NOT_TRACKED);
+        for (int column = 0; column < fields.length; column++) {
+            columns[fields[column].ordinal()] = column;
+        }
+        this.totals = new long[INITIAL_CAPACITY * fields.length];
+    }
+
+    /**
+     * Adds a monthly result to the totals of an employee.
+     *
+     * @param employeeId the employee
+     * @param result the monthly result
+     * @throws IllegalArgumentException if result is null
+     * @throws ArithmeticException if a total would overflow; the totals
+     *                             are then left unchanged
+     */
+    public void add(final long employeeId, final TaxResult result) {
+        if (result == null) {
+            throw new IllegalArgumentException("Result cannot be null");
+        }
+        MutableTaxResult values = new MutableTaxResult();
+        TaxResultSink.writeTo(result, values);
+        add(employeeId, values);
+    }
+
+    /**
+     * Adds a monthly result to the totals of an employee without
+     * allocating, unless the employee is new and the arrays must grow.
+     *
+     * @param employeeId the employee
+     * @param result the monthly result
+     * @throws IllegalArgumentException if result is null
+     * @throws ArithmeticException if a total would overflow; the totals
+     *                             are then left unchanged
+     */
+    public void add(final long employeeId, final MutableTaxResult result) {
+        if (result == null) {
+            throw new IllegalArgumentException("Result cannot be null");
+        }
+        int row = rowOf(employeeId);
+        if (row >= 0) {
+            for (int column = 0; column < fields.length; column++) {
+                Math.addExact(totals[row * fields.length + column],
+                        result.get(fields[column]));
+            }
+        } else {
+            row = insert(employeeId);
+        }
+        int base = row * fields.length;
+        for (int column = 0; column < fields.length; column++) {
+            totals[base + column] += result.get(fields[column]);
+        }
+    }
+
+    /**
+     * Returns the unscaled total of a field.
+     *
+     * @param employeeId the employee
+     * @param field the tracked field
+     * @return the total, unscaled at the field's scale; zero for an
+     *         unknown employee
+     * @throws IllegalArgumentException if the field is not tracked
+     */
+    public long get(final long employeeId, final TaxField field) {
+        int column = columnOf(field);
+        int row = rowOf(employeeId);
+        if (row < 0) {
+            return 0;
+        }
+        return totals[row * fields.length + column];
+    }
+
+    /**
+     * Returns the total of a field as a BigDecimal.
+     *
+     * @param employeeId the employee
+     * @param field the tracked field
+     * @return the total; zero for an unknown employee
+     * @throws IllegalArgumentException if the field is not tracked
+     */
+    public BigDecimal getDecimal(final long employeeId,
+                                 final TaxField field) {
+        return field.toDecimal(get(employeeId, field));
+    }
+
+    /**
+     * Returns how much of an annual limit is left, for example of a
+     * contribution cap or a tax threshold.
+     *
+     * @param employeeId the employee
+     * @param field the tracked field the limit applies to
+     * @param limit the limit, unscaled at the field's scale
+     * @return the limit minus the total, or zero once it is reached
+     * @throws IllegalArgumentException if the field is not tracked
+     */
+    public long remainingUntil(final long employeeId, final TaxField field,
+                               final long limit) {
+        return Math.max(0, limit - get(employeeId, field));
+    }
+
+    /**
+     * Tells whether any result was added for an employee.
+     *
+     * @param employeeId the employee
+     * @return true if the employee has totals
+     */
+    public boolean contains(final long employeeId) {
+        return rowOf(employeeId) >= 0;
+    }
+
+    /**
+     * Returns the number of employees with totals.
+     *
+     * @return the number of employees
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Forgets every total, for example at the start of a new year.
+     * The arrays keep their capacity.
+     */
+    public void clear() {
+        Arrays.fill(slots, 0);
+        Arrays.fill(totals, 0, size * fields.length, 0);
+        size = 0;
+    }
+
+    /**
+     * Returns the column of a tracked field.
+     *
+     * @param field the field
+     * @return the column
+     * @throws IllegalArgumentException if the field is not tracked
+     */
+    private int columnOf(final TaxField field) {
+        if (field == null || columns[field.ordinal()] == NOT_TRACKED) {
+            throw new IllegalArgumentException(
+                    "Field is not tracked: " + field);
+        }
+        return columns[field.ordinal()];
+    }
+
+    /**
+     * Finds the row of an employee.
+     *
+     * @param employeeId the employee
+     * @return the row, or -1 if the employee is unknown
+     */
+    private int rowOf(final long employeeId) {
+        int mask = slots.length - 1;
+        for (int slot = slotOf(employeeId); slots[slot] != 0;
+             slot = (slot + 1) & mask) {
+            int row = slots[slot] - 1;
+            if (ids[row] == employeeId) {
+                return row;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Adds an employee with zero totals.
+     *
+     * @param employeeId the new employee
+     * @return the row of the employee
+     */
+    private int insert(final long employeeId) {
+        if (size == ids.length) {
+            grow();
+        }
+        int row = size++;
+        ids[row] = employeeId;
+        place(row);
+        return row;
+    }
+
+    /**
+     * Doubles the arrays and rebuilds the hash table.
+     */
+    private void grow() {
+        int capacity = ids.length * 2;
+        ids = Arrays.copyOf(ids, capacity);
+        totals = Arrays.copyOf(totals, capacity * fields.length);
+        slots = new int[capacity * 2];
+        shift--;
+        for (int row = 0; row < size; row++) {
+            place(row);
+        }
+    }
+
+    /**
+     * Stores a row in the first free slot of its id.
+     *
+     * @param row the row to store
+     */
+    private void place(final int row) {
+        int mask = slots.length - 1;
+        int slot = slotOf(ids[row]);
+        while (slots[slot] != 0) {
+            slot = (slot + 1) & mask;
+        }
+        slots[slot] = row + 1;
+    }
+
+    /**
+     * Returns the preferred slot of an id.
+     *
+     * @param employeeId the employee
+     * @return the slot index
+     */
+    private int slotOf(final long employeeId) {
+        return (int) ((employeeId * HASH_MULTIPLIER) >>> shift);
+    }
+}
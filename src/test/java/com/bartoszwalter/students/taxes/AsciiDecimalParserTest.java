@@ -0,0 +1,115 @@
+package com.bartoszwalter.students.taxes;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests for AsciiDecimalParser class.
+ */
+class AsciiDecimalParserTest {
+
+    /**
+     * Test valid amounts parse to the grosze of their BigDecimal value.
+     */
+    @ParameterizedTest
+    @ValueSource(strings = {"0", "5000", "5000.00", "1234.5", " 42.07 ",
+            "+3.10", ".5", "7.", "0012.300", "-0", "-0.000",
+            "92233720368547758.07"})
+    void testParseCentsMatchesBigDecimal(final String input) {
+        long expected = new BigDecimal(input.trim())
+                .movePointRight(2).longValueExact();
+
+        assertEquals(expected, parseCents(input));
+    }
+
+    /**
+     * Test a comma separates the fraction like a dot.
+     */
+    @Test
+    void testParseCentsAcceptsCommaSeparator() {
+        assertEquals(123_450, parseCents("1234,5"));
+        assertEquals(5, parseCents("0,05\r"));
+    }
+
+    /**
+     * Test invalid input returns error codes instead of throwing.
+     */
+    @ParameterizedTest
+    @CsvSource(delimiter = ';', value = {
+            "'';-1", "'  ';-1", "abc;-2", "1.2.3;-2", "1,2.3;-2", ".;-2",
+            "+;-2", "1e3;-2", "12 34;-2", "--5;-2", "-5;-3", "-0.01;-3",
+            "10.005;-4", "92233720368547758.08;-5",
+            "100000000000000000000;-5"})
+    void testParseCentsReturnsErrorCodes(final String input,
+                                         final long error) {
+        long result = parseCents(input);
+
+        assertEquals(error, result);
+        assertTrue(AsciiDecimalParser.isError(result));
+    }
+
+    /**
+     * Test parsing honours the window and the scale.
+     */
+    @Test
+    void testParseWindowAndScale() {
+        byte[] bytes = "17;5000.5;E".getBytes(StandardCharsets.US_ASCII);
+
+        assertEquals(17, AsciiDecimalParser.parse(bytes, 0, 2, 0));
+        assertEquals(500_050, AsciiDecimalParser.parseCents(bytes, 3, 9));
+        assertEquals(AsciiDecimalParser.TOO_PRECISE,
+                AsciiDecimalParser.parse(bytes, 3, 9, 0));
+        assertEquals(5_000_500, AsciiDecimalParser.parse(bytes, 3, 9, 3));
+        assertThrows(IndexOutOfBoundsException.class,
+                () -> AsciiDecimalParser.parseCents(bytes, 3, 20));
+    }
+
+    /**
+     * Test heap and direct buffers are read by absolute index.
+     */
+    @Test
+    void testParseBuffers() {
+        byte[] bytes = "x 99,99 y".getBytes(StandardCharsets.US_ASCII);
+        ByteBuffer heap = ByteBuffer.wrap(bytes, 1, 6).slice();
+        ByteBuffer direct = ByteBuffer.allocateDirect(bytes.length)
+                .put(bytes).flip();
+
+        assertEquals(9_999, AsciiDecimalParser.parseCents(heap, 0, 6));
+        assertEquals(9_999, AsciiDecimalParser.parseCents(direct, 1, 7));
+        assertEquals(0, direct.position());
+        assertEquals(AsciiDecimalParser.MALFORMED,
+                AsciiDecimalParser.parseCents(direct, 0, 7));
+    }
+
+    /**
+     * Test every error code has a message.
+     */
+    @Test
+    void testDescribe() {
+        assertEquals("Number cannot be negative",
+                AsciiDecimalParser.describe(AsciiDecimalParser.NEGATIVE));
+        assertFalse(AsciiDecimalParser.describe(AsciiDecimalParser.EMPTY)
+                .isEmpty());
+        assertThrows(IllegalArgumentException.class,
+                () -> AsciiDecimalParser.describe(0));
+    }
+
+    /**
+     * Parses a string as ASCII bytes.
+     */
+    private static long parseCents(final String input) {
+        byte[] bytes = input.getBytes(StandardCharsets.US_ASCII);
+        return AsciiDecimalParser.parseCents(bytes, 0, bytes.length);
+    }
+}
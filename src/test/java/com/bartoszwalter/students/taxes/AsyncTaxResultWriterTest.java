@@ -0,0 +1,261 @@
+package com.bartoszwalter.students.taxes;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests for AsyncTaxResultWriter class.
+ */
+class AsyncTaxResultWriterTest {
+
+    /**
+     * Writer recording what it receives.
+     */
+    private static final class RecordingWriter implements TaxResultWriter {
+
+        private final List<TaxResult> written =
+                Collections.synchronizedList(new ArrayList<>());
+        private volatile int flushes;
+        private volatile boolean closed;
+        private volatile boolean failing;
+        private volatile boolean failingFlush;
+
+        @Override
+        public void write(final TaxResult result,
+                          final ContractType contractType)
+                throws IOException {
+            if (failing) {
+                throw new IOException("disk full");
+            }
+            written.add(result);
+        }
+
+        @Override
+        public void flush() {
+            if (failingFlush) {
+                throw new IllegalStateException("stream closed");
+            }
+            flushes++;
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+    }
+
+    private final TaxCalculator calculator = new TaxCalculator();
+
+    /**
+     * Creates a result for an income.
+     */
+    private TaxResult result(final int income) {
+        return calculator.calculateTax(BigDecimal.valueOf(income),
+                ContractType.EMPLOYMENT);
+    }
+
+    /**
+     * Test results are written in order and flushed.
+     */
+    @Test
+    void testWritesInOrder() throws IOException {
+        RecordingWriter delegate = new RecordingWriter();
+        List<TaxResult> expected = new ArrayList<>();
+
+        try (AsyncTaxResultWriter writer =
+                     new AsyncTaxResultWriter(delegate, 8)) {
+            for (int income = 0; income < 1000; income++) {
+                TaxResult result = result(income);
+                expected.add(result);
+                writer.write(result, ContractType.EMPLOYMENT);
+            }
+            writer.flush();
+            assertEquals(expected, delegate.written);
+            assertTrue(delegate.flushes > 0);
+        }
+        assertTrue(delegate.closed);
+    }
+
+    /**
+     * Test several threads can write concurrently.
+     */
+    @Test
+    void testConcurrentWriters() throws Exception {
+        RecordingWriter delegate = new RecordingWriter();
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+
+        try (AsyncTaxResultWriter writer = new AsyncTaxResultWriter(delegate)) {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int thread = 0; thread < 4; thread++) {
+                futures.add(executor.submit(() -> {
+                    for (int income = 0; income < 500; income++) {
+                        writer.write(result(income),
+                                ContractType.EMPLOYMENT);
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        assertEquals(2000, delegate.written.size());
+    }
+
+    /**
+     * Test a failure of the delegate is reported to the caller.
+     */
+    @Test
+    void testReportsFailure() throws IOException {
+        RecordingWriter delegate = new RecordingWriter();
+        delegate.failing = true;
+        AsyncTaxResultWriter writer = new AsyncTaxResultWriter(delegate);
+
+        writer.write(result(1000), ContractType.EMPLOYMENT);
+
+        assertThrows(IOException.class, writer::flush);
+        assertThrows(IOException.class,
+                () -> writer.write(result(1000), ContractType.EMPLOYMENT));
+        assertThrows(IOException.class, writer::close);
+        assertTrue(delegate.closed);
+    }
+
+    /**
+     * Test an unchecked failure of the delegate is reported instead of
+     * stopping the writer thread.
+     */
+    @Test
+    @Timeout(10)
+    void testReportsUncheckedFailure() throws IOException {
+        RecordingWriter delegate = new RecordingWriter();
+        delegate.failingFlush = true;
+        AsyncTaxResultWriter writer = new AsyncTaxResultWriter(delegate, 1);
+
+        assertThrows(IOException.class, writer::flush);
+        assertThrows(IOException.class,
+                () -> writer.write(result(1000), ContractType.EMPLOYMENT));
+        assertThrows(IOException.class, writer::flush);
+        assertThrows(IOException.class, writer::close);
+        assertTrue(delegate.closed);
+    }
+
+    /**
+     * Test every write accepted while closing concurrently is written.
+     */
+    @Test
+    @Timeout(30)
+    void testCloseRacingWithWrites() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        TaxResult result = result(1000);
+
+        try {
+            for (int round = 0; round < 50; round++) {
+                RecordingWriter delegate = new RecordingWriter();
+                AsyncTaxResultWriter writer =
+                        new AsyncTaxResultWriter(delegate, 4);
+                AtomicInteger accepted = new AtomicInteger();
+                List<Future<?>> futures = new ArrayList<>();
+                for (int thread = 0; thread < 3; thread++) {
+                    futures.add(executor.submit(() -> {
+                        try {
+                            while (true) {
+                                writer.write(result, ContractType.CIVIL);
+                                accepted.incrementAndGet();
+                            }
+                        } catch (IOException e) {
+                            return null;
+                        }
+                    }));
+                }
+                futures.add(executor.submit(() -> {
+                    Thread.sleep(1);
+                    writer.close();
+                    writer.close();
+                    return null;
+                }));
+                for (Future<?> future : futures) {
+                    future.get();
+                }
+
+                assertEquals(accepted.get(), delegate.written.size());
+                assertTrue(delegate.closed);
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Test flushes racing with close either complete or fail.
+     */
+    @Test
+    @Timeout(30)
+    void testCloseRacingWithFlushes() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+
+        try {
+            for (int round = 0; round < 50; round++) {
+                AsyncTaxResultWriter writer =
+                        new AsyncTaxResultWriter(new RecordingWriter(), 2);
+                List<Future<?>> futures = new ArrayList<>();
+                for (int thread = 0; thread < 3; thread++) {
+                    futures.add(executor.submit(() -> {
+                        try {
+                            while (true) {
+                                writer.flush();
+                            }
+                        } catch (IOException e) {
+                            return null;
+                        }
+                    }));
+                }
+                futures.add(executor.submit(() -> {
+                    Thread.sleep(1);
+                    writer.close();
+                    return null;
+                }));
+                for (Future<?> future : futures) {
+                    future.get();
+                }
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Test use after closing and invalid arguments are rejected.
+     */
+    @Test
+    void testInvalidUse() throws IOException {
+        AsyncTaxResultWriter writer =
+                new AsyncTaxResultWriter(new RecordingWriter());
+        writer.close();
+        writer.close();
+
+        assertThrows(IOException.class, writer::flush);
+        assertThrows(IllegalArgumentException.class,
+                () -> writer.write(null, ContractType.CIVIL));
+        assertThrows(IllegalArgumentException.class,
+                () -> new AsyncTaxResultWriter(null));
+        assertThrows(IllegalArgumentException.class,
+                () -> new AsyncTaxResultWriter(new RecordingWriter(), 0));
+    }
+}
@@ -0,0 +1,250 @@
+package com.bartoszwalter.students.taxes;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests for BinaryPayrollFile class.
+ */
+class BinaryPayrollFileTest {
+
+    private final TaxCalculator calculator =
+            new TaxCalculator(FixedPointTaxStrategy.strategies());
+
+    @TempDir
+    private Path tempDir;
+
+    /**
+     * Test converted records read back unchanged.
+     */
+    @Test
+    void testConvertAndRead() throws IOException {
+        Path binary = convert("# id,income,type\n1,5000.00,E\n\n"
+                + "42,1234.5,c\n7,0,E\n");
+
+        assertEquals(BinaryPayrollFile.HEADER_BYTES
+                + 3 * BinaryPayrollFile.RECORD_BYTES, Files.size(binary));
+        assertTrue(BinaryPayrollFile.isBinary(binary));
+        try (BinaryPayrollFile file = BinaryPayrollFile.open(binary)) {
+            assertEquals(3, file.size());
+            assertEquals(42, file.employeeId(1));
+            assertEquals(123_450, file.grossCents(1));
+            assertEquals(ContractType.CIVIL, file.contractType(1));
+            assertEquals(0, file.grossCents(2));
+            assertThrows(IndexOutOfBoundsException.class,
+                    () -> file.employeeId(3));
+        }
+    }
+
+    /**
+     * Test calculate matches the calculator record by record.
+     */
+    @Test
+    void testCalculateMatchesCalculator() throws IOException {
+        Path binary = convert("1,5000.00,E\n2,3000.50,C\n3,123456.78,E\n");
+        List<String> results = new ArrayList<>();
+
+        long count;
+        try (BinaryPayrollFile file = BinaryPayrollFile.open(binary)) {
+            count = file.calculate(calculator, (id, type, result) ->
+                    results.add(id + " " + type + " "
+                            + result.getDecimal(TaxField.NET_INCOME)));
+        }
+
+        assertEquals(3, count);
+        assertEquals(List.of(
+                "1 EMPLOYMENT " + net("5000.00", ContractType.EMPLOYMENT),
+                "2 CIVIL " + net("3000.50", ContractType.CIVIL),
+                "3 EMPLOYMENT " + net("123456.78", ContractType.EMPLOYMENT)),
+                results);
+    }
+
+    /**
+     * Test incomes with fractions of a grosz are rejected.
+     */
+    @Test
+    void testConvertRejectsFractionalGrosze() {
+        IllegalArgumentException exception = assertThrows(
+                IllegalArgumentException.class,
+                () -> convert("1,5000.00,E\n2,10.005,C\n"));
+
+        assertTrue(exception.getMessage().contains("record 1"));
+    }
+
+    /**
+     * Test the converter reads the rows the text reader accepts.
+     */
+    @Test
+    void testConvertMatchesTextReader() throws IOException {
+        String csv = "  # comment\r\n -5 , 12.10 ,employment\r\n"
+                + "\t\r\n6,0.5,C";
+        Path binary = convert(csv);
+        TaxInputReader reader = new TaxInputReader(
+                new BufferedReader(new StringReader(csv)));
+
+        try (BinaryPayrollFile file = BinaryPayrollFile.open(binary)) {
+            assertEquals(2, file.size());
+            for (long i = 0; i < file.size(); i++) {
+                PayrollEntry entry = reader.readPayrollEntry(
+                        TaxInputReader.DEFAULT_DELIMITER);
+                assertEquals(entry.employeeId(), file.employeeId(i));
+                assertEquals(TaxField.GROSS_INCOME.toUnscaled(
+                        entry.grossIncome()), file.grossCents(i));
+                assertEquals(entry.contractType(), file.contractType(i));
+            }
+        }
+    }
+
+    /**
+     * Test malformed rows are reported with their record index.
+     */
+    @Test
+    void testConvertRejectsMalformedRows() {
+        assertEquals("Invalid payroll record 1: Invalid income: "
+                        + "Number cannot be negative",
+                assertThrows(IllegalArgumentException.class,
+                        () -> convert("1,10,E\n2,-10,E\n")).getMessage());
+        assertEquals("Invalid payroll record 0: Expected 3 fields",
+                assertThrows(IllegalArgumentException.class,
+                        () -> convert("1;10;E\n")).getMessage());
+        assertEquals("Invalid payroll record 0: Invalid employee id: "
+                        + "Invalid number format",
+                assertThrows(IllegalArgumentException.class,
+                        () -> convert("x1,10,E\n")).getMessage());
+        assertEquals("Invalid payroll record 0: Unknown contract type: X",
+                assertThrows(IllegalArgumentException.class,
+                        () -> convert("1,10,x\n")).getMessage());
+        assertThrows(IllegalArgumentException.class,
+                () -> convert("1,10, \n"));
+        assertThrows(IllegalArgumentException.class,
+                () -> convert("1,10,E,".repeat(20_000)));
+    }
+
+    /**
+     * Test files in other formats are rejected.
+     */
+    @Test
+    void testOpenRejectsOtherFiles() throws IOException {
+        Path text = tempDir.resolve("payroll.csv");
+        Files.writeString(text, "1,5000,E\n", StandardCharsets.UTF_8);
+        Path empty = Files.createFile(tempDir.resolve("empty.bin"));
+
+        assertFalse(BinaryPayrollFile.isBinary(text));
+        assertFalse(BinaryPayrollFile.isBinary(empty));
+        assertThrows(IllegalArgumentException.class,
+                () -> BinaryPayrollFile.open(text));
+        assertThrows(IllegalArgumentException.class,
+                () -> BinaryPayrollFile.open(empty));
+        assertThrows(IllegalArgumentException.class,
+                () -> BinaryPayrollFile.open(null));
+    }
+
+    /**
+     * Test truncated files and other versions are rejected.
+     */
+    @Test
+    void testOpenRejectsInvalidHeaderOrSize() throws IOException {
+        Path binary = convert("1,5000.00,E\n");
+        byte[] bytes = Files.readAllBytes(binary);
+
+        Path truncated = tempDir.resolve("truncated.bin");
+        Files.write(truncated, Arrays.copyOf(bytes, bytes.length - 1));
+        assertThrows(IllegalArgumentException.class,
+                () -> BinaryPayrollFile.open(truncated));
+
+        bytes[4] = 2;
+        Path version = tempDir.resolve("version.bin");
+        Files.write(version, bytes);
+        assertThrows(IllegalArgumentException.class,
+                () -> BinaryPayrollFile.open(version));
+    }
+
+    /**
+     * Test invalid records are reported with their index.
+     */
+    @Test
+    void testCalculateRejectsInvalidRecords() throws IOException {
+        Path binary = write(record(1, 100, 'E'), record(2, 100, 'X'));
+        Path negative = write(record(1, -100, 'E'));
+
+        try (BinaryPayrollFile file = BinaryPayrollFile.open(binary)) {
+            IllegalArgumentException exception = assertThrows(
+                    IllegalArgumentException.class,
+                    () -> file.calculate(calculator, (id, type, r) -> { }));
+            assertEquals("Invalid payroll record 1: Unknown contract type: X",
+                    exception.getMessage());
+        }
+        try (BinaryPayrollFile file = BinaryPayrollFile.open(negative)) {
+            assertThrows(IllegalArgumentException.class,
+                    () -> file.calculate(calculator, (id, type, r) -> { }));
+            assertThrows(IllegalArgumentException.class,
+                    () -> file.calculate(null, (id, type, r) -> { }));
+        }
+    }
+
+    /**
+     * Converts a delimited payroll file.
+     */
+    private Path convert(final String csv) throws IOException {
+        Path input = tempDir.resolve("payroll.csv");
+        Path output = tempDir.resolve("payroll.bin");
+        Files.writeString(input, csv, StandardCharsets.UTF_8);
+        BinaryPayrollFile.convert(input, output);
+        return output;
+    }
+
+    /**
+     * Writes a binary payroll file from raw records.
+     */
+    private Path write(final ByteBuffer... records) throws IOException {
+        ByteBuffer file = ByteBuffer.allocate(BinaryPayrollFile.HEADER_BYTES
+                        + records.length * BinaryPayrollFile.RECORD_BYTES)
+                .order(ByteOrder.LITTLE_ENDIAN)
+                .putInt(BinaryPayrollFile.MAGIC)
+                .putShort(BinaryPayrollFile.VERSION)
+                .putShort((short) BinaryPayrollFile.RECORD_BYTES);
+        for (ByteBuffer record : records) {
+            file.put(record.flip());
+        }
+        Path path = Files.createTempFile(tempDir, "raw", ".bin");
+        Files.write(path, file.array());
+        return path;
+    }
+
+    /**
+     * Encodes one record.
+     */
+    private static ByteBuffer record(final long id, final long cents,
+                                     final char code) {
+        return ByteBuffer.allocate(BinaryPayrollFile.RECORD_BYTES)
+                .order(ByteOrder.LITTLE_ENDIAN)
+                .putLong(id).putLong(cents).put((byte) code);
+    }
+
+    /**
+     * Returns the net income the calculator gives for an income.
+     */
+    private BigDecimal net(final String income,
+                           final ContractType contractType) {
+        return calculator.calculateTax(new BigDecimal(income), contractType)
+                .netIncome();
+    }
+}
@@ -0,0 +1,154 @@
+package com.bartoszwalter.students.taxes;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.bartoszwalter.students.taxes.TaxResultAssertions.assertSameResult;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests for CachingTaxStrategy class.
+ */
+class CachingTaxStrategyTest {
+
+    private final AtomicInteger calls = new AtomicInteger();
+
+    private final TaxCalculationStrategy counting = income -> {
+        calls.incrementAndGet();
+        return new EmploymentContractStrategy().calculateTax(income);
+    };
+
+    /**
+     * Test repeated incomes are served from the cache.
+     */
+    @Test
+    void testRepeatedIncomeIsCached() {
+        CachingTaxStrategy strategy = new CachingTaxStrategy(counting, 10);
+        BigDecimal income = new BigDecimal("5000.00");
+
+        TaxResult first = strategy.calculateTax(income);
+        TaxResult second = strategy.calculateTax(income);
+
+        assertSame(first, second);
+        assertEquals(1, calls.get());
+        assertEquals(new CacheStats(1, 1, 0, 1), strategy.stats());
+        assertEquals(0.5, strategy.stats().hitRate());
+    }
+
+    /**
+     * Test incomes differing only in scale share an entry.
+     */
+    @Test
+    void testScaleIsNormalized() {
+        CachingTaxStrategy strategy = new CachingTaxStrategy(counting, 10);
+        EmploymentContractStrategy reference =
+                new EmploymentContractStrategy();
+
+        strategy.calculateTax(new BigDecimal("5000.00"));
+        for (String value : new String[]{"5000", "5000.0", "5E+3"}) {
+            BigDecimal income = new BigDecimal(value);
+            assertSameResult(reference.calculateTax(income),
+                    strategy.calculateTax(income));
+        }
+        assertEquals(1, calls.get());
+    }
+
+    /**
+     * Test incomes with more than two decimals bypass the cache.
+     */
+    @Test
+    void testExtraDecimalsBypassCache() {
+        CachingTaxStrategy strategy = new CachingTaxStrategy(counting, 10);
+        BigDecimal income = new BigDecimal("5000.001");
+
+        strategy.calculateTax(income);
+        strategy.calculateTax(income);
+
+        assertEquals(2, calls.get());
+        assertEquals(0, strategy.stats().size());
+    }
+
+    /**
+     * Test the cache keeps frequent incomes and stays bounded.
+     */
+    @Test
+    void testFrequentIncomesSurviveEviction() {
+        CachingTaxStrategy strategy = new CachingTaxStrategy(counting, 2);
+        BigDecimal popular = new BigDecimal("4000");
+        BigDecimal other = new BigDecimal("4500");
+
+        for (int i = 0; i < 5; i++) {
+            strategy.calculateTax(popular);
+            strategy.calculateTax(other);
+        }
+        for (int i = 0; i < 100; i++) {
+            strategy.calculateTax(BigDecimal.valueOf(10_000 + i));
+        }
+        calls.set(0);
+        strategy.calculateTax(popular);
+
+        assertEquals(0, calls.get());
+        assertTrue(strategy.stats().size() <= 2);
+    }
+
+    /**
+     * Test a more frequent newcomer evicts the oldest entry.
+     */
+    @Test
+    void testFrequentNewcomerEvictsOldest() {
+        CachingTaxStrategy strategy = new CachingTaxStrategy(counting, 1);
+        BigDecimal first = new BigDecimal("1000");
+        BigDecimal second = new BigDecimal("2000");
+
+        strategy.calculateTax(first);
+        for (int i = 0; i < 3; i++) {
+            strategy.calculateTax(second);
+        }
+
+        assertEquals(1, strategy.stats().evictionCount());
+        calls.set(0);
+        strategy.calculateTax(second);
+        assertEquals(0, calls.get());
+    }
+
+    /**
+     * Test decorate wraps every strategy of a calculator.
+     */
+    @Test
+    void testDecorate() {
+        Map<ContractType, TaxCalculationStrategy> strategies =
+                CachingTaxStrategy.decorate(
+                        FixedPointTaxStrategy.strategies(), 100);
+        TaxCalculator calculator = new TaxCalculator(strategies);
+        BigDecimal income = new BigDecimal("6000");
+
+        assertSameResult(new TaxCalculator().calculateTax(income,
+                        ContractType.CIVIL),
+                calculator.calculateTax(income, ContractType.CIVIL));
+        assertTrue(strategies.get(ContractType.CIVIL)
+                instanceof CachingTaxStrategy);
+    }
+
+    /**
+     * Test invalid arguments.
+     */
+    @Test
+    void testInvalidArguments() {
+        CachingTaxStrategy strategy = new CachingTaxStrategy(counting, 1);
+
+        assertThrows(IllegalArgumentException.class,
+                () -> new CachingTaxStrategy(null, 1));
+        assertThrows(IllegalArgumentException.class,
+                () -> new CachingTaxStrategy(counting, 0));
+        assertThrows(IllegalArgumentException.class,
+                () -> strategy.calculateTax(null));
+        assertThrows(IllegalArgumentException.class,
+                () -> strategy.calculateTax(new BigDecimal("-1")));
+    }
+}
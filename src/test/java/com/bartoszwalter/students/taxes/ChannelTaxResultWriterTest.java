@@ -0,0 +1,126 @@
+package com.bartoszwalter.students.taxes;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Tests for ChannelTaxResultWriter class.
+ */
+class ChannelTaxResultWriterTest {
+
+    private final TaxCalculator calculator = new TaxCalculator();
+
+    /**
+     * Formats a result the way the writer should.
+     */
+    private static String formatted(final TaxResult result,
+                                    final ContractType type) {
+        StringBuilder text = new StringBuilder();
+        new TaxResultFormatter().format(result, type, text);
+        return text.toString();
+    }
+
+    /**
+     * Test results are buffered until flushed.
+     */
+    @Test
+    void testBuffersUntilFlush() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        TaxResult result = calculator.calculateTax(
+                new BigDecimal("5000"), ContractType.EMPLOYMENT);
+
+        try (ChannelTaxResultWriter writer = new ChannelTaxResultWriter(
+                Channels.newChannel(bytes), 1 << 16)) {
+            writer.write(result, ContractType.EMPLOYMENT);
+            assertEquals(0, bytes.size());
+
+            writer.flush();
+            assertEquals(formatted(result, ContractType.EMPLOYMENT),
+                    bytes.toString(StandardCharsets.UTF_8));
+        }
+    }
+
+    /**
+     * Test a buffer smaller than one result still writes everything.
+     */
+    @Test
+    void testSmallBuffer() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        StringBuilder expected = new StringBuilder();
+
+        try (ChannelTaxResultWriter writer = new ChannelTaxResultWriter(
+                Channels.newChannel(bytes), 7)) {
+            for (int income = 1000; income <= 9000; income += 1000) {
+                TaxResult result = calculator.calculateTax(
+                        BigDecimal.valueOf(income), ContractType.CIVIL);
+                writer.write(result, ContractType.CIVIL);
+                expected.append(formatted(result, ContractType.CIVIL));
+            }
+        }
+
+        assertEquals(expected.toString(),
+                bytes.toString(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Test writing to a file channel.
+     */
+    @Test
+    void testWritesFile(@TempDir final Path directory) throws IOException {
+        Path file = directory.resolve("results.txt");
+        TaxResult result = calculator.calculateTax(
+                new BigDecimal("4321.09"), ContractType.CIVIL);
+
+        try (ChannelTaxResultWriter writer =
+                     ChannelTaxResultWriter.open(file)) {
+            writer.write(result, ContractType.CIVIL);
+        }
+
+        assertEquals(formatted(result, ContractType.CIVIL),
+                Files.readString(file));
+    }
+
+    /**
+     * Test the standard output writer can be closed and reused.
+     */
+    @Test
+    void testStandardOutputStaysOpen() {
+        assertDoesNotThrow(() -> {
+            ChannelTaxResultWriter.toStandardOutput().close();
+            ChannelTaxResultWriter.toStandardOutput().close();
+        });
+    }
+
+    /**
+     * Test use after closing and invalid arguments are rejected.
+     */
+    @Test
+    void testInvalidUse() throws IOException {
+        ChannelTaxResultWriter writer = new ChannelTaxResultWriter(
+                Channels.newChannel(new ByteArrayOutputStream()), 16);
+        writer.close();
+        writer.close();
+
+        assertThrows(IOException.class, writer::flush);
+        assertThrows(IOException.class, () -> writer.write(
+                calculator.calculateTax(BigDecimal.ONE,
+                        ContractType.CIVIL), ContractType.CIVIL));
+        assertThrows(IllegalArgumentException.class,
+                () -> new ChannelTaxResultWriter(null, 16));
+        assertThrows(IllegalArgumentException.class,
+                () -> new ChannelTaxResultWriter(Channels.newChannel(
+                        new ByteArrayOutputStream()), 0));
+    }
+}
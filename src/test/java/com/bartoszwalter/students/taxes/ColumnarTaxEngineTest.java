@@ -0,0 +1,186 @@
+package com.bartoszwalter.students.taxes;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.Random;
+
+import static com.bartoszwalter.students.taxes.TaxResultAssertions.reference;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests for ColumnarTaxEngine class.
+ */
+class ColumnarTaxEngineTest {
+
+    private final TaxCalculator reference = new TaxCalculator();
+
+    /**
+     * Asserts every row matches the BigDecimal calculator.
+     */
+    private void assertMatchesReference(final long[] grossCents,
+                                        final byte[] codes,
+                                        final TaxResultColumns results) {
+        for (int row = 0; row < grossCents.length; row++) {
+            TaxResult expected = reference.calculateTax(
+                    BigDecimal.valueOf(grossCents[row], 2),
+                    ContractType.fromCode((char) codes[row]));
+            for (TaxField field : TaxField.values()) {
+                assertEquals(0, field.valueOf(expected).compareTo(
+                        field.toDecimal(results.get(field, row))),
+                        field + " at " + grossCents[row]);
+            }
+        }
+    }
+
+    /**
+     * Creates contract codes alternating in an irregular pattern.
+     */
+    private static byte[] codes(final int size) {
+        byte[] codes = new byte[size];
+        for (int i = 0; i < size; i++) {
+            if (i % 3 == 0) {
+                codes[i] = (byte) 'C';
+            } else {
+                codes[i] = (byte) 'E';
+            }
+        }
+        return codes;
+    }
+
+    /**
+     * Test both engines match the BigDecimal strategies for small
+     * incomes, including negative taxable income and final tax.
+     */
+    @Test
+    void testSmallIncomesMatchReference() {
+        long[] grossCents = new long[100_003];
+        for (int i = 0; i < grossCents.length; i++) {
+            grossCents[i] = i * 3L;
+        }
+        byte[] codes = codes(grossCents.length);
+
+        assertMatchesReference(grossCents, codes,
+                ColumnarTaxEngine.create().calculate(grossCents, codes));
+        assertMatchesReference(grossCents, codes,
+                ColumnarTaxEngine.scalar().calculate(grossCents, codes));
+    }
+
+    /**
+     * Test random incomes up to ten million PLN match.
+     */
+    @Test
+    void testRandomIncomesMatchReference() {
+        Random random = new Random(11);
+        long[] grossCents = new long[50_001];
+        for (int i = 0; i < grossCents.length; i++) {
+            grossCents[i] = Math.abs(random.nextLong()) % 1_000_000_000L;
+        }
+        byte[] codes = codes(grossCents.length);
+
+        assertMatchesReference(grossCents, codes,
+                ColumnarTaxEngine.create().calculate(grossCents, codes));
+    }
+
+    /**
+     * Test the vectorized engine is used when the module is loaded.
+     */
+    @Test
+    void testVectorizedEngineAvailability() {
+        assertTrue(ColumnarTaxEngine.isVectorApiAvailable());
+        long[] grossCents = {500_000, 500_000};
+        byte[] codes = {(byte) 'E', (byte) 'C'};
+
+        TaxResultColumns results = ColumnarTaxEngine.vectorized()
+                .calculate(grossCents, codes);
+
+        assertMatchesReference(grossCents, codes, results);
+    }
+
+    /**
+     * Test huge incomes fall back to the scalar kernel.
+     */
+    @Test
+    void testHugeIncomesFallBack() {
+        long[] grossCents = new long[16];
+        grossCents[5] = RatePlan.DEFAULT.getMaxCents();
+        grossCents[6] = 1L << 50;
+        byte[] codes = codes(grossCents.length);
+
+        assertMatchesReference(grossCents, codes,
+                ColumnarTaxEngine.create().calculate(grossCents, codes));
+    }
+
+    /**
+     * Test both engines apply the rates of a non-default plan.
+     */
+    @Test
+    void testNonDefaultPlan() {
+        RatePlan plan = RatePlan.compile(RatePlanTest.table2022());
+        Random random = new Random(13);
+        long[] grossCents = new long[10_003];
+        for (int i = 0; i < grossCents.length; i++) {
+            grossCents[i] = Math.abs(random.nextLong()) % 1_000_000_000L;
+        }
+        grossCents[7] = plan.getMaxCents();
+        byte[] codes = codes(grossCents.length);
+
+        for (ColumnarTaxEngine engine : new ColumnarTaxEngine[] {
+                ColumnarTaxEngine.create(plan),
+                ColumnarTaxEngine.scalar(plan)}) {
+            TaxResultColumns results = engine.calculate(grossCents, codes);
+            for (int row = 0; row < grossCents.length; row++) {
+                ContractType type = ContractType.fromCode((char) codes[row]);
+                TaxResult expected = reference(type, plan).calculateTax(
+                        BigDecimal.valueOf(grossCents[row], 2));
+                for (TaxField field : TaxField.values()) {
+                    assertEquals(0, field.valueOf(expected).compareTo(
+                            field.toDecimal(results.get(field, row))),
+                            field + " at " + grossCents[row]);
+                }
+            }
+        }
+        assertThrows(IllegalArgumentException.class,
+                () -> ColumnarTaxEngine.create(plan).calculate(
+                        new long[] {plan.getMaxCents() + 1},
+                        new byte[] {'E'}));
+        assertThrows(IllegalArgumentException.class,
+                () -> ColumnarTaxEngine.create(null));
+    }
+
+    /**
+     * Test results can be calculated into reused columns.
+     */
+    @Test
+    void testReusedColumns() {
+        ColumnarTaxEngine engine = ColumnarTaxEngine.create();
+        TaxResultColumns results = new TaxResultColumns(2);
+        byte[] codes = {(byte) 'E', (byte) 'E'};
+
+        engine.calculate(new long[]{100_000, 200_000}, codes, results);
+        engine.calculate(new long[]{300_000, 400_000}, codes, results);
+
+        assertEquals(400_000, results.get(TaxField.GROSS_INCOME, 1));
+    }
+
+    /**
+     * Test invalid batches.
+     */
+    @Test
+    void testInvalidBatches() {
+        ColumnarTaxEngine engine = ColumnarTaxEngine.create();
+
+        assertThrows(IllegalArgumentException.class,
+                () -> engine.calculate(null, new byte[0]));
+        assertThrows(IllegalArgumentException.class,
+                () -> engine.calculate(new long[1], new byte[2]));
+        assertThrows(IllegalArgumentException.class,
+                () -> engine.calculate(new long[]{-1}, new byte[]{'E'}));
+        assertThrows(IllegalArgumentException.class,
+                () -> engine.calculate(new long[]{1}, new byte[]{'X'}));
+        assertThrows(IllegalArgumentException.class,
+                () -> engine.calculate(new long[1], new byte[1], null));
+    }
+}
@@ -0,0 +1,128 @@
+package com.bartoszwalter.students.taxes;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.bartoszwalter.students.taxes.TaxResultAssertions.assertSameResult;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Tests for CompactTaxResults class.
+ */
+class CompactTaxResultsTest {
+
+    private final TaxCalculator calculator = new TaxCalculator();
+
+    /**
+     * Test packed results rebuild with the same values and scales.
+     */
+    @Test
+    void testRoundTrip() {
+        List<TaxResult> results = new ArrayList<>();
+        for (String gross : new String[] {"0", "5000", "5000.00", "150.001",
+                "1234.5", "123456789.99"}) {
+            for (ContractType type : ContractType.values()) {
+                results.add(calculator.calculateTax(new BigDecimal(gross),
+                        type));
+            }
+        }
+        results.add(new TaxCalculator(FixedPointTaxStrategy.strategies(
+                RatePlan.compile(RatePlanTest.table2022())))
+                .calculateTax(new BigDecimal("7000"), ContractType.CIVIL));
+
+        CompactTaxResults packed = CompactTaxResults.of(results);
+
+        assertEquals(results.size(), packed.size());
+        for (int i = 0; i < results.size(); i++) {
+            assertSameResult(results.get(i), packed.get(i));
+            assertEquals(results.get(i).rateVersion(),
+                    packed.getRateVersion(i));
+        }
+    }
+
+    /**
+     * Test single values are read at their stored or field scale.
+     */
+    @Test
+    void testSingleValues() {
+        TaxResult result = calculator.calculateTax(new BigDecimal("1234.5"),
+                ContractType.CIVIL);
+        CompactTaxResults packed = CompactTaxResults.of(List.of(result));
+
+        for (TaxField field : TaxField.values()) {
+            assertEquals(field.valueOf(result), packed.getDecimal(0, field));
+            assertEquals(field.toUnscaled(field.valueOf(result)),
+                    packed.getUnscaled(0, field));
+        }
+        assertEquals(123_450, packed.getUnscaled(0, TaxField.GROSS_INCOME));
+        assertEquals(new BigDecimal("1234.5"),
+                packed.getDecimal(0, TaxField.GROSS_INCOME));
+
+        CompactTaxResults precise = CompactTaxResults.of(List.of(
+                calculator.calculateTax(new BigDecimal("150.001"),
+                        ContractType.CIVIL)));
+        assertThrows(ArithmeticException.class,
+                () -> precise.getUnscaled(0, TaxField.GROSS_INCOME));
+    }
+
+    /**
+     * Test results that cannot be packed are kept as they are.
+     */
+    @Test
+    void testUnpackedResults() {
+        TaxResult huge = calculator.calculateTax(
+                new BigDecimal("1e30"), ContractType.EMPLOYMENT);
+        TaxResult packable = calculator.calculateTax(BigDecimal.TEN,
+                ContractType.CIVIL);
+        TaxResult partial = new TaxResult(BigDecimal.TEN,
+                packable.socialContributions(), packable.healthInsurance(),
+                BigDecimal.ZERO, BigDecimal.ZERO, BigDecimal.ZERO,
+                BigDecimal.ZERO, null, BigDecimal.ONE, "test");
+
+        TaxResult noComponents = new TaxResult(BigDecimal.ONE, null, null,
+                BigDecimal.ZERO, BigDecimal.ZERO, BigDecimal.ZERO,
+                BigDecimal.ZERO, BigDecimal.ZERO, BigDecimal.ONE, "test");
+
+        CompactTaxResults packed = CompactTaxResults.of(
+                List.of(huge, partial, packable, noComponents));
+
+        assertSame(huge, packed.get(0));
+        assertSame(partial, packed.get(1));
+        assertSameResult(packable, packed.get(2));
+        assertNull(packed.getDecimal(1, TaxField.FINAL_TAX));
+        assertEquals("test", packed.getRateVersion(1));
+        assertEquals(100, packed.getUnscaled(1, TaxField.NET_INCOME));
+        assertSame(noComponents, packed.get(3));
+        assertNull(packed.getDecimal(3, TaxField.SOCIAL_SECURITY));
+        assertNull(packed.getDecimal(3, TaxField.HEALTH_INSURANCE_FULL));
+        assertEquals(BigDecimal.ONE,
+                packed.getDecimal(3, TaxField.NET_INCOME));
+    }
+
+    /**
+     * Test invalid arguments.
+     */
+    @Test
+    void testInvalidArguments() {
+        CompactTaxResults packed = CompactTaxResults.of(List.of(
+                calculator.calculateTax(BigDecimal.TEN, ContractType.CIVIL)));
+        List<TaxResult> withNull = new ArrayList<>();
+        withNull.add(null);
+
+        assertThrows(IllegalArgumentException.class,
+                () -> CompactTaxResults.of(null));
+        assertThrows(IllegalArgumentException.class,
+                () -> CompactTaxResults.of(withNull));
+        assertThrows(IndexOutOfBoundsException.class, () -> packed.get(1));
+        assertThrows(IndexOutOfBoundsException.class,
+                () -> packed.getUnscaled(-1, TaxField.GROSS_INCOME));
+        assertThrows(UnsupportedOperationException.class,
+                () -> packed.add(packed.get(0)));
+    }
+}
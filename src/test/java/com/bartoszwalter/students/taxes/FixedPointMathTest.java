@@ -0,0 +1,81 @@
+package com.bartoszwalter.students.taxes;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests for FixedPointMath class.
+ */
+class FixedPointMathTest {
+
+    /**
+     * Test divideHalfUp agrees with BigDecimal for both signs.
+     */
+    @Test
+    void testDivideHalfUpMatchesBigDecimal() {
+        for (long dividend = -1000; dividend <= 1000; dividend++) {
+            long expected = BigDecimal.valueOf(dividend)
+                    .divide(BigDecimal.valueOf(100), 0,
+                            RoundingMode.HALF_UP)
+                    .longValueExact();
+            assertEquals(expected,
+                    FixedPointMath.divideHalfUp(dividend, 100));
+        }
+    }
+
+    /**
+     * Test the single-division percentage matches the signed one for
+     * non-negative amounts.
+     */
+    @Test
+    void testPercentOfNonNegative() {
+        for (long cents = 0; cents <= 100_000; cents++) {
+            assertEquals(FixedPointMath.percentOf(cents, 976),
+                    FixedPointMath.percentOfNonNegative(cents, 976));
+        }
+    }
+
+    /**
+     * Test truncateToUnits rounds towards zero.
+     */
+    @Test
+    void testTruncateToUnits() {
+        assertEquals(1, FixedPointMath.truncateToUnits(199));
+        assertEquals(-1, FixedPointMath.truncateToUnits(-199));
+    }
+
+    /**
+     * Test rates are converted to basis points.
+     */
+    @Test
+    void testBasisPoints() {
+        assertEquals(976,
+                FixedPointMath.basisPoints(TaxRates.SOCIAL_SECURITY_RATE));
+        assertEquals(10_000, FixedPointMath.PERCENTAGE_DIVISOR_BP);
+        assertEquals(11_125, FixedPointMath.basisPoints(
+                TaxRates.EMPLOYMENT_TAX_DEDUCTIBLE_EXPENSES));
+    }
+
+    /**
+     * Test isRepresentable rejects extra decimals and huge amounts.
+     */
+    @Test
+    void testIsRepresentable() {
+        BigDecimal max = new BigDecimal("1000.00");
+
+        assertTrue(FixedPointMath.isRepresentable(new BigDecimal("1.25"),
+                max));
+        assertTrue(FixedPointMath.isRepresentable(new BigDecimal("1E+3"),
+                max));
+        assertFalse(FixedPointMath.isRepresentable(new BigDecimal("1.255"),
+                max));
+        assertFalse(FixedPointMath.isRepresentable(
+                new BigDecimal("1000.01"), max));
+    }
+}
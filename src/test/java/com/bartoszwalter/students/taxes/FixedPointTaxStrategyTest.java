@@ -0,0 +1,117 @@
+package com.bartoszwalter.students.taxes;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.math.BigDecimal;
+import java.util.Random;
+
+import static com.bartoszwalter.students.taxes.TaxResultAssertions.assertMatchesReference;
+import static com.bartoszwalter.students.taxes.TaxResultAssertions.assertSameResult;
+import static com.bartoszwalter.students.taxes.TaxResultAssertions.reference;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Tests for FixedPointTaxStrategy class.
+ */
+class FixedPointTaxStrategyTest {
+
+    /**
+     * Test every grosz up to 3000 PLN matches the BigDecimal strategy.
+     */
+    @ParameterizedTest
+    @EnumSource(ContractType.class)
+    void testMatchesReferenceForEveryGrosz(final ContractType type) {
+        assertMatchesReference(new FixedPointTaxStrategy(type), type,
+                RatePlan.DEFAULT, 0, 300_000, 1);
+    }
+
+    /**
+     * Test random incomes of every supported scale match.
+     */
+    @ParameterizedTest
+    @EnumSource(ContractType.class)
+    void testMatchesReferenceForRandomIncomes(final ContractType type) {
+        TaxCalculationStrategy expected = reference(type);
+        FixedPointTaxStrategy strategy = new FixedPointTaxStrategy(type);
+        Random random = new Random(7);
+
+        for (int i = 0; i < 200_000; i++) {
+            long unscaled = Math.abs(random.nextLong()) % 100_000_000_000L;
+            BigDecimal income = BigDecimal.valueOf(unscaled,
+                    random.nextInt(5) - 2);
+            assertSameResult(expected.calculateTax(income),
+                    strategy.calculateTax(income));
+        }
+    }
+
+    /**
+     * Test incomes outside the fixed-point range fall back.
+     */
+    @ParameterizedTest
+    @ValueSource(strings = {"5000.123", "1E+30", "92233720368547758.07"})
+    void testFallsBackOutsideRange(final String value) {
+        BigDecimal income = new BigDecimal(value);
+        for (ContractType type : ContractType.values()) {
+            assertSameResult(reference(type).calculateTax(income),
+                    new FixedPointTaxStrategy(type).calculateTax(income));
+        }
+    }
+
+    /**
+     * Test calculateTax with invalid incomes.
+     */
+    @Test
+    void testCalculateTaxWithInvalidIncome() {
+        FixedPointTaxStrategy strategy =
+                new FixedPointTaxStrategy(ContractType.CIVIL);
+
+        assertThrows(IllegalArgumentException.class,
+                () -> strategy.calculateTax(null));
+        assertThrows(IllegalArgumentException.class,
+                () -> strategy.calculateTax(new BigDecimal("-0.01")));
+    }
+
+    /**
+     * Test constructor with null contract type.
+     */
+    @Test
+    void testConstructorWithNullContractType() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new FixedPointTaxStrategy(null));
+    }
+
+    /**
+     * Test strategies can back a TaxCalculator.
+     */
+    @Test
+    void testStrategiesBackCalculator() {
+        TaxCalculator calculator =
+                new TaxCalculator(FixedPointTaxStrategy.strategies());
+        BigDecimal income = new BigDecimal("5000.00");
+
+        assertEquals(new TaxCalculator().calculateTax(income,
+                        ContractType.CIVIL).netIncome(),
+                calculator.calculateTax(income, ContractType.CIVIL)
+                        .netIncome());
+    }
+
+    /**
+     * Test a loaded rate plan matches the BigDecimal strategies with the
+     * same plan.
+     */
+    @Test
+    void testMatchesReferenceWithPlan() {
+        RatePlan plan = RatePlan.compile(RatePlanTest.table2022());
+
+        for (ContractType type : ContractType.values()) {
+            assertMatchesReference(new FixedPointTaxStrategy(type, plan),
+                    type, plan, 0, 2_000_000, 13);
+        }
+        assertThrows(IllegalArgumentException.class,
+                () -> new FixedPointTaxStrategy(ContractType.CIVIL, null));
+    }
+}
@@ -0,0 +1,58 @@
+package com.bartoszwalter.students.taxes;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests for FrequencySketch class.
+ */
+class FrequencySketchTest {
+
+    /**
+     * Test frequency counts increments and saturates.
+     */
+    @Test
+    void testFrequencySaturates() {
+        FrequencySketch sketch = new FrequencySketch(1000);
+
+        for (int i = 0; i < 5; i++) {
+            sketch.increment("a");
+        }
+        assertEquals(5, sketch.frequency("a"));
+
+        for (int i = 0; i < 20; i++) {
+            sketch.increment("a");
+        }
+        assertEquals(15, sketch.frequency("a"));
+    }
+
+    /**
+     * Test unseen keys have a low frequency.
+     */
+    @Test
+    void testUnseenKey() {
+        FrequencySketch sketch = new FrequencySketch(1000);
+        sketch.increment("a");
+
+        assertEquals(0, sketch.frequency("b"));
+    }
+
+    /**
+     * Test counters are halved after the sample size.
+     */
+    @Test
+    void testCountersAge() {
+        FrequencySketch sketch = new FrequencySketch(1);
+        for (int i = 0; i < 15; i++) {
+            sketch.increment("a");
+        }
+        assertEquals(15, sketch.frequency("a"));
+
+        for (int i = 0; i < 200; i++) {
+            sketch.increment("key" + i);
+        }
+        assertTrue(sketch.frequency("a") < 15);
+    }
+}
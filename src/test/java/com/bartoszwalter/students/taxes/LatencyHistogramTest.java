@@ -0,0 +1,137 @@
+package com.bartoszwalter.students.taxes;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests for LatencyHistogram class.
+ */
+class LatencyHistogramTest {
+
+    /**
+     * Test every value falls into a bucket whose highest value is at
+     * least the value and within the bucket width of it.
+     */
+    @Test
+    void testBucketPrecision() {
+        for (long value = 0; value < 1_000_000; value += 7) {
+            assertBucketHolds(value);
+        }
+        for (int shift = 20; shift <= 40; shift++) {
+            assertBucketHolds((1L << shift) - 1);
+            assertBucketHolds(1L << shift);
+            assertBucketHolds((1L << shift) + 12_345);
+        }
+        assertBucketHolds(LatencyHistogram.MAX_TRACKABLE);
+    }
+
+    /**
+     * Test values beyond the trackable range fall into the last bucket.
+     */
+    @Test
+    void testLargeValuesClamped() {
+        assertEquals(
+                LatencyHistogram.bucketOf(LatencyHistogram.MAX_TRACKABLE),
+                LatencyHistogram.bucketOf(Long.MAX_VALUE));
+    }
+
+    /**
+     * Test summary of recorded values.
+     */
+    @Test
+    void testSummary() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long value = 1; value <= 1000; value++) {
+            histogram.record(value);
+        }
+
+        LatencySummary summary = histogram.summary();
+        assertEquals(1000, summary.getCount());
+        assertEquals(500_500, summary.getTotalNanos());
+        assertEquals(500, summary.getMeanNanos());
+        assertEquals(1000, summary.getMaxNanos());
+        assertWithinBucket(500, summary.getP50Nanos());
+        assertWithinBucket(900, summary.getP90Nanos());
+        assertWithinBucket(990, summary.getP99Nanos());
+        assertWithinBucket(999, summary.getP999Nanos());
+    }
+
+    /**
+     * Test an empty histogram and reset.
+     */
+    @Test
+    void testEmptyAndReset() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        LatencySummary empty = histogram.summary();
+        assertEquals(0, empty.getCount());
+        assertEquals(0, empty.getMeanNanos());
+        assertEquals(0, empty.getP99Nanos());
+
+        histogram.record(42);
+        histogram.record(-5);
+        assertEquals(2, histogram.summary().getCount());
+        assertEquals(42, histogram.summary().getMaxNanos());
+
+        histogram.reset();
+        assertEquals(0, histogram.summary().getCount());
+        assertEquals(0, histogram.summary().getMaxNanos());
+    }
+
+    /**
+     * Test concurrent recording loses no values.
+     *
+     * @throws InterruptedException if interrupted
+     */
+    @Test
+    void testConcurrentRecording() throws InterruptedException {
+        LatencyHistogram histogram = new LatencyHistogram();
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            threads.add(Thread.ofPlatform().start(() -> {
+                for (int i = 0; i < 10_000; i++) {
+                    histogram.record(i);
+                }
+            }));
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        LatencySummary summary = histogram.summary();
+        assertEquals(40_000, summary.getCount());
+        assertEquals(4L * 49_995_000, summary.getTotalNanos());
+        assertEquals(9_999, summary.getMaxNanos());
+    }
+
+    /**
+     * Asserts the bucket of a value holds it within its precision.
+     *
+     * @param value the value
+     */
+    private static void assertBucketHolds(final long value) {
+        long highest = LatencyHistogram.highestValueOf(
+                LatencyHistogram.bucketOf(value));
+        assertTrue(highest >= value, "bucket below " + value);
+        assertTrue(highest - value
+                        <= value / LatencyHistogram.SUB_BUCKETS,
+                "bucket too wide for " + value);
+    }
+
+    /**
+     * Asserts a percentile is within one bucket above the exact value.
+     *
+     * @param expected the exact value
+     * @param actual the reported percentile
+     */
+    private static void assertWithinBucket(final long expected,
+                                           final long actual) {
+        assertTrue(actual >= expected && actual
+                        <= expected + expected / LatencyHistogram.SUB_BUCKETS,
+                "expected about " + expected + " but was " + actual);
+    }
+}
@@ -0,0 +1,165 @@
+package com.bartoszwalter.students.taxes;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import java.math.BigDecimal;
+import java.util.EnumSet;
+import java.util.Random;
+import java.util.Set;
+
+import static com.bartoszwalter.students.taxes.TaxResultAssertions.assertSameResult;
+import static com.bartoszwalter.students.taxes.TaxResultAssertions.reference;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests for LazyTaxResult class.
+ */
+class LazyTaxResultTest {
+
+    /**
+     * Test materialized views match the eager strategies.
+     */
+    @ParameterizedTest
+    @EnumSource(ContractType.class)
+    void testMatchesEagerResult(final ContractType type) {
+        TaxCalculationStrategy strategy = reference(type);
+        Random random = new Random(11);
+
+        for (int i = 0; i < 20_000; i++) {
+            BigDecimal income = BigDecimal.valueOf(
+                    Math.abs(random.nextLong()) % 10_000_000_000L,
+                    random.nextInt(4));
+            assertSameResult(strategy.calculateTax(income),
+                    strategy.calculateTax(income, Set.of()).toTaxResult());
+        }
+    }
+
+    /**
+     * Test each field read alone matches the eager strategies.
+     */
+    @ParameterizedTest
+    @EnumSource(ContractType.class)
+    void testSingleFieldsMatchEagerResult(final ContractType type) {
+        TaxCalculationStrategy strategy = reference(type);
+        BigDecimal income = new BigDecimal("5432.17");
+        TaxResult expected = strategy.calculateTax(income);
+
+        for (TaxField field : TaxField.values()) {
+            LazyTaxResult view = strategy.calculateTax(income, Set.of(field));
+            assertTrue(view.isComputed(field));
+            assertEquals(field.valueOf(expected), view.get(field),
+                    field.name());
+        }
+    }
+
+    /**
+     * Test the employment final tax skips social contributions.
+     */
+    @Test
+    void testEmploymentFinalTaxChain() {
+        LazyTaxResult view = new EmploymentContractStrategy().calculateTax(
+                new BigDecimal("5000.00"), Set.of(TaxField.FINAL_TAX));
+
+        assertTrue(view.isComputed(TaxField.FINAL_TAX));
+        assertTrue(view.isComputed(TaxField.HEALTH_INSURANCE_DEDUCTIBLE));
+        assertFalse(view.isComputed(TaxField.SOCIAL_SECURITY));
+        assertFalse(view.isComputed(TaxField.NET_INCOME));
+    }
+
+    /**
+     * Test the civil taxable income needs contributions but not health
+     * insurance.
+     */
+    @Test
+    void testCivilTaxableIncomeChain() {
+        LazyTaxResult view = new CivilContractStrategy().calculateTax(
+                new BigDecimal("5000.00"), Set.of(TaxField.TAXABLE_INCOME));
+
+        assertTrue(view.isComputed(TaxField.SOCIAL_SECURITY));
+        assertTrue(view.isComputed(TaxField.TAX_DEDUCTIBLE_EXPENSES));
+        assertFalse(view.isComputed(TaxField.HEALTH_INSURANCE_FULL));
+        assertFalse(view.isComputed(TaxField.ADVANCE_TAX));
+    }
+
+    /**
+     * Test values are memoized once calculated.
+     */
+    @Test
+    void testMemoizesValues() {
+        LazyTaxResult view = new EmploymentContractStrategy().calculateTax(
+                new BigDecimal("5000.00"), Set.of());
+
+        assertFalse(view.isComputed(TaxField.NET_INCOME));
+        BigDecimal netIncome = view.netIncome();
+        assertTrue(view.isComputed(TaxField.NET_INCOME));
+        assertSame(netIncome, view.netIncome());
+        assertSame(view.toTaxResult(), view.toTaxResult());
+    }
+
+    /**
+     * Test strategies without projection return a complete view.
+     */
+    @Test
+    void testDefaultProjectionIsComplete() {
+        TaxCalculationStrategy strategy =
+                new FixedPointTaxStrategy(ContractType.CIVIL);
+        BigDecimal income = new BigDecimal("4321.09");
+        LazyTaxResult view = strategy.calculateTax(income,
+                EnumSet.of(TaxField.NET_INCOME));
+
+        for (TaxField field : TaxField.values()) {
+            assertTrue(view.isComputed(field));
+        }
+        assertSameResult(strategy.calculateTax(income), view.toTaxResult());
+    }
+
+    /**
+     * Test the calculator dispatches projections by contract type.
+     */
+    @Test
+    void testCalculatorProjection() {
+        TaxCalculator calculator = new TaxCalculator();
+        BigDecimal income = new BigDecimal("6000.00");
+
+        assertEquals(calculator.calculateTax(income, ContractType.CIVIL)
+                        .netIncome(),
+                calculator.calculateTax(income, ContractType.CIVIL,
+                        Set.of(TaxField.NET_INCOME)).netIncome());
+        assertThrows(IllegalArgumentException.class,
+                () -> calculator.calculateTax(income, null,
+                        Set.of(TaxField.NET_INCOME)));
+    }
+
+    /**
+     * Test invalid arguments are rejected.
+     */
+    @Test
+    void testInvalidArguments() {
+        TaxCalculationStrategy employment = new EmploymentContractStrategy();
+        TaxCalculationStrategy fixedPoint =
+                new FixedPointTaxStrategy(ContractType.EMPLOYMENT);
+
+        assertThrows(IllegalArgumentException.class,
+                () -> employment.calculateTax(null, Set.of()));
+        assertThrows(IllegalArgumentException.class,
+                () -> employment.calculateTax(new BigDecimal("-1"),
+                        Set.of()));
+        assertThrows(IllegalArgumentException.class,
+                () -> employment.calculateTax(BigDecimal.TEN, null));
+        assertThrows(IllegalArgumentException.class,
+                () -> fixedPoint.calculateTax(BigDecimal.TEN, null));
+        assertThrows(IllegalArgumentException.class,
+                () -> employment.calculateTax(BigDecimal.TEN, Set.of())
+                        .get(null));
+        assertThrows(IllegalArgumentException.class,
+                () -> new LazyTaxResult(BigDecimal.TEN, null));
+        assertThrows(IllegalArgumentException.class,
+                () -> new LazyTaxResult(null));
+    }
+}
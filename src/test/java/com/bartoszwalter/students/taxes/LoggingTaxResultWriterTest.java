@@ -0,0 +1,74 @@
+package com.bartoszwalter.students.taxes;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Handler;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Tests for LoggingTaxResultWriter class.
+ */
+class LoggingTaxResultWriterTest {
+
+    /**
+     * Test each formatted line is logged as one record.
+     */
+    @Test
+    void testLogsEachLine() {
+        List<String> messages = new ArrayList<>();
+        Handler handler = new Handler() {
+            @Override
+            public void publish(final LogRecord logRecord) {
+                messages.add(logRecord.getMessage());
+            }
+
+            @Override
+            public void flush() {
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+        Logger logger = Logger.getLogger(TaxResultFormatter.class.getName());
+        logger.addHandler(handler);
+        TaxResult result = new TaxCalculator().calculateTax(
+                new BigDecimal("5000"), ContractType.EMPLOYMENT);
+
+        try {
+            new LoggingTaxResultWriter().write(result,
+                    ContractType.EMPLOYMENT);
+        } finally {
+            logger.removeHandler(handler);
+        }
+
+        StringBuilder expected = new StringBuilder();
+        new TaxResultFormatter().format(result, ContractType.EMPLOYMENT,
+                expected);
+        assertEquals(List.of(expected.toString()
+                .split(System.lineSeparator())).size() + 1, messages.size());
+        assertEquals("Contract Type: EMPLOYMENT", messages.get(0));
+        assertEquals("", messages.get(messages.size() - 1));
+    }
+
+    /**
+     * Test flushing and closing do nothing and a formatter is required.
+     */
+    @Test
+    void testLifecycle() {
+        LoggingTaxResultWriter writer = new LoggingTaxResultWriter();
+
+        assertDoesNotThrow(writer::flush);
+        assertDoesNotThrow(writer::close);
+        assertThrows(IllegalArgumentException.class,
+                () -> new LoggingTaxResultWriter(null));
+    }
+}
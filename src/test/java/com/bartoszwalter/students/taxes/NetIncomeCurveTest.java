@@ -0,0 +1,156 @@
+package com.bartoszwalter.students.taxes;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import java.math.BigDecimal;
+import java.util.Random;
+
+import static com.bartoszwalter.students.taxes.TaxResultAssertions.reference;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Tests for NetIncomeCurve class.
+ */
+class NetIncomeCurveTest {
+
+    /**
+     * Test every grosz up to 3000 PLN matches the BigDecimal strategy.
+     */
+    @ParameterizedTest
+    @EnumSource(ContractType.class)
+    void testMatchesReferenceForEveryGrosz(final ContractType type) {
+        assertCurveMatchesReference(type, RatePlan.DEFAULT, 0, 300_000, 1);
+    }
+
+    /**
+     * Test incomes up to twenty million PLN match the BigDecimal
+     * strategy.
+     */
+    @ParameterizedTest
+    @EnumSource(ContractType.class)
+    void testMatchesReferenceForLargeIncomes(final ContractType type) {
+        assertCurveMatchesReference(type, RatePlan.DEFAULT, 300_000,
+                2_000_000_000L, 9_973);
+    }
+
+    /**
+     * Test a loaded rate plan matches the BigDecimal strategy with the
+     * same plan.
+     */
+    @ParameterizedTest
+    @EnumSource(ContractType.class)
+    void testMatchesReferenceWithPlan(final ContractType type) {
+        RatePlan plan = RatePlan.compile(RatePlanTest.table2022());
+
+        assertCurveMatchesReference(type, plan, 0, 2_000_000, 13);
+    }
+
+    /**
+     * Test stepping a range gives the net income of every point, across
+     * every rounding boundary up to 50 000 PLN.
+     */
+    @ParameterizedTest
+    @EnumSource(ContractType.class)
+    void testRangeMatchesPoints(final ContractType type) {
+        NetIncomeCurve curve = NetIncomeCurve.of(type);
+        long[] net = new long[5_000_001];
+
+        curve.netCents(0, 1, net);
+
+        for (int i = 0; i < net.length; i++) {
+            if (net[i] != curve.netCents(i)) {
+                assertEquals(curve.netCents(i), net[i], "gross " + i);
+            }
+        }
+    }
+
+    /**
+     * Test ranges of random starts and steps, up to the largest income.
+     */
+    @ParameterizedTest
+    @EnumSource(ContractType.class)
+    void testRandomRangesMatchPoints(final ContractType type) {
+        NetIncomeCurve curve = NetIncomeCurve.of(type);
+        Random random = new Random(11);
+        long[] net = new long[1_000];
+
+        for (int i = 0; i < 200; i++) {
+            long step = 1 + random.nextInt(1_000_000);
+            long from = Math.floorMod(random.nextLong(),
+                    curve.getMaxCents() - step * (net.length - 1));
+            curve.netCents(from, step, net);
+
+            long[] expected = new long[net.length];
+            for (int j = 0; j < net.length; j++) {
+                expected[j] = curve.netCents(from + j * step);
+            }
+            assertArrayEquals(expected, net, "from " + from + " by " + step);
+        }
+        curve.netCents(curve.getMaxCents(), 0, net);
+        assertEquals(curve.netCents(curve.getMaxCents()), net[0]);
+    }
+
+    /**
+     * Test invalid arguments.
+     */
+    @Test
+    void testInvalidArguments() {
+        NetIncomeCurve curve = NetIncomeCurve.of(ContractType.CIVIL);
+        long max = curve.getMaxCents();
+
+        assertThrows(IllegalArgumentException.class,
+                () -> NetIncomeCurve.of(null));
+        assertThrows(IllegalArgumentException.class,
+                () -> NetIncomeCurve.of(ContractType.CIVIL, null));
+        assertThrows(IllegalArgumentException.class,
+                () -> curve.netCents(-1));
+        assertThrows(IllegalArgumentException.class,
+                () -> curve.taxCents(max + 1));
+        assertThrows(IllegalArgumentException.class,
+                () -> curve.netCents(0, 1, null));
+        assertThrows(IllegalArgumentException.class,
+                () -> curve.netCents(0, -1, new long[2]));
+        assertThrows(IllegalArgumentException.class,
+                () -> curve.netCents(max - 1, 1, new long[3]));
+        assertEquals(ContractType.CIVIL, curve.getContractType());
+    }
+
+    /**
+     * Asserts that the curve evaluates like the BigDecimal strategy over
+     * a range of gross incomes.
+     */
+    private static void assertCurveMatchesReference(
+            final ContractType type, final RatePlan plan, final long from,
+            final long to, final long step) {
+        TaxCalculationStrategy expected = reference(type, plan);
+        NetIncomeCurve curve = NetIncomeCurve.of(type, plan);
+
+        for (long cents = from; cents <= to; cents += step) {
+            TaxResult result = expected.calculateTax(
+                    BigDecimal.valueOf(cents, 2));
+            long net = cents(result.netIncome());
+            long tax = cents(result.finalTax());
+            long contributions =
+                    cents(result.socialContributions().getTotal());
+            if (curve.netCents(cents) != net
+                    || curve.taxCents(cents) != tax
+                    || curve.contributionsCents(cents) != contributions) {
+                assertEquals(net + " " + tax + " " + contributions,
+                        curve.netCents(cents) + " " + curve.taxCents(cents)
+                                + " " + curve.contributionsCents(cents),
+                        "gross " + cents);
+            }
+        }
+    }
+
+    /**
+     * Converts an amount to grosze.
+     */
+    private static long cents(final BigDecimal amount) {
+        return amount.movePointRight(2).longValueExact();
+    }
+}
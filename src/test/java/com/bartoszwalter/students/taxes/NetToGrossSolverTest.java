@@ -0,0 +1,288 @@
+package com.bartoszwalter.students.taxes;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static com.bartoszwalter.students.taxes.TaxResultAssertions.reference;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests for NetToGrossSolver class.
+ */
+class NetToGrossSolverTest {
+
+    /**
+     * Highest gross income in grosze searched exhaustively.
+     */
+    private static final int EXHAUSTIVE_CENTS = 1_000_000;
+
+    /**
+     * Most evaluations allowed per target.
+     */
+    private static final int MAX_EVALUATIONS = 16;
+
+    /**
+     * Calculates the net income in grosze of a gross income in grosze.
+     */
+    private static long net(final FixedPointTaxStrategy strategy,
+                            final long grossCents) {
+        MutableTaxResult result = new MutableTaxResult();
+        strategy.calculateTax(grossCents, result);
+        return result.get(TaxField.NET_INCOME);
+    }
+
+    /**
+     * Test every reachable target below 10000 PLN gross matches a brute
+     * force search.
+     */
+    @ParameterizedTest
+    @EnumSource(ContractType.class)
+    void testMatchesBruteForce(final ContractType type) {
+        FixedPointTaxStrategy strategy = new FixedPointTaxStrategy(type);
+        NetToGrossSolver solver = new NetToGrossSolver();
+
+        long[] smallestGross = new long[EXHAUSTIVE_CENTS];
+        long bestNet = -1;
+        for (long gross = 0; gross < EXHAUSTIVE_CENTS; gross++) {
+            long net = net(strategy, gross);
+            for (long target = bestNet + 1; target <= net; target++) {
+                smallestGross[(int) target] = gross;
+            }
+            bestNet = Math.max(bestNet, net);
+        }
+
+        for (int target = 0; target <= bestNet; target += 3) {
+            assertEquals(BigDecimal.valueOf(smallestGross[target], 2),
+                    solver.grossForNet(BigDecimal.valueOf(target, 2), type),
+                    "target " + target);
+        }
+    }
+
+    /**
+     * Test large targets are reached and no smaller gross within the
+     * model error reaches them.
+     */
+    @ParameterizedTest
+    @EnumSource(ContractType.class)
+    void testLargeTargetsAreMinimal(final ContractType type) {
+        FixedPointTaxStrategy strategy = new FixedPointTaxStrategy(type);
+        NetToGrossSolver solver = new NetToGrossSolver();
+        Random random = new Random(3);
+
+        for (int i = 0; i < 200; i++) {
+            long target = Math.abs(random.nextLong()) % 1_000_000_000_000L;
+            long gross = solver.grossForNet(BigDecimal.valueOf(target, 2),
+                    type).movePointRight(2).longValueExact();
+
+            assertTrue(net(strategy, gross) >= target);
+            for (long below = Math.max(0, gross - 1000); below < gross;
+                 below++) {
+                assertTrue(net(strategy, below) < target,
+                        "target " + target);
+            }
+        }
+    }
+
+    /**
+     * Test incomes round-trip under a non-default plan: the solution of
+     * the net income of a gross income is at most that gross income and
+     * no smaller gross within the model error reaches the net income.
+     */
+    @ParameterizedTest
+    @EnumSource(ContractType.class)
+    void testNonDefaultPlanRoundTrips(final ContractType type) {
+        RatePlan plan = RatePlan.compile(RatePlanTest.table2022());
+        FixedPointTaxStrategy strategy = new FixedPointTaxStrategy(type, plan);
+        NetToGrossSolver solver = new NetToGrossSolver(plan);
+        Random random = new Random(5);
+
+        assertSame(plan, solver.getRatePlan());
+        for (int i = 0; i < 2_000; i++) {
+            long gross = i * 997L;
+            if (i % 2 == 1) {
+                gross = Math.abs(random.nextLong()) % 1_000_000_000_000L;
+            }
+            long target = net(strategy, gross);
+            long solved = solver.grossForNet(BigDecimal.valueOf(target, 2),
+                    type).movePointRight(2).longValueExact();
+
+            assertTrue(solved <= gross, "gross " + gross);
+            assertTrue(net(strategy, solved) >= target);
+            for (long below = Math.max(0, solved - 1000); below < solved;
+                 below++) {
+                assertTrue(net(strategy, below) < target, "gross " + gross);
+            }
+        }
+    }
+
+    /**
+     * Test every target takes a handful of evaluations, whatever the
+     * plan.
+     */
+    @ParameterizedTest
+    @EnumSource(ContractType.class)
+    void testFewEvaluations(final ContractType type) {
+        for (RatePlan plan : List.of(RatePlan.DEFAULT,
+                RatePlan.compile(RatePlanTest.table2022()))) {
+            CountingStrategy strategy = new CountingStrategy(
+                    new FixedPointTaxStrategy(type, plan));
+            NetToGrossSolver solver = new NetToGrossSolver(plan,
+                    Map.of(type, strategy));
+            Random random = new Random(7);
+
+            for (int i = 0; i < 20_000; i++) {
+                long target = i * 97L;
+                if (i % 2 == 1) {
+                    target = Math.abs(random.nextLong()) % 1_000_000_000_000L;
+                }
+                strategy.evaluations = 0;
+                solver.grossForNet(BigDecimal.valueOf(target, 2), type);
+
+                assertTrue(strategy.evaluations <= MAX_EVALUATIONS,
+                        "target " + target + ": " + strategy.evaluations);
+            }
+        }
+    }
+
+    /**
+     * Test the HR question about 6000 PLN net on a civil contract.
+     */
+    @Test
+    void testCivilSixThousandNet() {
+        TaxCalculator calculator = new TaxCalculator();
+        BigDecimal target = new BigDecimal("6000");
+
+        BigDecimal gross = calculator.grossForNet(target, ContractType.CIVIL);
+
+        assertEquals(2, gross.scale());
+        assertTrue(calculator.calculateTax(gross, ContractType.CIVIL)
+                .netIncome().compareTo(target) >= 0);
+        assertTrue(calculator.calculateTax(
+                gross.subtract(new BigDecimal("0.01")), ContractType.CIVIL)
+                .netIncome().compareTo(target) < 0);
+    }
+
+    /**
+     * Test the calculator solves with the rate plan of its strategies and
+     * rejects strategies without one.
+     */
+    @Test
+    void testCalculatorUsesStrategyPlan() {
+        RatePlan plan = RatePlan.compile(RatePlanTest.table2022());
+        TaxCalculator calculator = new TaxCalculator(
+                FixedPointTaxStrategy.strategies(plan));
+        BigDecimal target = new BigDecimal("6000");
+
+        BigDecimal gross = calculator.grossForNet(target, ContractType.CIVIL);
+
+        assertEquals(new NetToGrossSolver(plan).grossForNet(target,
+                ContractType.CIVIL), gross);
+        assertNotEquals(new TaxCalculator().grossForNet(target,
+                ContractType.CIVIL), gross);
+        TaxCalculator custom = new TaxCalculator(Map.of(ContractType.CIVIL,
+                income -> reference(ContractType.CIVIL, plan)
+                        .calculateTax(income)));
+        assertThrows(IllegalStateException.class,
+                () -> custom.grossForNet(target, ContractType.CIVIL));
+        assertThrows(IllegalArgumentException.class,
+                () -> custom.grossForNet(target, ContractType.EMPLOYMENT));
+    }
+
+    /**
+     * Test targets with more decimal places are rounded up to grosze.
+     */
+    @Test
+    void testTargetRoundedUpToGrosze() {
+        NetToGrossSolver solver = new NetToGrossSolver();
+
+        assertEquals(solver.grossForNet(new BigDecimal("5000.01"),
+                        ContractType.EMPLOYMENT),
+                solver.grossForNet(new BigDecimal("5000.001"),
+                        ContractType.EMPLOYMENT));
+        assertEquals(new BigDecimal("0.00"),
+                solver.grossForNet(BigDecimal.ZERO, ContractType.CIVIL));
+    }
+
+    /**
+     * Test the bulk variant matches single solutions.
+     */
+    @Test
+    void testBulkMatchesSingle() {
+        NetToGrossSolver solver = new NetToGrossSolver();
+        List<BigDecimal> grid = new ArrayList<>();
+        for (int net = 3000; net <= 12000; net += 500) {
+            grid.add(BigDecimal.valueOf(net));
+        }
+
+        List<BigDecimal> grossIncomes =
+                solver.grossForNet(grid, ContractType.EMPLOYMENT);
+
+        assertEquals(grid.size(), grossIncomes.size());
+        for (int i = 0; i < grid.size(); i++) {
+            assertEquals(solver.grossForNet(grid.get(i),
+                    ContractType.EMPLOYMENT), grossIncomes.get(i));
+        }
+    }
+
+    /**
+     * Test invalid arguments are rejected.
+     */
+    @Test
+    void testInvalidArguments() {
+        NetToGrossSolver solver = new NetToGrossSolver();
+
+        assertThrows(IllegalArgumentException.class,
+                () -> solver.grossForNet((BigDecimal) null,
+                        ContractType.CIVIL));
+        assertThrows(IllegalArgumentException.class,
+                () -> solver.grossForNet(new BigDecimal("-0.01"),
+                        ContractType.CIVIL));
+        assertThrows(IllegalArgumentException.class,
+                () -> solver.grossForNet(new BigDecimal("1e30"),
+                        ContractType.CIVIL));
+        assertThrows(IllegalArgumentException.class,
+                () -> solver.grossForNet(BigDecimal.TEN, null));
+        assertThrows(IllegalArgumentException.class,
+                () -> new NetToGrossSolver(null));
+        assertThrows(IllegalArgumentException.class,
+                () -> solver.grossForNet((List<BigDecimal>) null,
+                        ContractType.CIVIL));
+    }
+
+    /**
+     * Strategy counting the evaluations of another.
+     */
+    private static final class CountingStrategy
+            implements TaxCalculationStrategy {
+
+        private final TaxCalculationStrategy delegate;
+        private int evaluations;
+
+        CountingStrategy(final TaxCalculationStrategy delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public TaxResult calculateTax(final BigDecimal grossIncome) {
+            return delegate.calculateTax(grossIncome);
+        }
+
+        @Override
+        public void calculateTax(final long grossCents,
+                                 final TaxResultSink sink) {
+            evaluations++;
+            delegate.calculateTax(grossCents, sink);
+        }
+    }
+}
@@ -0,0 +1,179 @@
+package com.bartoszwalter.students.taxes;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Tests for OffHeapTaxResults class.
+ */
+class OffHeapTaxResultsTest {
+
+    private final TaxCalculator calculator =
+            new TaxCalculator(FixedPointTaxStrategy.strategies());
+
+    @TempDir
+    private Path tempDir;
+
+    /**
+     * Test a binary payroll file calculates into the rows of a store.
+     */
+    @Test
+    void testCalculateBinaryPayroll() throws IOException {
+        Path binary = convert("1,5000.00,E\n2,3000.50,C\n3,123456.78,E\n"
+                + "4,0,C\n");
+        MutableTaxResult expected = new MutableTaxResult();
+
+        try (BinaryPayrollFile file = BinaryPayrollFile.open(binary);
+             OffHeapTaxResults results = OffHeapTaxResults.allocate(5,
+                     RatePlan.DEFAULT)) {
+            assertEquals(4, file.calculate(calculator, results));
+
+            for (int row = 0; row < file.size(); row++) {
+                calculator.calculateTax(file.grossCents(row),
+                        file.contractType(row), expected);
+                for (TaxField field : TaxField.values()) {
+                    assertEquals(expected.get(field), results.get(row, field),
+                            row + " " + field);
+                }
+            }
+            assertEquals(0, results.get(4, TaxField.NET_INCOME));
+            assertEquals(expected.getDecimal(TaxField.FINAL_TAX),
+                    results.getDecimal(3, TaxField.FINAL_TAX));
+        }
+    }
+
+    /**
+     * Test a file-backed store reopens with the same rows.
+     */
+    @Test
+    void testReopenFile() throws IOException {
+        Path path = tempDir.resolve("results.bin");
+        MutableTaxResult expected = new MutableTaxResult();
+        MutableTaxResult actual = new MutableTaxResult();
+
+        try (OffHeapTaxResults results = OffHeapTaxResults.create(path,
+                1_000, RatePlan.DEFAULT)) {
+            OffHeapTaxResults.Cursor cursor = results.cursor();
+            for (int row = 0; row < 1_000; row++) {
+                calculator.calculateTax(row * 1_013L, ContractType.CIVIL,
+                        cursor.at(row));
+            }
+            results.force();
+        }
+
+        assertEquals(OffHeapTaxResults.HEADER_BYTES
+                + RatePlan.DEFAULT.getVersion().length()
+                + 1_000L * OffHeapTaxResults.ROW_BYTES, Files.size(path));
+        try (OffHeapTaxResults results = OffHeapTaxResults.open(path)) {
+            assertEquals(1_000, results.size());
+            assertEquals(RatePlan.DEFAULT.getVersion(),
+                    results.getRateVersion());
+            for (int row = 0; row < 1_000; row++) {
+                calculator.calculateTax(row * 1_013L, ContractType.CIVIL,
+                        expected);
+                results.read(row, actual);
+                for (TaxField field : TaxField.values()) {
+                    assertEquals(expected.get(field), actual.get(field),
+                            row + " " + field);
+                }
+            }
+        }
+    }
+
+    /**
+     * Test a store keeps the rates it is created for and is only filled
+     * by a calculator using them.
+     */
+    @Test
+    void testRateVersion() throws IOException {
+        Path binary = convert("1,5000.00,E\n2,3000.50,C\n");
+        Path path = tempDir.resolve("rates.bin");
+        RatePlan plan = RatePlan.compile(RatePlanTest.table2022());
+        TaxCalculator planCalculator =
+                new TaxCalculator(FixedPointTaxStrategy.strategies(plan));
+        MutableTaxResult expected = new MutableTaxResult();
+
+        try (BinaryPayrollFile file = BinaryPayrollFile.open(binary);
+             OffHeapTaxResults results = OffHeapTaxResults.create(path,
+                     file.size(), plan)) {
+            assertThrows(IllegalArgumentException.class,
+                    () -> file.calculate(calculator, results));
+            assertEquals(2, file.calculate(planCalculator, results));
+        }
+
+        try (OffHeapTaxResults results = OffHeapTaxResults.open(path)) {
+            assertEquals(plan.getVersion(), results.getRateVersion());
+            planCalculator.calculateTax(300_050, ContractType.CIVIL,
+                    expected);
+            assertEquals(expected.get(TaxField.NET_INCOME),
+                    results.get(1, TaxField.NET_INCOME));
+        }
+    }
+
+    /**
+     * Test invalid arguments and files.
+     */
+    @Test
+    void testInvalidArguments() throws IOException {
+        Path binary = convert("1,5000.00,E\n2,3000.50,C\n");
+        Path path = tempDir.resolve("invalid.bin");
+
+        assertThrows(IllegalArgumentException.class,
+                () -> OffHeapTaxResults.allocate(-1, RatePlan.DEFAULT));
+        assertThrows(IllegalArgumentException.class,
+                () -> OffHeapTaxResults.allocate(1, null));
+        assertThrows(IllegalArgumentException.class,
+                () -> OffHeapTaxResults.create(null, 1, RatePlan.DEFAULT));
+        assertThrows(IllegalArgumentException.class,
+                () -> OffHeapTaxResults.open(null));
+        try (BinaryPayrollFile file = BinaryPayrollFile.open(binary);
+             OffHeapTaxResults results = OffHeapTaxResults.allocate(1,
+                     RatePlan.DEFAULT)) {
+            assertThrows(IllegalArgumentException.class,
+                    () -> file.calculate(calculator, results));
+            assertThrows(IllegalArgumentException.class,
+                    () -> file.calculate(calculator,
+                            (OffHeapTaxResults) null));
+            assertThrows(IndexOutOfBoundsException.class,
+                    () -> results.get(1, TaxField.GROSS_INCOME));
+            assertThrows(IndexOutOfBoundsException.class,
+                    () -> results.cursor().at(-1));
+            assertThrows(IllegalStateException.class,
+                    () -> results.cursor().accept(TaxField.GROSS_INCOME, 1));
+            assertThrows(IllegalArgumentException.class,
+                    () -> results.read(0, null));
+        }
+
+        Files.write(path, new byte[OffHeapTaxResults.HEADER_BYTES]);
+        assertThrows(IllegalArgumentException.class,
+                () -> OffHeapTaxResults.open(path));
+
+        try (OffHeapTaxResults results = OffHeapTaxResults.create(path, 2,
+                RatePlan.DEFAULT)) {
+            assertEquals(2, results.size());
+        }
+        byte[] bytes = Files.readAllBytes(path);
+        Files.write(path, Arrays.copyOf(bytes, bytes.length - 1));
+        assertThrows(IllegalArgumentException.class,
+                () -> OffHeapTaxResults.open(path));
+    }
+
+    /**
+     * Converts delimited payroll content to a binary file.
+     */
+    private Path convert(final String content) throws IOException {
+        Path csv = tempDir.resolve("payroll.csv");
+        Path binary = tempDir.resolve("payroll.bin");
+        Files.writeString(csv, content);
+        BinaryPayrollFile.convert(csv, binary);
+        return binary;
+    }
+}
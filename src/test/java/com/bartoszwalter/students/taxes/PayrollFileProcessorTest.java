@@ -0,0 +1,149 @@
+package com.bartoszwalter.students.taxes;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests for PayrollFileProcessor class.
+ */
+class PayrollFileProcessorTest {
+
+    private final TaxCalculator calculator = new TaxCalculator();
+
+    @TempDir
+    private Path tempDir;
+
+    /**
+     * Test process writes one result row per payroll row.
+     */
+    @Test
+    void testProcessWritesResultRows() throws IOException {
+        StringWriter output = new StringWriter();
+        PayrollFileProcessor processor =
+                new PayrollFileProcessor(calculator);
+
+        long count = processor.process(new BufferedReader(
+                new StringReader("# id,income,type\n"
+                        + "1,5000.00,E\n\n2,5000.00,C\n")), output);
+
+        List<String> lines = output.toString().lines().toList();
+        assertEquals(2, count);
+        assertEquals(3, lines.size());
+        assertTrue(lines.get(0).startsWith("employeeId,contractType"));
+
+        TaxResult expected = calculator.calculateTax(
+                new BigDecimal("5000.00"), ContractType.CIVIL);
+        assertTrue(lines.get(2).startsWith("2,C,5000.00,"));
+        assertTrue(lines.get(2).endsWith(
+                "," + expected.netIncome().toPlainString()));
+    }
+
+    /**
+     * Test process with a custom delimiter.
+     */
+    @Test
+    void testProcessWithCustomDelimiter() throws IOException {
+        StringWriter output = new StringWriter();
+        PayrollFileProcessor processor =
+                new PayrollFileProcessor(calculator, ';');
+
+        processor.process(new BufferedReader(
+                new StringReader("7;1000;e\n")), output);
+
+        assertTrue(output.toString().lines().toList().get(1)
+                .startsWith("7;E;1000.00;"));
+    }
+
+    /**
+     * Test process reports the line number of an invalid row.
+     */
+    @Test
+    void testProcessWithInvalidRow() {
+        PayrollFileProcessor processor =
+                new PayrollFileProcessor(calculator);
+
+        IllegalArgumentException exception = assertThrows(
+                IllegalArgumentException.class,
+                () -> processor.process(new BufferedReader(
+                        new StringReader("1,100,E\n2,abc,E\n")),
+                        new StringWriter()));
+        assertTrue(exception.getMessage().contains("line 2"));
+    }
+
+    /**
+     * Test process with files.
+     */
+    @Test
+    void testProcessWithFiles() throws IOException {
+        Path input = tempDir.resolve("payroll.csv");
+        Path output = tempDir.resolve("result.csv");
+        Files.writeString(input, "1,3000,E\n2,4000,C\n",
+                StandardCharsets.UTF_8);
+
+        long count = calculator.processPayrollFile(input, output);
+
+        assertEquals(2, count);
+        assertEquals(3, Files.readAllLines(output).size());
+    }
+
+    /**
+     * Test a binary file gives the same text as the delimited file, each
+     * value written at the scale of its field.
+     */
+    @Test
+    void testProcessBinaryMatchesDelimited() throws IOException {
+        String rows = "1,5000,E\n2,3000.5,C\n3,0.00,E\n4,123456.78,C\n";
+        Path csv = tempDir.resolve("payroll.csv");
+        Path binary = tempDir.resolve("payroll.bin");
+        Path fromCsv = tempDir.resolve("from-csv.csv");
+        Path fromBinary = tempDir.resolve("from-binary.csv");
+        Files.writeString(csv, rows, StandardCharsets.UTF_8);
+        BinaryPayrollFile.convert(csv, binary);
+        PayrollFileProcessor processor = new PayrollFileProcessor(
+                new TaxCalculator(FixedPointTaxStrategy.strategies()));
+
+        processor.process(csv, fromCsv);
+        long count = processor.process(binary, fromBinary);
+
+        assertEquals(4, count);
+        List<String> expected = Files.readAllLines(fromCsv);
+        assertEquals(expected, Files.readAllLines(fromBinary));
+        assertTrue(expected.get(1).startsWith("1,E,5000.00,"));
+        assertTrue(expected.get(2).startsWith("2,C,3000.50,"));
+        String[] civil = expected.get(2).split(",");
+        assertEquals("0.00", civil[11]);
+    }
+
+    /**
+     * Test unscaled values are written as plain decimal strings.
+     */
+    @Test
+    void testWriteUnscaledMatchesPlainString() throws IOException {
+        char[] digits = new char[21];
+        long[] values = {0, 5, -5, 10, 99, 100, 123_456, -123_456,
+            Long.MAX_VALUE, Long.MIN_VALUE};
+        for (int scale = 0; scale <= 2; scale++) {
+            for (long value : values) {
+                StringWriter output = new StringWriter();
+                PayrollFileProcessor.writeUnscaled(output, value, scale,
+                        digits);
+                assertEquals(BigDecimal.valueOf(value, scale).toPlainString(),
+                        output.toString());
+            }
+        }
+    }
+}
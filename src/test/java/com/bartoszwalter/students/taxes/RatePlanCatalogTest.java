@@ -0,0 +1,114 @@
+package com.bartoszwalter.students.taxes;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Properties;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Tests for RatePlanCatalog class.
+ */
+class RatePlanCatalogTest {
+
+    /**
+     * Creates the rate table of the first half of 2022.
+     */
+    private static Properties tableEarly2022() {
+        Properties table = RatePlanTest.table2022();
+        table.setProperty("effectiveFrom", "2022-01-01");
+        table.setProperty("advanceTaxRate", "17");
+        return table;
+    }
+
+    /**
+     * Test plans are found by date and year.
+     */
+    @Test
+    void testLookup() {
+        RatePlan early = RatePlan.compile(tableEarly2022());
+        RatePlan late = RatePlan.compile(RatePlanTest.table2022());
+        RatePlanCatalog catalog =
+                RatePlanCatalog.of(List.of(late, RatePlan.DEFAULT, early));
+
+        assertSame(RatePlan.DEFAULT,
+                catalog.forDate(LocalDate.of(2021, 12, 31)));
+        assertSame(early, catalog.forDate(LocalDate.of(2022, 6, 30)));
+        assertSame(late, catalog.forDate(LocalDate.of(2022, 7, 1)));
+        assertSame(late, catalog.forDate(LocalDate.of(2030, 1, 1)));
+        assertEquals(List.of(early, late), catalog.forYear(2022));
+        assertEquals(List.of(), catalog.forYear(2015));
+        assertEquals(LocalDate.of(2022, 7, 1),
+                catalog.nextChangeAfter(LocalDate.of(2022, 1, 1)));
+        assertEquals(null,
+                catalog.nextChangeAfter(LocalDate.of(2022, 7, 1)));
+        assertEquals(List.of(RatePlan.DEFAULT, early, late),
+                catalog.getPlans());
+        assertThrows(IllegalArgumentException.class,
+                () -> catalog.forDate(LocalDate.of(2008, 12, 31)));
+        assertThrows(IllegalArgumentException.class,
+                () -> catalog.forDate(null));
+    }
+
+    /**
+     * Test every table of a directory is loaded.
+     */
+    @Test
+    void testLoad(@TempDir final Path tempDir) throws IOException {
+        write(tempDir.resolve("2022-01.properties"), tableEarly2022());
+        write(tempDir.resolve("2022-07.properties"),
+                RatePlanTest.table2022());
+        Files.writeString(tempDir.resolve("README.txt"), "not a table");
+
+        RatePlanCatalog catalog = RatePlanCatalog.load(tempDir);
+
+        assertEquals(2, catalog.getPlans().size());
+        assertEquals(1700, catalog.forDate(LocalDate.of(2022, 3, 1))
+                .basisPoints(RatePlan.Rate.ADVANCE_TAX));
+    }
+
+    /**
+     * Test a directory without tables is rejected.
+     */
+    @Test
+    void testLoadEmptyDirectory(@TempDir final Path tempDir) {
+        assertThrows(IllegalArgumentException.class,
+                () -> RatePlanCatalog.load(tempDir));
+    }
+
+    /**
+     * Test invalid plan collections are rejected.
+     */
+    @Test
+    void testInvalidPlans() {
+        RatePlan plan = RatePlan.compile(RatePlanTest.table2022());
+
+        assertThrows(IllegalArgumentException.class,
+                () -> RatePlanCatalog.of(null));
+        assertThrows(IllegalArgumentException.class,
+                () -> RatePlanCatalog.of(List.of()));
+        assertThrows(IllegalArgumentException.class,
+                () -> RatePlanCatalog.of(List.of(plan,
+                        RatePlan.compile(RatePlanTest.table2022()))));
+    }
+
+    /**
+     * Writes a rate table.
+     */
+    private static void write(final Path file, final Properties table)
+            throws IOException {
+        try (var writer = Files.newBufferedWriter(file,
+                StandardCharsets.UTF_8)) {
+            table.store(writer, null);
+        }
+    }
+}
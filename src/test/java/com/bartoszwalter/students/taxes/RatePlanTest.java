@@ -0,0 +1,246 @@
+package com.bartoszwalter.students.taxes;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.Properties;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests for RatePlan class.
+ */
+class RatePlanTest {
+
+    /**
+     * Creates a rate table for the second half of 2022.
+     */
+    static Properties table2022() {
+        Properties table = new Properties();
+        table.setProperty("taxYear", "2022");
+        table.setProperty("effectiveFrom", "2022-07-01");
+        table.setProperty("socialSecurityRate", "9.76");
+        table.setProperty("healthSocialSecurityRate", "1.5");
+        table.setProperty("sicknessSocialSecurityRate", "2.45");
+        table.setProperty("healthInsuranceFullRate", "9");
+        table.setProperty("healthInsuranceDeductibleRate", "0");
+        table.setProperty("advanceTaxRate", "12");
+        table.setProperty("civilContractDeductibleRate", "20");
+        table.setProperty("employmentTaxDeductibleExpenses", "250");
+        table.setProperty("taxFreeIncome", "300");
+        return table;
+    }
+
+    /**
+     * Test the default plan holds the TaxRates constants.
+     */
+    @Test
+    void testDefaultPlan() {
+        RatePlan plan = RatePlan.DEFAULT;
+
+        assertEquals(976, plan.basisPoints(RatePlan.Rate.SOCIAL_SECURITY));
+        assertEquals(1800, plan.basisPoints(RatePlan.Rate.ADVANCE_TAX));
+        assertEquals(TaxRates.EMPLOYMENT_TAX_DEDUCTIBLE_EXPENSES,
+                plan.getEmploymentDeductibleExpenses());
+        assertEquals(TaxRates.TAX_FREE_INCOME, plan.getTaxFreeIncome());
+        assertEquals((Long.MAX_VALUE - FixedPointMath.PERCENTAGE_DIVISOR_BP)
+                / plan.basisPoints(RatePlan.Rate.CIVIL_CONTRACT_DEDUCTIBLE),
+                plan.getMaxCents());
+    }
+
+    /**
+     * Test the folded fraction matches multiplying and dividing by 100.
+     */
+    @Test
+    void testPercentOfMatchesDivision() {
+        for (long cents = 0; cents < 200_000; cents += 7) {
+            BigDecimal amount = BigDecimal.valueOf(cents, 2);
+            for (RatePlan.Rate rate : RatePlan.Rate.values()) {
+                BigDecimal percent = BigDecimal.valueOf(
+                        RatePlan.DEFAULT.basisPoints(rate), 2);
+                assertEquals(amount.multiply(percent).divide(
+                                TaxRates.PERCENTAGE_DIVISOR,
+                                TaxConstants.CURRENCY_SCALE,
+                                TaxConstants.CURRENCY_ROUNDING_MODE),
+                        RatePlan.DEFAULT.percentOf(amount, rate));
+            }
+        }
+    }
+
+    /**
+     * Test a rate table is compiled with amounts in grosze.
+     */
+    @Test
+    void testCompile() {
+        RatePlan plan = RatePlan.compile(table2022());
+
+        assertEquals(2022, plan.getTaxYear());
+        assertEquals(LocalDate.of(2022, 7, 1), plan.getEffectiveFrom());
+        assertEquals(1200, plan.basisPoints(RatePlan.Rate.ADVANCE_TAX));
+        assertEquals(new BigDecimal("250.00"),
+                plan.getEmploymentDeductibleExpenses());
+        assertEquals(new BigDecimal("300.00"), plan.getTaxFreeIncome());
+        assertEquals(new BigDecimal("120.00"), plan.percentOf(
+                new BigDecimal("1000"), RatePlan.Rate.ADVANCE_TAX));
+    }
+
+    /**
+     * Test a rate table is loaded from a file.
+     */
+    @Test
+    void testLoad(@TempDir final Path tempDir) throws IOException {
+        Path file = tempDir.resolve("2022.properties");
+        try (var writer = Files.newBufferedWriter(file,
+                StandardCharsets.UTF_8)) {
+            table2022().store(writer, null);
+        }
+
+        assertEquals(LocalDate.of(2022, 7, 1),
+                RatePlan.load(file).getEffectiveFrom());
+    }
+
+    /**
+     * Test invalid values are rejected.
+     *
+     * @param entry the key and value replacing a valid one
+     */
+    @ParameterizedTest
+    @ValueSource(strings = {"taxYear=", "taxYear=x", "taxYear=2021",
+            "effectiveFrom=2022-13-01", "advanceTaxRate=-1",
+            "advanceTaxRate=100.01", "advanceTaxRate=12.125",
+            "socialSecurityRate=abc", "taxFreeIncome=-0.01",
+            "employmentTaxDeductibleExpenses=250.001"})
+    void testInvalidTable(final String entry) {
+        Properties table = table2022();
+        String[] keyValue = entry.split("=", -1);
+        table.setProperty(keyValue[0], keyValue[1]);
+
+        assertThrows(IllegalArgumentException.class,
+                () -> RatePlan.compile(table));
+    }
+
+    /**
+     * Test missing keys are rejected.
+     */
+    @Test
+    void testMissingKey() {
+        Properties table = table2022();
+        table.remove("taxFreeIncome");
+
+        assertThrows(IllegalArgumentException.class,
+                () -> RatePlan.compile(table));
+        assertThrows(IllegalArgumentException.class,
+                () -> RatePlan.compile(null));
+    }
+
+    /**
+     * Test strategies apply the plan they are given.
+     */
+    @Test
+    void testStrategiesApplyPlan() {
+        RatePlan plan = RatePlan.compile(table2022());
+        BigDecimal income = new BigDecimal("6000.00");
+
+        TaxResult employment =
+                new EmploymentContractStrategy(plan).calculateTax(income);
+        TaxResult civil =
+                new CivilContractStrategy(plan).calculateTax(income);
+
+        assertEquals(new BigDecimal("250.00"),
+                employment.taxDeductibleExpenses());
+        assertEquals(new BigDecimal("300.00"), employment.taxFreeIncome());
+        assertEquals(new BigDecimal("690.00"), employment.advanceTax());
+        assertEquals(new BigDecimal("390"), employment.finalTax());
+        assertEquals(new BigDecimal("0.00"),
+                civil.healthInsurance().getDeductibleRate());
+        assertThrows(IllegalArgumentException.class,
+                () -> new EmploymentContractStrategy(null));
+        assertThrows(IllegalArgumentException.class,
+                () -> new CivilContractStrategy(null));
+    }
+
+    /**
+     * Test versions are declared or derived from the table contents.
+     */
+    @Test
+    void testVersion() {
+        Properties table = table2022();
+        String derived = RatePlan.compile(table).getVersion();
+
+        assertTrue(RatePlan.DEFAULT.getVersion().startsWith("2009-01-01#"));
+        assertTrue(derived.startsWith("2022-07-01#"));
+        assertEquals(derived, RatePlan.compile(table2022()).getVersion());
+        table.setProperty("taxFreeIncome", "300.01");
+        assertNotEquals(derived, RatePlan.compile(table).getVersion());
+        table.setProperty("version", " 2022-07 rev 2 ");
+        assertEquals("2022-07 rev 2", RatePlan.compile(table).getVersion());
+    }
+
+    /**
+     * Test the default version is derived from the TaxRates constants
+     * like that of a table holding them, so other constants give another
+     * version.
+     */
+    @Test
+    void testDefaultVersionDerivedFromConstants() {
+        Properties table = new Properties();
+        table.setProperty("taxYear", "2009");
+        table.setProperty("effectiveFrom", "2009-01-01");
+        table.setProperty("socialSecurityRate",
+                TaxRates.SOCIAL_SECURITY_RATE.toPlainString());
+        table.setProperty("healthSocialSecurityRate",
+                TaxRates.HEALTH_SOCIAL_SECURITY_RATE.toPlainString());
+        table.setProperty("sicknessSocialSecurityRate",
+                TaxRates.SICKNESS_SOCIAL_SECURITY_RATE.toPlainString());
+        table.setProperty("healthInsuranceFullRate",
+                TaxRates.HEALTH_INSURANCE_FULL_RATE.toPlainString());
+        table.setProperty("healthInsuranceDeductibleRate",
+                TaxRates.HEALTH_INSURANCE_DEDUCTIBLE_RATE.toPlainString());
+        table.setProperty("advanceTaxRate",
+                TaxRates.ADVANCE_TAX_RATE.toPlainString());
+        table.setProperty("civilContractDeductibleRate",
+                TaxRates.CIVIL_CONTRACT_DEDUCTIBLE_RATE.toPlainString());
+        table.setProperty("employmentTaxDeductibleExpenses",
+                TaxRates.EMPLOYMENT_TAX_DEDUCTIBLE_EXPENSES.toPlainString());
+        table.setProperty("taxFreeIncome",
+                TaxRates.TAX_FREE_INCOME.toPlainString());
+
+        assertEquals(RatePlan.DEFAULT.getVersion(),
+                RatePlan.compile(table).getVersion());
+        table.setProperty("advanceTaxRate", "19");
+        assertNotEquals(RatePlan.DEFAULT.getVersion(),
+                RatePlan.compile(table).getVersion());
+    }
+
+    /**
+     * Test results record the version of their plan.
+     */
+    @Test
+    void testResultsRecordVersion() {
+        RatePlan plan = RatePlan.compile(table2022());
+        BigDecimal income = new BigDecimal("4000");
+
+        assertEquals(plan.getVersion(), new CivilContractStrategy(plan)
+                .calculateTax(income).rateVersion());
+        assertEquals(plan.getVersion(), new FixedPointTaxStrategy(
+                ContractType.EMPLOYMENT, plan).calculateTax(income)
+                .rateVersion());
+        assertEquals(plan.getVersion(), new EmploymentContractStrategy(plan)
+                .calculateTax(income, Set.of(TaxField.FINAL_TAX))
+                .toTaxResult().rateVersion());
+        assertEquals(RatePlan.DEFAULT.getVersion(), new TaxCalculator()
+                .calculateTax(income, ContractType.CIVIL).rateVersion());
+    }
+}
@@ -0,0 +1,296 @@
+package com.bartoszwalter.students.taxes;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests for RateTableWatcher class.
+ */
+class RateTableWatcherTest {
+
+    /**
+     * Writes a rate table with a version and advance tax rate, replacing
+     * the file atomically.
+     */
+    private static void writeTable(final Path directory, final String name,
+                                   final String effectiveFrom,
+                                   final int advanceTaxRate)
+            throws IOException {
+        Properties table = RatePlanTest.table2022();
+        table.setProperty("effectiveFrom", effectiveFrom);
+        table.setProperty("advanceTaxRate", String.valueOf(advanceTaxRate));
+        table.setProperty("version", "v" + advanceTaxRate);
+        Path temporary = directory.resolve(name + ".tmp");
+        try (Writer writer = Files.newBufferedWriter(temporary,
+                StandardCharsets.UTF_8)) {
+            table.store(writer, null);
+        }
+        Files.move(temporary, directory.resolve(name),
+                StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Returns a clock fixed on a date.
+     */
+    private static Clock clockAt(final String date) {
+        return Clock.fixed(LocalDate.parse(date).atStartOfDay()
+                .toInstant(ZoneOffset.UTC), ZoneOffset.UTC);
+    }
+
+    /**
+     * Test results record the version of the plan in force.
+     */
+    @Test
+    void testResultsRecordVersion(@TempDir final Path dir)
+            throws IOException {
+        writeTable(dir, "2022.properties", "2022-01-01", 17);
+
+        try (RateTableWatcher watcher =
+                     RateTableWatcher.start(dir, clockAt("2022-03-01"))) {
+            TaxCalculator calculator =
+                    new TaxCalculator(watcher.strategies());
+            TaxResult result = calculator.calculateTax(
+                    new BigDecimal("5000"), ContractType.EMPLOYMENT);
+
+            assertEquals("v17", result.rateVersion());
+            assertEquals("v17", watcher.currentPlan().getVersion());
+            assertEquals(new BigDecimal("807.50"), result.advanceTax());
+        }
+    }
+
+    /**
+     * Test a changed table is picked up without restarting.
+     */
+    @Test
+    void testReloadsChangedTable(@TempDir final Path dir) throws Exception {
+        writeTable(dir, "2022.properties", "2022-01-01", 17);
+
+        try (RateTableWatcher watcher =
+                     RateTableWatcher.start(dir, clockAt("2022-03-01"))) {
+            TaxCalculationStrategy strategy =
+                    watcher.strategies().get(ContractType.CIVIL);
+            writeTable(dir, "2022.properties", "2022-01-01", 12);
+
+            long deadline = System.nanoTime() + 20_000_000_000L;
+            while (!"v12".equals(strategy.calculateTax(BigDecimal.TEN)
+                    .rateVersion()) && System.nanoTime() < deadline) {
+                Thread.sleep(20);
+            }
+
+            assertEquals("v12", strategy.calculateTax(BigDecimal.TEN)
+                    .rateVersion());
+        }
+    }
+
+    /**
+     * Test a directory deleted and created again is watched again.
+     */
+    @Test
+    void testWatchesRecreatedDirectory(@TempDir final Path dir)
+            throws Exception {
+        Path rates = Files.createDirectory(dir.resolve("rates"));
+        writeTable(rates, "2022.properties", "2022-01-01", 17);
+
+        try (RateTableWatcher watcher =
+                     RateTableWatcher.start(rates, clockAt("2022-03-01"))) {
+            TaxCalculationStrategy strategy =
+                    watcher.strategies().get(ContractType.CIVIL);
+            Files.delete(rates.resolve("2022.properties"));
+            Files.delete(rates);
+            Thread.sleep(500);
+            Files.createDirectory(rates);
+            writeTable(rates, "2022.properties", "2022-01-01", 12);
+
+            long deadline = System.nanoTime() + 20_000_000_000L;
+            while (!"v12".equals(strategy.calculateTax(BigDecimal.TEN)
+                    .rateVersion()) && System.nanoTime() < deadline) {
+                Thread.sleep(20);
+            }
+
+            assertEquals("v12", strategy.calculateTax(BigDecimal.TEN)
+                    .rateVersion());
+        }
+    }
+
+    /**
+     * Test cached strategies stop serving results of a replaced plan.
+     */
+    @Test
+    void testCachedResultsFollowReload(@TempDir final Path dir)
+            throws IOException {
+        writeTable(dir, "2022.properties", "2022-01-01", 17);
+
+        try (RateTableWatcher watcher =
+                     RateTableWatcher.start(dir, clockAt("2022-03-01"))) {
+            CachingTaxStrategy cached = new CachingTaxStrategy(
+                    watcher.strategies().get(ContractType.EMPLOYMENT), 10);
+            BigDecimal income = new BigDecimal("5000");
+            cached.calculateTax(income);
+
+            assertEquals("v17", cached.calculateTax(income).rateVersion());
+            assertEquals(1, cached.stats().hitCount());
+
+            writeTable(dir, "2022.properties", "2022-01-01", 12);
+            watcher.reload();
+
+            TaxResult result = cached.calculateTax(income);
+            assertEquals("v12", result.rateVersion());
+            assertEquals(watcher.strategies().get(ContractType.EMPLOYMENT)
+                    .calculateTax(income).finalTax(), result.finalTax());
+            assertEquals(1, cached.stats().hitCount());
+            assertEquals(1, cached.stats().size());
+            assertEquals("v12", cached.getRatePlan().getVersion());
+        }
+    }
+
+    /**
+     * Test an invalid table keeps the previous snapshot.
+     */
+    @Test
+    void testInvalidTableKeepsSnapshot(@TempDir final Path dir)
+            throws IOException {
+        writeTable(dir, "2022.properties", "2022-01-01", 17);
+
+        try (RateTableWatcher watcher =
+                     RateTableWatcher.start(dir, clockAt("2022-03-01"))) {
+            Files.writeString(dir.resolve("broken.properties"),
+                    "taxYear=2022\n");
+
+            assertThrows(IllegalArgumentException.class, watcher::reload);
+            assertEquals("v17", watcher.currentPlan().getVersion());
+            assertEquals(1, watcher.getCatalog().getPlans().size());
+        }
+    }
+
+    /**
+     * Test the next plan comes into force on its effective date.
+     */
+    @Test
+    void testSwitchesPlanOnEffectiveDate(@TempDir final Path dir)
+            throws IOException {
+        writeTable(dir, "2022-01.properties", "2022-01-01", 17);
+        writeTable(dir, "2022-07.properties", "2022-07-01", 12);
+        MutableClock clock = new MutableClock(LocalDate.parse("2022-06-30")
+                .atTime(23, 59).toInstant(ZoneOffset.UTC));
+
+        try (RateTableWatcher watcher = RateTableWatcher.start(dir, clock)) {
+            TaxCalculationStrategy strategy =
+                    watcher.strategies().get(ContractType.EMPLOYMENT);
+            assertEquals("v17", strategy.calculateTax(BigDecimal.TEN)
+                    .rateVersion());
+
+            clock.instant = clock.instant.plusSeconds(60);
+
+            assertEquals("v12", strategy.calculateTax(BigDecimal.TEN)
+                    .rateVersion());
+            assertEquals("v12", watcher.currentPlan().getVersion());
+        }
+    }
+
+    /**
+     * Test calculations racing with reloads always use one consistent
+     * plan.
+     */
+    @Test
+    void testConcurrentReloadsAreConsistent(@TempDir final Path dir)
+            throws Exception {
+        writeTable(dir, "2022.properties", "2022-01-01", 17);
+        AtomicBoolean running = new AtomicBoolean(true);
+        List<Future<Integer>> checks = new ArrayList<>();
+
+        try (RateTableWatcher watcher =
+                     RateTableWatcher.start(dir, clockAt("2022-03-01"));
+             ExecutorService executor = Executors.newFixedThreadPool(2)) {
+            TaxCalculationStrategy strategy =
+                    watcher.strategies().get(ContractType.EMPLOYMENT);
+            for (int i = 0; i < 2; i++) {
+                checks.add(executor.submit(() -> {
+                    int count = 0;
+                    while (running.get() || count == 0) {
+                        TaxResult result = strategy.calculateTax(
+                                new BigDecimal("6000.00"));
+                        BigDecimal rate = new BigDecimal(
+                                result.rateVersion().substring(1));
+                        assertEquals(result.taxableIncome().multiply(rate)
+                                        .movePointLeft(2).setScale(2),
+                                result.advanceTax());
+                        count++;
+                    }
+                    return count;
+                }));
+            }
+            for (int rate = 10; rate < 40; rate++) {
+                writeTable(dir, "2022.properties", "2022-01-01", rate);
+                watcher.reload();
+            }
+            running.set(false);
+            for (Future<Integer> check : checks) {
+                assertTrue(check.get() > 0);
+            }
+        }
+    }
+
+    /**
+     * Test a directory without a plan in force is rejected.
+     */
+    @Test
+    void testNoPlanInForce(@TempDir final Path dir) throws IOException {
+        writeTable(dir, "2022.properties", "2022-07-01", 12);
+
+        assertThrows(IllegalArgumentException.class,
+                () -> RateTableWatcher.start(dir, clockAt("2022-01-01")));
+        assertThrows(IllegalArgumentException.class,
+                () -> RateTableWatcher.start(null));
+    }
+
+    /**
+     * Clock whose instant can be moved by a test.
+     */
+    private static final class MutableClock extends Clock {
+
+        private volatile Instant instant;
+
+        MutableClock(final Instant start) {
+            this.instant = start;
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(final ZoneId zone) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Instant instant() {
+            return instant;
+        }
+    }
+}
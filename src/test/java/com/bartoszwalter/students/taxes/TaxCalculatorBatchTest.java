@@ -0,0 +1,156 @@
+package com.bartoszwalter.students.taxes;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests for the batch calculation API of TaxCalculator.
+ */
+class TaxCalculatorBatchTest {
+
+    private final TaxCalculator calculator = new TaxCalculator();
+
+    /**
+     * Creates entries spanning several fork-join leaf tasks.
+     */
+    private static List<PayrollEntry> createEntries(final int count) {
+        List<PayrollEntry> entries = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            ContractType type = i % 2 == 0
+                    ? ContractType.EMPLOYMENT : ContractType.CIVIL;
+            entries.add(new PayrollEntry(i,
+                    BigDecimal.valueOf(1000 + i * 7L, 1), type));
+        }
+        return entries;
+    }
+
+    /**
+     * Test calculateAll matches the single-call path in input order.
+     */
+    @Test
+    void testCalculateAllMatchesSingleCalls() {
+        List<PayrollEntry> entries =
+                createEntries(PayrollBatchTask.THRESHOLD * 3 + 17);
+
+        List<TaxResult> results = calculator.calculateAll(entries);
+
+        assertEquals(entries.size(), results.size());
+        for (int i = 0; i < entries.size(); i++) {
+            PayrollEntry entry = entries.get(i);
+            TaxResult expected = calculator.calculateTax(
+                    entry.grossIncome(), entry.contractType());
+            assertEquals(expected.grossIncome(),
+                    results.get(i).grossIncome());
+            assertEquals(expected.netIncome(),
+                    results.get(i).netIncome());
+            assertEquals(expected.finalTax(), results.get(i).finalTax());
+        }
+    }
+
+    /**
+     * Test calculateAll packs results equal to the single-call path,
+     * including the scale of every value.
+     */
+    @Test
+    void testCalculateAllPacksResults() {
+        List<PayrollEntry> entries = createEntries(2000);
+
+        CompactTaxResults results = calculator.calculateAll(entries, 2);
+
+        for (int i = 0; i < entries.size(); i++) {
+            PayrollEntry entry = entries.get(i);
+            TaxResultAssertions.assertSameResult(calculator.calculateTax(
+                    entry.grossIncome(), entry.contractType()),
+                    results.get(i));
+        }
+    }
+
+    /**
+     * Test calculateAll with explicit parallelism.
+     */
+    @Test
+    void testCalculateAllWithParallelism() {
+        List<PayrollEntry> entries = createEntries(5000);
+
+        List<TaxResult> sequential = calculator.calculateAll(entries, 1);
+        List<TaxResult> parallel = calculator.calculateAll(entries, 4);
+
+        for (int i = 0; i < entries.size(); i++) {
+            assertEquals(sequential.get(i).netIncome(),
+                    parallel.get(i).netIncome());
+        }
+    }
+
+    /**
+     * Test calculateAll with a non random access list.
+     */
+    @Test
+    void testCalculateAllWithLinkedList() {
+        List<PayrollEntry> entries = new LinkedList<>(createEntries(100));
+
+        List<TaxResult> results = calculator.calculateAll(entries);
+
+        assertEquals(entries.get(42).grossIncome(),
+                results.get(42).grossIncome());
+    }
+
+    /**
+     * Test calculateAll with an empty list.
+     */
+    @Test
+    void testCalculateAllWithEmptyList() {
+        assertTrue(calculator.calculateAll(List.of()).isEmpty());
+    }
+
+    /**
+     * Test calculateAll with a stream keeps encounter order.
+     */
+    @Test
+    void testCalculateAllWithParallelStream() {
+        List<PayrollEntry> entries = createEntries(3000);
+
+        List<TaxResult> results = calculator.calculateAll(
+                entries.parallelStream()).toList();
+
+        for (int i = 0; i < entries.size(); i++) {
+            assertEquals(entries.get(i).grossIncome(),
+                    results.get(i).grossIncome());
+        }
+    }
+
+    /**
+     * Test calculateAll with invalid arguments.
+     */
+    @Test
+    void testCalculateAllWithInvalidArguments() {
+        List<PayrollEntry> entries = createEntries(10);
+
+        assertThrows(IllegalArgumentException.class,
+                () -> calculator.calculateAll((List<PayrollEntry>) null));
+        assertThrows(IllegalArgumentException.class,
+                () -> calculator.calculateAll((Stream<PayrollEntry>) null));
+        assertThrows(IllegalArgumentException.class,
+                () -> calculator.calculateAll(entries, 0));
+    }
+
+    /**
+     * Test calculateAll propagates invalid entries.
+     */
+    @Test
+    void testCalculateAllWithNegativeIncome() {
+        List<PayrollEntry> entries = List.of(new PayrollEntry(1,
+                new BigDecimal("-1"), ContractType.EMPLOYMENT));
+
+        assertThrows(IllegalArgumentException.class,
+                () -> calculator.calculateAll(entries));
+    }
+}
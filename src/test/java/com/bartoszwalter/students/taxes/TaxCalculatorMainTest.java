@@ -3,14 +3,22 @@ package com.bartoszwalter.students.taxes;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
 import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.PrintStream;
+import java.nio.channels.Channels;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 
 import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 /**
  * Tests for TaxCalculator main method and processUserInput.
@@ -184,6 +192,27 @@ class TaxCalculatorMainTest {
         assertDoesNotThrow(calculator::processUserInput);
     }
 
+    /**
+     * Test processUserInputTo writes the result to the given writer.
+     */
+    @Test
+    void testProcessUserInputToWriter() throws IOException {
+        String input = "5000\nE\n";
+        System.setIn(new ByteArrayInputStream(
+                input.getBytes(StandardCharsets.UTF_8)));
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+        TaxCalculator calculator = new TaxCalculator();
+        calculator.processUserInputTo(new ChannelTaxResultWriter(
+                Channels.newChannel(bytes), 1024));
+
+        String output = bytes.toString(StandardCharsets.UTF_8);
+        assertTrue(output.startsWith("Contract Type: EMPLOYMENT"));
+        assertTrue(output.contains("Net Income: "));
+        assertThrows(IllegalArgumentException.class,
+                () -> calculator.processUserInputTo(null));
+    }
+
     /**
      * Test processUserInput throws IllegalArgumentException on invalid
      * input.
@@ -242,4 +271,102 @@ class TaxCalculatorMainTest {
 
         assertDoesNotThrow(() -> TaxCalculator.main(new String[]{}));
     }
+
+    /**
+     * Test main in payroll file mode.
+     */
+    @Test
+    void testMainWithPayrollOption(@TempDir final Path tempDir)
+            throws IOException {
+        Path input = tempDir.resolve("payroll.csv");
+        Path output = tempDir.resolve("result.csv");
+        Files.writeString(input, "1,5000,E\n", StandardCharsets.UTF_8);
+
+        TaxCalculator.main(new String[]{"--payroll", input.toString(),
+            output.toString()});
+
+        assertTrue(Files.exists(output));
+    }
+
+    /**
+     * Test main profiling a payroll run.
+     */
+    @Test
+    void testMainWithProfileOption(@TempDir final Path tempDir)
+            throws IOException {
+        Path input = tempDir.resolve("payroll.csv");
+        Path output = tempDir.resolve("result.csv");
+        Files.writeString(input, "1,5000,E\n", StandardCharsets.UTF_8);
+
+        TaxCalculator.main(new String[]{"--profile", "--payroll",
+            input.toString(), output.toString()});
+
+        assertTrue(Files.exists(output));
+    }
+
+    /**
+     * Test main refuses to profile the server mode.
+     */
+    @Test
+    void testMainWithProfiledServer() {
+        assertDoesNotThrow(() -> TaxCalculator.main(
+                new String[]{"--profile", "--server"}));
+    }
+
+    /**
+     * Test main in REPL mode answers every line on standard output.
+     */
+    @Test
+    void testMainWithReplOption() {
+        System.setIn(new ByteArrayInputStream(
+                "5000 E\n3000 C\nabc E\n".getBytes(StandardCharsets.UTF_8)));
+        PrintStream originalOut = System.out;
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        System.setOut(new PrintStream(output, true, StandardCharsets.UTF_8));
+        try {
+            TaxCalculator.main(new String[]{"--repl"});
+        } finally {
+            System.setOut(originalOut);
+        }
+
+        String[] answers = output.toString(StandardCharsets.UTF_8)
+                .split("\n");
+        assertEquals(3, answers.length);
+        assertTrue(answers[0].startsWith("{\"contractType\":\"EMPLOYMENT\""));
+        assertTrue(answers[1].startsWith("{\"contractType\":\"CIVIL\""));
+        assertTrue(answers[2].startsWith("{\"error\""));
+    }
+
+    /**
+     * Test main in daemon mode with invalid arguments, or profiled.
+     */
+    @Test
+    void testMainWithInvalidDaemonOption() {
+        assertDoesNotThrow(() -> TaxCalculator.main(
+                new String[]{"--daemon", "a.sock", "extra"}));
+        assertDoesNotThrow(() -> TaxCalculator.main(
+                new String[]{"--profile", "--daemon"}));
+        assertDoesNotThrow(() -> TaxCalculator.main(
+                new String[]{"--repl", "extra"}));
+    }
+
+    /**
+     * Test main in payroll file mode with missing arguments.
+     */
+    @Test
+    void testMainWithIncompletePayrollOption() {
+        assertDoesNotThrow(
+                () -> TaxCalculator.main(new String[]{"--payroll"}));
+    }
+
+    /**
+     * Test main in server mode with invalid arguments.
+     */
+    @Test
+    void testMainWithInvalidServerOption() {
+        assertDoesNotThrow(
+                () -> TaxCalculator.main(new String[]{"--server", "port"}));
+        assertDoesNotThrow(() -> TaxCalculator.main(
+                new String[]{"--server", "8080", "extra"}));
+    }
 }
@@ -3,10 +3,15 @@ package com.bartoszwalter.students.taxes;
 import org.junit.jupiter.api.Test;
 
 import java.math.BigDecimal;
+import java.util.Map;
 
+import static com.bartoszwalter.students.taxes.TaxResultAssertions.assertSameResult;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 /**
  * Tests for TaxCalculator class.
@@ -131,7 +136,107 @@ class TaxCalculatorTest {
         assertThrows(IllegalArgumentException.class,
                 () -> calculator.calculateTax(income, null));
     }
-}
 
+    /**
+     * Test calculate returns the result calculateTax returns.
+     */
+    @Test
+    void testCalculateSucceedsLikeCalculateTax() {
+        TaxCalculator fixedPoint =
+                new TaxCalculator(FixedPointTaxStrategy.strategies());
+        TaxCalculator caching = new TaxCalculator(
+                CachingTaxStrategy.decorate(calculatorStrategies(), 4));
+
+        for (TaxCalculator tested : new TaxCalculator[] {calculator,
+                fixedPoint, caching}) {
+            for (ContractType type : ContractType.values()) {
+                for (String income : new String[] {"0", "5000.00",
+                        "1234.567", "99999999999999999.99"}) {
+                    BigDecimal gross = new BigDecimal(income);
+                    Outcome outcome = tested.calculate(gross, type);
+
+                    assertTrue(outcome.isSuccess());
+                    assertSameResult(tested.calculateTax(gross, type),
+                            outcome.orElseThrow());
+                }
+            }
+        }
+    }
+
+    /**
+     * Test calculate reports invalid input without throwing.
+     */
+    @Test
+    void testCalculateReportsFailures() {
+        TaxCalculator employmentOnly = new TaxCalculator(Map.of(
+                ContractType.EMPLOYMENT, new EmploymentContractStrategy()));
+
+        assertEquals(Outcome.Reason.MISSING_INCOME,
+                reason(calculator.calculate(null, ContractType.CIVIL)));
+        assertEquals(Outcome.Reason.NEGATIVE_INCOME,
+                reason(calculator.calculate(new BigDecimal("-0.01"),
+                        ContractType.EMPLOYMENT)));
+        assertEquals(Outcome.Reason.UNSUPPORTED_CONTRACT_TYPE,
+                reason(calculator.calculate(BigDecimal.TEN, null)));
+        assertEquals(Outcome.Reason.UNSUPPORTED_CONTRACT_TYPE,
+                reason(employmentOnly.calculate(BigDecimal.TEN,
+                        ContractType.CIVIL)));
+    }
+
+    /**
+     * Test failures are shared and throw only when unwrapped.
+     */
+    @Test
+    void testFailuresAreShared() {
+        Outcome first = calculator.calculate(null, ContractType.CIVIL);
+        Outcome second = calculator.calculate(null, ContractType.EMPLOYMENT);
+
+        assertSame(first, second);
+        assertFalse(first.isSuccess());
+        assertEquals("Gross income cannot be null",
+                assertThrows(IllegalStateException.class,
+                        first::orElseThrow).getMessage());
+        assertThrows(IllegalArgumentException.class,
+                () -> new Outcome.Failure(null));
+    }
+
+    /**
+     * Test the rates of the strategies are compared by their plans,
+     * without calculating, and unknown rates never match.
+     */
+    @Test
+    void testCalculatesWith() {
+        RatePlan plan = RatePlan.compile(RatePlanTest.table2022());
+        TaxCalculator planned = new TaxCalculator(
+                FixedPointTaxStrategy.strategies(plan));
+        TaxCalculator unknown = new TaxCalculator(Map.of(ContractType.CIVIL,
+                income -> {
+                    throw new AssertionError("Calculated " + income);
+                }));
+
+        assertTrue(calculator.calculatesWith(RatePlan.DEFAULT.getVersion()));
+        assertFalse(calculator.calculatesWith(plan.getVersion()));
+        assertTrue(planned.calculatesWith(plan.getVersion()));
+        assertFalse(unknown.calculatesWith(RatePlan.DEFAULT.getVersion()));
+    }
 
+    /**
+     * Returns the reason of a failed outcome.
+     */
+    private static Outcome.Reason reason(final Outcome outcome) {
+        return switch (outcome) {
+            case Outcome.Success success -> null;
+            case Outcome.Failure failure -> failure.reason();
+        };
+    }
 
+    /**
+     * Returns the default strategies.
+     */
+    private static Map<ContractType, TaxCalculationStrategy>
+            calculatorStrategies() {
+        return Map.of(ContractType.EMPLOYMENT,
+                new EmploymentContractStrategy(),
+                ContractType.CIVIL, new CivilContractStrategy());
+    }
+}
@@ -0,0 +1,191 @@
+package com.bartoszwalter.students.taxes;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests for TaxDaemon and TaxDaemonClient classes.
+ */
+class TaxDaemonTest {
+
+    private final TaxCalculator calculator = new TaxCalculator();
+
+    @TempDir
+    Path tempDir;
+
+    private Path socket;
+    private TaxDaemon daemon;
+
+    /**
+     * Start a daemon before each test.
+     */
+    @BeforeEach
+    void setUp() throws IOException {
+        socket = tempDir.resolve("tax.sock");
+        daemon = TaxDaemon.start(calculator, socket);
+    }
+
+    /**
+     * Stop the daemon after each test.
+     */
+    @AfterEach
+    void tearDown() throws IOException {
+        daemon.close();
+    }
+
+    /**
+     * Test a connection answers any number of calculations.
+     */
+    @Test
+    void testClientCalculatesRepeatedly() throws IOException {
+        try (TaxDaemonClient client = TaxDaemonClient.connect(socket)) {
+            for (String income : List.of("5000", "3000.50", "0")) {
+                for (ContractType type : ContractType.values()) {
+                    assertEquals(TaxJson.toJson(calculator.calculateTax(
+                                    new BigDecimal(income), type), type),
+                            client.calculate(new BigDecimal(income), type));
+                }
+            }
+        }
+    }
+
+    /**
+     * Test invalid requests are answered with errors.
+     */
+    @Test
+    void testClientReceivesErrors() throws IOException {
+        try (TaxDaemonClient client = TaxDaemonClient.connect(socket)) {
+            assertEquals(TaxJson.error("Income cannot be negative"),
+                    client.calculate(new BigDecimal("-1"),
+                            ContractType.CIVIL));
+            assertThrows(IllegalArgumentException.class,
+                    () -> client.calculate(null, ContractType.CIVIL));
+        }
+    }
+
+    /**
+     * Test concurrent connections are served independently.
+     */
+    @Test
+    void testConcurrentClients() {
+        List<CompletableFuture<String>> answers = new ArrayList<>();
+        for (int i = 1; i <= 8; i++) {
+            BigDecimal income = BigDecimal.valueOf(i * 1000L);
+            answers.add(CompletableFuture.supplyAsync(() -> {
+                try (TaxDaemonClient client =
+                             TaxDaemonClient.connect(socket)) {
+                    return client.calculate(income, ContractType.EMPLOYMENT);
+                } catch (IOException e) {
+                    throw new IllegalStateException(e);
+                }
+            }));
+        }
+
+        for (int i = 1; i <= 8; i++) {
+            assertEquals(TaxJson.toJson(calculator.calculateTax(
+                            BigDecimal.valueOf(i * 1000L),
+                            ContractType.EMPLOYMENT), ContractType.EMPLOYMENT),
+                    answers.get(i - 1).join());
+        }
+    }
+
+    /**
+     * Test closing removes the socket and ends open connections.
+     */
+    @Test
+    void testCloseRemovesSocket() throws IOException {
+        try (TaxDaemonClient client = TaxDaemonClient.connect(socket)) {
+            daemon.close();
+
+            assertFalse(Files.exists(socket));
+            assertThrows(IOException.class, () -> client.calculate(
+                    BigDecimal.ONE, ContractType.CIVIL));
+        }
+    }
+
+    /**
+     * Test a second daemon cannot take over a live socket.
+     */
+    @Test
+    void testSecondDaemonOnLiveSocketThrows() {
+        assertThrows(IOException.class,
+                () -> TaxDaemon.start(calculator, socket));
+    }
+
+    /**
+     * Test a socket file left by a stopped daemon is replaced.
+     */
+    @Test
+    void testStaleSocketReplaced() throws IOException {
+        Path stale = tempDir.resolve("stale.sock");
+        try (ServerSocketChannel stopped = ServerSocketChannel.open(
+                StandardProtocolFamily.UNIX)) {
+            stopped.bind(UnixDomainSocketAddress.of(stale));
+        }
+        assertTrue(Files.exists(stale));
+
+        try (TaxDaemon second = TaxDaemon.start(calculator, stale);
+             TaxDaemonClient client = TaxDaemonClient.connect(stale)) {
+            assertEquals(stale, second.getSocket());
+            assertTrue(client.calculate(new BigDecimal("5000"),
+                    ContractType.CIVIL).startsWith("{\"contractType\""));
+        }
+    }
+
+    /**
+     * Test files that are not sockets are left alone.
+     */
+    @Test
+    void testOtherFilesNotReplaced() throws IOException {
+        Path text = tempDir.resolve("notes.txt");
+        Files.writeString(text, "keep me");
+        Path directory = Files.createDirectory(tempDir.resolve("dir"));
+
+        assertThrows(IOException.class,
+                () -> TaxDaemon.start(calculator, text));
+        assertThrows(IOException.class,
+                () -> TaxDaemon.start(calculator, directory));
+        assertEquals("keep me", Files.readString(text));
+        assertTrue(Files.isDirectory(directory));
+    }
+
+    /**
+     * Test connecting without a daemon fails.
+     */
+    @Test
+    void testConnectWithoutDaemonThrows() {
+        assertThrows(IOException.class, () -> TaxDaemonClient.connect(
+                tempDir.resolve("missing.sock")));
+        assertThrows(IllegalArgumentException.class,
+                () -> TaxDaemonClient.connect(null));
+    }
+
+    /**
+     * Test start rejects null arguments.
+     */
+    @Test
+    void testStartWithNullArgumentsThrows() {
+        assertThrows(IllegalArgumentException.class,
+                () -> TaxDaemon.start(null, socket));
+        assertThrows(IllegalArgumentException.class,
+                () -> TaxDaemon.start(calculator, null));
+    }
+}
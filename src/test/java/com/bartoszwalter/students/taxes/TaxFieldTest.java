@@ -0,0 +1,52 @@
+package com.bartoszwalter.students.taxes;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Tests for TaxField enum.
+ */
+class TaxFieldTest {
+
+    /**
+     * Test scales of currency and rounded fields.
+     */
+    @Test
+    void testScales() {
+        assertEquals(2, TaxField.NET_INCOME.getScale());
+        assertEquals(0, TaxField.FINAL_TAX.getScale());
+        assertEquals(0, TaxField.TAXABLE_INCOME.getScale());
+    }
+
+    /**
+     * Test conversion to and from unscaled values.
+     */
+    @Test
+    void testUnscaledConversion() {
+        assertEquals(123_456,
+                TaxField.NET_INCOME.toUnscaled(new BigDecimal("1234.56")));
+        assertEquals(new BigDecimal("1234.56"),
+                TaxField.NET_INCOME.toDecimal(123_456));
+        assertEquals(new BigDecimal("-3"), TaxField.FINAL_TAX.toDecimal(-3));
+        assertThrows(ArithmeticException.class,
+                () -> TaxField.FINAL_TAX.toUnscaled(new BigDecimal("1.5")));
+    }
+
+    /**
+     * Test valueOf reads the matching result component.
+     */
+    @Test
+    void testValueOf() {
+        TaxResult result = new EmploymentContractStrategy()
+                .calculateTax(new BigDecimal("5000"));
+
+        assertEquals(result.healthInsurance().getDeductibleRate(),
+                TaxField.HEALTH_INSURANCE_DEDUCTIBLE.valueOf(result));
+        assertEquals(result.netIncome(),
+                TaxField.NET_INCOME.valueOf(result));
+    }
+}
@@ -0,0 +1,180 @@
+package com.bartoszwalter.students.taxes;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests for TaxHttpServer class.
+ */
+class TaxHttpServerTest {
+
+    private final TaxCalculator calculator = new TaxCalculator();
+    private final HttpClient client = HttpClient.newHttpClient();
+    private TaxHttpServer server;
+    private URI uri;
+
+    /**
+     * Start a server on a free port before each test.
+     */
+    @BeforeEach
+    void setUp() throws IOException {
+        server = TaxHttpServer.start(calculator, new InetSocketAddress(
+                InetAddress.getLoopbackAddress(), 0));
+        uri = URI.create("http://localhost:"
+                + server.getAddress().getPort() + TaxHttpServer.PATH);
+    }
+
+    /**
+     * Stop the server after each test.
+     */
+    @AfterEach
+    void tearDown() {
+        server.close();
+    }
+
+    /**
+     * Posts a JSON body.
+     */
+    private HttpResponse<String> post(final String body) throws Exception {
+        return client.send(HttpRequest.newBuilder(uri)
+                        .POST(HttpRequest.BodyPublishers.ofString(body))
+                        .build(),
+                HttpResponse.BodyHandlers.ofString());
+    }
+
+    /**
+     * Test a calculation matches the calculator.
+     */
+    @Test
+    void testCalculate() throws Exception {
+        HttpResponse<String> response = post(
+                "{\"grossIncome\": 5000.00, \"contractType\": \"CIVIL\"}");
+
+        assertEquals(200, response.statusCode());
+        assertTrue(response.headers().firstValue("Content-Type")
+                .orElseThrow().startsWith("application/json"));
+        TaxResult expected = calculator.calculateTax(
+                new BigDecimal("5000.00"), ContractType.CIVIL);
+        assertEquals(TaxJson.toJson(expected, ContractType.CIVIL),
+                response.body());
+    }
+
+    /**
+     * Test incomes may be strings and contract types one-letter codes.
+     */
+    @Test
+    void testStringIncomeAndCode() throws Exception {
+        HttpResponse<String> response = post(
+                "{\"grossIncome\": \"1234.56\", \"contractType\": \"e\"}");
+
+        assertEquals(200, response.statusCode());
+        assertEquals("EMPLOYMENT", TaxJson.parseObject(response.body())
+                .get("contractType"));
+    }
+
+    /**
+     * Test invalid requests get a JSON error.
+     */
+    @Test
+    void testInvalidRequests() throws Exception {
+        for (String body : List.of("not json", "{\"grossIncome\": -1,"
+                        + " \"contractType\": \"C\"}",
+                "{\"grossIncome\": 1}", "{\"grossIncome\": 1,"
+                        + " \"contractType\": \"X\"}",
+                "{\"a\": \"" + "x".repeat(5000) + "\"}")) {
+            HttpResponse<String> response = post(body);
+
+            assertEquals(400, response.statusCode(), body);
+            assertTrue(TaxJson.parseObject(response.body())
+                    .containsKey("error"));
+        }
+    }
+
+    /**
+     * Test incomes with huge exponents or extra decimal places are
+     * rejected before any calculation.
+     */
+    @Test
+    @Timeout(5)
+    void testOutOfRangeIncomes() throws Exception {
+        for (String income : List.of("1e5000000", "\"1e5000000\"",
+                "1000000000000000000", "0.001", "1e-3")) {
+            HttpResponse<String> response = post("{\"grossIncome\": "
+                    + income + ", \"contractType\": \"E\"}");
+
+            assertEquals(400, response.statusCode(), income);
+            assertTrue(TaxJson.parseObject(response.body())
+                    .containsKey("error"));
+        }
+        assertEquals(200, post("{\"grossIncome\": 5e3,"
+                + " \"contractType\": \"E\"}").statusCode());
+    }
+
+    /**
+     * Test only POST is accepted.
+     */
+    @Test
+    void testGetNotAllowed() throws Exception {
+        HttpResponse<String> response = client.send(
+                HttpRequest.newBuilder(uri).GET().build(),
+                HttpResponse.BodyHandlers.ofString());
+
+        assertEquals(405, response.statusCode());
+        assertEquals("POST",
+                response.headers().firstValue("Allow").orElseThrow());
+    }
+
+    /**
+     * Test concurrent requests share the calculator.
+     */
+    @Test
+    void testConcurrentRequests() {
+        List<CompletableFuture<HttpResponse<String>>> responses =
+                new ArrayList<>();
+        for (int income = 1000; income < 1200; income++) {
+            responses.add(client.sendAsync(HttpRequest.newBuilder(uri)
+                            .POST(HttpRequest.BodyPublishers.ofString(
+                                    "{\"grossIncome\":" + income
+                                            + ",\"contractType\":\"E\"}"))
+                            .build(),
+                    HttpResponse.BodyHandlers.ofString()));
+        }
+
+        int income = 1000;
+        for (CompletableFuture<HttpResponse<String>> response : responses) {
+            Map<String, String> values =
+                    TaxJson.parseObject(response.join().body());
+            assertEquals(String.valueOf(income++), values.get("grossIncome"));
+        }
+    }
+
+    /**
+     * Test null arguments are rejected.
+     */
+    @Test
+    void testInvalidArguments() {
+        assertThrows(IllegalArgumentException.class,
+                () -> TaxHttpServer.start(null, new InetSocketAddress(0)));
+        assertThrows(IllegalArgumentException.class,
+                () -> TaxHttpServer.start(calculator, null));
+    }
+}
@@ -10,6 +10,7 @@ import java.math.BigDecimal;
 import java.nio.charset.StandardCharsets;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 
 /**
@@ -212,6 +213,64 @@ class TaxInputReaderTest {
         assertEquals(ContractType.EMPLOYMENT, type);
     }
 
+    /**
+     * Test readPayrollEntry with valid lines.
+     */
+    @Test
+    void testReadPayrollEntry() throws IOException {
+        inputStream = new ByteArrayInputStream(
+                "# header\n\n12, 5000.50 ,c\n".getBytes(
+                        StandardCharsets.UTF_8));
+        reader = new TaxInputReader(inputStream);
+
+        PayrollEntry entry = reader.readPayrollEntry(
+                TaxInputReader.DEFAULT_DELIMITER);
+        assertEquals(12, entry.employeeId());
+        assertEquals(new BigDecimal("5000.50"), entry.grossIncome());
+        assertEquals(ContractType.CIVIL, entry.contractType());
+        assertNull(reader.readPayrollEntry(
+                TaxInputReader.DEFAULT_DELIMITER));
+    }
+
+    /**
+     * Test readPayrollEntry with missing fields.
+     */
+    @Test
+    void testReadPayrollEntryWithMissingFields() {
+        inputStream = new ByteArrayInputStream("12,5000\n".getBytes(
+                StandardCharsets.UTF_8));
+        reader = new TaxInputReader(inputStream);
+
+        assertThrows(IllegalArgumentException.class,
+                () -> reader.readPayrollEntry(','));
+    }
+
+    /**
+     * Test readPayrollEntry with invalid employee id.
+     */
+    @Test
+    void testReadPayrollEntryWithInvalidEmployeeId() {
+        inputStream = new ByteArrayInputStream("x,5000,E\n".getBytes(
+                StandardCharsets.UTF_8));
+        reader = new TaxInputReader(inputStream);
+
+        assertThrows(IllegalArgumentException.class,
+                () -> reader.readPayrollEntry(','));
+    }
+
+    /**
+     * Test readPayrollEntry with negative income.
+     */
+    @Test
+    void testReadPayrollEntryWithNegativeIncome() {
+        inputStream = new ByteArrayInputStream("1,-5,E\n".getBytes(
+                StandardCharsets.UTF_8));
+        reader = new TaxInputReader(inputStream);
+
+        assertThrows(IllegalArgumentException.class,
+                () -> reader.readPayrollEntry(','));
+    }
+
     /**
      * Test close method.
      */
@@ -0,0 +1,77 @@
+package com.bartoszwalter.students.taxes;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.math.BigDecimal;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests for TaxJson class.
+ */
+class TaxJsonTest {
+
+    /**
+     * Test flat objects of strings and numbers are parsed.
+     */
+    @Test
+    void testParseObject() {
+        Map<String, String> values = TaxJson.parseObject(
+                " { \"grossIncome\" : 5000.50 , \"contractType\":\"C\\u0069\","
+                        + " \"note\": \"a\\\"b\\\\c\\n\" } ");
+
+        assertEquals(Map.of("grossIncome", "5000.50", "contractType", "Ci",
+                "note", "a\"b\\c\n"), values);
+        assertEquals(Map.of(), TaxJson.parseObject("{}"));
+    }
+
+    /**
+     * Test malformed or unsupported JSON is rejected.
+     *
+     * @param json the invalid JSON
+     */
+    @ParameterizedTest
+    @ValueSource(strings = {"", "[]", "{", "{\"a\"}", "{\"a\":}",
+            "{\"a\":true}", "{\"a\":{}}", "{\"a\":1,}", "{\"a\":1} x",
+            "{\"a\":1,\"a\":2}", "{\"a\":\"\\x\"}", "{\"a\":\"\\u12\"}",
+            "{\"a\":\"open}"})
+    void testParseInvalidObject(final String json) {
+        assertThrows(IllegalArgumentException.class,
+                () -> TaxJson.parseObject(json));
+    }
+
+    /**
+     * Test results are serialized with one number per field.
+     */
+    @Test
+    void testToJson() {
+        TaxResult result = new TaxCalculator().calculateTax(
+                new BigDecimal("5000"), ContractType.EMPLOYMENT);
+
+        String json = TaxJson.toJson(result, ContractType.EMPLOYMENT);
+        Map<String, String> values = TaxJson.parseObject(json);
+
+        assertEquals("EMPLOYMENT", values.get("contractType"));
+        assertEquals(TaxField.values().length + 1, values.size());
+        for (TaxField field : TaxField.values()) {
+            assertEquals(field.valueOf(result).toPlainString(),
+                    values.get(TaxJson.camelCase(field)));
+        }
+        assertTrue(json.contains("\"netIncome\":"));
+    }
+
+    /**
+     * Test error messages are escaped.
+     */
+    @Test
+    void testError() {
+        assertEquals("{\"error\":\"bad \\\"x\\\"\\u000a\"}",
+                TaxJson.error("bad \"x\"\n"));
+        assertEquals("{\"error\":\"null\"}", TaxJson.error(null));
+    }
+}
@@ -0,0 +1,149 @@
+package com.bartoszwalter.students.taxes;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.math.BigDecimal;
+import javax.management.Attribute;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.openmbean.CompositeData;
+import javax.management.openmbean.TabularData;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests for TaxMetrics class.
+ */
+class TaxMetricsTest {
+
+    /**
+     * Starts every test with empty histograms and recording off.
+     */
+    @BeforeEach
+    void setUp() {
+        TaxMetrics.setEnabled(false);
+        TaxMetrics.reset();
+    }
+
+    /**
+     * Turns recording off for the other tests.
+     */
+    @AfterEach
+    void tearDown() {
+        TaxMetrics.setEnabled(false);
+        TaxMetrics.reset();
+    }
+
+    /**
+     * Test nothing is recorded while disabled.
+     */
+    @Test
+    void testDisabledRecordsNothing() {
+        assertEquals(TaxMetrics.NOT_TIMED, TaxMetrics.start());
+
+        new TaxCalculator().calculateTax(new BigDecimal("5000"),
+                ContractType.EMPLOYMENT);
+
+        assertTrue(TaxMetrics.summaries().isEmpty());
+        assertEquals("", TaxMetrics.dump());
+    }
+
+    /**
+     * Test each stage of a BigDecimal calculation is recorded.
+     */
+    @Test
+    void testStagesRecorded() {
+        TaxMetrics.setEnabled(true);
+        TaxCalculator calculator = new TaxCalculator();
+        TaxResultFormatter formatter = new TaxResultFormatter();
+
+        for (int i = 0; i < 3; i++) {
+            TaxResult result = calculator.calculateTax(
+                    new BigDecimal("5000"), ContractType.CIVIL);
+            formatter.format(result, ContractType.CIVIL,
+                    new StringBuilder());
+        }
+
+        for (CalculationStage stage : CalculationStage.values()) {
+            LatencySummary summary =
+                    TaxMetrics.summary(ContractType.CIVIL, stage);
+            assertEquals(3, summary.getCount(), stage.name());
+            assertTrue(summary.getMaxNanos() >= summary.getP50Nanos());
+            assertEquals(0, TaxMetrics.summary(ContractType.EMPLOYMENT,
+                    stage).getCount());
+        }
+        assertEquals(CalculationStage.values().length,
+                TaxMetrics.summaries().size());
+        assertTrue(TaxMetrics.dump()
+                .contains("CIVIL.SOCIAL_CONTRIBUTIONS count=3 "));
+    }
+
+    /**
+     * Test fixed-point calculations record their total.
+     */
+    @Test
+    void testFixedPointTotalRecorded() {
+        TaxMetrics.setEnabled(true);
+        TaxCalculator calculator =
+                new TaxCalculator(FixedPointTaxStrategy.strategies());
+
+        calculator.calculateTax(500_000, ContractType.EMPLOYMENT,
+                new MutableTaxResult());
+
+        assertEquals(1, TaxMetrics.summary(ContractType.EMPLOYMENT,
+                CalculationStage.TOTAL).getCount());
+        assertEquals(0, TaxMetrics.summary(ContractType.EMPLOYMENT,
+                CalculationStage.SOCIAL_CONTRIBUTIONS).getCount());
+    }
+
+    /**
+     * Test summary rejects null arguments.
+     */
+    @Test
+    void testSummaryNullArguments() {
+        assertThrows(IllegalArgumentException.class,
+                () -> TaxMetrics.summary(null, CalculationStage.TOTAL));
+        assertThrows(IllegalArgumentException.class,
+                () -> TaxMetrics.summary(ContractType.CIVIL, null));
+    }
+
+    /**
+     * Test the management bean exposes and controls the recorder.
+     *
+     * @throws Exception if the bean cannot be accessed
+     */
+    @Test
+    void testMBean() throws Exception {
+        TaxMetrics.registerMBean();
+        TaxMetrics.registerMBean();
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName name = new ObjectName(TaxMetrics.OBJECT_NAME);
+
+        assertFalse((Boolean) server.getAttribute(name, "Enabled"));
+        server.setAttribute(name, new Attribute("Enabled", true));
+        assertTrue(TaxMetrics.isEnabled());
+
+        new TaxCalculator().calculateTax(new BigDecimal("5000"),
+                ContractType.EMPLOYMENT);
+
+        TabularData latencies =
+                (TabularData) server.getAttribute(name, "Latencies");
+        CompositeData total = latencies.get(
+                new Object[] {"EMPLOYMENT.TOTAL"});
+        assertNotNull(total);
+        CompositeData summary = (CompositeData) total.get("value");
+        assertEquals(1L, summary.get("count"));
+        assertTrue(((String) server.invoke(name, "dump", null, null))
+                .contains("EMPLOYMENT.TOTAL count=1 "));
+
+        server.invoke(name, "reset", null, null);
+        assertTrue(TaxMetrics.summaries().isEmpty());
+    }
+}
@@ -0,0 +1,147 @@
+package com.bartoszwalter.students.taxes;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.List;
+import java.util.function.Consumer;
+
+import jdk.jfr.FlightRecorder;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests for TaxProfiler class and the stage events it records.
+ */
+class TaxProfilerTest {
+
+    /**
+     * Test the report counts the events of each stage.
+     *
+     * @throws IOException if processing fails
+     */
+    @Test
+    void testReportCountsStages() throws IOException {
+        String report;
+        try (TaxProfiler profiler = TaxProfiler.start()) {
+            new PayrollFileProcessor(new TaxCalculator()).process(
+                    new BufferedReader(new StringReader(
+                            "1,5000,E\n2,3000,C\n# comment\n3,100,E\n")),
+                    new StringWriter());
+            new TaxResultFormatter().format(
+                    new TaxCalculator().calculateTax(new BigDecimal("5000"),
+                            ContractType.EMPLOYMENT),
+                    ContractType.EMPLOYMENT, new StringBuilder());
+            report = profiler.report();
+        }
+
+        assertTrue(report.matches("(?s).*Input parsing +3 .*"), report);
+        assertTrue(report.matches("(?s).*Calculation +4 .*"), report);
+        assertTrue(report.matches("(?s).*Formatting +4 .*"), report);
+        assertTrue(report.contains("Run time "), report);
+    }
+
+    /**
+     * Test calculation events carry the contract type and allocation.
+     *
+     * @param tempDir the directory of the recording file
+     * @throws IOException if the recording cannot be written
+     */
+    @Test
+    void testCalculationEventFields(@TempDir final Path tempDir)
+            throws IOException {
+        List<RecordedEvent> events = record(tempDir,
+                recording -> recording.enable(CalculationEvent.NAME),
+                () -> new TaxCalculator().calculateTax(
+                        new BigDecimal("5000"), ContractType.CIVIL));
+
+        assertEquals(1, events.size());
+        RecordedEvent event = events.get(0);
+        assertEquals("CIVIL", event.getString("contractType"));
+        assertTrue(event.getLong("allocated") > 0);
+    }
+
+    /**
+     * Test events disabled by a recording are not recorded.
+     *
+     * @param tempDir the directory of the recording file
+     * @throws IOException if the recording cannot be written
+     */
+    @Test
+    void testDisabledEventsNotRecorded(@TempDir final Path tempDir)
+            throws IOException {
+        List<RecordedEvent> events = record(tempDir,
+                recording -> recording.disable(CalculationEvent.NAME),
+                () -> new TaxCalculator().calculateTax(
+                        new BigDecimal("5000"), ContractType.CIVIL));
+
+        assertTrue(events.isEmpty());
+    }
+
+    /**
+     * Test events are not allocated while no recording enables them.
+     */
+    @Test
+    void testIdleEventShared() {
+        assertSame(CalculationEvent.start(ContractType.CIVIL),
+                CalculationEvent.start(ContractType.EMPLOYMENT));
+        assertSame(InputParsingEvent.start(1), InputParsingEvent.start(2));
+    }
+
+    /**
+     * Test stage timers hand out the events once Flight Recorder runs.
+     */
+    @Test
+    void testStageTimerUsesEventsOnceRecorderInitialized() {
+        FlightRecorder.getFlightRecorder();
+
+        assertSame(CalculationEvent.start(ContractType.CIVIL),
+                StageTimer.calculation(ContractType.CIVIL));
+        assertSame(FormattingEvent.start(ContractType.CIVIL),
+                StageTimer.formatting(ContractType.EMPLOYMENT));
+        assertSame(InputParsingEvent.start(1), StageTimer.inputParsing(2));
+    }
+
+    /**
+     * Records the events of an action.
+     *
+     * @param tempDir the directory of the recording file
+     * @param settings the settings applied to the recording
+     * @param action the action to record
+     * @return the events of the calculator committed during the action
+     * @throws IOException if the recording cannot be written
+     */
+    private static List<RecordedEvent> record(final Path tempDir,
+                                              final Consumer<Recording>
+                                                      settings,
+                                              final Runnable action)
+            throws IOException {
+        Path file = tempDir.resolve("recording.jfr");
+        Instant started;
+        try (Recording recording = new Recording()) {
+            settings.accept(recording);
+            recording.start();
+            started = Instant.now();
+            action.run();
+            recording.stop();
+            recording.dump(file);
+        }
+        return RecordingFile.readAllEvents(file).stream()
+                .filter(event -> event.getEventType().getName()
+                        .startsWith("com.bartoszwalter."))
+                .filter(event -> !event.getStartTime().isBefore(started))
+                .toList();
+    }
+}
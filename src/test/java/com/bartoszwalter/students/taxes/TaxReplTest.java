@@ -0,0 +1,111 @@
+package com.bartoszwalter.students.taxes;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests for TaxRepl class.
+ */
+class TaxReplTest {
+
+    private final TaxCalculator calculator = new TaxCalculator();
+    private final TaxRepl repl = new TaxRepl(calculator);
+
+    /**
+     * Test every request line is answered on its own line.
+     */
+    @Test
+    void testServeAnswersEveryLine() throws IOException {
+        StringWriter output = new StringWriter();
+
+        long count = repl.serve(new BufferedReader(new StringReader(
+                "5000 E\n# comment\n\n  3000.50\tc  \n")), output);
+
+        assertEquals(2, count);
+        assertEquals(json("5000", ContractType.EMPLOYMENT) + "\n"
+                + json("3000.50", ContractType.CIVIL) + "\n",
+                output.toString());
+    }
+
+    /**
+     * Test invalid lines are answered with errors and the session goes on.
+     */
+    @Test
+    void testServeAnswersInvalidLinesWithErrors() throws IOException {
+        StringWriter output = new StringWriter();
+
+        long count = repl.serve(new BufferedReader(new StringReader(
+                "abc E\n5000\n5000 X\n-1 E\n100 C\n")), output);
+
+        assertEquals(5, count);
+        String[] answers = output.toString().split("\n");
+        assertEquals(TaxJson.error("Invalid income format: abc"),
+                answers[0]);
+        assertEquals(TaxJson.error("Expected an income and a contract type"),
+                answers[1]);
+        assertEquals(TaxJson.error("Unknown contract type: X"), answers[2]);
+        assertEquals(TaxJson.error("Income cannot be negative"), answers[3]);
+        assertEquals(json("100", ContractType.CIVIL), answers[4]);
+    }
+
+    /**
+     * Test overlong lines and out-of-range incomes are answered with
+     * errors and the session goes on.
+     */
+    @Test
+    void testServeRejectsOversizedRequests() throws IOException {
+        StringWriter output = new StringWriter();
+        String longLine = "5".repeat(TaxRepl.MAX_LINE_CHARS + 1) + " E";
+        String longest = " ".repeat(TaxRepl.MAX_LINE_CHARS - 6) + "5000 E";
+
+        long count = repl.serve(new BufferedReader(new StringReader(
+                longLine + "\n1e5000000 E\n0.001 C\n" + longest
+                        + "\r\n100 C\r\n")), output);
+
+        assertEquals(5, count);
+        String[] answers = output.toString().split("\n");
+        assertEquals(TaxJson.error("Line must be at most "
+                + TaxRepl.MAX_LINE_CHARS + " characters"), answers[0]);
+        assertTrue(TaxJson.parseObject(answers[1]).containsKey("error"));
+        assertTrue(TaxJson.parseObject(answers[2]).containsKey("error"));
+        assertEquals(json("5000", ContractType.EMPLOYMENT), answers[3]);
+        assertEquals(json("100", ContractType.CIVIL), answers[4]);
+    }
+
+    /**
+     * Test blank and comment lines get no answer.
+     */
+    @Test
+    void testAnswerSkipsBlankAndCommentLines() {
+        assertNull(repl.answer("   "));
+        assertNull(repl.answer(" # 5000 E"));
+    }
+
+    /**
+     * Test constructor rejects null calculator.
+     */
+    @Test
+    void testNullCalculatorThrows() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new TaxRepl(null));
+    }
+
+    /**
+     * Returns the expected answer for an income.
+     */
+    private String json(final String income,
+                        final ContractType contractType) {
+        return TaxJson.toJson(calculator.calculateTax(
+                new BigDecimal(income), contractType), contractType);
+    }
+}
@@ -0,0 +1,85 @@
+package com.bartoszwalter.students.taxes;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Assertions comparing tax results field by field, including the scale
+ * of every BigDecimal, with the BigDecimal strategies as the reference.
+ */
+final class TaxResultAssertions {
+
+    private TaxResultAssertions() {
+    }
+
+    /**
+     * Creates the BigDecimal strategy for a contract type with the
+     * default rates.
+     */
+    static TaxCalculationStrategy reference(final ContractType type) {
+        return reference(type, RatePlan.DEFAULT);
+    }
+
+    /**
+     * Creates the BigDecimal strategy for a contract type and rate plan.
+     */
+    static TaxCalculationStrategy reference(final ContractType type,
+                                            final RatePlan plan) {
+        if (type == ContractType.EMPLOYMENT) {
+            return new EmploymentContractStrategy(plan);
+        }
+        return new CivilContractStrategy(plan);
+    }
+
+    /**
+     * Asserts that a strategy matches the BigDecimal strategy for every
+     * step of a range of incomes in grosze.
+     */
+    static void assertMatchesReference(final TaxCalculationStrategy actual,
+                                       final ContractType type,
+                                       final RatePlan plan,
+                                       final long fromCents,
+                                       final long toCents,
+                                       final long stepCents) {
+        TaxCalculationStrategy expected = reference(type, plan);
+        for (long cents = fromCents; cents <= toCents; cents += stepCents) {
+            BigDecimal income = BigDecimal.valueOf(cents, 2);
+            assertSameResult(expected.calculateTax(income),
+                    actual.calculateTax(income));
+        }
+    }
+
+    /**
+     * Asserts that two results hold identical values.
+     */
+    static void assertSameResult(final TaxResult expected,
+                                 final TaxResult actual) {
+        String income = expected.grossIncome().toPlainString();
+        assertEquals(expected.grossIncome(), actual.grossIncome(), income);
+        assertEquals(expected.socialContributions().getSocialSecurity(),
+                actual.socialContributions().getSocialSecurity(), income);
+        assertEquals(
+                expected.socialContributions().getHealthSocialSecurity(),
+                actual.socialContributions().getHealthSocialSecurity(),
+                income);
+        assertEquals(
+                expected.socialContributions().getSicknessSocialSecurity(),
+                actual.socialContributions().getSicknessSocialSecurity(),
+                income);
+        assertEquals(expected.healthInsurance().getFullRate(),
+                actual.healthInsurance().getFullRate(), income);
+        assertEquals(expected.healthInsurance().getDeductibleRate(),
+                actual.healthInsurance().getDeductibleRate(), income);
+        assertEquals(expected.taxDeductibleExpenses(),
+                actual.taxDeductibleExpenses(), income);
+        assertEquals(expected.taxableIncome(), actual.taxableIncome(),
+                income);
+        assertEquals(expected.advanceTax(), actual.advanceTax(), income);
+        assertEquals(expected.taxFreeIncome(), actual.taxFreeIncome(),
+                income);
+        assertEquals(expected.finalTax(), actual.finalTax(), income);
+        assertEquals(expected.netIncome(), actual.netIncome(), income);
+        assertEquals(expected.rateVersion(), actual.rateVersion(), income);
+    }
+}
@@ -0,0 +1,38 @@
+package com.bartoszwalter.students.taxes;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Tests for TaxResultColumns class.
+ */
+class TaxResultColumnsTest {
+
+    /**
+     * Test values are stored per field and row.
+     */
+    @Test
+    void testSetAndGet() {
+        TaxResultColumns columns = new TaxResultColumns(3);
+
+        columns.set(TaxField.NET_INCOME, 2, 42);
+
+        assertEquals(3, columns.size());
+        assertEquals(42, columns.get(TaxField.NET_INCOME, 2));
+        assertEquals(0, columns.get(TaxField.FINAL_TAX, 2));
+        assertSame(columns.column(TaxField.NET_INCOME),
+                columns.column(TaxField.NET_INCOME));
+    }
+
+    /**
+     * Test negative size is rejected.
+     */
+    @Test
+    void testNegativeSize() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new TaxResultColumns(-1));
+    }
+}
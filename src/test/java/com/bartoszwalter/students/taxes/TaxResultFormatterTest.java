@@ -6,10 +6,15 @@ import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.ValueSource;
 
 import java.math.BigDecimal;
+import java.util.List;
 import java.util.logging.Handler;
+import java.util.logging.Level;
 import java.util.logging.LogRecord;
 import java.util.logging.Logger;
+import java.util.stream.IntStream;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
@@ -142,6 +147,66 @@ class TaxResultFormatterTest {
 		assertTrue(logHandler.hasLoggedMessage("Net Income"));
 	}
 
+	/**
+	 * Test format appends one line per logged message.
+	 */
+	@Test
+	void testFormatMatchesDisplayedLines() {
+		TaxResult result = createSampleEmploymentResult();
+		StringBuilder text = new StringBuilder();
+
+		formatter.format(result, ContractType.EMPLOYMENT, text);
+
+		String[] lines = text.toString().split(System.lineSeparator(), -1);
+		assertEquals("Contract Type: EMPLOYMENT", lines[0]);
+		assertEquals("Gross Income: 5000.00", lines[1]);
+		assertTrue(text.toString().contains("Reduced tax"));
+		assertTrue(text.toString().endsWith(System.lineSeparator()
+				+ System.lineSeparator()));
+	}
+
+	/**
+	 * Test nothing is formatted when information messages are not
+	 * logged: the result is not even read.
+	 */
+	@Test
+	void testDisplayResultSkippedWhenInfoDisabled() {
+		Logger logger = Logger.getLogger(
+				TaxResultFormatter.class.getName());
+		Level level = logger.getLevel();
+		logger.setLevel(Level.WARNING);
+		try {
+			formatter.displayResult(null, ContractType.EMPLOYMENT);
+		} finally {
+			logger.setLevel(level);
+		}
+
+		assertFalse(logHandler.hasLoggedMessage("Contract Type"));
+	}
+
+	/**
+	 * Test one formatter can be shared by concurrent threads.
+	 */
+	@Test
+	void testFormatIsThreadSafe() {
+		TaxResult result = createLargeValueResult();
+		StringBuilder expected = new StringBuilder();
+		formatter.format(result, ContractType.EMPLOYMENT, expected);
+
+		List<String> texts = IntStream.range(0, 10_000).parallel()
+				.mapToObj(i -> {
+					StringBuilder text = new StringBuilder();
+					formatter.format(result, ContractType.EMPLOYMENT,
+							text);
+					return text.toString();
+				})
+				.toList();
+
+		for (String text : texts) {
+			assertEquals(expected.toString(), text);
+		}
+	}
+
 	/**
 	 * Test constructor creates formatter.
 	 */
@@ -170,7 +235,8 @@ class TaxResultFormatterTest {
 				new BigDecimal("879.98"),
 				TaxRates.TAX_FREE_INCOME,
 				new BigDecimal("356"),
-				new BigDecimal("4093.90")
+				new BigDecimal("4093.90"),
+				RatePlan.DEFAULT.getVersion()
 		);
 	}
 
@@ -194,7 +260,8 @@ class TaxResultFormatterTest {
 				new BigDecimal("621.18"),
 				BigDecimal.ZERO,
 				new BigDecimal("220"),
-				new BigDecimal("4093.90")
+				new BigDecimal("4093.90"),
+				RatePlan.DEFAULT.getVersion()
 		);
 	}
 
@@ -217,7 +284,8 @@ class TaxResultFormatterTest {
 				BigDecimal.ZERO,
 				BigDecimal.ZERO,
 				BigDecimal.ZERO,
-				BigDecimal.ZERO
+				BigDecimal.ZERO,
+				RatePlan.DEFAULT.getVersion()
 		);
 	}
 
@@ -240,7 +308,8 @@ class TaxResultFormatterTest {
 				new BigDecimal("8979.98"),
 				TaxRates.TAX_FREE_INCOME,
 				new BigDecimal("5056"),
-				new BigDecimal("40393.90")
+				new BigDecimal("40393.90"),
+				RatePlan.DEFAULT.getVersion()
 		);
 	}
 
@@ -0,0 +1,136 @@
+package com.bartoszwalter.students.taxes;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import java.lang.management.ManagementFactory;
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests for calculating into a TaxResultSink.
+ */
+class TaxResultSinkTest {
+
+    private static final int RECORDS = 200_000;
+
+    /**
+     * Batches run before measuring, so that recompilations triggered by
+     * the profiles of earlier tests happen outside the measured batch.
+     */
+    private static final int WARM_UP_BATCHES = 3;
+
+    /**
+     * Returns the bytes allocated so far by the current thread.
+     */
+    private static long allocatedBytes() {
+        return ((com.sun.management.ThreadMXBean)
+                ManagementFactory.getThreadMXBean())
+                .getCurrentThreadAllocatedBytes();
+    }
+
+    /**
+     * Test the sink receives the same values as the TaxResult.
+     */
+    @ParameterizedTest
+    @EnumSource(ContractType.class)
+    void testSinkMatchesTaxResult(final ContractType type) {
+        TaxCalculator reference = new TaxCalculator();
+        TaxCalculator calculator =
+                new TaxCalculator(FixedPointTaxStrategy.strategies());
+        MutableTaxResult buffer = new MutableTaxResult();
+
+        for (long cents = 0; cents < 1_000_000; cents += 37) {
+            TaxResult expected = reference.calculateTax(
+                    BigDecimal.valueOf(cents, 2), type);
+            calculator.calculateTax(cents, type, buffer);
+            for (TaxField field : TaxField.values()) {
+                assertEquals(0, field.valueOf(expected)
+                        .compareTo(buffer.getDecimal(field)),
+                        field + " at " + cents);
+            }
+        }
+    }
+
+    /**
+     * Test the default implementation writes through a TaxResult.
+     */
+    @Test
+    void testDefaultImplementation() {
+        MutableTaxResult buffer = new MutableTaxResult();
+
+        new CivilContractStrategy().calculateTax(500_000, buffer);
+
+        TaxResult expected = new CivilContractStrategy().calculateTax(
+                new BigDecimal("5000.00"));
+        assertEquals(expected.netIncome(),
+                buffer.getDecimal(TaxField.NET_INCOME));
+        assertThrows(IllegalArgumentException.class,
+                () -> new CivilContractStrategy().calculateTax(1, null));
+    }
+
+    /**
+     * Test a steady-state batch loop allocates nothing per record. The
+     * result depends on JIT timing, so the test only runs in the
+     * {@code allocation} profile.
+     */
+    @Test
+    @Tag("allocation")
+    void testSteadyStateLoopDoesNotAllocate() {
+        TaxCalculator calculator =
+                new TaxCalculator(FixedPointTaxStrategy.strategies());
+        MutableTaxResult buffer = new MutableTaxResult();
+        ContractType[] types = ContractType.values();
+        for (int i = 0; i < WARM_UP_BATCHES; i++) {
+            runBatch(calculator, types, buffer);
+        }
+
+        long before = allocatedBytes();
+        long checksum = runBatch(calculator, types, buffer);
+        long allocated = allocatedBytes() - before;
+
+        assertTrue(checksum != 0);
+        assertTrue(allocated < 1024,
+                "Allocated " + allocated + " bytes for " + RECORDS
+                        + " records");
+    }
+
+    /**
+     * Runs a batch into a reused buffer.
+     */
+    private static long runBatch(final TaxCalculator calculator,
+                                 final ContractType[] types,
+                                 final MutableTaxResult buffer) {
+        long checksum = 0;
+        for (int i = 0; i < RECORDS; i++) {
+            calculator.calculateTax(100_000L + i * 13L,
+                    types[i & 1], buffer);
+            checksum += buffer.get(TaxField.NET_INCOME);
+        }
+        return checksum;
+    }
+
+    /**
+     * Test invalid arguments of the fixed-point sink path.
+     */
+    @Test
+    void testInvalidArguments() {
+        FixedPointTaxStrategy strategy =
+                new FixedPointTaxStrategy(ContractType.EMPLOYMENT);
+        MutableTaxResult buffer = new MutableTaxResult();
+
+        assertThrows(IllegalArgumentException.class,
+                () -> strategy.calculateTax(-1, buffer));
+        assertThrows(IllegalArgumentException.class,
+                () -> strategy.calculateTax(Long.MAX_VALUE, buffer));
+        assertThrows(IllegalArgumentException.class,
+                () -> strategy.calculateTax(1, null));
+        assertThrows(IllegalArgumentException.class,
+                () -> new TaxCalculator().calculateTax(1, null, buffer));
+    }
+}
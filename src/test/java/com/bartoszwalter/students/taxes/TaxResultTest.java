@@ -38,7 +38,8 @@ class TaxResultTest {
             advanceTax,
             taxFreeIncome,
             finalTax,
-            netIncome
+            netIncome,
+            RatePlan.DEFAULT.getVersion()
         );
 
         assertNotNull(result);
@@ -73,7 +74,8 @@ class TaxResultTest {
             new BigDecimal("879.98"),
             new BigDecimal("46.33"),
             new BigDecimal("356.00"),
-            new BigDecimal("4093.90")
+            new BigDecimal("4093.90"),
+            RatePlan.DEFAULT.getVersion()
         );
 
         String toString = result.toString();
@@ -100,7 +102,8 @@ class TaxResultTest {
             zero,
             zero,
             zero,
-            zero
+            zero,
+            RatePlan.DEFAULT.getVersion()
         );
 
         assertNotNull(result);
@@ -129,7 +132,8 @@ class TaxResultTest {
             new BigDecimal("17979.98"),
             new BigDecimal("46.33"),
             new BigDecimal("8934"),
-            new BigDecimal("81156.00")
+            new BigDecimal("81156.00"),
+            RatePlan.DEFAULT.getVersion()
         );
 
         assertNotNull(result);
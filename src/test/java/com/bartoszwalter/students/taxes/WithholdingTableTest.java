@@ -0,0 +1,187 @@
+package com.bartoszwalter.students.taxes;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Set;
+
+import static com.bartoszwalter.students.taxes.TaxResultAssertions.assertMatchesReference;
+import static com.bartoszwalter.students.taxes.TaxResultAssertions.assertSameResult;
+import static com.bartoszwalter.students.taxes.TaxResultAssertions.reference;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests for WithholdingTable class.
+ */
+class WithholdingTableTest {
+
+    @TempDir
+    private Path tempDir;
+
+    /**
+     * Test every income of the table matches the BigDecimal strategies.
+     */
+    @Test
+    void testRowsMatchReference() throws IOException {
+        Path path = generate(RatePlan.DEFAULT, 0, 20_000,
+                Set.of(ContractType.values()));
+
+        try (WithholdingTable table = WithholdingTable.open(path)) {
+            Map<ContractType, TaxCalculationStrategy> strategies =
+                    table.strategies();
+            for (ContractType type : ContractType.values()) {
+                assertMatchesReference(strategies.get(type), type,
+                        RatePlan.DEFAULT, 0, 2_000_000, 100);
+            }
+        }
+    }
+
+    /**
+     * Test the sink path reads the values of the fixed-point strategy.
+     */
+    @Test
+    void testSinkMatchesFixedPoint() throws IOException {
+        Path path = generate(RatePlan.DEFAULT, 1_000, 9_000,
+                Set.of(ContractType.values()));
+        MutableTaxResult expected = new MutableTaxResult();
+        MutableTaxResult actual = new MutableTaxResult();
+
+        try (WithholdingTable table = WithholdingTable.open(path)) {
+            Map<ContractType, TaxCalculationStrategy> strategies =
+                    table.strategies();
+            for (ContractType type : ContractType.values()) {
+                FixedPointTaxStrategy reference =
+                        new FixedPointTaxStrategy(type);
+                for (long cents = 0; cents <= 1_000_000; cents += 37) {
+                    reference.calculateTax(cents, expected);
+                    strategies.get(type).calculateTax(cents, actual);
+                    for (TaxField field : TaxField.values()) {
+                        assertEquals(expected.get(field), actual.get(field),
+                                type + " " + cents + " " + field);
+                    }
+                }
+            }
+            assertTrue(table.read(ContractType.CIVIL, 500_000, actual));
+            assertFalse(table.read(ContractType.CIVIL, 500_001, actual));
+            assertFalse(table.read(ContractType.CIVIL, 99_900, actual));
+            assertFalse(table.read(ContractType.CIVIL, 900_100, actual));
+        }
+    }
+
+    /**
+     * Test incomes outside the table are calculated by the fallback.
+     */
+    @Test
+    void testFallback() throws IOException {
+        Path path = generate(RatePlan.DEFAULT, 100, 200,
+                Set.of(ContractType.EMPLOYMENT));
+
+        try (WithholdingTable table = WithholdingTable.open(path)) {
+            Map<ContractType, TaxCalculationStrategy> strategies =
+                    table.strategies();
+            assertTrue(table.covers(ContractType.EMPLOYMENT));
+            assertFalse(table.covers(ContractType.CIVIL));
+            assertInstanceOf(FixedPointTaxStrategy.class,
+                    strategies.get(ContractType.CIVIL));
+            for (String gross : new String[] {"150.50", "150.001", "99",
+                    "201", "5000", "123456789.99"}) {
+                BigDecimal income = new BigDecimal(gross);
+                for (ContractType type : ContractType.values()) {
+                    assertSameResult(reference(type).calculateTax(income),
+                            strategies.get(type).calculateTax(income));
+                }
+            }
+            TaxCalculationStrategy strategy =
+                    strategies.get(ContractType.EMPLOYMENT);
+            assertThrows(IllegalArgumentException.class,
+                    () -> strategy.calculateTax(BigDecimal.ONE.negate()));
+            assertThrows(IllegalArgumentException.class,
+                    () -> strategy.calculateTax(-100, new MutableTaxResult()));
+            assertThrows(IllegalArgumentException.class,
+                    () -> strategy.calculateTax(100, null));
+        }
+    }
+
+    /**
+     * Test the header describes the table.
+     */
+    @Test
+    void testHeader() throws IOException {
+        RatePlan plan = RatePlan.compile(RatePlanTest.table2022());
+        Path path = generate(plan, 10, 19, Set.of(ContractType.CIVIL));
+
+        assertEquals(WithholdingTable.HEADER_BYTES
+                + plan.getVersion().length()
+                + 10L * WithholdingTable.ROW_BYTES, Files.size(path));
+        try (WithholdingTable table = WithholdingTable.open(path)) {
+            assertEquals(plan.getVersion(), table.getRateVersion());
+            assertEquals(10, table.getFromZloty());
+            assertEquals(19, table.getToZloty());
+            assertEquals(2, table.strategies(plan).size());
+            assertThrows(IllegalArgumentException.class,
+                    () -> table.strategies());
+
+            BigDecimal beyond = BigDecimal.valueOf(plan.getMaxCents() + 1, 2);
+            assertSameResult(reference(ContractType.CIVIL, plan)
+                            .calculateTax(beyond),
+                    table.strategies(plan).get(ContractType.CIVIL)
+                            .calculateTax(beyond));
+        }
+    }
+
+    /**
+     * Test invalid ranges and files are rejected.
+     */
+    @Test
+    void testInvalidTables() throws IOException {
+        Path path = tempDir.resolve("invalid.bin");
+        Set<ContractType> types = Set.of(ContractType.values());
+
+        assertThrows(IllegalArgumentException.class,
+                () -> WithholdingTable.generate(path, RatePlan.DEFAULT, 10, 9,
+                        types));
+        assertThrows(IllegalArgumentException.class,
+                () -> WithholdingTable.generate(path, RatePlan.DEFAULT, -1, 9,
+                        types));
+        assertThrows(IllegalArgumentException.class,
+                () -> WithholdingTable.generate(path, RatePlan.DEFAULT, 0, 9,
+                        Set.of()));
+        assertThrows(IllegalArgumentException.class,
+                () -> WithholdingTable.generate(path, RatePlan.DEFAULT,
+                        30_000_000, 30_000_001, types));
+        assertThrows(IllegalArgumentException.class,
+                () -> WithholdingTable.open(null));
+
+        Files.write(path, new byte[WithholdingTable.HEADER_BYTES]);
+        assertThrows(IllegalArgumentException.class,
+                () -> WithholdingTable.open(path));
+
+        Path valid = generate(RatePlan.DEFAULT, 0, 9, types);
+        byte[] bytes = Files.readAllBytes(valid);
+        Files.write(path, Arrays.copyOf(bytes, bytes.length - 1));
+        assertThrows(IllegalArgumentException.class,
+                () -> WithholdingTable.open(path));
+    }
+
+    /**
+     * Generates a table in the temporary directory.
+     */
+    private Path generate(final RatePlan plan, final long from,
+                          final long to, final Set<ContractType> types)
+            throws IOException {
+        Path path = tempDir.resolve("table-" + from + "-" + to + ".bin");
+        assertEquals((to - from + 1) * types.size(),
+                WithholdingTable.generate(path, plan, from, to, types));
+        return path;
+    }
+}
@@ -0,0 +1,186 @@
+package com.bartoszwalter.students.taxes;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests for YearToDateAccumulator class.
+ */
+class YearToDateAccumulatorTest {
+
+    private final TaxCalculator calculator = new TaxCalculator();
+
+    /**
+     * Test twelve months add up to the sums of every field.
+     */
+    @Test
+    void testTotalsMatchSums() {
+        YearToDateAccumulator accumulator = new YearToDateAccumulator();
+        BigDecimal[] expected = new BigDecimal[TaxField.values().length];
+        Arrays.fill(expected, BigDecimal.ZERO);
+
+        for (int month = 1; month <= 12; month++) {
+            TaxResult result = calculator.calculateTax(
+                    BigDecimal.valueOf(4000 + month * 250L),
+                    ContractType.EMPLOYMENT);
+            accumulator.add(42L, result);
+            for (TaxField field : TaxField.values()) {
+                expected[field.ordinal()] = expected[field.ordinal()]
+                        .add(field.valueOf(result));
+            }
+        }
+
+        for (TaxField field : TaxField.values()) {
+            assertEquals(0, expected[field.ordinal()].compareTo(
+                    accumulator.getDecimal(42L, field)), field.name());
+        }
+        assertEquals(1, accumulator.size());
+    }
+
+    /**
+     * Test the allocation-free path matches the TaxResult path.
+     */
+    @Test
+    void testMutableResultMatchesTaxResult() {
+        YearToDateAccumulator fromResults = new YearToDateAccumulator();
+        YearToDateAccumulator fromBuffers = new YearToDateAccumulator();
+        FixedPointTaxStrategy strategy =
+                new FixedPointTaxStrategy(ContractType.CIVIL);
+        MutableTaxResult buffer = new MutableTaxResult();
+
+        for (long gross = 0; gross < 500_000; gross += 7_919) {
+            strategy.calculateTax(gross, buffer);
+            fromBuffers.add(gross % 5, buffer);
+            fromResults.add(gross % 5, calculator.calculateTax(
+                    BigDecimal.valueOf(gross, 2), ContractType.CIVIL));
+        }
+
+        for (long id = 0; id < 5; id++) {
+            for (TaxField field : TaxField.values()) {
+                assertEquals(fromResults.get(id, field),
+                        fromBuffers.get(id, field));
+            }
+        }
+    }
+
+    /**
+     * Test many employees, including negative and sparse ids, keep
+     * separate totals.
+     */
+    @Test
+    void testManyEmployees() {
+        YearToDateAccumulator accumulator = new YearToDateAccumulator(
+                EnumSet.of(TaxField.GROSS_INCOME));
+        MutableTaxResult month = new MutableTaxResult();
+
+        for (int i = 0; i < 200_000; i++) {
+            month.accept(TaxField.GROSS_INCOME, i);
+            accumulator.add(id(i), month);
+            accumulator.add(id(i), month);
+        }
+
+        assertEquals(200_000, accumulator.size());
+        for (int i = 0; i < 200_000; i++) {
+            assertEquals(2L * i, accumulator.get(id(i), TaxField.GROSS_INCOME));
+        }
+        assertFalse(accumulator.contains(id(200_000)));
+    }
+
+    /**
+     * Spreads test ids over the whole long range.
+     */
+    private static long id(final int i) {
+        return (i % 2 == 0 ? -1L : 1L) * i * 1_000_003L;
+    }
+
+    /**
+     * Test unknown employees have zero totals and limits are fully left.
+     */
+    @Test
+    void testUnknownEmployeeAndRemaining() {
+        YearToDateAccumulator accumulator = new YearToDateAccumulator(
+                Set.of(TaxField.GROSS_INCOME, TaxField.SOCIAL_SECURITY));
+        MutableTaxResult month = new MutableTaxResult();
+        month.accept(TaxField.GROSS_INCOME, 600_000);
+
+        assertEquals(0, accumulator.get(7L, TaxField.GROSS_INCOME));
+        assertEquals(1_000_000, accumulator.remainingUntil(7L,
+                TaxField.GROSS_INCOME, 1_000_000));
+
+        accumulator.add(7L, month);
+        assertEquals(400_000, accumulator.remainingUntil(7L,
+                TaxField.GROSS_INCOME, 1_000_000));
+        accumulator.add(7L, month);
+        assertEquals(0, accumulator.remainingUntil(7L,
+                TaxField.GROSS_INCOME, 1_000_000));
+        assertTrue(accumulator.contains(7L));
+    }
+
+    /**
+     * Test clearing starts a new year.
+     */
+    @Test
+    void testClear() {
+        YearToDateAccumulator accumulator = new YearToDateAccumulator();
+        TaxResult result = calculator.calculateTax(new BigDecimal("5000"),
+                ContractType.EMPLOYMENT);
+        accumulator.add(1L, result);
+
+        accumulator.clear();
+
+        assertEquals(0, accumulator.size());
+        assertFalse(accumulator.contains(1L));
+        accumulator.add(1L, result);
+        assertEquals(new BigDecimal("5000.00"),
+                accumulator.getDecimal(1L, TaxField.GROSS_INCOME));
+    }
+
+    /**
+     * Test an overflowing month leaves the totals unchanged.
+     */
+    @Test
+    void testOverflowLeavesTotalsUnchanged() {
+        YearToDateAccumulator accumulator = new YearToDateAccumulator(
+                EnumSet.of(TaxField.GROSS_INCOME, TaxField.NET_INCOME));
+        MutableTaxResult month = new MutableTaxResult();
+        month.accept(TaxField.GROSS_INCOME, 1);
+        month.accept(TaxField.NET_INCOME, Long.MAX_VALUE);
+        accumulator.add(1L, month);
+
+        assertThrows(ArithmeticException.class,
+                () -> accumulator.add(1L, month));
+        assertEquals(1, accumulator.get(1L, TaxField.GROSS_INCOME));
+    }
+
+    /**
+     * Test invalid arguments are rejected.
+     */
+    @Test
+    void testInvalidArguments() {
+        YearToDateAccumulator accumulator = new YearToDateAccumulator(
+                EnumSet.of(TaxField.GROSS_INCOME));
+
+        assertThrows(IllegalArgumentException.class,
+                () -> new YearToDateAccumulator(null));
+        assertThrows(IllegalArgumentException.class,
+                () -> new YearToDateAccumulator(
+                        EnumSet.noneOf(TaxField.class)));
+        assertThrows(IllegalArgumentException.class,
+                () -> accumulator.add(1L, (TaxResult) null));
+        assertThrows(IllegalArgumentException.class,
+                () -> accumulator.add(1L, (MutableTaxResult) null));
+        assertThrows(IllegalArgumentException.class,
+                () -> accumulator.get(1L, TaxField.NET_INCOME));
+        assertThrows(IllegalArgumentException.class,
+                () -> accumulator.get(1L, null));
+    }
+}